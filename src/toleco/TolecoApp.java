@@ -2,6 +2,8 @@ package toleco;
 
 import toleco.controller.I_Controller;
 import toleco.logic.GameBoard;
+import toleco.logic.GameJournal;
+import toleco.logic.GameReplay;
 import toleco.view.I_GameView;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
@@ -9,6 +11,7 @@ import java.awt.event.KeyEvent;
 import java.io.File;
 import java.util.Observable;
 import java.util.Scanner;
+import java.util.concurrent.Executor;
 import javax.swing.ImageIcon;
 import javax.swing.JButton;
 import javax.swing.JFileChooser;
@@ -18,11 +21,18 @@ import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTextArea;
+import javax.swing.Timer;
 import javax.swing.UIManager;
 import javax.swing.filechooser.FileNameExtensionFilter;
+import toleco.ai.AlphaBetaSearch;
+import toleco.ai.ComputerPlayer;
+import toleco.ai.I_Search;
+import toleco.ai.MctsSearch;
 import toleco.controller.EditorController;
 import toleco.controller.GameController;
+import toleco.controller.Player;
 import toleco.view.ConsoleGameView;
+import toleco.view.gui.AssetManager;
 import toleco.view.gui.SwingGameView;
 import toleco.view.gui.editor.EditorGameView;
 
@@ -67,6 +77,11 @@ public class TolecoApp extends JFrame implements ActionListener
     */
     private GameBoard board;
 
+    /**
+    * The computer playing one side of the game, or null if people play both.
+    */
+    private ComputerPlayer computer;
+
     /**
     * A main selection menu for the user (if GUI mode is launched).
     * Contains the following options:
@@ -102,6 +117,12 @@ public class TolecoApp extends JFrame implements ActionListener
      */
     private static final String kHelpDialog = "help.txt";
 
+    /**
+     * How long each of the computer player's turns takes, in milliseconds,
+     * if the toleco.computerMillis system property is not set.
+     */
+    private static final int kComputerMillis = 2000;
+
     /**
      * A constructor used for running the game in console mode.
      * @param map the map file used for the game
@@ -123,6 +144,9 @@ public class TolecoApp extends JFrame implements ActionListener
      */
     public TolecoApp()
     {
+        //CALL AssetManager.start so the images load while the menu is shown.
+        AssetManager.getShared().start();
+
         //TRY
         try
         {
@@ -633,6 +657,12 @@ public class TolecoApp extends JFrame implements ActionListener
         //Add the view as an observer of the board.
         board.addObserver(view);
 
+        //CALL addComputerPlayer to let the computer play a side if asked.
+        addComputerPlayer();
+
+        //CALL addJournal to record the game if asked.
+        addJournal();
+
         //TRY
         try
         {
@@ -695,6 +725,12 @@ public class TolecoApp extends JFrame implements ActionListener
         //INITIALIZE board
         board.addObserver(view);
 
+        //CALL addComputerPlayer to let the computer play a side if asked.
+        addComputerPlayer();
+
+        //CALL addJournal to record the game if asked.
+        addJournal();
+
         //TRY
         try
         {
@@ -713,6 +749,138 @@ public class TolecoApp extends JFrame implements ActionListener
         //END
     }
 
+    /**
+    * Has the computer play one side of the game about to be launched, if the
+    * toleco.computerPlayer system property names a Player (kPlayer1 or
+    * kPlayer2). Each of its turns takes toleco.computerMillis milliseconds,
+    * or kComputerMillis if that is not set. It searches with alpha-beta,
+    * unless toleco.computerEngine is mcts.
+    */
+    private void addComputerPlayer()
+    {
+        String side = System.getProperty("toleco.computerPlayer");
+
+        //IF a side was asked for
+        if (side != null)
+        {
+            //Observe the board before the map is loaded, in case the
+            // computer moves first.
+            I_Search search = new AlphaBetaSearch();
+
+            //IF the Monte Carlo engine was asked for, use it on every processor.
+            if ("mcts".equals(System.getProperty("toleco.computerEngine")))
+            {
+                search = new MctsSearch(
+                    Runtime.getRuntime().availableProcessors());
+            }
+            //ENDIF
+
+            //Its commands are carried out on the thread that drives the
+            // controller, which is the view's.
+            computer = new ComputerPlayer(
+                Player.valueOf(side), (Executor)view,
+                Integer.getInteger("toleco.computerMillis", kComputerMillis),
+                search);
+            board.addObserver(computer);
+            computer.addObserver(controller);
+            ((GameController)controller).setComputerPlayer(computer.getPlayer(),
+                computer);
+        }
+        //ENDIF
+    }
+
+    /**
+    * Records the game about to be launched to a journal, if the
+    * toleco.journal system property names a file for it.
+    */
+    private void addJournal()
+    {
+        String fileName = System.getProperty("toleco.journal");
+
+        //IF a journal was asked for
+        if (fileName != null)
+        {
+            //TRY to start the journal
+            try
+            {
+                ((GameController)controller).setJournal(
+                    new GameJournal(fileName));
+            }
+            //CATCH a file that can not be written, play without recording.
+            catch (java.io.IOException e)
+            {
+                System.err.println("Error starting journal: " +
+                    e.getMessage());
+            }
+            //END
+        }
+        //ENDIF
+    }
+
+    /**
+    * Plays back a journal in a SwingGameView, one action at a time. The view
+    * has no controller, so it can only be watched.
+    *
+    * @param replay the journal to play back
+    * @param startTurn the turn to start from
+    * @param millis how long to show each action, in milliseconds
+    * @throws java.io.IOException if the journal could not be read
+    */
+    public void watchReplay(final GameReplay replay, int startTurn, int millis)
+        throws java.io.IOException
+    {
+        //INITIALIZE gameBoard
+        board = new GameBoard();
+
+        //INITIALIZE view as a SwingGameView
+        view = new SwingGameView(board);
+
+        //Add the view as an observer of the board.
+        board.addObserver(view);
+
+        //CALL replay.seek to put the board at the first turn to show.
+        replay.seek(board, startTurn);
+
+        //Remove the main menu from the content pane.
+        getContentPane().remove(mainMenu);
+
+        //Add the view's panel to this JFrame's content pane and show it.
+        JPanel temp = view.getPanel();
+        temp.setVisible(true);
+        getContentPane().add(temp);
+        getContentPane().setVisible(true);
+        this.setVisible(true);
+        pack();
+
+        //Play an action every millis milliseconds until there are none left.
+        final GameBoard replayBoard = board;
+        final Timer timer = new Timer(millis, null);
+        timer.addActionListener(new ActionListener()
+        {
+            public void actionPerformed(ActionEvent event)
+            {
+                //TRY to play the next action
+                try
+                {
+                    //IF there are none left, stop.
+                    if (!replay.step(replayBoard))
+                    {
+                        timer.stop();
+                    }
+                    //ENDIF
+                }
+                //CATCH a bad keyframe, stop.
+                catch (java.io.IOException e)
+                {
+                    System.err.println("Error replaying: " + e.getMessage());
+                    timer.stop();
+                }
+                //END
+            }
+        });
+        timer.start();
+    }
+
     /**
     * Quit the application.
     */
@@ -728,6 +896,14 @@ public class TolecoApp extends JFrame implements ActionListener
      */
     public void cleanUp()
     {
+        //IF the computer played, stop it planning.
+        if (computer != null)
+        {
+            computer.shutdown();
+            computer = null;
+        }
+        //ENDIF
+
         getContentPane().remove(view.getPanel());
         //SET controller to null
         controller = null;
@@ -1,9 +1,20 @@
 package toleco;
 
+import toleco.ai.AiPolicy;
+import toleco.logic.GameBoard;
+import toleco.logic.GameReplay;
+import toleco.sim.BattleSimulator;
+import toleco.sim.GreedyPolicy;
+import toleco.sim.I_Policy;
+import toleco.sim.RandomPolicy;
+
 /**
  * Toleco Driver constructs a new TolecoApp either in GUI mode or console mode.
  * If a -c flag is provided on the command line the game is run in console mode,
- * if not it is run in GUI mode
+ * if not it is run in GUI mode. A -s flag runs the headless BattleSimulator on
+ * a map instead of a game. A -r flag replays a journal recorded with the
+ * toleco.journal system property as fast as it can, and a -v flag shows it
+ * in the GUI at a watchable pace
  * @author Evan Ralston
  */
 public class TolecoDriver
@@ -13,6 +24,17 @@ public class TolecoDriver
      */
     private static TolecoApp game;
 
+    /**
+     * How long the alphabeta and mcts policies may take for each turn of a
+     * simulated game, in milliseconds.
+     */
+    private static final long kSearchMillis = 50;
+
+    /**
+     * How long each action of a watched replay is shown, in milliseconds.
+     */
+    private static final int kReplayMillis = 250;
+
 
     /**
      * The entry point for Toleco.
@@ -31,6 +53,27 @@ public class TolecoDriver
             //INITIALIZE game using console mode constructor.
             game = new TolecoApp(args[1]);
         }
+        //ELSE IF args has a -s flag, a map and a number of games
+        else if (args != null && args.length >= 3 && args.length <= 5 &&
+            args[0].equals("-s"))
+        {
+            //Run the simulator instead of a game.
+            simulate(args);
+        }
+        //ELSE IF args has a -r flag, a journal and optionally a turn
+        else if (args != null && (args.length == 2 || args.length == 3) &&
+            args[0].equals("-r"))
+        {
+            //Replay the journal headless.
+            replay(args);
+        }
+        //ELSE IF args has a -v flag, a journal and optionally a pace and turn
+        else if (args != null && args.length >= 2 && args.length <= 4 &&
+            args[0].equals("-v"))
+        {
+            //Show the journal in the GUI.
+            watch(args);
+        }
         //ELSE IF args is not null and args.length is 0
         else if (args != null && args.length == 0)
         {
@@ -42,7 +85,168 @@ public class TolecoDriver
         {
             //Print usage
             System.out.println("USAGE: java TolecoDriver [-c <MapFile>]");
+            System.out.println("       java TolecoDriver -s <MapFile> <Games> " +
+                "[random|greedy|alphabeta|mcts] [random|greedy|alphabeta|mcts]");
+            System.out.println("       java TolecoDriver -r <Journal> [Turn]");
+            System.out.println("       java TolecoDriver -v <Journal> " +
+                "[Millis] [Turn]");
         }
         //END IF
     }
+
+    /**
+     * Plays the number of games asked for on the map asked for, across every
+     * processor, and prints the results.
+     *
+     * @param args the command line arguments, -s followed by the map file,
+     * the number of games and optionally each player's policy
+     */
+    private static void simulate(String[] args)
+    {
+        //The players are random unless a policy is given.
+        I_Policy player1 = makePolicy(args.length > 3 ? args[3] : "random");
+        I_Policy player2 = makePolicy(args.length > 4 ? args[4] : "random");
+
+        //IF a policy name was not understood
+        if (player1 == null || player2 == null)
+        {
+            System.out.println("Unknown policy, use random, greedy, alphabeta or mcts");
+            return;
+        }
+        //ENDIF
+
+        try
+        {
+            BattleSimulator sim = new BattleSimulator(args[1], player1, player2);
+            System.out.println(sim.run(Integer.parseInt(args[2]),
+                Runtime.getRuntime().availableProcessors(),
+                System.currentTimeMillis()));
+
+            //FOR each player, IF it searched, print how fast.
+            for (I_Policy policy : new I_Policy[] {player1, player2})
+            {
+                if (policy instanceof AiPolicy)
+                {
+                    AiPolicy search = (AiPolicy)policy;
+                    System.out.println(String.format("%.0f",
+                        search.getCountPerSecond()) + " " +
+                        search.getCountName() + "/sec");
+                }
+            }
+            //ENDFOR
+        }
+        //CATCH a bad map or an interruption
+        catch (Exception e)
+        {
+            System.err.println("Error simulating: " + e);
+        }
+    }
+
+    /**
+     * Replays a journal headless as fast as it can and prints how fast,
+     * after timing a seek to the given turn if there is one.
+     *
+     * @param args the command line arguments, -r followed by the journal and
+     * optionally a turn to seek to
+     */
+    private static void replay(String[] args)
+    {
+        try
+        {
+            GameReplay replay = new GameReplay(args[1]);
+            GameBoard board = new GameBoard();
+            System.out.println(replay.getActionCount() + " actions, " +
+                replay.getTurnCount() + " turns, " +
+                replay.getKeyframeCount() + " keyframes");
+
+            //IF a turn was given, time seeking to it.
+            if (args.length == 3)
+            {
+                long start = System.nanoTime();
+                replay.seek(board, Integer.parseInt(args[2]));
+                System.out.println(String.format(
+                    "seek to turn %s: %.3f ms", args[2],
+                    (System.nanoTime() - start) / 1e6));
+            }
+            //ENDIF
+
+            //Play the whole journal from the start.
+            long start = System.nanoTime();
+            replay.seek(board, 0);
+            int played = 0;
+            //WHILE there are records left, play one.
+            while (replay.step(board))
+            {
+                played++;
+            }
+            //ENDWHILE
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.println(String.format(
+                "replayed %d records in %.3f ms, %.0f actions/sec", played,
+                seconds * 1e3, replay.getActionCount() / seconds));
+        }
+        //CATCH a bad journal
+        catch (Exception e)
+        {
+            System.err.println("Error replaying: " + e);
+        }
+    }
+
+    /**
+     * Shows a journal in the GUI, one action at a time.
+     *
+     * @param args the command line arguments, -v followed by the journal and
+     * optionally how long to show each action and a turn to start from
+     */
+    private static void watch(String[] args)
+    {
+        try
+        {
+            GameReplay replay = new GameReplay(args[1]);
+            game = new TolecoApp();
+            game.watchReplay(replay,
+                args.length > 3 ? Integer.parseInt(args[3]) : 0,
+                args.length > 2 ? Integer.parseInt(args[2]) : kReplayMillis);
+        }
+        //CATCH a bad journal
+        catch (Exception e)
+        {
+            System.err.println("Error replaying: " + e);
+        }
+    }
+
+    /**
+     * Makes the policy with the given name.
+     *
+     * @param name random, greedy, alphabeta or mcts
+     * @return the policy, or null if name is not a policy
+     */
+    private static I_Policy makePolicy(String name)
+    {
+        I_Policy policy = null;
+
+        //IF the name is random
+        if (name.equals("random"))
+        {
+            policy = new RandomPolicy();
+        }
+        //ELSE IF the name is greedy
+        else if (name.equals("greedy"))
+        {
+            policy = new GreedyPolicy();
+        }
+        //ELSE IF the name is alphabeta
+        else if (name.equals("alphabeta"))
+        {
+            policy = new AiPolicy(kSearchMillis);
+        }
+        //ELSE IF the name is mcts
+        else if (name.equals("mcts"))
+        {
+            policy = new AiPolicy(kSearchMillis, true);
+        }
+        //ENDIF
+
+        return policy;
+    }
 }
@@ -0,0 +1,329 @@
+package toleco.ai;
+
+import toleco.controller.Player;
+import toleco.logic.CombatKernel;
+import toleco.logic.GameBoard;
+import toleco.unit.Unit;
+import java.awt.Point;
+import java.util.ArrayList;
+
+/**
+* The actions the player to move may take in a position, each with a
+* priority saying how promising it looks, highest first. The list is
+* reused from one position to the next, growing its buffers as needed.
+* Actions are found with the same GameBoard methods a person's commands go
+* through: attacks from getEnemiesInRange(), so only enemies in attack range
+* of a Unit that can still attack, and moves from getReachableCells(), so
+* paths pay the move cost of every Terrain stepped onto and never cross a
+* Unit.
+* To keep the number of actions down, a Unit is only offered moves that bring
+* it closer to the nearest enemy, at most kMovesPerUnit of them, preferring
+* those that end in attack range. Since a move is always towards an enemy and
+* an attack can only be made once, a player can only take so many actions
+* before ending the turn.
+*
+* @author Eriq Augustine
+* @version 1.0
+*/
+class ActionList
+{
+    /**
+    * The priority of an attack, on top of the trade it makes.
+    */
+    static final int kAttackPriority = 1000000;
+
+    /**
+    * The priority of ending the turn.
+    */
+    static final int kEndTurnPriority = 0;
+
+    /**
+    * The most moves offered to each Unit.
+    */
+    private static final int kMovesPerUnit = 3;
+
+    /**
+    * The actions.
+    */
+    private long[] actions;
+
+    /**
+    * The priority of each action.
+    */
+    private int[] priorities;
+
+    /**
+    * The number of actions.
+    */
+    private int size;
+
+    /**
+    * Makes an empty list.
+    */
+    ActionList()
+    {
+        actions = new long[16];
+        priorities = new int[16];
+    }
+
+    /**
+    * Gets the number of actions.
+    *
+    * @return the number of actions
+    */
+    int size()
+    {
+        return size;
+    }
+
+    /**
+    * Gets an action.
+    *
+    * @param index the index of the action
+    * @return the action
+    */
+    long get(int index)
+    {
+        return actions[index];
+    }
+
+    /**
+    * Gets whether the list has an action that is not a move or ending the
+    * turn.
+    *
+    * @return true if there is an attack
+    */
+    boolean hasAttack()
+    {
+        //FOR each action
+        for (int i = 0; i < size; i++)
+        {
+            if (AlphaBetaSearch.kindOf(actions[i]) == AlphaBetaSearch.kAttack)
+            {
+                return true;
+            }
+        }
+        //ENDFOR
+
+        return false;
+    }
+
+    /**
+    * Makes the given action the first to be picked, if it is in the list.
+    *
+    * @param action the action
+    */
+    void promote(long action)
+    {
+        //FOR each action
+        for (int i = 0; i < size; i++)
+        {
+            if (actions[i] == action)
+            {
+                priorities[i] = Integer.MAX_VALUE;
+            }
+        }
+        //ENDFOR
+    }
+
+    /**
+    * Moves the highest priority action at or after the given index to the
+    * index, so that picking from 0 up goes through the actions in order.
+    *
+    * @param index the index to put the action at
+    * @return the action
+    */
+    long pick(int index)
+    {
+        int best = index;
+
+        //FOR each action left
+        for (int i = index + 1; i < size; i++)
+        {
+            if (priorities[i] > priorities[best])
+            {
+                best = i;
+            }
+        }
+        //ENDFOR
+
+        long action = actions[best];
+        actions[best] = actions[index];
+        actions[index] = action;
+        int priority = priorities[best];
+        priorities[best] = priorities[index];
+        priorities[index] = priority;
+
+        return action;
+    }
+
+    /**
+    * Replaces the list with the actions of the player to move in a position.
+    * The first action is always ending the turn.
+    *
+    * @param board the position, whose selection is changed
+    */
+    void generate(GameBoard board)
+    {
+        Player player = board.getActivePlayer();
+        ArrayList<Point> enemies =
+            board.getUnitLocations(AlphaBetaSearch.opponent(player));
+
+        size = 0;
+        add(AlphaBetaSearch.endTurn(), kEndTurnPriority);
+
+        //FOR each of the player's Units
+        for (Point location : board.getUnitLocations(player))
+        {
+            board.selectTerrain(location.x, location.y);
+            Unit unit = board.getSelection().getUnit();
+
+            //IF the Unit can attack, offer every enemy in range.
+            if (unit.canAttack())
+            {
+                //FOR each enemy in range
+                for (Point enemy : board.getEnemiesInRange())
+                {
+                    CombatKernel result = board.predictAttack(enemy.x, enemy.y);
+                    int trade = result.getDamage() - result.getCounterDamage();
+
+                    //IF the attack would kill, it is worth more than damage.
+                    if (result.getDefenderHealth() == 0)
+                    {
+                        trade += unit.getMaxHealth();
+                    }
+                    //ENDIF
+
+                    add(AlphaBetaSearch.attack(location, enemy),
+                        kAttackPriority + trade);
+                }
+                //ENDFOR
+            }
+            //ENDIF
+
+            //IF the Unit can move, offer the best moves towards an enemy.
+            if (unit.getCurrentMoves() > 0)
+            {
+                addMoves(board, location, unit.getAttackRange(), enemies);
+            }
+            //ENDIF
+        }
+        //ENDFOR
+    }
+
+    /**
+    * Adds the moves offered to the selected Unit: up to kMovesPerUnit of
+    * the reachable locations closer to the nearest enemy than it is, those
+    * in attack range first, then those closest.
+    *
+    * @param board the position, with the Unit selected
+    * @param location where the Unit is
+    * @param range the Unit's attack range
+    * @param enemies where the enemies are
+    */
+    private void addMoves(GameBoard board, Point location, int range,
+        ArrayList<Point> enemies)
+    {
+        int here = distanceTo(location, enemies);
+        Point[] picked = new Point[kMovesPerUnit];
+        int[] keys = new int[kMovesPerUnit];
+        int numPicked = 0;
+
+        //FOR each location the Unit can reach
+        for (Point cell : board.getReachableCells())
+        {
+            int distance = distanceTo(cell, enemies);
+
+            //IF it is no closer to an enemy, it is not offered.
+            if (distance >= here)
+            {
+                continue;
+            }
+            //ENDIF
+
+            //In range is best, then closer is better.
+            int key = distance <= range ? 0 : distance;
+
+            //Insert it in order, dropping the worst if there are too many.
+            int slot = numPicked;
+            //WHILE the one before it is worse, move that one back.
+            while (slot > 0 && keys[slot - 1] > key)
+            {
+                //IF there is room behind it, keep it
+                if (slot < kMovesPerUnit)
+                {
+                    picked[slot] = picked[slot - 1];
+                    keys[slot] = keys[slot - 1];
+                }
+                //ENDIF
+                slot--;
+            }
+            //ENDWHILE
+
+            //IF it made the cut, put it in its place
+            if (slot < kMovesPerUnit)
+            {
+                picked[slot] = cell;
+                keys[slot] = key;
+                numPicked = Math.min(numPicked + 1, kMovesPerUnit);
+            }
+            //ENDIF
+        }
+        //ENDFOR
+
+        //FOR each move picked, moves into range before other moves.
+        for (int i = 0; i < numPicked; i++)
+        {
+            add(AlphaBetaSearch.move(location, picked[i]), -1 - keys[i]);
+        }
+        //ENDFOR
+    }
+
+    /**
+    * Adds an action, growing the buffers if needed.
+    *
+    * @param action the action
+    * @param priority how early to try it, highest first
+    */
+    private void add(long action, int priority)
+    {
+        //IF the buffers are full, double them.
+        if (size == actions.length)
+        {
+            long[] moreActions = new long[size * 2];
+            int[] morePriorities = new int[size * 2];
+            System.arraycopy(actions, 0, moreActions, 0, size);
+            System.arraycopy(priorities, 0, morePriorities, 0, size);
+            actions = moreActions;
+            priorities = morePriorities;
+        }
+        //ENDIF
+
+        actions[size] = action;
+        priorities[size] = priority;
+        size++;
+    }
+
+    /**
+    * Gets the Manhattan distance from a location to the closest of the given
+    * locations.
+    *
+    * @param from the location to measure from
+    * @param others the locations to measure to
+    * @return the distance, or Integer.MAX_VALUE if there are no others
+    */
+    static int distanceTo(Point from, ArrayList<Point> others)
+    {
+        int closest = Integer.MAX_VALUE;
+
+        //FOR each other location
+        for (Point other : others)
+        {
+            closest = Math.min(closest,
+                Math.abs(other.x - from.x) + Math.abs(other.y - from.y));
+        }
+        //ENDFOR
+
+        return closest;
+    }
+}
@@ -0,0 +1,153 @@
+package toleco.ai;
+
+import toleco.controller.Player;
+import toleco.logic.GameBoard;
+import toleco.sim.I_Policy;
+import java.util.Random;
+
+/**
+* A policy that plays each turn with an AlphaBetaSearch or a MctsSearch, so
+* the computer player can be run in the BattleSimulator. Each action is
+* searched for a third of the time left in the turn, until the search picks
+* ending the turn or the game is over.
+* The BattleSimulator shares one policy between its threads, so each thread
+* gets its own search. A MctsSearch grows a single tree on the thread, since
+* the simulator is already using every processor, and is seeded from the
+* game's random numbers.
+*
+* @author Eriq Augustine
+* @version 1.0
+*/
+public class AiPolicy implements I_Policy
+{
+    /**
+    * The search used to pick each action, one for each thread.
+    */
+    private ThreadLocal<I_Search> searches;
+
+    /**
+    * Whether the searches are MctsSearches rather than AlphaBetaSearches.
+    */
+    private boolean monteCarlo;
+
+    /**
+    * How long each turn may take, in nanoseconds.
+    */
+    private long budgetNanos;
+
+    /**
+    * The work the searches did over every turn played, in the search's
+    * getCount().
+    */
+    private long nodes;
+
+    /**
+    * How long the searches took over every turn played, in nanoseconds.
+    */
+    private long elapsedNanos;
+
+    /**
+    * Makes a policy that uses an AlphaBetaSearch.
+    *
+    * @param budgetMillis how long each turn may take, in milliseconds
+    */
+    public AiPolicy(long budgetMillis)
+    {
+        this(budgetMillis, false);
+    }
+
+    /**
+    * Makes a policy.
+    *
+    * @param budgetMillis how long each turn may take, in milliseconds
+    * @param monteCarlo true to use a MctsSearch, false for an AlphaBetaSearch
+    */
+    public AiPolicy(long budgetMillis, final boolean monteCarlo)
+    {
+        searches = new ThreadLocal<I_Search>()
+        {
+            @Override
+            protected I_Search initialValue()
+            {
+                return monteCarlo ? new MctsSearch(1) : new AlphaBetaSearch();
+            }
+        };
+        this.monteCarlo = monteCarlo;
+        budgetNanos = budgetMillis * 1000000L;
+    }
+
+    /**
+    * {@inheritDoc}
+    */
+    public void playTurn(GameBoard board, Player player, Random rand)
+    {
+        I_Search search = searches.get();
+
+        //IF the search is random, make it follow the game's random numbers.
+        if (search instanceof MctsSearch)
+        {
+            ((MctsSearch)search).setSeed(rand.nextLong());
+        }
+        //ENDIF
+
+        long turnEnd = System.nanoTime() + budgetNanos;
+        long turnNodes = 0;
+        long turnNanos = 0;
+
+        //WHILE the game is not over
+        while (!AlphaBetaSearch.isGameOver(board))
+        {
+            long left = Math.max(0, turnEnd - System.nanoTime());
+            long action = search.search(board, System.nanoTime() + left / 3);
+            turnNodes += search.getCount();
+            turnNanos += search.getElapsedNanos();
+
+            //IF the search wants to end the turn, leave that to the caller.
+            if (AlphaBetaSearch.kindOf(action) == AlphaBetaSearch.kEndTurn)
+            {
+                break;
+            }
+            //ENDIF
+
+            AlphaBetaSearch.apply(board, action);
+        }
+        //ENDWHILE
+
+        board.selectTerrain(-1, -1);
+        addStats(turnNodes, turnNanos);
+    }
+
+    /**
+    * Adds a turn's searching to the totals.
+    *
+    * @param turnNodes the work the searches did in the turn
+    * @param turnNanos how long the searches took, in nanoseconds
+    */
+    private synchronized void addStats(long turnNodes, long turnNanos)
+    {
+        nodes += turnNodes;
+        elapsedNanos += turnNanos;
+    }
+
+    /**
+    * Gets how much work per second the policy's searches have done, over
+    * every turn it has played: nodes for an AlphaBetaSearch, playouts for a
+    * MctsSearch.
+    *
+    * @return the nodes or playouts per second
+    */
+    public synchronized double getCountPerSecond()
+    {
+        return elapsedNanos == 0 ? 0.0 : nodes * 1e9 / elapsedNanos;
+    }
+
+    /**
+    * Gets what getCountPerSecond() counts.
+    *
+    * @return "playouts" or "nodes"
+    */
+    public String getCountName()
+    {
+        return monteCarlo ? "playouts" : "nodes";
+    }
+}
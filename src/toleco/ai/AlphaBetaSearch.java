@@ -0,0 +1,679 @@
+package toleco.ai;
+
+import toleco.controller.Player;
+import toleco.logic.BoardHistory;
+import toleco.logic.GameBoard;
+import java.awt.Point;
+import java.util.ArrayList;
+
+/**
+* Picks the next action for the player whose turn it is with an alpha-beta
+* search. An action is one move, one attack, or ending the turn, so a turn is
+* a sequence of actions by the same player and the search only hands the turn
+* over when it tries ending it. Scores are always from the point of view of
+* the player to move: an action that keeps the turn keeps the score and the
+* window as they are, and ending the turn negates them.
+* The search deepens one action at a time until the deadline passes, keeping
+* the best action of the last depth it finished. Positions already searched
+* are looked up by their Zobrist hash in a TranspositionTable, whose best
+* action is tried first, followed by the ActionList's order: attacks, best
+* trade first, then ending the turn, then moves.
+* The board given to search(GameBoard, long) is never changed: the search
+* copies it once and works on that copy, taking each action and then undoing
+* it through a BoardHistory. Undoing only touches the Units the action
+* changed, and the copy's Pathfinder and BoardChange are kept from one
+* position to the next, so a position costs the same however large the map.
+*
+* @author Eriq Augustine
+* @version 1.0
+*/
+public class AlphaBetaSearch implements I_Search
+{
+    /**
+    * The kind of action that ends the turn.
+    */
+    public static final int kEndTurn = 0;
+
+    /**
+    * The kind of action that moves a Unit.
+    */
+    public static final int kMove = 1;
+
+    /**
+    * The kind of action that attacks with a Unit.
+    */
+    public static final int kAttack = 2;
+
+    /**
+    * The deepest the search will go, in actions.
+    */
+    public static final int kMaxDepth = 32;
+
+    /**
+    * The score of a won position, less the number of actions it took.
+    */
+    public static final int kWin = 1000000;
+
+    /**
+    * The score of each Unit a player has, on top of its health.
+    */
+    private static final int kUnitValue = 50;
+
+    /**
+    * The score lost for each step a Unit is out of attack range of the
+    * nearest enemy.
+    */
+    private static final int kApproachValue = 2;
+
+    /**
+    * The log base 2 of the number of entries in the TranspositionTable.
+    */
+    private static final int kTableBits = 18;
+
+    /**
+    * The number of nodes between looks at the clock.
+    */
+    private static final int kClockMask = 255;
+
+    /**
+    * The number of bits used for each coordinate in an action.
+    */
+    private static final int kCoordBits = 13;
+
+    /**
+    * Masks one coordinate of an action.
+    */
+    private static final long kCoordMask = (1L << kCoordBits) - 1;
+
+    /**
+    * Positions searched so far, kept from one search to the next.
+    */
+    private TranspositionTable table;
+
+    /**
+    * The history the actions on the current path are undone through, kept
+    * from one search to the next while it is big enough.
+    */
+    private BoardHistory history;
+
+    /**
+    * The actions found at each ply of the current path.
+    */
+    private ActionList[] lists;
+
+    /**
+    * When the current search has to stop, from System.nanoTime().
+    */
+    private long deadline;
+
+    /**
+    * Whether the current depth may stop at the deadline.
+    */
+    private boolean timed;
+
+    /**
+    * Whether the current depth was stopped at the deadline.
+    */
+    private boolean aborted;
+
+    /**
+    * The best action found at the root of the current depth.
+    */
+    private long rootAction;
+
+    /**
+    * The number of positions visited by the last search.
+    */
+    private long nodes;
+
+    /**
+    * The deepest depth the last search finished.
+    */
+    private int depth;
+
+    /**
+    * The score of the action picked by the last search.
+    */
+    private int score;
+
+    /**
+    * How long the last search took, in nanoseconds.
+    */
+    private long elapsedNanos;
+
+    /**
+    * Makes a search with an empty TranspositionTable.
+    */
+    public AlphaBetaSearch()
+    {
+        table = new TranspositionTable(kTableBits);
+        lists = new ActionList[kMaxDepth + 1];
+
+        //FOR each ply, make its list of actions.
+        for (int ply = 0; ply < lists.length; ply++)
+        {
+            lists[ply] = new ActionList();
+        }
+        //ENDFOR
+    }
+
+    /**
+    * Makes an action that moves the Unit at one location to another.
+    *
+    * @param from the location of the Unit
+    * @param to the location to move to
+    * @return the action
+    */
+    public static long move(Point from, Point to)
+    {
+        return encode(kMove, from.x, from.y, to.x, to.y);
+    }
+
+    /**
+    * Makes an action that has the Unit at one location attack the Unit at
+    * another.
+    *
+    * @param from the location of the attacker
+    * @param to the location of the defender
+    * @return the action
+    */
+    public static long attack(Point from, Point to)
+    {
+        return encode(kAttack, from.x, from.y, to.x, to.y);
+    }
+
+    /**
+    * Makes an action that ends the turn.
+    *
+    * @return the action
+    */
+    public static long endTurn()
+    {
+        return encode(kEndTurn, 0, 0, 0, 0);
+    }
+
+    /**
+    * Gets the kind of an action.
+    *
+    * @param action the action
+    * @return kEndTurn, kMove or kAttack
+    */
+    public static int kindOf(long action)
+    {
+        return (int)(action >>> (4 * kCoordBits));
+    }
+
+    /**
+    * Gets the location of the Unit that takes an action.
+    *
+    * @param action the action, which must not end the turn
+    * @return the location
+    */
+    public static Point fromOf(long action)
+    {
+        return new Point((int)((action >>> (3 * kCoordBits)) & kCoordMask),
+            (int)((action >>> (2 * kCoordBits)) & kCoordMask));
+    }
+
+    /**
+    * Gets the location an action moves to or attacks.
+    *
+    * @param action the action, which must not end the turn
+    * @return the location
+    */
+    public static Point toOf(long action)
+    {
+        return new Point((int)((action >>> kCoordBits) & kCoordMask),
+            (int)(action & kCoordMask));
+    }
+
+    /**
+    * Takes an action on a board, the same way the GameController would.
+    *
+    * @param board the board to take the action on
+    * @param action the action, which must be legal on board
+    */
+    public static void apply(GameBoard board, long action)
+    {
+        //IF the action ends the turn
+        if (kindOf(action) == kEndTurn)
+        {
+            board.selectTerrain(-1, -1);
+            board.resetUnits(opponent(board.getActivePlayer()));
+            return;
+        }
+        //ENDIF
+
+        Point from = fromOf(action);
+        Point to = toOf(action);
+        board.selectTerrain(from.x, from.y);
+
+        //IF the action is a move
+        if (kindOf(action) == kMove)
+        {
+            board.moveTo(to.x, to.y);
+            board.selectTerrain(to.x, to.y);
+        }
+        //ELSE
+        else
+        {
+            board.attack(to.x, to.y);
+        }
+        //ENDIF
+    }
+
+    /**
+    * Gets whether the game on a board is over, because a player has no Units
+    * left.
+    *
+    * @param board the board
+    * @return true if the game is over
+    */
+    public static boolean isGameOver(GameBoard board)
+    {
+        return board.getUnitCount(Player.kPlayer1) == 0 ||
+            board.getUnitCount(Player.kPlayer2) == 0;
+    }
+
+    /**
+    * Gets the player who is not the given player.
+    *
+    * @param player the player
+    * @return the other player
+    */
+    public static Player opponent(Player player)
+    {
+        return Player.values()[(player.ordinal() + 1) % Player.values().length];
+    }
+
+    /**
+    * {@inheritDoc}
+    * The first depth is always finished, however late it is; after that the
+    * search stops as soon as it sees the deadline has passed.
+    */
+    public long search(GameBoard root, long deadlineNanos)
+    {
+        long start = System.nanoTime();
+        GameBoard board = root.copy();
+        long best = endTurn();
+
+        //Each action records at most one change for every Unit, or two for
+        // an attack, so the history never has to forget an action.
+        int records = (kMaxDepth + 1) * (board.getUnitCount(Player.kPlayer1) +
+            board.getUnitCount(Player.kPlayer2) + 2);
+
+        //IF there is no history yet, or it is too small, make one.
+        if (history == null || history.getMaxRecords() < records)
+        {
+            history = new BoardHistory(kMaxDepth + 1, records);
+        }
+        //ENDIF
+        board.setHistory(history);
+
+        deadline = deadlineNanos;
+        nodes = 0;
+        depth = 0;
+        score = 0;
+
+        //FOR each depth, until time runs out or the result is certain.
+        for (int limit = 1; limit <= kMaxDepth; limit++)
+        {
+            timed = limit > 1;
+
+            //IF time is already up, do not start another depth.
+            if (timed && System.nanoTime() - deadline > 0)
+            {
+                break;
+            }
+            //ENDIF
+
+            aborted = false;
+            rootAction = best;
+
+            int found = negamax(board, limit, -kWin - 1, kWin + 1, 0);
+
+            //IF time ran out, the depth is not finished.
+            if (aborted)
+            {
+                break;
+            }
+            //ENDIF
+
+            best = rootAction;
+            depth = limit;
+            score = found;
+
+            //IF a win or a loss was found, deeper will not change it.
+            if (Math.abs(found) >= kWin - kMaxDepth)
+            {
+                break;
+            }
+            //ENDIF
+        }
+        //ENDFOR
+
+        elapsedNanos = System.nanoTime() - start;
+        return best;
+    }
+
+    /**
+    * Gets the number of positions the last search visited.
+    *
+    * @return the number of nodes
+    */
+    public long getNodes()
+    {
+        return nodes;
+    }
+
+    /**
+    * Gets the deepest depth the last search finished, in actions.
+    *
+    * @return the depth
+    */
+    public int getDepth()
+    {
+        return depth;
+    }
+
+    /**
+    * Gets the score of the action the last search picked, from the point of
+    * view of the player it picked it for.
+    *
+    * @return the score
+    */
+    public int getScore()
+    {
+        return score;
+    }
+
+    /**
+    * {@inheritDoc}
+    * For this search that is getNodes().
+    */
+    public long getCount()
+    {
+        return nodes;
+    }
+
+    /**
+    * {@inheritDoc}
+    */
+    public String getCountName()
+    {
+        return "nodes";
+    }
+
+    /**
+    * {@inheritDoc}
+    */
+    public long getElapsedNanos()
+    {
+        return elapsedNanos;
+    }
+
+    /**
+    * {@inheritDoc}
+    * This search holds nothing between searches.
+    */
+    public void shutdown()
+    {
+    }
+
+    /**
+    * Gets how many positions per second the last search visited.
+    *
+    * @return the nodes per second
+    */
+    public double getNodesPerSecond()
+    {
+        return elapsedNanos == 0 ? 0.0 : nodes * 1e9 / elapsedNanos;
+    }
+
+    /**
+    * Scores a position to the given depth.
+    *
+    * @param board the position, which is put back as it was
+    * @param left the number of actions left to search
+    * @param alpha the score the player to move is already sure of
+    * @param beta the score the other player is already sure of
+    * @param ply the number of actions since the root
+    * @return the score for the player to move
+    */
+    private int negamax(GameBoard board, int left, int alpha, int beta, int ply)
+    {
+        nodes++;
+
+        //IF it is time to look at the clock and time is up, give up.
+        if (timed && (nodes & kClockMask) == 0 &&
+            System.nanoTime() - deadline > 0)
+        {
+            aborted = true;
+        }
+        //ENDIF
+
+        //IF the depth was given up, the score does not matter.
+        if (aborted)
+        {
+            return 0;
+        }
+        //ENDIF
+
+        Player player = board.getActivePlayer();
+
+        //IF the player to move has lost or won, the sooner the better.
+        if (board.getUnitCount(player) == 0)
+        {
+            return -(kWin - ply);
+        }
+        else if (board.getUnitCount(opponent(player)) == 0)
+        {
+            return kWin - ply;
+        }
+        //ENDIF
+
+        //IF this is as deep as the search goes
+        if (left == 0)
+        {
+            return evaluate(board, player);
+        }
+        //ENDIF
+
+        long hash = board.getHash();
+        long tableAction = 0;
+        boolean haveTableAction = false;
+
+        //IF the position has been searched before
+        if (table.probe(hash))
+        {
+            tableAction = table.getAction();
+            haveTableAction = true;
+
+            //IF it was searched deep enough, its score may be all we need.
+            if (ply > 0 && table.getDepth() >= left)
+            {
+                int stored = table.getScore();
+                byte flag = table.getFlag();
+
+                //IF the score settles the position, return it.
+                if (flag == TranspositionTable.kExact ||
+                    (flag == TranspositionTable.kLowerBound && stored >= beta) ||
+                    (flag == TranspositionTable.kUpperBound && stored <= alpha))
+                {
+                    return stored;
+                }
+                //ENDIF
+            }
+            //ENDIF
+        }
+        //ENDIF
+
+        ActionList list = lists[ply];
+        list.generate(board);
+
+        //IF the table has a best action, try it before all the others.
+        if (haveTableAction)
+        {
+            list.promote(tableAction);
+        }
+        //ENDIF
+
+        int startAlpha = alpha;
+        int best = -kWin - 1;
+        long bestAction = list.get(0);
+
+        //FOR each action, most promising first.
+        for (int i = 0; i < list.size(); i++)
+        {
+            long action = list.pick(i);
+            int undoCount = history.getUndoCount();
+
+            apply(board, action);
+
+            int found;
+            //IF the action hands the turn over, the score changes sides.
+            if (kindOf(action) == kEndTurn)
+            {
+                found = -negamax(board, left - 1, -beta, -alpha, ply + 1);
+            }
+            //ELSE the same player moves again.
+            else
+            {
+                found = negamax(board, left - 1, alpha, beta, ply + 1);
+            }
+            //ENDIF
+
+            //WHILE the action is not all undone, undo it.
+            while (history.getUndoCount() > undoCount)
+            {
+                board.undo();
+            }
+            //ENDWHILE
+
+            //IF the depth was given up, stop.
+            if (aborted)
+            {
+                return 0;
+            }
+            //ENDIF
+
+            //IF this is the best action so far, keep it.
+            if (found > best)
+            {
+                best = found;
+                bestAction = action;
+
+                //IF it is the best the player can count on, raise alpha.
+                if (found > alpha)
+                {
+                    alpha = found;
+                }
+                //ENDIF
+            }
+            //ENDIF
+
+            //IF the other player will not allow this position, stop looking.
+            if (alpha >= beta)
+            {
+                break;
+            }
+            //ENDIF
+        }
+        //ENDFOR
+
+        byte flag;
+        //IF no action beat alpha, the score is only an upper bound.
+        if (best <= startAlpha)
+        {
+            flag = TranspositionTable.kUpperBound;
+        }
+        //ELSE IF the search was cut off, it is only a lower bound.
+        else if (best >= beta)
+        {
+            flag = TranspositionTable.kLowerBound;
+        }
+        //ELSE
+        else
+        {
+            flag = TranspositionTable.kExact;
+        }
+        //ENDIF
+        table.store(hash, left, best, flag, bestAction);
+
+        //IF this is the root, remember which action was best.
+        if (ply == 0)
+        {
+            rootAction = bestAction;
+        }
+        //ENDIF
+
+        return best;
+    }
+
+    /**
+    * Scores a position without searching: the health and number of Units
+    * each player has, less a little for each step a Unit is out of range of
+    * the nearest enemy.
+    *
+    * @param board the position
+    * @param player the player to score it for
+    * @return the score
+    */
+    static int evaluate(GameBoard board, Player player)
+    {
+        Player enemy = opponent(player);
+        ArrayList<Point> mine = board.getUnitLocations(player);
+        ArrayList<Point> theirs = board.getUnitLocations(enemy);
+
+        long rtn = board.getTotalHealth(player) - board.getTotalHealth(enemy);
+        rtn += kUnitValue * (mine.size() - theirs.size());
+        rtn -= kApproachValue * (approach(board, mine, theirs) -
+            approach(board, theirs, mine));
+
+        return (int)rtn;
+    }
+
+    /**
+    * Adds up how many steps each of a player's Units is out of attack range
+    * of the nearest enemy.
+    *
+    * @param board the position
+    * @param units where the player's Units are
+    * @param enemies where the enemies are
+    * @return the total number of steps
+    */
+    private static int approach(GameBoard board, ArrayList<Point> units,
+        ArrayList<Point> enemies)
+    {
+        int rtn = 0;
+
+        //FOR each Unit
+        for (Point location : units)
+        {
+            int range = board.getTerrain(location.x, location.y).getUnit()
+                .getAttackRange();
+            rtn += Math.max(0, ActionList.distanceTo(location, enemies) - range);
+        }
+        //ENDFOR
+
+        return rtn;
+    }
+
+    /**
+    * Packs an action into a number.
+    *
+    * @param kind the kind of action
+    * @param fromX the X coordinate of the Unit taking it
+    * @param fromY the Y coordinate of the Unit taking it
+    * @param toX the X coordinate it moves to or attacks
+    * @param toY the Y coordinate it moves to or attacks
+    * @return the action
+    */
+    private static long encode(int kind, int fromX, int fromY, int toX, int toY)
+    {
+        return ((long)kind << (4 * kCoordBits)) |
+            ((long)fromX << (3 * kCoordBits)) |
+            ((long)fromY << (2 * kCoordBits)) |
+            ((long)toX << kCoordBits) | toY;
+    }
+}
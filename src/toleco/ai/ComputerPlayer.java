@@ -0,0 +1,319 @@
+package toleco.ai;
+
+import toleco.controller.Command;
+import toleco.controller.Player;
+import toleco.controller.PlayerAction;
+import toleco.logic.BoardChange;
+import toleco.logic.GameBoard;
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Observable;
+import java.util.Observer;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+* Plays one side of a game in place of a person. The ComputerPlayer observes
+* the GameBoard, and when the board says it is its player's turn it plans the
+* whole turn with an I_Search on a copy of the board, on a thread of
+* its own so the thread that drives the game is never held up. A plan still
+* being made when the board moves to a new turn or map is cancelled, and
+* shutdown() stops the planning thread when the game is done. The plan is
+* then handed to the ComputerPlayer's observers, the GameController, as the
+* same PlayerAction commands a person would issue, on the thread that drives
+* the GameController, so it plays the plan exactly as it would a person's
+* turn. A plan for a board that has changed since it was copied is dropped.
+* How fast the last turn's search went can be had for tuning.
+*
+* @author Eriq Augustine
+* @version 1.0
+*/
+public class ComputerPlayer extends Observable implements Observer
+{
+    /**
+    * The player this plays.
+    */
+    private Player player;
+
+    /**
+    * Carries out tasks on the thread that drives the game.
+    */
+    private Executor owner;
+
+    /**
+    * How long each turn may take, in nanoseconds.
+    */
+    private long budgetNanos;
+
+    /**
+    * The search used to plan each turn. Only the planning thread uses it.
+    */
+    private I_Search search;
+
+    /**
+    * Plans turns, one at a time, on a thread of its own.
+    */
+    private ExecutorService planner;
+
+    /**
+    * The plan being made, or null if none has been started.
+    */
+    private Future<?> pending;
+
+    /**
+    * How many nodes or playouts the last turn's search counted.
+    */
+    private volatile long count;
+
+    /**
+    * How long the last turn's search took, in nanoseconds.
+    */
+    private volatile long elapsed;
+
+    /**
+    * Makes a computer player that uses an AlphaBetaSearch.
+    *
+    * @param player the player to play
+    * @param owner carries out tasks on the thread that drives the game
+    * @param budgetMillis how long each turn may take, in milliseconds
+    */
+    public ComputerPlayer(Player player, Executor owner, long budgetMillis)
+    {
+        this(player, owner, budgetMillis, new AlphaBetaSearch());
+    }
+
+    /**
+    * Makes a computer player.
+    *
+    * @param player the player to play
+    * @param owner carries out tasks on the thread that drives the game
+    * @param budgetMillis how long each turn may take, in milliseconds
+    * @param search the search to plan turns with
+    */
+    public ComputerPlayer(Player player, Executor owner, long budgetMillis,
+        I_Search search)
+    {
+        this.player = player;
+        this.owner = owner;
+        budgetNanos = budgetMillis * 1000000L;
+        this.search = search;
+        planner = Executors.newSingleThreadExecutor(new ThreadFactory()
+        {
+            public Thread newThread(Runnable task)
+            {
+                Thread thread = new Thread(task, "ComputerPlayer " +
+                    ComputerPlayer.this.player);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+    * Gets the player this plays.
+    *
+    * @return the player
+    */
+    public Player getPlayer()
+    {
+        return player;
+    }
+
+    /**
+    * Gets how many nodes or playouts the last turn's search counted.
+    *
+    * @return the count
+    */
+    public long getCount()
+    {
+        return count;
+    }
+
+    /**
+    * Gets what the search counts, like "nodes" or "playouts".
+    *
+    * @return the name of what is counted
+    */
+    public String getCountName()
+    {
+        return search.getCountName();
+    }
+
+    /**
+    * Gets how many nodes or playouts the last turn's search counted a second.
+    *
+    * @return the count per second, or 0 if nothing was searched
+    */
+    public double getCountPerSecond()
+    {
+        long nanos = elapsed;
+        return nanos == 0 ? 0.0 : count * 1e9 / nanos;
+    }
+
+    /**
+    * Starts planning a turn when the GameBoard says it is this player's
+    * turn, either after loading a map or after the other player's turn.
+    *
+    * @param observe the GameBoard
+    * @param obj the BoardChange, or anything else
+    */
+    public void update(Observable observe, Object obj)
+    {
+        //IF the board moved to a new turn or map, a plan being made is stale
+        if (obj instanceof BoardChange &&
+            ((BoardChange)obj).getPlayer() != null && pending != null)
+        {
+            pending.cancel(true);
+            pending = null;
+        }
+        //ENDIF
+
+        //IF it is now this player's turn, and planning has not been shut down
+        if (!planner.isShutdown() && obj instanceof BoardChange &&
+            ((BoardChange)obj).getPlayer() == player &&
+            observe instanceof GameBoard)
+        {
+            //Copy the board now, before anything else can change it.
+            final GameBoard live = (GameBoard)observe;
+            final GameBoard board = live.copy();
+            final long hash = live.getHash();
+
+            pending = planner.submit(new Runnable()
+            {
+                public void run()
+                {
+                    final ArrayList<Command<PlayerAction>> commands = plan(board);
+
+                    //IF the plan was cancelled while it was made, drop it.
+                    if (Thread.currentThread().isInterrupted())
+                    {
+                        return;
+                    }
+                    //ENDIF
+
+                    //Hand the plan to the thread that drives the game.
+                    owner.execute(new Runnable()
+                    {
+                        public void run()
+                        {
+                            issue(live, hash, commands);
+                        }
+                    });
+                }
+            });
+        }
+        //ENDIF
+    }
+
+    /**
+    * Stops planning for good: a plan being made is cancelled, and the
+    * planning thread and the search's threads are ended. Call it when the
+    * game is done.
+    */
+    public void shutdown()
+    {
+        planner.shutdownNow();
+        pending = null;
+        search.shutdown();
+    }
+
+    /**
+    * Plans a whole turn by playing it out on the given board.
+    *
+    * @param board a copy of the board at the start of the turn
+    * @return the commands that play the turn, ending it unless the game is
+    * won
+    */
+    public ArrayList<Command<PlayerAction>> plan(GameBoard board)
+    {
+        ArrayList<Command<PlayerAction>> commands =
+            new ArrayList<Command<PlayerAction>>();
+        long turnEnd = System.nanoTime() + budgetNanos;
+        long turnCount = 0;
+        long turnElapsed = 0;
+
+        //WHILE the game is not over and the plan is not cancelled
+        while (!AlphaBetaSearch.isGameOver(board) &&
+            !Thread.currentThread().isInterrupted())
+        {
+            long left = Math.max(0, turnEnd - System.nanoTime());
+            long action = search.search(board, System.nanoTime() + left / 3);
+            turnCount += search.getCount();
+            turnElapsed += search.getElapsedNanos();
+
+            //IF the search wants to end the turn, the turn is planned.
+            if (AlphaBetaSearch.kindOf(action) == AlphaBetaSearch.kEndTurn)
+            {
+                break;
+            }
+            //ENDIF
+
+            Point from = AlphaBetaSearch.fromOf(action);
+            Point to = AlphaBetaSearch.toOf(action);
+            commands.add(new Command<PlayerAction>().set(PlayerAction.kSelect,
+                from.x, from.y));
+
+            //IF the action is a move
+            if (AlphaBetaSearch.kindOf(action) == AlphaBetaSearch.kMove)
+            {
+                commands.add(new Command<PlayerAction>().set(
+                    PlayerAction.kMoveTo, to.x, to.y));
+            }
+            //ELSE it is an attack
+            else
+            {
+                commands.add(new Command<PlayerAction>(PlayerAction.kAttack));
+                commands.add(new Command<PlayerAction>().set(
+                    PlayerAction.kSelect, to.x, to.y));
+            }
+            //ENDIF
+
+            AlphaBetaSearch.apply(board, action);
+        }
+        //ENDWHILE
+
+        //IF the game goes on, hand it over to the other player.
+        if (!AlphaBetaSearch.isGameOver(board))
+        {
+            commands.add(new Command<PlayerAction>(PlayerAction.kEndTurn));
+        }
+        //ENDIF
+
+        //Keep how fast the search was, for tuning.
+        count = turnCount;
+        elapsed = turnElapsed;
+
+        return commands;
+    }
+
+    /**
+    * Hands commands to the observers, in order, unless the board has changed
+    * since the plan was made for it.
+    * @pre this is called on the thread that drives the game
+    *
+    * @param board the board the game is played on
+    * @param hash the board's hash when it was copied to plan on
+    * @param commands the commands
+    */
+    private void issue(GameBoard board, long hash,
+        ArrayList<Command<PlayerAction>> commands)
+    {
+        //IF the board or the turn changed, the plan is stale: drop it.
+        if (board.getHash() != hash || board.getActivePlayer() != player)
+        {
+            return;
+        }
+        //ENDIF
+
+        //FOR each command, issue it as a person would.
+        for (Command<PlayerAction> command : commands)
+        {
+            setChanged();
+            notifyObservers(command);
+        }
+        //ENDFOR
+    }
+}
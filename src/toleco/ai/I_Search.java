@@ -0,0 +1,60 @@
+package toleco.ai;
+
+import toleco.logic.GameBoard;
+
+/**
+* The I_Search interface models an engine that picks the next action for the
+* player whose turn it is. Actions are the numbers made by
+* AlphaBetaSearch.move(Point, Point), AlphaBetaSearch.attack(Point, Point) and
+* AlphaBetaSearch.endTurn(), and are taken with
+* AlphaBetaSearch.apply(GameBoard, long). A search never changes the board
+* it is given.
+* After each search the engine reports how much work it did, in whatever it
+* counts: positions for a tree search, games played out for a Monte Carlo
+* search. An engine that holds threads of its own keeps them between searches
+* until it is shut down.
+*
+* @author Eriq Augustine
+* @version 1.0
+*/
+public interface I_Search
+{
+    /**
+    * Finds the best next action for the active player of a board, taking
+    * until about the deadline.
+    *
+    * @pre the game on root is not over
+    *
+    * @param root the position to search from, which is not changed
+    * @param deadlineNanos when to stop, from System.nanoTime()
+    * @return the action
+    */
+    public long search(GameBoard root, long deadlineNanos);
+
+    /**
+    * Gets how much work the last search did.
+    *
+    * @return the number of things counted
+    */
+    public long getCount();
+
+    /**
+    * Gets what getCount() counts, such as "nodes".
+    *
+    * @return the name of the things counted, in the plural
+    */
+    public String getCountName();
+
+    /**
+    * Gets how long the last search took.
+    *
+    * @return the time taken in nanoseconds
+    */
+    public long getElapsedNanos();
+
+    /**
+    * Releases anything the engine holds between searches, such as threads.
+    * The engine is not searched with after it is shut down.
+    */
+    public void shutdown();
+}
@@ -0,0 +1,617 @@
+package toleco.ai;
+
+import toleco.controller.Player;
+import toleco.logic.BoardSnapshot;
+import toleco.logic.GameBoard;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+* Picks the next action for the player whose turn it is with a Monte Carlo
+* tree search. Each playout walks down a tree of actions, picking children
+* by UCT, adds one new action to the tree, then plays on from there for up to
+* kRolloutTurns turns on a board that is put back to a snapshot of the root
+* before the next playout. A finished game counts as a win or a loss; an
+* unfinished one is scored by AlphaBetaSearch.evaluate and squashed into a
+* chance of winning. Actions come from the same ActionList as
+* the AlphaBetaSearch, so the tree tries attacks first and moves only
+* towards the enemy. Rollouts take the best attack most of the time, and
+* otherwise another random action until they happen to end the turn.
+* The search is root parallel: each thread grows a tree of its own from the
+* same position with its own random numbers, and the visits to each first
+* action are added up over all of the trees at the deadline. The most
+* visited action is picked. The threads are started by the first search
+* and kept until shutdown().
+*
+* @author Eriq Augustine
+* @version 1.0
+*/
+public class MctsSearch implements I_Search
+{
+    /**
+    * How much UCT favours actions that have been tried less.
+    */
+    private static final double kExploration = 0.7;
+
+    /**
+    * The most turns a rollout plays before the position is scored.
+    */
+    private static final int kRolloutTurns = 4;
+
+    /**
+    * The score difference that makes a position about three times as likely
+    * to be won as lost.
+    */
+    private static final double kEvalScale = 100.0;
+
+    /**
+    * The chance that a rollout takes the best attack, when there is one,
+    * instead of a random action.
+    */
+    private static final double kGreedyChance = 0.8;
+
+    /**
+    * The chance that a rollout takes another action, when it has one,
+    * rather than ending the turn.
+    */
+    private static final double kKeepGoingChance = 0.9;
+
+    /**
+    * The number of threads to grow trees on.
+    */
+    private int threads;
+
+    /**
+    * The threads trees are grown on, or null if none have been started.
+    */
+    private ExecutorService pool;
+
+    /**
+    * The seed of the next search's random numbers.
+    */
+    private long seed;
+
+    /**
+    * The number of playouts in the last search, over every thread.
+    */
+    private long playouts;
+
+    /**
+    * How long the last search took, in nanoseconds.
+    */
+    private long elapsedNanos;
+
+    /**
+    * Makes a search.
+    *
+    * @param threads the number of threads to grow trees on, 1 to grow a
+    * single tree on the thread that calls search(GameBoard, long)
+    */
+    public MctsSearch(int threads)
+    {
+        this.threads = threads;
+        seed = System.nanoTime();
+    }
+
+    /**
+    * Sets the seed of the next search's random numbers. Each search after
+    * that uses the next seed along.
+    *
+    * @param seed the seed
+    */
+    public void setSeed(long seed)
+    {
+        this.seed = seed;
+    }
+
+    /**
+    * {@inheritDoc}
+    * At least one playout is made on each thread, however late it is.
+    */
+    public long search(GameBoard root, long deadlineNanos)
+    {
+        long start = System.nanoTime();
+        ArrayList<Tree> trees = new ArrayList<Tree>();
+
+        //FOR each thread, give it a copy of the board and its own seed.
+        for (int i = 0; i < threads; i++)
+        {
+            trees.add(new Tree(root.copy(), deadlineNanos,
+                seed + i * 0x9E3779B97F4A7C15L));
+        }
+        //ENDFOR
+        seed += threads * 0x9E3779B97F4A7C15L;
+
+        //IF there is only one tree, grow it here.
+        if (threads == 1)
+        {
+            trees.get(0).call();
+        }
+        //ELSE grow them all at once.
+        else
+        {
+            growAll(trees);
+        }
+        //ENDIF
+
+        //Add up the visits to each first action over all of the trees.
+        HashMap<Long, Integer> visits = new HashMap<Long, Integer>();
+        long best = AlphaBetaSearch.endTurn();
+        int bestVisits = -1;
+        playouts = 0;
+
+        //FOR each tree
+        for (Tree tree : trees)
+        {
+            playouts += tree.root.visits;
+
+            //FOR each first action, IF it is the most visited so far, keep it.
+            for (Node child : tree.root.children)
+            {
+                Integer before = visits.get(child.action);
+                int total = child.visits + (before == null ? 0 : before);
+                visits.put(child.action, total);
+
+                if (total > bestVisits)
+                {
+                    best = child.action;
+                    bestVisits = total;
+                }
+            }
+            //ENDFOR
+        }
+        //ENDFOR
+
+        elapsedNanos = System.nanoTime() - start;
+        return best;
+    }
+
+    /**
+    * Gets the number of playouts the last search made.
+    *
+    * @return the number of playouts
+    */
+    public long getPlayouts()
+    {
+        return playouts;
+    }
+
+    /**
+    * Gets how many playouts per second the last search made, over every
+    * thread.
+    *
+    * @return the playouts per second
+    */
+    public double getPlayoutsPerSecond()
+    {
+        return elapsedNanos == 0 ? 0.0 : playouts * 1e9 / elapsedNanos;
+    }
+
+    /**
+    * {@inheritDoc}
+    * For this search that is getPlayouts().
+    */
+    public long getCount()
+    {
+        return playouts;
+    }
+
+    /**
+    * {@inheritDoc}
+    */
+    public String getCountName()
+    {
+        return "playouts";
+    }
+
+    /**
+    * {@inheritDoc}
+    */
+    public long getElapsedNanos()
+    {
+        return elapsedNanos;
+    }
+
+    /**
+    * {@inheritDoc}
+    * The threads trees are grown on are ended.
+    */
+    public void shutdown()
+    {
+        //IF threads were started, end them.
+        if (pool != null)
+        {
+            pool.shutdownNow();
+            pool = null;
+        }
+        //ENDIF
+    }
+
+    /**
+    * Grows each tree on a thread of its own and waits for them all. If the
+    * calling thread is interrupted, every tree is stopped and waited for
+    * before the interruption is passed on.
+    *
+    * @param trees the trees
+    */
+    private void growAll(ArrayList<Tree> trees)
+    {
+        //IF the threads have not been started, start them.
+        if (pool == null)
+        {
+            pool = Executors.newFixedThreadPool(threads, new ThreadFactory()
+            {
+                public Thread newThread(Runnable task)
+                {
+                    Thread thread = new Thread(task, "MctsSearch");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        //ENDIF
+
+        ArrayList<Future<Tree>> results = new ArrayList<Future<Tree>>();
+        boolean interrupted = false;
+
+        //FOR each tree, start growing it.
+        for (Tree tree : trees)
+        {
+            results.add(pool.submit(tree));
+        }
+        //ENDFOR
+
+        //FOR each tree, wait for it to stop.
+        for (int i = 0; i < results.size(); i++)
+        {
+            try
+            {
+                results.get(i).get();
+            }
+            //CATCH a tree that threw
+            catch (ExecutionException e)
+            {
+                throw new IllegalStateException("playout failed", e.getCause());
+            }
+            //CATCH an interruption, stop every tree and wait for it again.
+            catch (InterruptedException e)
+            {
+                interrupted = true;
+
+                //FOR each tree, stop it.
+                for (Tree tree : trees)
+                {
+                    tree.stop();
+                }
+                //ENDFOR
+                i--;
+            }
+            //END
+        }
+        //ENDFOR
+
+        //IF there was an interruption, pass it on.
+        if (interrupted)
+        {
+            Thread.currentThread().interrupt();
+        }
+        //ENDIF
+    }
+
+    /**
+    * One action in a tree, and the playouts made through it.
+    */
+    private static class Node
+    {
+        /**
+        * The action that led here from the parent.
+        */
+        private long action;
+
+        /**
+        * The node before this one, or null for the root.
+        */
+        private Node parent;
+
+        /**
+        * The player who took the action, or null for the root.
+        */
+        private Player mover;
+
+        /**
+        * The actions from here that are in the tree.
+        */
+        private ArrayList<Node> children;
+
+        /**
+        * The actions from here not yet in the tree, best first, or null if
+        * they have not been found yet.
+        */
+        private long[] untried;
+
+        /**
+        * The number of actions in untried that have been added to the tree.
+        */
+        private int numTried;
+
+        /**
+        * The number of playouts made through here.
+        */
+        private int visits;
+
+        /**
+        * The total chance of mover winning, over the playouts made through
+        * here.
+        */
+        private double wins;
+
+        /**
+        * Makes a node.
+        *
+        * @param action the action that led here
+        * @param parent the node before this one
+        * @param mover the player who took the action
+        */
+        Node(long action, Node parent, Player mover)
+        {
+            this.action = action;
+            this.parent = parent;
+            this.mover = mover;
+            children = new ArrayList<Node>();
+        }
+
+        /**
+        * Gets whether every action from here is in the tree.
+        *
+        * @return true if there is nothing left to add
+        */
+        boolean isFullyExpanded()
+        {
+            return untried != null && numTried == untried.length;
+        }
+
+        /**
+        * Picks the child with the best upper confidence bound.
+        *
+        * @return the child
+        */
+        Node bestChild()
+        {
+            Node best = null;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            double logVisits = Math.log(visits);
+
+            //FOR each child
+            for (Node child : children)
+            {
+                double value = child.wins / child.visits +
+                    kExploration * Math.sqrt(logVisits / child.visits);
+
+                //IF it is the best so far, keep it
+                if (value > bestValue)
+                {
+                    best = child;
+                    bestValue = value;
+                }
+                //ENDIF
+            }
+            //ENDFOR
+
+            return best;
+        }
+    }
+
+    /**
+    * A tree grown by one thread from its own copy of the position.
+    */
+    private static class Tree implements Callable<Tree>
+    {
+        /**
+        * The board playouts are played on.
+        */
+        private GameBoard board;
+
+        /**
+        * The position at the root, which the board is put back to for every
+        * playout.
+        */
+        private BoardSnapshot start;
+
+        /**
+        * When to stop, from System.nanoTime().
+        */
+        private long deadline;
+
+        /**
+        * Whether the tree has been told to stop before the deadline.
+        */
+        private volatile boolean stopped;
+
+        /**
+        * The random numbers for picking rollout actions.
+        */
+        private Random rand;
+
+        /**
+        * The list actions are found into.
+        */
+        private ActionList list;
+
+        /**
+        * The root of the tree.
+        */
+        private Node root;
+
+        /**
+        * Makes a tree of just the root.
+        *
+        * @param board the position at the root
+        * @param deadline when to stop, from System.nanoTime()
+        * @param seed the seed for the tree's random numbers
+        */
+        Tree(GameBoard board, long deadline, long seed)
+        {
+            this.board = board;
+            start = board.snapshot();
+            this.deadline = deadline;
+            rand = new Random(seed);
+            list = new ActionList();
+            root = new Node(0, null, null);
+        }
+
+        /**
+        * Makes playouts until the deadline or until stopped, at least one.
+        *
+        * @return this tree
+        */
+        public Tree call()
+        {
+            //DO make a playout WHILE there is time.
+            do
+            {
+                playout();
+            }
+            while (!stopped && System.nanoTime() - deadline < 0);
+            //ENDDO
+
+            return this;
+        }
+
+        /**
+        * Stops the tree after the playout it is making.
+        */
+        void stop()
+        {
+            stopped = true;
+        }
+
+        /**
+        * Makes one playout: selects down the tree, adds a node, rolls out
+        * from it and backs the result up to the root.
+        */
+        private void playout()
+        {
+            board.restore(start);
+            GameBoard position = board;
+            Node node = root;
+
+            //WHILE every action from the node is in the tree, go down by UCT.
+            while (node.isFullyExpanded() && !node.children.isEmpty())
+            {
+                node = node.bestChild();
+                AlphaBetaSearch.apply(position, node.action);
+            }
+            //ENDWHILE
+
+            //IF the game goes on, add the next untried action to the tree.
+            if (!AlphaBetaSearch.isGameOver(position))
+            {
+                //IF the node's actions have not been found, find them.
+                if (node.untried == null)
+                {
+                    list.generate(position);
+                    node.untried = new long[list.size()];
+
+                    //FOR each action, best first
+                    for (int i = 0; i < node.untried.length; i++)
+                    {
+                        node.untried[i] = list.pick(i);
+                    }
+                    //ENDFOR
+                }
+                //ENDIF
+
+                Player mover = position.getActivePlayer();
+                long action = node.untried[node.numTried++];
+                AlphaBetaSearch.apply(position, action);
+
+                Node child = new Node(action, node, mover);
+                node.children.add(child);
+                node = child;
+            }
+            //ENDIF
+
+            double player1Wins = rollout(position);
+
+            //WHILE there are nodes left, back the result up.
+            while (node != null)
+            {
+                node.visits++;
+
+                //IF someone took this node's action, credit them.
+                if (node.mover != null)
+                {
+                    node.wins += node.mover == Player.kPlayer1 ?
+                        player1Wins : 1.0 - player1Wins;
+                }
+                //ENDIF
+                node = node.parent;
+            }
+            //ENDWHILE
+        }
+
+        /**
+        * Plays on from a position for up to kRolloutTurns turns.
+        *
+        * @param position the position, which is played on
+        * @return the chance that kPlayer1 wins from where the rollout ends
+        */
+        private double rollout(GameBoard position)
+        {
+            int turns = 0;
+
+            //WHILE the game goes on and the rollout is not over
+            while (!AlphaBetaSearch.isGameOver(position) &&
+                turns < kRolloutTurns)
+            {
+                list.generate(position);
+                long action;
+
+                //IF there is an attack and the rollout is greedy, take the best.
+                if (list.hasAttack() && rand.nextDouble() < kGreedyChance)
+                {
+                    action = list.pick(0);
+                }
+                //ELSE IF there is more than ending the turn, which is always
+                // first, mostly keep going.
+                else if (list.size() > 1 && rand.nextDouble() < kKeepGoingChance)
+                {
+                    action = list.get(1 + rand.nextInt(list.size() - 1));
+                }
+                //ELSE end the turn.
+                else
+                {
+                    action = AlphaBetaSearch.endTurn();
+                }
+                //ENDIF
+
+                //IF the action ends the turn, count it.
+                if (AlphaBetaSearch.kindOf(action) == AlphaBetaSearch.kEndTurn)
+                {
+                    turns++;
+                }
+                //ENDIF
+
+                AlphaBetaSearch.apply(position, action);
+            }
+            //ENDWHILE
+
+            //IF the game is over, someone won for sure.
+            if (AlphaBetaSearch.isGameOver(position))
+            {
+                return position.getUnitCount(Player.kPlayer2) == 0 ? 1.0 : 0.0;
+            }
+            //ENDIF
+
+            int score = AlphaBetaSearch.evaluate(position, Player.kPlayer1);
+            return 1.0 / (1.0 + Math.exp(-score / kEvalScale));
+        }
+    }
+}
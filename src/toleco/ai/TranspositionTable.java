@@ -0,0 +1,175 @@
+package toleco.ai;
+
+/**
+* A fixed size table of search results, indexed by the Zobrist hash of the
+* position they were found for. Each entry keeps the position's full hash, the
+* depth it was searched to, its score, whether the score is exact or only a
+* bound, and the best action found. When two positions want the same entry
+* the one searched deeper is kept.
+*
+* @author Eriq Augustine
+* @version 1.0
+*/
+class TranspositionTable
+{
+    /**
+    * The entry's score is exact.
+    */
+    static final byte kExact = 1;
+
+    /**
+    * The entry's score is at least the position's score.
+    */
+    static final byte kUpperBound = 2;
+
+    /**
+    * The entry's score is at most the position's score.
+    */
+    static final byte kLowerBound = 3;
+
+    /**
+    * The value of an entry's flag when it is empty.
+    */
+    private static final byte kEmpty = 0;
+
+    /**
+    * Used to turn a hash into an index, the number of entries less one.
+    */
+    private int mask;
+
+    /**
+    * The full hash of each entry's position.
+    */
+    private long[] keys;
+
+    /**
+    * The best action found for each entry's position.
+    */
+    private long[] actions;
+
+    /**
+    * The score of each entry's position.
+    */
+    private int[] scores;
+
+    /**
+    * The depth each entry's position was searched to.
+    */
+    private byte[] depths;
+
+    /**
+    * What kind of score each entry has, or kEmpty.
+    */
+    private byte[] flags;
+
+    /**
+    * The index found by the last call to probe(long).
+    */
+    private int found;
+
+    /**
+    * Makes an empty table.
+    *
+    * @param bits the log base 2 of the number of entries
+    */
+    TranspositionTable(int bits)
+    {
+        int size = 1 << bits;
+        mask = size - 1;
+        keys = new long[size];
+        actions = new long[size];
+        scores = new int[size];
+        depths = new byte[size];
+        flags = new byte[size];
+    }
+
+    /**
+    * Looks up a position. If it is found its entry can be read with
+    * getDepth(), getScore(), getFlag() and getAction().
+    *
+    * @param hash the position's hash
+    * @return true if the position has an entry
+    */
+    boolean probe(long hash)
+    {
+        found = (int)hash & mask;
+        return flags[found] != kEmpty && keys[found] == hash;
+    }
+
+    /**
+    * Gets the depth of the entry found by the last probe.
+    *
+    * @return the depth
+    */
+    int getDepth()
+    {
+        return depths[found];
+    }
+
+    /**
+    * Gets the score of the entry found by the last probe.
+    *
+    * @return the score
+    */
+    int getScore()
+    {
+        return scores[found];
+    }
+
+    /**
+    * Gets the kind of score of the entry found by the last probe.
+    *
+    * @return kExact, kUpperBound or kLowerBound
+    */
+    byte getFlag()
+    {
+        return flags[found];
+    }
+
+    /**
+    * Gets the best action of the entry found by the last probe.
+    *
+    * @return the action
+    */
+    long getAction()
+    {
+        return actions[found];
+    }
+
+    /**
+    * Records a search result, unless a deeper result for a different
+    * position is already in its entry.
+    *
+    * @param hash the position's hash
+    * @param depth the depth searched to
+    * @param score the score found
+    * @param flag the kind of score
+    * @param action the best action found
+    */
+    void store(long hash, int depth, int score, byte flag, long action)
+    {
+        int index = (int)hash & mask;
+
+        //IF the entry holds a deeper search of another position, keep it
+        if (flags[index] != kEmpty && keys[index] != hash &&
+            depths[index] > depth)
+        {
+            return;
+        }
+        //ENDIF
+
+        keys[index] = hash;
+        depths[index] = (byte)depth;
+        scores[index] = score;
+        flags[index] = flag;
+        actions[index] = action;
+    }
+
+    /**
+    * Empties the table.
+    */
+    void clear()
+    {
+        java.util.Arrays.fill(flags, kEmpty);
+    }
+}
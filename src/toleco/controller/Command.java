@@ -0,0 +1,216 @@
+package toleco.controller;
+
+import java.util.Scanner;
+
+/**
+* A command from a view to its controller: a PlayerAction or an EditorAction
+* with the cell or the text it acts on. Views keep one Command each and fill it
+* in for every click and key press instead of formatting a String for the
+* controller to parse, since a command is handled before notifyObservers
+* returns and is then free to be used again. A controller must not keep a
+* Command it is handed.
+* Commands can still be written as Strings, like "kSelect 3 4", for the
+* console view and for scripts. parse(Class, String) reads one into a Command
+* and toString() writes one back out.
+*
+* @param <A> the kind of action, PlayerAction or EditorAction
+* @author Eriq Augustine
+* @version 1.0
+*/
+public final class Command<A extends Enum<A> & I_Action>
+{
+    /**
+    * The action.
+    */
+    private A action;
+
+    /**
+    * The X coordinate of the cell acted on, or -1 if there is none.
+    */
+    private int xCoord;
+
+    /**
+    * The Y coordinate of the cell acted on, or -1 if there is none.
+    */
+    private int yCoord;
+
+    /**
+    * The text acted on, such as a file or unit name, or null if there is
+    * none.
+    */
+    private String text;
+
+    /**
+    * Makes an empty command, to be filled in by one of the set methods.
+    */
+    public Command()
+    {
+        xCoord = -1;
+        yCoord = -1;
+    }
+
+    /**
+    * Makes a command that does not act on a cell or text.
+    *
+    * @param action the action
+    */
+    public Command(A action)
+    {
+        set(action);
+    }
+
+    /**
+    * Makes the command one that does not act on a cell or text.
+    *
+    * @param action the action
+    * @return this command
+    */
+    public Command<A> set(A action)
+    {
+        this.action = action;
+        xCoord = -1;
+        yCoord = -1;
+        text = null;
+        return this;
+    }
+
+    /**
+    * Makes the command one that acts on a cell.
+    *
+    * @param action the action
+    * @param xCoord the X coordinate of the cell
+    * @param yCoord the Y coordinate of the cell
+    * @return this command
+    */
+    public Command<A> set(A action, int xCoord, int yCoord)
+    {
+        this.action = action;
+        this.xCoord = xCoord;
+        this.yCoord = yCoord;
+        text = null;
+        return this;
+    }
+
+    /**
+    * Makes the command one that acts on text, such as a file or unit name.
+    *
+    * @param action the action
+    * @param text the text
+    * @return this command
+    */
+    public Command<A> set(A action, String text)
+    {
+        this.action = action;
+        xCoord = -1;
+        yCoord = -1;
+        this.text = text;
+        return this;
+    }
+
+    /**
+    * Gets the action.
+    *
+    * @return the action
+    */
+    public A getAction()
+    {
+        return action;
+    }
+
+    /**
+    * Gets the X coordinate of the cell acted on.
+    *
+    * @return the X coordinate, or -1 if there is no cell
+    */
+    public int getX()
+    {
+        return xCoord;
+    }
+
+    /**
+    * Gets the Y coordinate of the cell acted on.
+    *
+    * @return the Y coordinate, or -1 if there is no cell
+    */
+    public int getY()
+    {
+        return yCoord;
+    }
+
+    /**
+    * Gets the text acted on.
+    *
+    * @return the text, or null if there is none
+    */
+    public String getText()
+    {
+        return text;
+    }
+
+    /**
+    * Reads a command written as a String: the action's name, then the cell's
+    * two coordinates if the action takes a cell, or else the rest of the line
+    * as text.
+    *
+    * @pre the first token of line is the name of an action of the given type,
+    * followed by two integers if the action takes a cell
+    * @param type the kind of action
+    * @param line the command as a String, like "kSelect 3 4"
+    * @param <A> the kind of action
+    * @return a new command
+    */
+    public static <A extends Enum<A> & I_Action> Command<A> parse(
+        Class<A> type, String line)
+    {
+        Scanner sc = new Scanner(line);
+        Command<A> command = new Command<A>(Enum.valueOf(type, sc.next()));
+
+        //IF anything follows the action
+        if (sc.hasNextLine())
+        {
+            String rest = sc.nextLine().trim();
+            Scanner restSc = new Scanner(rest);
+
+            //IF the action takes a cell, the numbers are its coordinates
+            if (command.getAction().takesCell())
+            {
+                command.set(command.getAction(), restSc.nextInt(),
+                    restSc.nextInt());
+            }
+            //ELSE IF there is anything, it is text
+            else if (rest.length() > 0)
+            {
+                command.set(command.getAction(), rest);
+            }
+            //ENDIF
+        }
+        //ENDIF
+
+        return command;
+    }
+
+    /**
+    * Writes the command as a String that parse(Class, String) reads back.
+    *
+    * @return the command as a String
+    */
+    @Override
+    public String toString()
+    {
+        String rtn = action.toString();
+
+        //IF the command acts on a cell, add its coordinates
+        if (xCoord >= 0)
+        {
+            rtn += " " + xCoord + " " + yCoord;
+        }
+        //ELSE IF it acts on text, add the text
+        else if (text != null)
+        {
+            rtn += " " + text;
+        }
+        //ENDIF
+
+        return rtn;
+    }
+}
@@ -11,7 +11,7 @@ import java.util.Scanner;
 * @author Adam Armstrong (Implementation)
 * @version 1.0
 */
-public enum EditorAction
+public enum EditorAction implements I_Action
 {
     /**
     * An action to choose a terrain.
@@ -47,6 +47,15 @@ public enum EditorAction
     * An action to quit the map editor.
     */
     kQuit;
+
+    /**
+    * {@inheritDoc}
+    * Only selecting a cell acts on a cell.
+    */
+    public boolean takesCell()
+    {
+        return this == kSelectCell;
+    }
     
     /**
     * Constructs and returns an EditorAction based off of the first token in name.
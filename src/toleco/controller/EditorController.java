@@ -5,7 +5,6 @@ import toleco.logic.GameBoard;
 import toleco.TolecoApp;
 import java.util.HashMap;
 import java.util.Observable;
-import java.util.Scanner;
 import toleco.view.I_GameView;
 
 /**
@@ -132,95 +131,115 @@ public class EditorController implements I_Controller
     
     /**
      * {@inheritDoc}
+     * Commands are taken as a Command of an EditorAction, or as a String like
+     * "kSelectCell 3 4" that is read into one.
      */
     public void update(Observable observe, Object obj)
     {
-        //IF object is instance of String
-        if(obj instanceof String)
+        //IF object is a Command
+        if (obj instanceof Command)
         {
-            //CAST obj to a String
-            String actionCmd = (String)obj;
+            Command<?> command = (Command<?>)obj;
 
-            //Create a scanner with the actionCmd
-            Scanner actionSc = new Scanner(actionCmd);
-
-            //COMPUTE what EditorAction this event is
-            EditorAction action = EditorAction.valueOf(actionSc.next());
-            //CASE playerAction OF
-            switch (action)
+            //IF it is a command for the editor, carry it out
+            if (command.getAction() instanceof EditorAction)
             {
-                //kSelect: COMPUTE xCoord, yCoord from event's actionCommand
-                case kSelectCell:
-                    int xCoord = actionSc.nextInt();
-                    int yCoord = actionSc.nextInt();
+                execute((EditorAction)command.getAction(), command);
+            }
+            //ENDIF
+        }
+        //ELSE IF object is instance of String
+        else if (obj instanceof String)
+        {
+            //CREATE a Command from the String
+            Command<EditorAction> command =
+                Command.parse(EditorAction.class, (String)obj);
+            execute(command.getAction(), command);
+        }
+        //END IF
+    }
 
-                    //CALL selectCell with xCoord, yCoord
-                    selectCell(xCoord, yCoord);
+    /**
+     * Carries out a command.
+     *
+     * @param action the command's action
+     * @param command the command, for the cell or text it acts on
+     */
+    private void execute(EditorAction action, Command<?> command)
+    {
+        //CASE playerAction OF
+        switch (action)
+        {
+            //kSelect: COMPUTE xCoord, yCoord from event's actionCommand
+            case kSelectCell:
+                int xCoord = command.getX();
+                int yCoord = command.getY();
 
-                    break;
-                //kQuit: CALL quit()
-                case kQuit:
-                    quit();
-                    break;
-                //kChooseUnit: COMPUTE unit name from actionCommand
-                case kChooseUnit:
-                    String unitName = actionSc.next();
+                //CALL selectCell with xCoord, yCoord
+                selectCell(xCoord, yCoord);
 
-                    //Set the chosen terrain to null
-                    chosenTerrain = null;
+                break;
+            //kQuit: CALL quit()
+            case kQuit:
+                quit();
+                break;
+            //kChooseUnit: COMPUTE unit name from actionCommand
+            case kChooseUnit:
+                String unitName = command.getText();
 
-                    //CALL SetCurrentUnit
-                    this.setCurrentUnit(unitName);
+                //Set the chosen terrain to null
+                chosenTerrain = null;
 
-                    break;
-                //kLoad: COMPUTE fileName from the event's actionCommand
-                case kLoad:
-                    String loadName = actionSc.next();
-                    //TRY
-                    try
-                    {
-                        //CALL loadMap with fileName
-                        loadMap(loadName);
-                    }
-                    //CATCH
-                    catch(FileNotFoundException ex)
-                    {
-                        System.err.println("File not able to be loaded.");
-                    }
-                    break;
-                //kChooseTerrain: COMPUTE terrain name from actionCommand
-                case kChooseTerrain:
-                    String terrainName = actionSc.next();
+                //CALL SetCurrentUnit
+                this.setCurrentUnit(unitName);
 
-                    //Set the chosen unit to null
-                    chosenUnit = null;
+                break;
+            //kLoad: COMPUTE fileName, the whole of the command's text
+            case kLoad:
+                String loadName = command.getText();
+                //TRY
+                try
+                {
+                    //CALL loadMap with fileName
+                    loadMap(loadName);
+                }
+                //CATCH
+                catch(FileNotFoundException ex)
+                {
+                    System.err.println("File not able to be loaded.");
+                }
+                break;
+            //kChooseTerrain: COMPUTE terrain name from actionCommand
+            case kChooseTerrain:
+                String terrainName = command.getText();
 
-                    //CALL setCurrentTerrain with terrain
-                    this.setCurrentTerrain(terrainName);
+                //Set the chosen unit to null
+                chosenUnit = null;
 
-                    break;
-                //kChoosePlayer: COMPUTE chosenPlayer from actionCommand
-                case kChoosePlayer:
-                    String playerName = actionSc.next();
+                //CALL setCurrentTerrain with terrain
+                this.setCurrentTerrain(terrainName);
 
-                    //SET chosenPlayer to new player
-                    this.setChosenPlayer(Player.valueOf(playerName));
+                break;
+            //kChoosePlayer: COMPUTE chosenPlayer from actionCommand
+            case kChoosePlayer:
+                String playerName = command.getText();
 
-                    break;
-                //kSave: COMPUTE fileName from the event's actionCommand
-                case kSave:
-                    //Fixes defect#230
-                    //CALL save with fileName making sure to trim
-                    // the aquired String and replace all spaces with '_'s.
-                    save(actionSc.nextLine().trim().replaceAll(" ", "_"));
+                //SET chosenPlayer to new player
+                this.setChosenPlayer(Player.valueOf(playerName));
 
-                    break;
-                default:
-                    break;
-            }
-            //ENDCASE
+                break;
+            //kSave: COMPUTE fileName from the event's actionCommand
+            case kSave:
+                //Fixes defect#230
+                //CALL save with fileName making sure to trim
+                // the aquired String and replace all spaces with '_'s.
+                save(command.getText().replaceAll(" ", "_"));
+
+                break;
+            default:
+                break;
         }
-        //END IF
+        //ENDCASE
     }
     
     /**
@@ -1,13 +1,13 @@
 package toleco.controller;
 
+import toleco.logic.BoardHistory;
 import toleco.logic.GameBoard;
+import toleco.logic.GameJournal;
 import toleco.TolecoApp;
 import toleco.view.I_GameView;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Observable;
-import java.util.Scanner;
-import toleco.terrain.Terrain;
 import toleco.unit.Unit;
 
 /**
@@ -23,6 +23,15 @@ import toleco.unit.Unit;
 */
 public class GameController implements I_Controller
 {
+    /**
+    * The most moves, attacks and ends of turns that can be undone.
+    */
+    private static final int kUndoActions = 256;
+
+    /**
+    * The most Unit changes the undo history keeps, over every action.
+    */
+    private static final int kUndoRecords = 8192;
 
     /**
     * The player who is eligible to move his/her units and attack with them.
@@ -54,6 +63,26 @@ public class GameController implements I_Controller
     */
     private TolecoApp app;
 
+    /**
+    * The moves, attacks and ends of turns that can be undone and redone.
+    */
+    private BoardHistory history;
+
+    /**
+    * The journal the game is recorded to, or null if it is not recorded.
+    */
+    private GameJournal journal;
+
+    /**
+    * The player the computer plays, or null if people play both sides.
+    */
+    private Player computerPlayer;
+
+    /**
+    * Where the computer's commands come from.
+    */
+    private Observable computer;
+
     /**
      * Used to construct a new GameController.
      * @param board supplied game board for the controller to pass on calls to
@@ -63,6 +92,10 @@ public class GameController implements I_Controller
         //Initialoze this.board to the passed in board.
         this.board = board;
 
+        //Record what is played on the board so it can be undone.
+        history = new BoardHistory(kUndoActions, kUndoRecords);
+        board.setHistory(history);
+
         //Set the current state to kNoneSelected.
         state = GameState.kNoneSelected;
 
@@ -122,6 +155,60 @@ public class GameController implements I_Controller
             activePlayer = Player.kPlayer1;
         }
         //ENDIF
+
+        //IF the game is being recorded, record the end of the turn.
+        if (journal != null)
+        {
+            journal.endTurn(activePlayer, board);
+        }
+        //ENDIF
+    }
+
+    /**
+    * Undoes the last move, attack or end of turn, leaving nothing selected.
+    */
+    private void undo()
+    {
+        //IF the board undid something
+        if (state != GameState.kGameOver && board.undo())
+        {
+            //The turn may have gone back to the other player.
+            activePlayer = board.getActivePlayer();
+
+            //CALL recordPosition, since a journal only goes forward
+            recordPosition();
+
+            //SET state to kNoneSelected
+            state = GameState.kNoneSelected;
+
+            //CALL view.removeHighlights
+            view.removeHighlights();
+        }
+        //ENDIF
+    }
+
+    /**
+    * Redoes the last undone move, attack or end of turn, leaving nothing
+    * selected.
+    */
+    private void redo()
+    {
+        //IF the board redid something
+        if (state != GameState.kGameOver && board.redo())
+        {
+            //The turn may have gone on to the other player.
+            activePlayer = board.getActivePlayer();
+
+            //CALL recordPosition, since a journal only goes forward
+            recordPosition();
+
+            //SET state to kNoneSelected
+            state = GameState.kNoneSelected;
+
+            //CALL view.removeHighlights
+            view.removeHighlights();
+        }
+        //ENDIF
     }
 
     /**
@@ -190,12 +277,55 @@ public class GameController implements I_Controller
         //ENDIF
     }
 
+    /**
+    * Tells the gameboard to move the unit on the selected terrain to the
+    * given location if it belongs to the player currently taking his/her
+    * turn and it has the moves to get there.
+    *
+    * @param xCoord x-coordinate of the location to move to
+    * @param yCoord y-coordinate of the location to move to
+    */
+    private void moveTo(int xCoord, int yCoord)
+    {
+        //IF state equals GameState.kTerrainSelected and the selected location
+        //has a unit that belongs to activePlayer
+        if(state == GameState.kTerrainSelected && board.getSelection() != null &&
+                board.getSelection().getUnit() != null &&
+                board.getSelection().getUnit().getOwner() == activePlayer)
+        {
+            int fromX = board.getSelection().getX();
+            int fromY = board.getSelection().getY();
+
+            //IF board.moveTo with xCoord, yCoord moved the unit
+            if(board.moveTo(xCoord, yCoord))
+            {
+                //IF the game is being recorded, record the move.
+                if (journal != null)
+                {
+                    journal.moveTo(fromX, fromY, xCoord, yCoord);
+                }
+                //ENDIF
+
+                //Update the board's selected terrain
+                selectCell(xCoord, yCoord);
+            }
+            //END IF
+        }
+        //END IF
+    }
 
     /**
     * {@inheritDoc}
     */
     public void quit()
     {
+        //IF the game is being recorded, finish the journal.
+        if (journal != null)
+        {
+            journal.close();
+        }
+        //ENDIF
+
         //CALL app.cleanUp
         app.cleanUp();
     }
@@ -222,110 +352,178 @@ public class GameController implements I_Controller
         view.displayTerrainSelected(activePlayer);
     }
 
-    //CHECKSTYLE:OFF - Ignore the cyclomatic complexity of this method.
-    // Ignore authorized by Dr. Dalbey.
     /**
     * {@inheritDoc}
+    * Commands are taken as a Command of a PlayerAction, or as a String like
+    * "kSelect 3 4" that is read into one. Everything a command changes on the
+    * board is published to the board's observers as one change, once the
+    * command has been carried out. On the computer's turn, only the computer
+    * may play: anyone else may only save or quit.
     */
     public void update(Observable observe, Object obj)
     {
-        //CHECKSTYLE:ON
+        Command<?> command = null;
 
-        //IF object passed to update is an instance of String
-        if(obj instanceof String)
+        //IF object passed to update is a Command
+        if (obj instanceof Command)
         {
-            //Cast the object to a String
-            String actionStr = (String)obj;
-
-            //CREATE a Scanner of the action command string
-            Scanner actionSc = new Scanner(actionStr);
-            //CREATE a PlayerAction from the first token read from the Scanner
-            PlayerAction action = PlayerAction.valueOf(actionSc.next());
-            //CASE playerAction OF
-            switch (action)
-            {
-                //CASE kSelect : COMPUTE xCoord, yCoord from event's actionCommand
-                case kSelect:
-                    int xCoord = actionSc.nextInt();
-                    int yCoord = actionSc.nextInt();
-
-                    //IF state equals GameState.kAttackMode THEN
-                    if(state == GameState.kAttackMode)
-                    {
-                        //CALL runAttackMode with the X and Y coordinates
-                        runAttackMode(xCoord, yCoord);
-                    }
-                    //ELSE
-                    else
-                    {
-                        //CALL selectCell with xCoord, yCoord
-                        selectCell(xCoord, yCoord);
-                    }
-                    //END IF
-                    break;
-                //CASE kMoveUp : CALL move with playerAction
-                case kMoveUp:
-                    move(action);
-
-                    //SET state to kTerrainSelected
-                    state = GameState.kTerrainSelected;
-                    break;
-                //CASE kMoveDown : CALL move with playerAction
-                case kMoveDown:
-                    move(action);
-
-                    //SET state to kTerrainSelected
-                    state = GameState.kTerrainSelected;
-                    break;
-                //CASE kMoveLeft : CALL move with playerAction
-                case kMoveLeft:
-                    move(action);
-
-                    //Update the board's selected terrain
-                    state = GameState.kTerrainSelected;
-                    break;
-                //CASE kMoveRight : CALL move with playerAction
-                case kMoveRight:
-                    move(action);
-
-                    //SET state to kTerrainSelected
-                    state = GameState.kTerrainSelected;
-                    break;
-                //CASE kQuit : CALL quit()
-                case kQuit:
-                    quit();
-                    break;
-                //CASE kSave : COMPUTE fileName from the event's actionCommand
-                case kSave:
-                    //Fixes defext #230
-                    //CALL save with fileName making sure to trim
-                    // the aquired String and replace all spaces with '_'s.
-                    save(actionSc.nextLine().trim().replaceAll(" ", "_"));
-                    break;
-                //CASE kAttack : SET state to GameState.attackMode
-                case kAttack:
-                    state = GameState.kAttackMode;
-                    
-                    //CALL board.getEnemiesInRange
-                    board.getEnemiesInRange();
-                    break;
-                //CASE kEndTurn : CALL endTurn
-                case kEndTurn:
-                    endTurn();
-                    break;
-                //CASE kCancelAttack : SET state to kTerrainSelected
-                case kCancelAttack:
-                    state = GameState.kTerrainSelected;
-
-                    //CALL (view as SwingGameView) remove highlights
-                    view.removeHighlights();
-                    break;
-                default:
-                    break;
-            }
-            //ENDCASE
+            command = (Command<?>)obj;
+        }
+        //ELSE IF object passed to update is an instance of String
+        else if (obj instanceof String)
+        {
+            //CREATE a Command from the String
+            command = Command.parse(PlayerAction.class, (String)obj);
         }
         //END IF
+
+        //IF it is not a command for a game, or not this one's to give, ignore it
+        if (command == null || !(command.getAction() instanceof PlayerAction) ||
+            !mayCommand(observe, (PlayerAction)command.getAction()))
+        {
+            return;
+        }
+        //ENDIF
+
+        board.beginChange();
+
+        try
+        {
+            execute((PlayerAction)command.getAction(), command);
+        }
+        finally
+        {
+            board.endChange();
+        }
+    }
+
+    /**
+    * Checks whether a command may be given now by where it came from. Only
+    * the computer plays the computer's turn, though anyone may save or quit.
+    *
+    * @param source where the command came from
+    * @param action the command's action
+    * @return true if the command may be carried out
+    */
+    private boolean mayCommand(Observable source, PlayerAction action)
+    {
+        return activePlayer != computerPlayer || source == computer ||
+            action == PlayerAction.kSave || action == PlayerAction.kQuit;
+    }
+
+    //CHECKSTYLE:OFF - Ignore the cyclomatic complexity of this method.
+    // Ignore authorized by Dr. Dalbey.
+    /**
+    * Carries out a command.
+    *
+    * @param action the command's action
+    * @param command the command, for the cell or text it acts on
+    */
+    private void execute(PlayerAction action, Command<?> command)
+    {
+        //CHECKSTYLE:ON
+
+        //CASE playerAction OF
+        switch (action)
+        {
+            //CASE kSelect : COMPUTE xCoord, yCoord from event's actionCommand
+            case kSelect:
+                int xCoord = command.getX();
+                int yCoord = command.getY();
+
+                //IF state equals GameState.kAttackMode THEN
+                if(state == GameState.kAttackMode)
+                {
+                    //CALL runAttackMode with the X and Y coordinates
+                    runAttackMode(xCoord, yCoord);
+                }
+                //ELSE
+                else
+                {
+                    //CALL selectCell with xCoord, yCoord
+                    selectCell(xCoord, yCoord);
+                }
+                //END IF
+                break;
+            //CASE kMoveUp : CALL move with playerAction
+            case kMoveUp:
+                move(action);
+
+                //SET state to kTerrainSelected
+                state = GameState.kTerrainSelected;
+                break;
+            //CASE kMoveDown : CALL move with playerAction
+            case kMoveDown:
+                move(action);
+
+                //SET state to kTerrainSelected
+                state = GameState.kTerrainSelected;
+                break;
+            //CASE kMoveLeft : CALL move with playerAction
+            case kMoveLeft:
+                move(action);
+
+                //Update the board's selected terrain
+                state = GameState.kTerrainSelected;
+                break;
+            //CASE kMoveRight : CALL move with playerAction
+            case kMoveRight:
+                move(action);
+
+                //SET state to kTerrainSelected
+                state = GameState.kTerrainSelected;
+                break;
+            //CASE kMoveTo : CALL moveTo with the X and Y coordinates
+            case kMoveTo:
+                moveTo(command.getX(), command.getY());
+
+                //SET state to kTerrainSelected
+                state = GameState.kTerrainSelected;
+                break;
+            //CASE kQuit : CALL quit()
+            case kQuit:
+                quit();
+                break;
+            //CASE kSave : COMPUTE fileName from the event's actionCommand
+            case kSave:
+                //Fixes defext #230
+                //CALL save with fileName making sure to trim
+                // the aquired String and replace all spaces with '_'s.
+                save(command.getText().replaceAll(" ", "_"));
+                break;
+            //CASE kAttack : SET state to GameState.attackMode
+            case kAttack:
+                state = GameState.kAttackMode;
+
+                //CALL view.removeHighlights to clear the reachable cells
+                view.removeHighlights();
+                
+                //CALL board.getEnemiesInRange
+                board.getEnemiesInRange();
+                break;
+            //CASE kEndTurn : CALL endTurn
+            case kEndTurn:
+                endTurn();
+                break;
+            //CASE kUndo : CALL undo
+            case kUndo:
+                undo();
+                break;
+            //CASE kRedo : CALL redo
+            case kRedo:
+                redo();
+                break;
+            //CASE kCancelAttack : SET state to kTerrainSelected
+            case kCancelAttack:
+                state = GameState.kTerrainSelected;
+
+                //CALL (view as SwingGameView) remove highlights
+                view.removeHighlights();
+                break;
+            default:
+                break;
+        }
+        //ENDCASE
     }
 
     /**
@@ -346,6 +544,9 @@ public class GameController implements I_Controller
     {
         //SET this controller's board to the given board
         this.board = board;
+
+        //Record what is played on the new board instead.
+        board.setHistory(history);
     }
 
     /**
@@ -385,46 +586,66 @@ public class GameController implements I_Controller
     }
 
     /**
-     * Checks game over conditon on the map.
-     * @return true if one player has no units otherwise false
+     * Records the game to the given journal from now on. Each map loaded
+     * after this starts with a keyframe of the position.
+     * @param journal the journal, or null to stop recording
      */
-    private boolean isGameOver()
+    public void setJournal(GameJournal journal)
+    {
+        this.journal = journal;
+    }
+
+    /**
+     * Has the computer play the given player. On that player's turn, only
+     * commands from the computer are played; the controller must also
+     * observe the computer to get them.
+     * @param player the player the computer plays, or null for none
+     * @param computer where the computer's commands come from
+     */
+    public void setComputerPlayer(Player player, Observable computer)
     {
-        //CALL board.getMap and store the map
-        Terrain[][] map = board.getMap();
-        //Create boolean value for player 1
-        boolean player1Units = false;
-        //Create boolean value for player 2
-        boolean player2Units = false;
+        computerPlayer = player;
+        this.computer = computer;
+    }
 
-        //FOR each Terrain array in the map
-        for(Terrain[] terrainArr : map)
+    /**
+     * Records a move of the selected unit, if the game is being recorded.
+     * @param xChange the change in X
+     * @param yChange the change in Y
+     */
+    private void recordMove(int xChange, int yChange)
+    {
+        //IF the game is being recorded, record the move.
+        if (journal != null)
         {
-            //FOR each Terrain in the Terrain array
-            for(Terrain terrain : terrainArr)
-            {
-                //IF terrain.getUnit is not null
-                if(terrain.getUnit() != null)
-                {
-                    //IF player one owns the unit
-                    if(terrain.getUnit().getOwner() == Player.kPlayer1)
-                    {
-                        //SET player 1's boolean value to true
-                        player1Units = true;
-                    }
-                    //ELSE
-                    else
-                    {
-                        //SET player 2's boolean value to true
-                        player2Units = true;
-                    }
-                    //ENDIF
-                }
-            }
+            journal.move(board.getSelection().getX(),
+                board.getSelection().getY(), xChange, yChange);
         }
+        //ENDIF
+    }
 
+    /**
+     * Records the whole position, if the game is being recorded.
+     */
+    private void recordPosition()
+    {
+        //IF the game is being recorded, write a keyframe.
+        if (journal != null)
+        {
+            journal.keyframe(board);
+        }
+        //ENDIF
+    }
+
+    /**
+     * Checks game over conditon on the map.
+     * @return true if one player has no units otherwise false
+     */
+    private boolean isGameOver()
+    {
         //Return if player 1 or player 2 are out of units
-        return (!player1Units || !player2Units);
+        return board.getUnitCount(Player.kPlayer1) == 0 ||
+            board.getUnitCount(Player.kPlayer2) == 0;
     }
 
     /**
@@ -436,6 +657,9 @@ public class GameController implements I_Controller
         //Set activePlayer with a call to board.loadMap with the fileName
         activePlayer = board.loadMap(filename);
 
+        //CALL recordPosition to start the journal from the new map
+        recordPosition();
+
         //CALL view.displayBackStory with the back story returned from board
         view.displayBackStory(board.getBackStory());
     }
@@ -517,15 +741,28 @@ public class GameController implements I_Controller
             Unit attacker = board.getSelection().getUnit();
             //Get the defending unit
             Unit defender = board.getTerrain(xCoord, yCoord).getUnit();
+            int attackerX = board.getSelection().getX();
+            int attackerY = board.getSelection().getY();
 
             //CALL board.attack with xCoord, yCoord and
             //keep the returned ArrayList.
             ArrayList<Integer> damageDealt = board.attack(xCoord, yCoord);
 
+            //IF the game is being recorded, record the attack.
+            if (journal != null)
+            {
+                journal.attack(attackerX, attackerY, xCoord, yCoord);
+            }
+            //ENDIF
+
             //CALL formBattleSummary with the result from attack.
             String battleSummary = formBattleSummary(damageDealt,
                     attacker, defender);
 
+            //CALL board.flushChange so the board is shown after the attack
+            // before its summary
+            board.flushChange();
+
             //CALL view.displayBattleSummary with the battle summary
             view.displayBattleSummary(attacker, defender, battleSummary);
 
@@ -581,6 +818,7 @@ public class GameController implements I_Controller
                     board.getSelection().getY()).getUnit() == null)
         {
             //CALL board.move with -1 and 0 as arguments
+            recordMove(-1, 0);
             board.move(-1, 0);
             //Update the board's selected terrain
             selectCell(board.getSelection().getX() - 1,
@@ -597,13 +835,14 @@ public class GameController implements I_Controller
     {
         //IF move is not out of bottom bounds and terrain cost
         //is not too much
-        if(board.getMap()[0].length != board.getSelection().getX() + 1 &&
+        if(board.getNumRows() != board.getSelection().getX() + 1 &&
             board.getTerrain(board.getSelection().getX() + 1,
                 board.getSelection().getY()).getMoveCost() <= moves &&
                 board.getTerrain(board.getSelection().getX() + 1,
                 board.getSelection().getY()).getUnit() == null)
         {
             //CALL board.move with 1 and 0 as arguments
+            recordMove(1, 0);
             board.move(1, 0);
             //Update the board's selected terrain
             selectCell(board.getSelection().getX() + 1,
@@ -627,6 +866,7 @@ public class GameController implements I_Controller
                     board.getSelection().getY() - 1).getUnit() == null)
         {
             //CALL board.move with 0 and -1 as arguments
+            recordMove(0, -1);
             board.move(0, -1);
             //Update the board's selected terrain
             selectCell(board.getSelection().getX(),
@@ -643,13 +883,14 @@ public class GameController implements I_Controller
     {
         //IF move is not out of right bounds and terrain cost
         //is not too much
-        if(board.getMap().length != board.getSelection().getY() + 1 &&
+        if(board.getNumCols() != board.getSelection().getY() + 1 &&
             board.getTerrain(board.getSelection().getX(),
                 board.getSelection().getY() + 1).getMoveCost() <= moves
                 && board.getTerrain(board.getSelection().getX(),
                     board.getSelection().getY() + 1).getUnit() == null)
         {
             //CALL board.move with 0 and 1 as arguments
+            recordMove(0, 1);
             board.move(0, 1);
             //Update the board's selected terrain
             selectCell(board.getSelection().getX(),
@@ -0,0 +1,21 @@
+package toleco.controller;
+
+/**
+* The I_Action interface is what a Command needs to know about its action,
+* a PlayerAction or an EditorAction, to read one written as a String: whether
+* the action acts on a cell, so that what follows it is the cell's two
+* coordinates rather than text.
+*
+* @author Eriq Augustine
+* @version 1.0
+*/
+public interface I_Action
+{
+    /**
+    * Tells whether the action acts on a cell.
+    *
+    * @return true if the action is given a cell, false if it is given text
+    * or nothing
+    */
+    public boolean takesCell();
+}
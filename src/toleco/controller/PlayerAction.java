@@ -4,7 +4,8 @@ import java.util.Scanner;
 
 /**
 * An enum representing all possible actions that a player may take on their
-* turn. The possible actions are: moving up, down, left and right, selecting
+* turn. The possible actions are: moving up, down, left and right, moving
+* to a grid location, selecting
 * a grid location, clicking the attack button to enter attack mode, clicking
 * the End Turn button, clicking the Save button and clicking the Quit button.
 *
@@ -12,7 +13,7 @@ import java.util.Scanner;
 * @author Adam Armstrong (Implementation)
 * @version 1.0
 */
-public enum PlayerAction
+public enum PlayerAction implements I_Action
 {
     /**
     * An action representing moving the selected unit up one grid location.
@@ -62,7 +63,33 @@ public enum PlayerAction
     /**
     * An action representing clicking the Cancel (attack) button.
     */
-    kCancelAttack;
+    kCancelAttack,
+
+    /**
+    * An action representing moving the selected unit straight to a grid
+    * location, along the cheapest path to it.
+    */
+    kMoveTo,
+
+    /**
+    * An action representing undoing the last move, attack or end of turn.
+    */
+    kUndo,
+
+    /**
+    * An action representing redoing the last undone move, attack or end of
+    * turn.
+    */
+    kRedo;
+
+    /**
+    * {@inheritDoc}
+    * Selecting and moving to a grid location act on a cell.
+    */
+    public boolean takesCell()
+    {
+        return this == kSelect || this == kMoveTo;
+    }
     
     /**
     * Constructs a PlayerAction based off the first token in name.
@@ -0,0 +1,298 @@
+package toleco.logic;
+
+import toleco.controller.Player;
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+* What changed on a GameBoard, handed to its observers with each
+* notification: the cells whose Terrain or Unit changed, whether the
+* selection changed, the player whose turn it now is if the turn changed, and
+* the enemies in range if they were asked for. A change to the whole board,
+* such as loading a map, is marked as one change to everything instead of a
+* change to every cell.
+* The board records changes into one BoardChange as they are made. Each
+* change is published at once, unless the board is in a batch started with
+* GameBoard.beginChange(), in which case every change made up to the matching
+* GameBoard.endChange() is published together. A cell changed many times in
+* a batch is listed once, so an observer can update in proportion to what
+* changed rather than to the size of the board.
+* The BoardChange is cleared and used again after every notification, so an
+* observer must not keep it, and must not change the board while handling it.
+* Cells are only listed while the board has observers, and the arrays they
+* are listed in are made when the first one is, so a board nobody watches,
+* such as a copy made for a search, never pays for them.
+*
+* @author Eriq Augustine
+* @version 1.0
+*/
+public final class BoardChange
+{
+    /**
+    * The number of cols in the board's map.
+    */
+    private int numCols;
+
+    /**
+    * The number of cells in the board's map.
+    */
+    private int numCells;
+
+    /**
+    * Whether cells are listed, which they are while the board is observed.
+    */
+    private boolean listing;
+
+    /**
+    * The stamp of the last change each cell was listed in, or null if no
+    * cell has been listed since the map was sized.
+    */
+    private int[] stamps;
+
+    /**
+    * The stamp of this change. A cell is listed if its stamp matches.
+    */
+    private int stamp;
+
+    /**
+    * The changed cells, in the order they were first changed.
+    */
+    private int[] cells;
+
+    /**
+    * The number of changed cells.
+    */
+    private int numChanged;
+
+    /**
+    * Whether the whole board changed.
+    */
+    private boolean everything;
+
+    /**
+    * Whether the selection changed.
+    */
+    private boolean selectionChanged;
+
+    /**
+    * The player whose turn it now is, or null if the turn did not change.
+    */
+    private Player player;
+
+    /**
+    * The enemies in range of the selected Unit, or null if they were not
+    * asked for.
+    */
+    private ArrayList<Point> enemies;
+
+    /**
+    * Makes an empty change for an empty board.
+    */
+    BoardChange()
+    {
+        resize(0, 0);
+    }
+
+    /**
+    * Makes the change fit a map of a new size, and clears it.
+    *
+    * @param rows the number of rows in the map
+    * @param cols the number of cols in the map
+    */
+    void resize(int rows, int cols)
+    {
+        numCols = cols;
+        numCells = rows * cols;
+        stamps = null;
+        cells = null;
+        stamp = 1;
+        numChanged = 0;
+    }
+
+    /**
+    * Sets whether cells are listed. They need not be while nothing observes
+    * the board.
+    *
+    * @param listing true to list changed cells
+    */
+    void setListing(boolean listing)
+    {
+        this.listing = listing;
+    }
+
+    /**
+    * Empties the change, ready to record the next one.
+    */
+    void clear()
+    {
+        //IF the stamps are used up, start them again.
+        if (stamp == Integer.MAX_VALUE && stamps != null)
+        {
+            Arrays.fill(stamps, 0);
+            stamp = 0;
+        }
+        //ENDIF
+
+        stamp++;
+        numChanged = 0;
+        everything = false;
+        selectionChanged = false;
+        player = null;
+        enemies = null;
+    }
+
+    /**
+    * Gets whether nothing has changed.
+    *
+    * @return true if there is nothing to publish
+    */
+    boolean isEmpty()
+    {
+        return numChanged == 0 && !everything && !selectionChanged &&
+            player == null && enemies == null;
+    }
+
+    /**
+    * Records a change to a cell's Terrain or Unit.
+    *
+    * @param cell the cell, numbered by GameBoard.cellOf(int, int)
+    */
+    void addCell(int cell)
+    {
+        //IF cells are not listed, there is nothing to do.
+        if (!listing)
+        {
+            return;
+        }
+        //ENDIF
+
+        //IF this is the first cell listed, make room for every cell.
+        if (stamps == null)
+        {
+            stamps = new int[numCells];
+            cells = new int[numCells];
+        }
+        //ENDIF
+
+        //IF the cell is not listed yet, list it.
+        if (stamps[cell] != stamp)
+        {
+            stamps[cell] = stamp;
+            cells[numChanged++] = cell;
+        }
+        //ENDIF
+    }
+
+    /**
+    * Records a change to the whole board.
+    */
+    void addEverything()
+    {
+        everything = true;
+        selectionChanged = true;
+    }
+
+    /**
+    * Records a change to the selection.
+    */
+    void addSelection()
+    {
+        selectionChanged = true;
+    }
+
+    /**
+    * Records a change of turn.
+    *
+    * @param next the player whose turn it now is
+    */
+    void addPlayer(Player next)
+    {
+        player = next;
+    }
+
+    /**
+    * Records the enemies in range of the selected Unit.
+    *
+    * @param inRange the enemies, which are kept, not copied
+    */
+    void addEnemies(ArrayList<Point> inRange)
+    {
+        enemies = inRange;
+    }
+
+    /**
+    * Gets whether the whole board changed, in which case the cells are not
+    * listed.
+    *
+    * @return true if everything should be looked at again
+    */
+    public boolean isEverything()
+    {
+        return everything;
+    }
+
+    /**
+    * Gets the number of cells whose Terrain or Unit changed.
+    *
+    * @return the number of cells listed
+    */
+    public int getCellCount()
+    {
+        return numChanged;
+    }
+
+    /**
+    * Gets the X coordinate of a changed cell.
+    *
+    * @param index which changed cell, from 0 to getCellCount() - 1
+    * @return its X coordinate
+    */
+    public int getX(int index)
+    {
+        return cells[index] / numCols;
+    }
+
+    /**
+    * Gets the Y coordinate of a changed cell.
+    *
+    * @param index which changed cell, from 0 to getCellCount() - 1
+    * @return its Y coordinate
+    */
+    public int getY(int index)
+    {
+        return cells[index] % numCols;
+    }
+
+    /**
+    * Gets whether the selection changed.
+    *
+    * @return true if a different Terrain, or none, is selected
+    */
+    public boolean isSelectionChanged()
+    {
+        return selectionChanged;
+    }
+
+    /**
+    * Gets the player whose turn it now is, if the turn changed or a map was
+    * loaded.
+    *
+    * @return the active player, or null if the turn did not change
+    */
+    public Player getPlayer()
+    {
+        return player;
+    }
+
+    /**
+    * Gets the enemies in range of the selected Unit, if they were asked for
+    * with GameBoard.getEnemiesInRange().
+    *
+    * @return the enemies, or null if they were not asked for
+    */
+    public ArrayList<Point> getEnemies()
+    {
+        return enemies;
+    }
+}
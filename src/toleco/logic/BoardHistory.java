@@ -0,0 +1,477 @@
+package toleco.logic;
+
+import toleco.controller.Player;
+import toleco.unit.Unit;
+import java.util.Arrays;
+
+/**
+* The undo and redo history of a GameBoard. Each move, attack and end of turn
+* made on the board is kept as an entry of the few Units it changed: where
+* each was before and after, and its health, moves and attack before and
+* after. Undoing or redoing an entry only touches those Units.
+* The records are kept in a ring of primitive arrays of fixed size. When it
+* fills up the oldest entries are forgotten, so a long game never keeps more
+* than the newest maxRecords records. A single entry too big for the whole
+* ring, such as ending the turn with more Units than maxRecords, can not be
+* undone, and since every entry builds on the one before, the history is
+* cleared instead.
+* The history only knows about changes made by GameBoard.move(int, int),
+* moveTo(int, int), attack(int, int) and resetUnits(Player). The board clears
+* it when Units are changed any other way.
+*
+* @author Eriq Augustine
+* @version 1.0
+*/
+public class BoardHistory
+{
+    /**
+    * The number of ints kept for each record.
+    */
+    private static final int kFields = 7;
+
+    /**
+    * The field holding the cell the Unit was in before.
+    */
+    private static final int kFrom = 0;
+
+    /**
+    * The field holding the cell the Unit was in after.
+    */
+    private static final int kTo = 1;
+
+    /**
+    * The field holding the Unit's health before.
+    */
+    private static final int kHealthBefore = 2;
+
+    /**
+    * The field holding the Unit's health after.
+    */
+    private static final int kHealthAfter = 3;
+
+    /**
+    * The field holding the Unit's moves before.
+    */
+    private static final int kMovesBefore = 4;
+
+    /**
+    * The field holding the Unit's moves after.
+    */
+    private static final int kMovesAfter = 5;
+
+    /**
+    * The field holding whether the Unit could attack, 1 before and 2 after.
+    */
+    private static final int kAttacks = 6;
+
+    /**
+    * Every Player, indexed by the number kept for a player.
+    */
+    private static final Player[] kPlayers = Player.values();
+
+    /**
+    * The fields of every record, kFields ints each.
+    */
+    private int[] records;
+
+    /**
+    * The Unit each record took off the board, or null if it stayed on.
+    */
+    private Unit[] removed;
+
+    /**
+    * The most records kept.
+    */
+    private int maxRecords;
+
+    /**
+    * The number of the first record of each entry.
+    */
+    private long[] entryStarts;
+
+    /**
+    * The number one past the last record of each entry.
+    */
+    private long[] entryEnds;
+
+    /**
+    * Whose turn it was before each entry.
+    */
+    private byte[] playersBefore;
+
+    /**
+    * Whose turn it was after each entry.
+    */
+    private byte[] playersAfter;
+
+    /**
+    * The number of the oldest record kept. Records are numbered from the
+    * start of the history, and kept at their number modulo maxRecords.
+    */
+    private long firstRecord;
+
+    /**
+    * The number of the next record to be written.
+    */
+    private long nextRecord;
+
+    /**
+    * The number of the oldest entry kept. Entries are numbered like records.
+    */
+    private long firstEntry;
+
+    /**
+    * The number of the next entry to be undone plus one. Entries from
+    * firstEntry up to here can be undone.
+    */
+    private long nextEntry;
+
+    /**
+    * The number one past the newest entry. Entries from nextEntry up to here
+    * can be redone.
+    */
+    private long lastEntry;
+
+    /**
+    * Whether the entry being written did not fit.
+    */
+    private boolean overflowed;
+
+    /**
+    * Makes an empty history.
+    *
+    * @param maxEntries the most actions that can be undone
+    * @param maxRecords the most Unit changes kept, over every action
+    */
+    public BoardHistory(int maxEntries, int maxRecords)
+    {
+        this.maxRecords = maxRecords;
+        records = new int[maxRecords * kFields];
+        removed = new Unit[maxRecords];
+        entryStarts = new long[maxEntries];
+        entryEnds = new long[maxEntries];
+        playersBefore = new byte[maxEntries];
+        playersAfter = new byte[maxEntries];
+    }
+
+    /**
+    * Forgets every entry.
+    */
+    public void clear()
+    {
+        Arrays.fill(removed, null);
+        firstRecord = 0;
+        nextRecord = 0;
+        firstEntry = 0;
+        nextEntry = 0;
+        lastEntry = 0;
+        overflowed = false;
+    }
+
+    /**
+    * Gets whether there is an action to undo.
+    *
+    * @return true if undo would do something
+    */
+    public boolean canUndo()
+    {
+        return nextEntry > firstEntry;
+    }
+
+    /**
+    * Gets whether there is an undone action to redo.
+    *
+    * @return true if redo would do something
+    */
+    public boolean canRedo()
+    {
+        return lastEntry > nextEntry;
+    }
+
+    /**
+    * Gets the number of actions that can be undone.
+    *
+    * @return the number of actions
+    */
+    public int getUndoCount()
+    {
+        return (int)(nextEntry - firstEntry);
+    }
+
+    /**
+    * Gets the number of Unit changes kept, over every action.
+    *
+    * @return the number of records
+    */
+    public int getRecordCount()
+    {
+        return (int)(nextRecord - firstRecord);
+    }
+
+    /**
+    * Gets the most Unit changes kept, over every action.
+    *
+    * @return the number of records the history has room for
+    */
+    public int getMaxRecords()
+    {
+        return maxRecords;
+    }
+
+    /**
+    * Starts an entry for a new action, forgetting anything that could have
+    * been redone.
+    */
+    void begin()
+    {
+        lastEntry = nextEntry;
+        nextRecord = nextEntry == firstEntry ? firstRecord :
+            entryEnds[slotOf(nextEntry - 1)];
+        overflowed = false;
+
+        //IF every entry is in use, forget the oldest.
+        if (nextEntry - firstEntry == entryStarts.length)
+        {
+            dropOldest();
+        }
+        //ENDIF
+        entryStarts[slotOf(nextEntry)] = nextRecord;
+    }
+
+    /**
+    * Adds a record of one Unit to the entry being written, forgetting the
+    * oldest entries if there is no room for it.
+    *
+    * @param from the cell the Unit was in before
+    * @param to the cell the Unit was in after
+    * @param healthBefore the Unit's health before
+    * @param healthAfter the Unit's health after
+    * @param movesBefore the Unit's moves before
+    * @param movesAfter the Unit's moves after
+    * @param attackBefore whether the Unit could attack before
+    * @param attackAfter whether the Unit could attack after
+    * @param gone the Unit if it was taken off the board, otherwise null
+    */
+    void add(int from, int to, int healthBefore, int healthAfter,
+        int movesBefore, int movesAfter, boolean attackBefore,
+        boolean attackAfter, Unit gone)
+    {
+        //WHILE the ring is full, forget the oldest entry.
+        while (nextRecord - firstRecord == maxRecords && !overflowed)
+        {
+            //IF the entry being written is the only one, it can not fit.
+            if (nextEntry == firstEntry)
+            {
+                overflowed = true;
+            }
+            //ELSE
+            else
+            {
+                dropOldest();
+            }
+            //ENDIF
+        }
+        //ENDWHILE
+
+        //IF the entry did not fit, it will be thrown away.
+        if (overflowed)
+        {
+            return;
+        }
+        //ENDIF
+
+        int record = (int)(nextRecord % maxRecords);
+        int base = record * kFields;
+        records[base + kFrom] = from;
+        records[base + kTo] = to;
+        records[base + kHealthBefore] = healthBefore;
+        records[base + kHealthAfter] = healthAfter;
+        records[base + kMovesBefore] = movesBefore;
+        records[base + kMovesAfter] = movesAfter;
+        records[base + kAttacks] = (attackBefore ? 1 : 0) |
+            (attackAfter ? 2 : 0);
+        removed[record] = gone;
+        nextRecord++;
+    }
+
+    /**
+    * Finishes the entry being written.
+    *
+    * @param before whose turn it was before the action
+    * @param after whose turn it is after the action
+    */
+    void end(Player before, Player after)
+    {
+        //IF the entry did not fit, nothing before it can be undone either.
+        if (overflowed)
+        {
+            clear();
+            return;
+        }
+        //ENDIF
+
+        int entry = slotOf(nextEntry);
+        entryEnds[entry] = nextRecord;
+        playersBefore[entry] = (byte)before.ordinal();
+        playersAfter[entry] = (byte)after.ordinal();
+        nextEntry++;
+        lastEntry = nextEntry;
+    }
+
+    /**
+    * Steps back over the newest entry that can be undone.
+    *
+    * @pre canUndo()
+    * @return the entry's number
+    */
+    long back()
+    {
+        return --nextEntry;
+    }
+
+    /**
+    * Steps forward over the oldest entry that can be redone.
+    *
+    * @pre canRedo()
+    * @return the entry's number
+    */
+    long forward()
+    {
+        return nextEntry++;
+    }
+
+    /**
+    * Gets the number of an entry's first record.
+    *
+    * @param entry the entry's number
+    * @return the record's number
+    */
+    long getStart(long entry)
+    {
+        return entryStarts[slotOf(entry)];
+    }
+
+    /**
+    * Gets the number one past an entry's last record.
+    *
+    * @param entry the entry's number
+    * @return the record's number
+    */
+    long getEnd(long entry)
+    {
+        return entryEnds[slotOf(entry)];
+    }
+
+    /**
+    * Gets whose turn it was before an entry.
+    *
+    * @param entry the entry's number
+    * @return the player
+    */
+    Player getPlayerBefore(long entry)
+    {
+        return kPlayers[playersBefore[slotOf(entry)]];
+    }
+
+    /**
+    * Gets whose turn it was after an entry.
+    *
+    * @param entry the entry's number
+    * @return the player
+    */
+    Player getPlayerAfter(long entry)
+    {
+        return kPlayers[playersAfter[slotOf(entry)]];
+    }
+
+    /**
+    * Gets the cell a record's Unit was in before or after.
+    *
+    * @param record the record's number
+    * @param after true for after the action, false for before
+    * @return the cell
+    */
+    int getCell(long record, boolean after)
+    {
+        return field(record, after ? kTo : kFrom);
+    }
+
+    /**
+    * Gets a record's Unit's health before or after.
+    *
+    * @param record the record's number
+    * @param after true for after the action, false for before
+    * @return the health
+    */
+    int getHealth(long record, boolean after)
+    {
+        return field(record, after ? kHealthAfter : kHealthBefore);
+    }
+
+    /**
+    * Gets a record's Unit's moves before or after.
+    *
+    * @param record the record's number
+    * @param after true for after the action, false for before
+    * @return the moves
+    */
+    int getMoves(long record, boolean after)
+    {
+        return field(record, after ? kMovesAfter : kMovesBefore);
+    }
+
+    /**
+    * Gets whether a record's Unit could attack before or after.
+    *
+    * @param record the record's number
+    * @param after true for after the action, false for before
+    * @return true if it could attack
+    */
+    boolean canAttack(long record, boolean after)
+    {
+        return (field(record, kAttacks) & (after ? 2 : 1)) != 0;
+    }
+
+    /**
+    * Gets the Unit a record took off the board.
+    *
+    * @param record the record's number
+    * @return the Unit, or null if it stayed on the board
+    */
+    Unit getRemoved(long record)
+    {
+        return removed[(int)(record % maxRecords)];
+    }
+
+    /**
+    * Forgets the oldest entry and its records.
+    */
+    private void dropOldest()
+    {
+        firstRecord = entryEnds[slotOf(firstEntry)];
+        firstEntry++;
+    }
+
+    /**
+    * Gets one field of a record.
+    *
+    * @param record the record's number
+    * @param field the field
+    * @return the field's value
+    */
+    private int field(long record, int field)
+    {
+        return records[(int)(record % maxRecords) * kFields + field];
+    }
+
+    /**
+    * Gets where an entry is kept.
+    *
+    * @param entry the entry's number
+    * @return the index into the entry arrays
+    */
+    private int slotOf(long entry)
+    {
+        return (int)(entry % entryStarts.length);
+    }
+}
@@ -0,0 +1,242 @@
+package toleco.logic;
+
+import toleco.controller.Player;
+import toleco.unit.UnitStore;
+import toleco.unit.Zobrist;
+
+/**
+* An unchangeable record of a GameBoard's position, made by
+* GameBoard.snapshot() and put back with GameBoard.restore(BoardSnapshot).
+* The map is kept as chunks of kChunkSize cells. A chunk is only copied when
+* a cell in it has changed since the board's last snapshot or restore, and
+* every other chunk is shared with the snapshot before, so holding many
+* snapshots of a game costs about the cells that changed between them. The
+* Units are kept as a copy of the board's UnitStore, which is a few
+* primitive arrays with one entry per Unit rather than a Unit object each,
+* and which shares those arrays with the board until the board changes a
+* Unit.
+*
+* @author Eriq Augustine
+* @version 1.0
+*/
+public final class BoardSnapshot
+{
+    /**
+    * The log base 2 of kChunkSize.
+    */
+    static final int kChunkBits = 8;
+
+    /**
+    * The number of cells in a chunk of the map.
+    */
+    static final int kChunkSize = 1 << kChunkBits;
+
+    /**
+    * The board the snapshot was taken of.
+    */
+    private GameBoard board;
+
+    /**
+    * The number of rows in the map.
+    */
+    private int numRows;
+
+    /**
+    * The number of cols in the map.
+    */
+    private int numCols;
+
+    /**
+    * The kind of Terrain in each cell, in chunks of kChunkSize cells. Chunks
+    * are shared with other snapshots and must never be changed.
+    */
+    private short[][] chunks;
+
+    /**
+    * The Zobrist hash of the Terrain in every cell.
+    */
+    private long terrainHash;
+
+    /**
+    * The state of every Unit on the map. Never changed.
+    */
+    private UnitStore units;
+
+    /**
+    * The player whose turn it was.
+    */
+    private Player activePlayer;
+
+    /**
+    * The X coordinate of the selected Terrain, or -1 if there was none.
+    */
+    private int selectionX;
+
+    /**
+    * The Y coordinate of the selected Terrain, or -1 if there was none.
+    */
+    private int selectionY;
+
+    /**
+    * Makes a snapshot. Everything given to it is kept, not copied.
+    *
+    * @param board the board the snapshot is of
+    * @param numRows the number of rows in the map
+    * @param numCols the number of cols in the map
+    * @param chunks the kind of Terrain in each cell, in chunks
+    * @param terrainHash the Zobrist hash of the Terrain in every cell
+    * @param units a copy of the board's UnitStore
+    * @param activePlayer the player whose turn it is
+    * @param selectionX the X coordinate of the selection, or -1
+    * @param selectionY the Y coordinate of the selection, or -1
+    */
+    BoardSnapshot(GameBoard board, int numRows, int numCols, short[][] chunks,
+        long terrainHash, UnitStore units, Player activePlayer, int selectionX,
+        int selectionY)
+    {
+        this.board = board;
+        this.numRows = numRows;
+        this.numCols = numCols;
+        this.chunks = chunks;
+        this.terrainHash = terrainHash;
+        this.units = units;
+        this.activePlayer = activePlayer;
+        this.selectionX = selectionX;
+        this.selectionY = selectionY;
+    }
+
+    /**
+    * Gets the number of chunks a map of the given size is split into.
+    *
+    * @param cells the number of cells in the map
+    * @return the number of chunks
+    */
+    static int chunksFor(int cells)
+    {
+        return (cells + kChunkSize - 1) >> kChunkBits;
+    }
+
+    /**
+    * Gets the board the snapshot was taken of.
+    *
+    * @return the board
+    */
+    GameBoard getBoard()
+    {
+        return board;
+    }
+
+    /**
+    * Gets the chunks of the map. They must not be changed.
+    *
+    * @return the chunks
+    */
+    short[][] getChunks()
+    {
+        return chunks;
+    }
+
+    /**
+    * Gets the Zobrist hash of the Terrain in every cell.
+    *
+    * @return the hash
+    */
+    long getTerrainHash()
+    {
+        return terrainHash;
+    }
+
+    /**
+    * Gets the state of every Unit on the map. It must not be changed.
+    *
+    * @return the store
+    */
+    UnitStore getUnits()
+    {
+        return units;
+    }
+
+    /**
+    * Gets the X coordinate of the selected Terrain.
+    *
+    * @return the X coordinate, or -1 if nothing was selected
+    */
+    int getSelectionX()
+    {
+        return selectionX;
+    }
+
+    /**
+    * Gets the Y coordinate of the selected Terrain.
+    *
+    * @return the Y coordinate, or -1 if nothing was selected
+    */
+    int getSelectionY()
+    {
+        return selectionY;
+    }
+
+    /**
+    * Gets the number of rows in the map.
+    *
+    * @return the number of rows
+    */
+    public int getNumRows()
+    {
+        return numRows;
+    }
+
+    /**
+    * Gets the number of cols in the map.
+    *
+    * @return the number of cols
+    */
+    public int getNumCols()
+    {
+        return numCols;
+    }
+
+    /**
+    * Gets whose turn it was.
+    *
+    * @return the active player
+    */
+    public Player getActivePlayer()
+    {
+        return activePlayer;
+    }
+
+    /**
+    * Gets the number of Units the given Player had on the map.
+    *
+    * @param owner the Player whose Units to count
+    * @return the number of Units
+    */
+    public int getUnitCount(Player owner)
+    {
+        return units.getUnitCount(owner);
+    }
+
+    /**
+    * Gets the sum of the current health of the given Player's Units.
+    *
+    * @param owner the Player whose Units to count
+    * @return the total health
+    */
+    public long getTotalHealth(Player owner)
+    {
+        return units.getTotalHealth(owner);
+    }
+
+    /**
+    * Gets the Zobrist hash of the position, the same as GameBoard.getHash()
+    * gave when the snapshot was taken.
+    *
+    * @return the hash of the position
+    */
+    public long getHash()
+    {
+        return terrainHash ^ units.getHash() ^
+            Zobrist.key(Zobrist.kActivePlayer, 0, activePlayer.ordinal());
+    }
+}
@@ -0,0 +1,96 @@
+package toleco.logic;
+
+import toleco.terrain.Terrain;
+import toleco.unit.Unit;
+
+/**
+ * A Terrain that is a view of one cell of a GameBoard. It holds nothing but
+ * its coordinates, every call is answered by, or passed on to, the board.
+ * GameBoard hands these out from getMap(), getTerrain(int, int) and
+ * getSelection() so that the board itself only has to store primitives.
+ *
+ * @author Eriq Augustine
+ * @version 1.0
+ */
+class BoardTerrain extends Terrain
+{
+    /**
+     * The board this Terrain is a view of.
+     */
+    private GameBoard board;
+
+    /**
+     * Makes a view of the given cell.
+     *
+     * @param board the board to view
+     * @param xCoord the x-coordinate (row) of the cell
+     * @param yCoord the y-coordinate (col) of the cell
+     */
+    BoardTerrain(GameBoard board, int xCoord, int yCoord)
+    {
+        super(null, 0, 0, xCoord, yCoord);
+        this.board = board;
+    }
+
+    @Override
+    public String getType()
+    {
+        return board.terrainTypeAt(getX(), getY()).getType();
+    }
+
+    @Override
+    public int getDefMod()
+    {
+        return board.terrainTypeAt(getX(), getY()).getDefMod();
+    }
+
+    @Override
+    public int getMoveCost()
+    {
+        return board.terrainTypeAt(getX(), getY()).getMoveCost();
+    }
+
+    @Override
+    public Unit getUnit()
+    {
+        return board.unitAt(getX(), getY());
+    }
+
+    @Override
+    public void setUnit(Unit unit)
+    {
+        board.placeUnit(getX(), getY(), unit);
+    }
+
+    @Override
+    public Unit removeUnit()
+    {
+        return board.takeUnit(getX(), getY());
+    }
+
+    /**
+     * Two views are equal if they view the same cell of the same board.
+     *
+     * @param obj the object to compare against
+     * @return true if obj views the same cell, otherwise false
+     */
+    @Override
+    public boolean equals(Object obj)
+    {
+        //IF the object is also a view
+        if (obj instanceof BoardTerrain)
+        {
+            BoardTerrain other = (BoardTerrain)obj;
+            return other.board == board && other.getX() == getX() &&
+                other.getY() == getY();
+        }
+        //ENDIF
+        return false;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return getX() * 31 + getY();
+    }
+}
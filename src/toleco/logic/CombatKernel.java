@@ -0,0 +1,189 @@
+package toleco.logic;
+
+import toleco.unit.ArmorType;
+import toleco.unit.AttackType;
+import toleco.unit.Unit;
+
+/**
+ * Works out the result of one Unit attacking another, including the
+ * counter-attack, using Jon's Equation:
+ * AttackVDefenseModifier*(1-((TotalHealth-CurrentHealth)/TotalHealth)/2)*
+ * (AttackValue - (DefenseValue + TerrainDefMod))
+ * The AttackType against ArmorType modifiers are read from AttackType's own
+ * table, indexed by ordinal, so working out a fight does no lookups and
+ * allocates nothing. The result of the last fight is kept in the kernel
+ * and read back with its getters, so a kernel must not be shared between
+ * threads.
+ * Nothing passed in is changed, so predict can be used to look ahead at a
+ * fight as well as to carry one out.
+ *
+ * @author Eriq Augustine
+ * @version 1.0
+ */
+public class CombatKernel
+{
+    /**
+     * The damage done to the defender by the last fight.
+     */
+    private int damage;
+
+    /**
+     * The damage done to the attacker by the last fight's counter-attack, or
+     * 0 if there was none.
+     */
+    private int counterDamage;
+
+    /**
+     * Whether the defender counter-attacked in the last fight.
+     */
+    private boolean countered;
+
+    /**
+     * The attacker's health after the last fight.
+     */
+    private int attackerHealth;
+
+    /**
+     * The defender's health after the last fight.
+     */
+    private int defenderHealth;
+
+    /**
+     * Gets the modifier for the given AttackType against the given ArmorType.
+     *
+     * @param attackType the AttackType of the attacker
+     * @param armorType the ArmorType of the defender
+     * @return the modifier to multiply the attack by
+     */
+    public static double modifier(AttackType attackType, ArmorType armorType)
+    {
+        return attackType.modAgainstType(armorType);
+    }
+
+    /**
+     * Works out the damage of a single strike, without a counter-attack.
+     * The damage is at least 1 and at most the defender's health.
+     *
+     * @param attacker the Unit striking, only its fixed stats are used
+     * @param attackerHealth the current health of the Unit striking
+     * @param defender the Unit being struck, only its fixed stats are used
+     * @param defenderHealth the current health of the Unit being struck
+     * @param defMod the defense modifier of the Terrain the defender is on
+     * @return the damage done
+     */
+    public static int strike(Unit attacker, int attackerHealth, Unit defender,
+        int defenderHealth, int defMod)
+    {
+        //Obtain the amount of damage by performing the damage equation.
+        int result = (int)(attacker.getAttackType().modAgainstType(
+            defender.getArmorType()) *
+            (1.0 - (((double)attacker.getMaxHealth() - attackerHealth) /
+            (double)attacker.getMaxHealth()) / 2.0) *
+            ((double)attacker.getAttackValue() -
+            ((double)defender.getArmorValue() + (double)defMod)));
+
+        //IF damage to be dealt is less than 1.
+        if (result < 1)
+        {
+            //Set the damage to be done to 1.
+            result = 1;
+        }
+        //ELSE IF damage to be dealt is greater than the defending Unit's health.
+        else if (result > defenderHealth)
+        {
+            //Reduce the damage to the defending Unit's health.
+            result = defenderHealth;
+        }
+        //ENDIF
+
+        return result;
+    }
+
+    /**
+     * Works out a fight, an attack followed by a counter-attack if the
+     * defender survives and the attacker is within its range. Nothing passed
+     * in is changed; the result is read back with this kernel's getters and
+     * is replaced by the next call.
+     *
+     * @param attacker the attacking Unit, only its fixed stats are used
+     * @param attackerHealth the current health of the attacker
+     * @param attackerDefMod the defense modifier of the attacker's Terrain
+     * @param defender the defending Unit, only its fixed stats are used
+     * @param defenderHealth the current health of the defender
+     * @param defenderDefMod the defense modifier of the defender's Terrain
+     * @param distance the Manhattan distance between the two Units
+     */
+    public void predict(Unit attacker, int attackerHealth, int attackerDefMod,
+        Unit defender, int defenderHealth, int defenderDefMod, int distance)
+    {
+        //The attacker strikes first.
+        damage = strike(attacker, attackerHealth, defender, defenderHealth,
+            defenderDefMod);
+        this.defenderHealth = Math.max(0, defenderHealth - damage);
+        this.attackerHealth = attackerHealth;
+        counterDamage = 0;
+
+        //IF the defender survives and the attacker is in its range
+        countered = this.defenderHealth > 0 &&
+            distance <= defender.getAttackRange();
+        if (countered)
+        {
+            //The defender strikes back with the health it has left.
+            counterDamage = strike(defender, this.defenderHealth, attacker,
+                attackerHealth, attackerDefMod);
+            this.attackerHealth = Math.max(0, attackerHealth - counterDamage);
+        }
+        //ENDIF
+    }
+
+    /**
+     * Gets the damage done to the defender by the last fight.
+     *
+     * @return the damage done by the attack
+     */
+    public int getDamage()
+    {
+        return damage;
+    }
+
+    /**
+     * Gets the damage done to the attacker by the last fight's
+     * counter-attack.
+     *
+     * @return the damage done by the counter-attack, or 0 if there was none
+     */
+    public int getCounterDamage()
+    {
+        return counterDamage;
+    }
+
+    /**
+     * Gets whether the defender counter-attacked in the last fight.
+     *
+     * @return true if there was a counter-attack
+     */
+    public boolean hasCounter()
+    {
+        return countered;
+    }
+
+    /**
+     * Gets the attacker's health after the last fight.
+     *
+     * @return the attacker's health, 0 if it died
+     */
+    public int getAttackerHealth()
+    {
+        return attackerHealth;
+    }
+
+    /**
+     * Gets the defender's health after the last fight.
+     *
+     * @return the defender's health, 0 if it died
+     */
+    public int getDefenderHealth()
+    {
+        return defenderHealth;
+    }
+}
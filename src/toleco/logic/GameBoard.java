@@ -1,16 +1,26 @@
 package toleco.logic;
 
 import toleco.controller.Player;
+import toleco.terrain.DefaultTerrain;
 import toleco.terrain.Terrain;
 import toleco.terrain.TerrainFactory;
+import toleco.unit.I_UnitHolder;
 import toleco.unit.Unit;
 import toleco.unit.UnitFactory;
+import toleco.unit.UnitStore;
+import toleco.unit.Zobrist;
 import java.awt.Point;
+import java.io.BufferedReader;
 import java.io.BufferedWriter;
-import java.io.File;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.FileReader;
 import java.io.FileWriter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Observable;
+import java.util.Observer;
 import java.util.Scanner;
 
 /**
@@ -20,6 +30,13 @@ import java.util.Scanner;
  * the map, the TerrainFactory and UnitFactory, and the currently selected Terrain.
  * GameBoard is responsible for loading and saving maps, moving Units, and
  * attacking Units.
+ * The map is stored as primitive arrays, one entry per cell, and the Units on
+ * it are kept in a UnitStore. The Terrains handed out by getMap(),
+ * getTerrain(int, int) and getSelection() are views of those arrays, and
+ * changes made through the Units on them go through the board as well.
+ * Observers are handed a BoardChange saying which cells, selection and turn
+ * changed, once per change or once per batch between beginChange() and
+ * endChange().
  *
  * @author Andrew Barton (Javadocs)
  * @author Eriq Augustine (Implementation)
@@ -28,22 +45,129 @@ import java.util.Scanner;
 public class GameBoard extends Observable
 {
     /**
-     * The number of rows that a board has.
+     * The number of rows that a board has when its map file does not say
+     * otherwise.
      */
     public static final int kNumRows = 10;
 
     /**
-     * The number of cols that a board has.
+     * The number of cols that a board has when its map file does not say
+     * otherwise.
      */
     public static final int kNumCols = 10;
 
     /**
-    * The map, a two dimensional array of Terrain that represent the game board.
-    * The methods that directly modify the map are loadMap(String), and
-    * resetUnits(Player). The map may also be indirectly modified by modifying
-    * the Terrain referenced by selection.
+     * The largest number of rows or cols that a map file may ask for.
+     */
+    public static final int kMaxDimension = 4096;
+
+    /**
+     * The value of an empty cell in unitSlots.
+     */
+    private static final int kNoUnit = -1;
+
+    /**
+     * The number of rows in the currently loaded map.
+     */
+    private int numRows;
+
+    /**
+     * The number of cols in the currently loaded map.
+     */
+    private int numCols;
+
+    /**
+    * The map, the kind of Terrain in each cell as an index into terrainTypes.
+    * Cell (row, col) is at index row * numCols + col.
+    * The methods that directly modify the map are loadMap(String),
+    * setTerrain(String, String, Player) and setTerrain(int, int, Terrain).
+    */
+    private short[] terrainIds;
+
+    /**
+    * The slot in units of the Unit in each cell, or kNoUnit if the cell is
+    * empty. Cells are numbered the same as in terrainIds.
+    */
+    private int[] unitSlots;
+
+    /**
+    * The state of every Unit on the map.
+    */
+    private UnitStore units;
+
+    /**
+    * Where every Unit on the map is, by owner, so range queries do not have
+    * to look at every cell.
+    */
+    private UnitIndex index;
+
+    /**
+    * Finds the cells the selected Unit can reach, reusing its buffers from
+    * one search to the next, or null until one is first needed.
+    */
+    private Pathfinder pathfinder;
+
+    /**
+    * Works out the damage done by attacks, reused for every attack.
+    */
+    private CombatKernel combat;
+
+    /**
+    * The archetype of every kind of Terrain that has been placed on the map.
+    */
+    private ArrayList<Terrain> terrainTypes;
+
+    /**
+    * A lookup table mapping the properties of a kind of Terrain to its index
+    * in terrainTypes.
+    */
+    private HashMap<String, Integer> terrainTypeIds;
+
+    /**
+    * The Zobrist value of each kind of Terrain, indexed the same as
+    * terrainTypes.
+    */
+    private long[] terrainKeys;
+
+    /**
+    * The Zobrist hash of the Terrain in every cell. Cells of DefaultTerrain
+    * add nothing to it, so an empty map hashes to 0.
+    */
+    private long terrainHash;
+
+    /**
+    * The player whose turn it is, as given by loadMap(String) and
+    * resetUnits(Player).
+    */
+    private Player activePlayer;
+
+    /**
+    * The chunks of terrainIds as of the last snapshot() or
+    * restore(BoardSnapshot), shared with that BoardSnapshot, or null if
+    * there has been neither since the map was made.
+    */
+    private short[][] baseChunks;
+
+    /**
+    * Whether each chunk of terrainIds has changed since baseChunks.
     */
-    private Terrain[][] map;
+    private boolean[] chunkDirty;
+
+    /**
+    * The chunks marked in chunkDirty.
+    */
+    private int[] dirtyChunks;
+
+    /**
+    * The number of entries in dirtyChunks.
+    */
+    private int numDirty;
+
+    /**
+    * The undo and redo history moves, attacks and ends of turns are recorded
+    * in, or null to record nothing.
+    */
+    private BoardHistory history;
     
     /**
     * The currently selected Terrain, note that the terrain still exists in the
@@ -74,6 +198,24 @@ public class GameBoard extends Observable
     * A backstory that may be uniqe to every map.
     */
     private String backStory;
+
+    /**
+    * Whether resetUnits(Player) only resets the next player's Units instead
+    * of every Unit. Off unless the toleco.resetNextPlayerOnly system property
+    * is true or setResetNextPlayerOnly(boolean) is called.
+    */
+    private boolean resetNextPlayerOnly;
+
+    /**
+    * What has changed since observers were last notified.
+    */
+    private BoardChange change;
+
+    /**
+    * The number of batches of changes open. Changes are only published when
+    * none are.
+    */
+    private int batchDepth;
     
     /**
     * Instantiates this GameBoard's UnitFactory and TerrainFactory.
@@ -84,18 +226,386 @@ public class GameBoard extends Observable
     */
     public GameBoard()
     {
-        //Initialize map as a 10 x 10 array of Terrain.
-        map = new Terrain[kNumRows][kNumCols];
-        //Initialize selection to null.
-        selection = null;
         //Initialize backStory to be an empty String.
         backStory = "";
+        //Reset every Unit at the end of a turn unless asked not to.
+        resetNextPlayerOnly = Boolean.getBoolean("toleco.resetNextPlayerOnly");
         //Create a new UnitFactory.
         uFactory = new UnitFactory();
         //Create a new TerrainFactory.
         tFactory = new TerrainFactory();
+        //Create the store for the Units on the map, changes to whose Units
+        // go through the board.
+        units = new UnitStore();
+        units.setHolder(new Holder());
+        //Create the combat kernel for the board.
+        combat = new CombatKernel();
+        //Create the table of Terrain kinds, with DefaultTerrain as kind 0.
+        terrainTypes = new ArrayList<Terrain>();
+        terrainTypeIds = new HashMap<String, Integer>();
+        terrainKeys = new long[16];
+        terrainTypeId(new DefaultTerrain(-1, -1));
+        //The first player goes first until a map says otherwise.
+        activePlayer = Player.kPlayer1;
+        //Create the record of changes to publish to observers.
+        change = new BoardChange();
+        //Initialize map as a kNumRows x kNumCols map of DefaultTerrain.
+        //Initialize selection to null.
+        resize(kNumRows, kNumCols);
     }
     
+    /**
+    * Makes a copy of the given GameBoard, sharing its UnitFactory and
+    * TerrainFactory so that no files are read.
+    *
+    * @param other the GameBoard to copy
+    */
+    private GameBoard(GameBoard other)
+    {
+        backStory = other.backStory;
+        resetNextPlayerOnly = other.resetNextPlayerOnly;
+        uFactory = other.uFactory;
+        tFactory = other.tFactory;
+        numRows = other.numRows;
+        numCols = other.numCols;
+        terrainIds = other.terrainIds.clone();
+        unitSlots = other.unitSlots.clone();
+        units = new UnitStore(other.units);
+        units.setHolder(new Holder());
+        index = new UnitIndex(other.index);
+        terrainTypes = new ArrayList<Terrain>(other.terrainTypes);
+        terrainTypeIds = new HashMap<String, Integer>(other.terrainTypeIds);
+        terrainKeys = other.terrainKeys.clone();
+        terrainHash = other.terrainHash;
+        activePlayer = other.activePlayer;
+        forgetChunks();
+        combat = new CombatKernel();
+        change = new BoardChange();
+        change.resize(numRows, numCols);
+
+        //IF the other board has a selection, select the same location.
+        if (other.selection != null)
+        {
+            selection = new BoardTerrain(this, other.selection.getX(),
+                other.selection.getY());
+        }
+        //ENDIF
+    }
+
+    /**
+    * {@inheritDoc}
+    * Changed cells are listed for the observers from now on.
+    */
+    @Override
+    public void addObserver(Observer observer)
+    {
+        super.addObserver(observer);
+        change.setListing(true);
+    }
+
+    /**
+    * {@inheritDoc}
+    * Changed cells stop being listed once nothing observes the board.
+    */
+    @Override
+    public void deleteObserver(Observer observer)
+    {
+        super.deleteObserver(observer);
+        change.setListing(countObservers() > 0);
+    }
+
+    /**
+    * {@inheritDoc}
+    * Changed cells stop being listed.
+    */
+    @Override
+    public void deleteObservers()
+    {
+        super.deleteObservers();
+        change.setListing(false);
+    }
+
+    /**
+    * Makes an independent copy of this GameBoard, for playing out games
+    * without changing this one. The copy has no observers, and Units on it
+    * are not the Units on this board. Copying only reads this board, so many
+    * threads may copy the same board at once as long as none of them change
+    * it.
+    *
+    * @return the copy
+    */
+    public GameBoard copy()
+    {
+        return new GameBoard(this);
+    }
+
+    /**
+    * Sets the history that moves, attacks and ends of turns are recorded in
+    * from now on. Copies of the board record nothing.
+    *
+    * @param history the history, or null to record nothing
+    */
+    public void setHistory(BoardHistory history)
+    {
+        this.history = history;
+
+        //IF there is a history, it starts from here.
+        if (history != null)
+        {
+            history.clear();
+        }
+        //ENDIF
+    }
+
+    /**
+    * Gets the history that moves, attacks and ends of turns are recorded in.
+    *
+    * @return the history, or null if nothing is recorded
+    */
+    public BoardHistory getHistory()
+    {
+        return history;
+    }
+
+    /**
+    * Undoes the newest move, attack or end of turn in the history, touching
+    * only the Units it changed. Units it killed are put back on the map. The
+    * selection is cleared. Observers are told whose turn it is if undoing
+    * changed it.
+    *
+    * @return true if something was undone, false if there was nothing to undo
+    */
+    public boolean undo()
+    {
+        //IF there is nothing to undo
+        if (history == null || !history.canUndo())
+        {
+            return false;
+        }
+        //ENDIF
+
+        long entry = history.back();
+
+        //FOR each Unit changed, newest first, put it back as it was.
+        for (long record = history.getEnd(entry) - 1;
+            record >= history.getStart(entry); record--)
+        {
+            int cell = history.getCell(record, true);
+
+            //IF the Unit was killed, put it back on the map.
+            if (history.getRemoved(record) != null)
+            {
+                putUnit(cell, history.getRemoved(record), true);
+            }
+            //ENDIF
+
+            setUnit(cell, history.getCell(record, false),
+                history.getHealth(record, false),
+                history.getMoves(record, false),
+                history.canAttack(record, false));
+        }
+        //ENDFOR
+
+        changeTurn(history.getPlayerBefore(entry));
+        return true;
+    }
+
+    /**
+    * Redoes the oldest undone move, attack or end of turn in the history,
+    * touching only the Units it changed. The selection is cleared. Observers
+    * are told whose turn it is if redoing changed it.
+    *
+    * @return true if something was redone, false if there was nothing to redo
+    */
+    public boolean redo()
+    {
+        //IF there is nothing to redo
+        if (history == null || !history.canRedo())
+        {
+            return false;
+        }
+        //ENDIF
+
+        long entry = history.forward();
+
+        //FOR each Unit changed, oldest first, change it again.
+        for (long record = history.getStart(entry);
+            record < history.getEnd(entry); record++)
+        {
+            int cell = history.getCell(record, true);
+            setUnit(history.getCell(record, false), cell,
+                history.getHealth(record, true),
+                history.getMoves(record, true),
+                history.canAttack(record, true));
+
+            //IF the Unit was killed, take it off the map again.
+            if (history.getRemoved(record) != null)
+            {
+                removeUnitAt(cell);
+            }
+            //ENDIF
+        }
+        //ENDFOR
+
+        changeTurn(history.getPlayerAfter(entry));
+        return true;
+    }
+
+    /**
+    * Takes a snapshot of the current position: the map, every Unit, whose
+    * turn it is and the selection. Only the chunks of the map that have
+    * changed since the last snapshot or restore are copied; the rest are
+    * shared with that snapshot. The Units are kept in a copy of the
+    * UnitStore that shares its arrays with the board's, so taking a snapshot
+    * does not copy them; whichever store changes a Unit first copies them
+    * then, once.
+    *
+    * @return the snapshot
+    */
+    public BoardSnapshot snapshot()
+    {
+        int numChunks = chunkDirty.length;
+        short[][] chunks;
+
+        //IF no chunks are shared yet, copy every one.
+        if (baseChunks == null)
+        {
+            chunks = new short[numChunks][];
+            //FOR each chunk
+            for (int chunk = 0; chunk < numChunks; chunk++)
+            {
+                chunks[chunk] = copyChunk(chunk);
+            }
+            //ENDFOR
+        }
+        //ELSE IF nothing has changed, share every chunk.
+        else if (numDirty == 0)
+        {
+            chunks = baseChunks;
+        }
+        //ELSE share the chunks that did not change and copy the rest.
+        else
+        {
+            chunks = baseChunks.clone();
+            //FOR each changed chunk
+            for (int i = 0; i < numDirty; i++)
+            {
+                chunks[dirtyChunks[i]] = copyChunk(dirtyChunks[i]);
+                chunkDirty[dirtyChunks[i]] = false;
+            }
+            //ENDFOR
+            numDirty = 0;
+        }
+        //ENDIF
+        baseChunks = chunks;
+
+        return new BoardSnapshot(this, numRows, numCols, chunks, terrainHash,
+            new UnitStore(units), activePlayer,
+            selection == null ? -1 : selection.getX(),
+            selection == null ? -1 : selection.getY());
+    }
+
+    /**
+    * Puts the board back the way it was when the given snapshot was taken.
+    * Only the chunks of the map that differ from the snapshot are copied.
+    * Units that were on the board before the restore are taken off it and
+    * keep their state, the same as when a map is loaded; the Units on the
+    * board afterwards are new.
+    * Observers are notified once.
+    *
+    * @param snap a snapshot taken of this board
+    *
+    * @throws IllegalArgumentException if snap was taken of another board
+    */
+    public void restore(BoardSnapshot snap)
+    {
+        //IF the snapshot is of another board, its Terrain kinds do not match.
+        if (snap.getBoard() != this)
+        {
+            throw new IllegalArgumentException("snapshot of another board");
+        }
+        //ENDIF
+
+        short[][] chunks = snap.getChunks();
+
+        //IF the map has been resized since, start from an empty map.
+        if (snap.getNumRows() != numRows || snap.getNumCols() != numCols)
+        {
+            numRows = snap.getNumRows();
+            numCols = snap.getNumCols();
+            terrainIds = new short[numRows * numCols];
+            unitSlots = new int[numRows * numCols];
+            Arrays.fill(unitSlots, kNoUnit);
+            index = new UnitIndex(numRows, numCols);
+            forgetChunks();
+            change.resize(numRows, numCols);
+        }
+        //ELSE take the Units off the map.
+        else
+        {
+            //FOR every slot in use
+            for (int slot = 0; slot < units.getHighWater(); slot++)
+            {
+                if (units.isLive(slot))
+                {
+                    unitSlots[units.getCell(slot)] = kNoUnit;
+                    index.remove(slot);
+                }
+            }
+            //ENDFOR
+        }
+        //ENDIF
+
+        //FOR each chunk, IF it is not already the snapshot's, copy it back.
+        for (int chunk = 0; chunk < chunks.length; chunk++)
+        {
+            if (baseChunks == null || chunkDirty[chunk] ||
+                baseChunks[chunk] != chunks[chunk])
+            {
+                System.arraycopy(chunks[chunk], 0, terrainIds,
+                    chunk << BoardSnapshot.kChunkBits, chunks[chunk].length);
+                chunkDirty[chunk] = false;
+            }
+        }
+        //ENDFOR
+        numDirty = 0;
+        baseChunks = chunks;
+        terrainHash = snap.getTerrainHash();
+
+        //Put the snapshot's Units on the map.
+        units.restore(snap.getUnits());
+        //FOR every slot in use
+        for (int slot = 0; slot < units.getHighWater(); slot++)
+        {
+            if (units.isLive(slot))
+            {
+                unitSlots[units.getCell(slot)] = slot;
+                index.add(slot, units.getOwner(slot), units.getCell(slot));
+            }
+        }
+        //ENDFOR
+
+        activePlayer = snap.getActivePlayer();
+        forgetHistory();
+
+        //IF something was selected, select it again.
+        if (snap.getSelectionX() != -1)
+        {
+            selection = new BoardTerrain(this, snap.getSelectionX(),
+                snap.getSelectionY());
+        }
+        //ELSE
+        else
+        {
+            selection = null;
+        }
+        //ENDIF
+
+        //Notify any observers that everything may have changed.
+        change.addEverything();
+        publish();
+    }
+
     /**
      * Loads the map in the file who has the given file name into map.
      *
@@ -115,6 +625,8 @@ public class GameBoard extends Observable
         //NOTE: commas are delimiters within lines.
         //NOTE: All lines begniing with a '#' are ignored.
         //Player enum (kPlayer1 or kPlayer2) //on the first line by itself.
+        //Optionally the board dimensions as 'rows,cols' on their own line.
+        // Maps without this line are kNumRows x kNumCols.
         //All Terrains in a grid layout (each row on its own line).
         //Terrains are represented by whatever they return from a call to
         // myTerrain.getType().
@@ -131,79 +643,92 @@ public class GameBoard extends Observable
         //Try to open a file of the given name for reading.
         try
         {
-            File inFile = new File(fName);
-            
-            //Create a Scanner based off of the open file.
-            Scanner sc = new Scanner(inFile);
-            
-            //Create a temporary String;
-            String temp = null;
-            
-            //DO
-            do
+            //Create a buffered reader based off of the open file.
+            BufferedReader in = new BufferedReader(new FileReader(fName));
+
+            try
             {
-                //Read a line from the Scanner and trim it.
-                temp = sc.nextLine().trim();
-                
-                //IF the line does not begin with a '#'
-                if (temp.charAt(0) != '#')
+                //Read the first line that is not a comment and turn it into
+                // the Player represented by that String.
+                activePlayer = Player.valueOf(nextDataLine(in));
+
+                //Read the next line that is not a comment.
+                String temp = nextDataLine(in);
+
+                //IF the line holds the board's dimensions.
+                if (Character.isDigit(temp.charAt(0)))
                 {
-                    //Create a Player represented by that String.
-                    activePlayer = Player.valueOf(temp);
+                    //Size the map by the dimensions on the line.
+                    String[] dims = temp.split(",");
+                    resize(Integer.parseInt(dims[0].trim()),
+                        Integer.parseInt(dims[1].trim()));
+
+                    //The first row of the board is on the next line.
+                    temp = nextDataLine(in);
                 }
-                //WHILE the read line does not begin with a '#'.
-            } while (temp.charAt(0) == '#');
-            //ENDWHILE
-            
-            readBoard(sc);
-            
-            //WHILE there are still lines in the file
-            while (sc.hasNextLine())
-            {
-                //Read a line and trim it.
-                temp = sc.nextLine().trim();
-                
-                //IF the line does not begin with a '#'.
-                if (temp.charAt(0) != '#')
+                //ELSE
+                else
                 {
-                    //IF the line begins with a '~'.
-                    if (temp.charAt(0) == '~')
-                    {
-                        //Create a scanner from the read line.
-                        Scanner lineScanner = new Scanner(temp);
-                        
-                        //Use "," as the delimiters for the new line scanner.
-                        lineScanner.useDelimiter(",");
-                        
-                        //Consume the '~'.
-                        lineScanner.next();
-                        
-                        //Read the unit's x-coordinate from the line (',' is delimiter).
-                        int xCoord = lineScanner.nextInt();
-                        
-                        //Read the unit's y-coordinate from the line (',' is delimiter).
-                        int yCoord = lineScanner.nextInt();
-                        
-                        //Read the unit's information
-                        String unitInfo = lineScanner.nextLine();
-                        
-                        //Ask UnitFactory to return a new instance of Unit.
-                        Unit newUnit = uFactory.build(unitInfo);
-                        
-                        //Place the Unit into the map at the read location.
-                        map[xCoord][yCoord].setUnit(newUnit);
-                    }
-                    //ELSE
-                    else
+                    //It is an old map, use the default dimensions.
+                    resize(kNumRows, kNumCols);
+                }
+                //ENDIF
+
+                readBoard(temp, in);
+
+                //WHILE there are still lines in the file
+                while ((temp = in.readLine()) != null)
+                {
+                    //Trim the line.
+                    temp = temp.trim();
+
+                    //IF the line is not empty and does not begin with a '#'.
+                    if (temp.length() > 0 && temp.charAt(0) != '#')
                     {
-                        //Concat the line to backStory.
-                        backStory += temp;
+                        //IF the line begins with a '~'.
+                        if (temp.charAt(0) == '~')
+                        {
+                            //Create a scanner from the read line.
+                            Scanner lineScanner = new Scanner(temp);
+
+                            //Use "," as the delimiters for the new line scanner.
+                            lineScanner.useDelimiter(",");
+
+                            //Consume the '~'.
+                            lineScanner.next();
+
+                            //Read the unit's x-coordinate from the line.
+                            int xCoord = lineScanner.nextInt();
+
+                            //Read the unit's y-coordinate from the line.
+                            int yCoord = lineScanner.nextInt();
+
+                            //Read the unit's information
+                            String unitInfo = lineScanner.nextLine();
+
+                            //Ask UnitFactory to return a new instance of Unit.
+                            Unit newUnit = uFactory.build(unitInfo);
+
+                            //Copy the Unit into the map at the read location.
+                            putUnit(cellOf(xCoord, yCoord), newUnit, false);
+                        }
+                        //ELSE
+                        else
+                        {
+                            //Concat the line to backStory.
+                            backStory += temp;
+                        }
+                        //ENDIF
                     }
                     //ENDIF
                 }
-                //ENDIF
+                //ENDWHILE
+            }
+            finally
+            {
+                //Close the file.
+                in.close();
             }
-            //ENDWHILE
         }
         //CATCH any Exception
         catch (Exception e)
@@ -216,58 +741,141 @@ public class GameBoard extends Observable
         }
 
 
-        //Set the oberservable status to changed.
-        //Fix Defect # 170
-        setChanged();
+        //Remember whose turn it is.
+        this.activePlayer = activePlayer;
 
-        //Notify any observers.
-        notifyObservers(activePlayer);
+        //Nothing before the map was loaded can be undone.
+        forgetHistory();
+
+        //Notify any observers that everything changed, with whose turn it is.
+        //Fix Defect # 170
+        change.addEverything();
+        change.addPlayer(activePlayer);
+        publish();
         
         //Return whose turn it is.
         return activePlayer;
     }
 
     /**
-     * Read a board specified by the given Scanner and place the Terrains in the
+     * Reads lines from the given reader until one is found that is not empty
+     * and does not begin with a '#'.
+     *
+     * @param in the reader to read from
+     * @return the trimmed line
+     * @throws java.io.IOException if the reader runs out of lines
+     */
+    private String nextDataLine(BufferedReader in) throws java.io.IOException
+    {
+        //Read a line and trim it.
+        String temp = in.readLine();
+
+        //WHILE the line is empty or a comment
+        while (temp != null &&
+            (temp.trim().length() == 0 || temp.trim().charAt(0) == '#'))
+        {
+            //Read the next line.
+            temp = in.readLine();
+        }
+        //ENDWHILE
+
+        //IF the file ended early
+        if (temp == null)
+        {
+            throw new java.io.IOException("unexpected end of map file");
+        }
+        //ENDIF
+
+        return temp.trim();
+    }
+
+    /**
+     * Replaces the map with an empty map of the given size.
+     *
+     * @param rows the number of rows the new map will have
+     * @param cols the number of cols the new map will have
+     */
+    private void resize(int rows, int cols)
+    {
+        //IF the dimensions are not allowed
+        if (rows < 1 || cols < 1 || rows > kMaxDimension || cols > kMaxDimension)
+        {
+            throw new IllegalArgumentException("bad map dimensions " + rows +
+                "x" + cols);
+        }
+        //ENDIF
+
+        numRows = rows;
+        numCols = cols;
+        //Every cell starts as DefaultTerrain with no Unit.
+        terrainIds = new short[rows * cols];
+        terrainHash = 0;
+        unitSlots = new int[rows * cols];
+        Arrays.fill(unitSlots, kNoUnit);
+        units.clear();
+        index = new UnitIndex(rows, cols);
+        forgetChunks();
+        selection = null;
+        change.resize(rows, cols);
+    }
+
+    /**
+     * Read a board specified by the given reader and place the Terrains in the
      * board.
      *
-     * @param sc the scanner to read the board from
+     * @param firstRow the already read first row of the board
+     * @param in the reader to read the remaining rows from
+     * @throws java.io.IOException if the reader runs out of lines
      */
-    private void readBoard(Scanner sc)
+    private void readBoard(String firstRow, BufferedReader in)
+        throws java.io.IOException
     {
         //Declare a temporary String.
-        String temp = null;
+        String temp = firstRow;
+
+        //The kind of Terrain each name in the file stands for.
+        HashMap<String, Short> kinds = new HashMap<String, Short>();
 
         //FOR the number of rows in the map.
-        for (int row = 0; row < map.length; row++)
+        for (int row = 0; row < numRows; row++)
         {
-            //Read a line from the file and trim it.
-            temp = sc.nextLine().trim();
+            //IF this is not the first row, read the next one.
+            if (row > 0)
+            {
+                temp = nextDataLine(in);
+            }
+            //ENDIF
 
-            //Create a Scanner based off of the read in line.
-            Scanner lineScanner = new Scanner(temp);
+            //Split the line on commas.
+            String[] tokens = temp.split(",");
 
-            //Set the line scanner's delimiter to be ','
-            lineScanner.useDelimiter(",");
+            //IF the row is too short
+            if (tokens.length < numCols)
+            {
+                throw new java.io.IOException("row " + row + " is too short");
+            }
+            //ENDIF
 
-            //IF the line does not begin with a '#'.
-            if (temp.charAt(0) != '#')
+            //FOR the number of columns in the map.
+            for (int col = 0; col < numCols; col++)
             {
-                //FOR the number of columns in the map.
-                for (int col = 0; col < map[row].length; col++)
+                String name = tokens[col].trim();
+                Short kind = kinds.get(name);
+
+                //IF this name has not been seen yet in this file
+                if (kind == null)
                 {
-                    //Read a token (using commas as delimiters).
-                    String token = lineScanner.next();
                     //Using the read token ask terrainFactory to give you a
-                    // Terrain instance.
-                    Terrain tempTerrain = tFactory.build(token, row, col);
-                    //Place the Terrain instance into the current location.
-                    map[row][col] = tempTerrain;
+                    // Terrain instance, and find out what kind it is.
+                    kind = terrainTypeId(tFactory.build(name, row, col));
+                    kinds.put(name, kind);
                 }
-                //ENDFOR
-            }
-            //ENDIF
+                //ENDIF
 
+                //Place the kind of Terrain into the current location.
+                setKind(row * numCols + col, kind);
+            }
+            //ENDFOR
         }
         //ENDFOR
     }
@@ -284,6 +892,7 @@ public class GameBoard extends Observable
         //NOTE: commas are delimiters within lines.
         //NOTE: All lines begniing with a '#' are ignored.
         //Player enum (kPlayer1 or kPlayer2) //on the first line by itself.
+        //The board dimensions as 'rows,cols' on their own line.
         //All Terrains in a grid layout (each row on its own line).
         //Terrains are represented by whatever they return from a call to
         // myTerrain.getType().
@@ -300,17 +909,21 @@ public class GameBoard extends Observable
             
             //Write whose turn it is along with a newLine.
             out.write(activePlayer.toString() + "\n");
+
+            //Write the dimensions of the board along with a newLine.
+            out.write(numRows + "," + numCols + "\n");
             
             //FOR the number of rows in the map.
-            for (int row = 0; row < map.length; row++)
+            for (int row = 0; row < numRows; row++)
             {
                 //FOR the number of columns in the map.
-                for (int col = 0; col < map[row].length; col++)
+                for (int col = 0; col < numCols; col++)
                 {
                     //Write the result of Terrain.getType().
-                    out.write(map[row][col].getType());
+                    out.write(terrainTypes.get(terrainIds[row * numCols + col])
+                        .getType());
                     //IF this is the last column
-                    if (col == map[row].length - 1)
+                    if (col == numCols - 1)
                     {
                         //Write a newline to the file.
                         out.write("\n");
@@ -328,13 +941,15 @@ public class GameBoard extends Observable
             //ENDFOR
             
             //FOR all rows on the map.
-            for (int row = 0; row < map.length; row++)
+            for (int row = 0; row < numRows; row++)
             {
                 //FOR all cols on the map.
-                for (int col = 0; col < map[row].length; col++)
+                for (int col = 0; col < numCols; col++)
                 {
+                    int slot = unitSlots[row * numCols + col];
+
                     //IF the current location is occupied by a unit.
-                    if (map[row][col].getUnit() != null)
+                    if (slot != kNoUnit)
                     {
                         //Write the unit identifier, '~', followed by a comma.
                         out.write("~,");
@@ -344,7 +959,7 @@ public class GameBoard extends Observable
                         out.write(col + ",");
                         //Write Unit's information using Unit.toStringForFile()
                         // followed by a newline.
-                        out.write(map[row][col].getUnit().toStringForFile() + "\n");
+                        out.write(units.toStringForFile(slot) + "\n");
                     }
                     //ENDIF
                 }
@@ -368,9 +983,267 @@ public class GameBoard extends Observable
             throw new RuntimeException(ex.getMessage());
         }
     }
+
+    /**
+    * Writes the whole position to a GameJournal keyframe: the size of the
+    * map, the backstory, the kinds of Terrain, the kind in each cell as runs
+    * of cells of one kind, every Unit and whose turn it is.
+    *
+    * @param out where to write the position
+    * @throws java.io.IOException if the position could not be written
+    */
+    void writeKeyframe(DataOutput out) throws java.io.IOException
+    {
+        out.writeInt(numRows);
+        out.writeInt(numCols);
+        out.writeByte(activePlayer.ordinal());
+        out.writeUTF(backStory);
+
+        //Write every kind of Terrain, by name and properties.
+        out.writeShort(terrainTypes.size());
+        //FOR each kind
+        for (Terrain kind : terrainTypes)
+        {
+            out.writeUTF(kind.getType());
+            out.writeInt(kind.getDefMod());
+            out.writeInt(kind.getMoveCost());
+        }
+        //ENDFOR
+
+        //Write the map as runs of cells of the same kind.
+        int cells = numRows * numCols;
+        int start = 0;
+        //WHILE there are cells left
+        while (start < cells)
+        {
+            int end = start + 1;
+            //WHILE the next cell is the same kind, add it to the run.
+            while (end < cells && terrainIds[end] == terrainIds[start])
+            {
+                end++;
+            }
+            //ENDWHILE
+            out.writeShort(terrainIds[start]);
+            out.writeInt(end - start);
+            start = end;
+        }
+        //ENDWHILE
+
+        //Write every Unit, with its type as a name the first time it is seen.
+        HashMap<String, Integer> unitTypes = new HashMap<String, Integer>();
+        out.writeInt(units.size());
+        //FOR every slot in use
+        for (int slot = 0; slot < units.getHighWater(); slot++)
+        {
+            if (units.isLive(slot))
+            {
+                String type = units.getType(slot).getType();
+                Integer id = unitTypes.get(type);
+
+                //IF the type is new, write its name.
+                if (id == null)
+                {
+                    id = unitTypes.size();
+                    unitTypes.put(type, id);
+                    out.writeShort(id);
+                    out.writeUTF(type);
+                }
+                //ELSE only write its number.
+                else
+                {
+                    out.writeShort(id);
+                }
+                //ENDIF
+
+                out.writeInt(units.getCell(slot));
+                out.writeByte(units.getOwner(slot).ordinal());
+                out.writeInt(units.getCurrentHealth(slot));
+                out.writeInt(units.getCurrentMoves(slot));
+                out.writeBoolean(units.canAttack(slot));
+            }
+        }
+        //ENDFOR
+    }
+
+    /**
+    * Gets the Player with the given ordinal, as read from a journal.
+    *
+    * @param ordinal the Player's ordinal
+    * @return the Player
+    * @throws java.io.IOException if no Player has the ordinal
+    */
+    static Player playerOf(int ordinal) throws java.io.IOException
+    {
+        //IF there is no such Player, the journal is bad.
+        if (ordinal < 0 || ordinal >= Player.values().length)
+        {
+            throw new java.io.IOException("unknown player " + ordinal);
+        }
+        //ENDIF
+
+        return Player.values()[ordinal];
+    }
+
+    /**
+    * Replaces the whole position with one written by writeKeyframe(DataOutput),
+    * as loadMap(String) does with a map file. The history is cleared and
+    * observers are given whose turn it is.
+    *
+    * @param in where to read the position
+    * @throws java.io.IOException if the position could not be read
+    */
+    void readKeyframe(DataInput in) throws java.io.IOException
+    {
+        int rows = in.readInt();
+        int cols = in.readInt();
+
+        //IF the dimensions are not allowed, the keyframe is bad.
+        if (rows < 1 || cols < 1 || rows > kMaxDimension || cols > kMaxDimension)
+        {
+            throw new java.io.IOException("bad map dimensions " + rows + "x" +
+                cols);
+        }
+        //ENDIF
+
+        Player player = playerOf(in.readByte());
+        String story = in.readUTF();
+        int kindCount = in.readShort();
+
+        //IF the number of kinds is negative, the keyframe is bad.
+        if (kindCount < 0)
+        {
+            throw new java.io.IOException("bad terrain kind count " + kindCount);
+        }
+        //ENDIF
+
+        //Read each kind in the keyframe.
+        Terrain[] kindTerrains = new Terrain[kindCount];
+        //FOR each kind
+        for (int kind = 0; kind < kindCount; kind++)
+        {
+            kindTerrains[kind] = new Terrain(in.readUTF(), in.readInt(),
+                in.readInt(), -1, -1);
+        }
+        //ENDFOR
+
+        //Read the map, run by run, as the keyframe's kinds.
+        int cells = rows * cols;
+        short[] cellKinds = new short[cells];
+        int cell = 0;
+        //WHILE there are cells left
+        while (cell < cells)
+        {
+            int index = in.readShort();
+            int end = cell + in.readInt();
+
+            //IF the kind is unknown or the run goes off the map, the keyframe
+            // is bad.
+            if (index < 0 || index >= kindCount)
+            {
+                throw new java.io.IOException("unknown terrain kind " + index);
+            }
+            else if (end < cell || end > cells)
+            {
+                throw new java.io.IOException("run past the end of the map");
+            }
+            //ENDIF
+
+            Arrays.fill(cellKinds, cell, end, (short)index);
+            cell = end;
+        }
+        //ENDWHILE
+
+        //Read every Unit.
+        ArrayList<String> unitTypes = new ArrayList<String>();
+        int count = in.readInt();
+
+        //IF there are more Units than cells, the keyframe is bad.
+        if (count < 0 || count > cells)
+        {
+            throw new java.io.IOException("bad unit count " + count);
+        }
+        //ENDIF
+
+        int[] unitCells = new int[count];
+        ArrayList<Unit> unitList = new ArrayList<Unit>(count);
+
+        //FOR each Unit
+        for (int i = 0; i < count; i++)
+        {
+            int id = in.readShort();
+
+            //IF the type is new, its name follows.
+            if (id == unitTypes.size())
+            {
+                unitTypes.add(in.readUTF());
+            }
+            //ELSE IF the type is neither new nor known, the keyframe is bad.
+            else if (id < 0 || id > unitTypes.size())
+            {
+                throw new java.io.IOException("unknown unit type " + id);
+            }
+            //ENDIF
+
+            unitCells[i] = in.readInt();
+            Player owner = playerOf(in.readByte());
+            int health = in.readInt();
+            int moves = in.readInt();
+            boolean attack = in.readBoolean();
+
+            //IF the cell is off the map, the keyframe is bad.
+            if (unitCells[i] < 0 || unitCells[i] >= cells)
+            {
+                throw new java.io.IOException("unit off the map");
+            }
+            //ENDIF
+
+            unitList.add(uFactory.build(unitTypes.get(id), owner, health,
+                attack, moves));
+        }
+        //ENDFOR
+
+        //The whole keyframe was read, so the position can be replaced.
+        resize(rows, cols);
+        backStory = story;
+
+        //Find this board's kind for each kind in the keyframe.
+        short[] kinds = new short[kindCount];
+        //FOR each kind
+        for (int kind = 0; kind < kindCount; kind++)
+        {
+            kinds[kind] = terrainTypeId(kindTerrains[kind]);
+        }
+        //ENDFOR
+
+        //FOR each cell, set its kind.
+        for (cell = 0; cell < cells; cell++)
+        {
+            setKind(cell, kinds[cellKinds[cell]]);
+        }
+        //ENDFOR
+
+        //FOR each Unit, place it.
+        for (int i = 0; i < count; i++)
+        {
+            putUnit(unitCells[i], unitList.get(i), false);
+        }
+        //ENDFOR
+
+        activePlayer = player;
+        forgetHistory();
+
+        //Notify any observers that everything changed, with whose turn it is.
+        change.addEverything();
+        change.addPlayer(activePlayer);
+        publish();
+    }
     
     /**
     * Gets the entireMap, a two-dimensional array of Terrains.
+    * Each Terrain is a view of its cell, so it always shows the current state
+    * of the board, and changing its Unit changes the board. The array itself is
+    * made fresh for every call, so storing a different Terrain into it does
+    * not change the board; use setTerrain(int, int, Terrain) for that.
     *
     * @pre the map has been instantiated by calling loadMap(String)
     *
@@ -378,10 +1251,146 @@ public class GameBoard extends Observable
     */
     public Terrain[][] getMap()
     {
-        //Return map.
-        return map;
+        //Create an array the size of the map.
+        Terrain[][] view = new Terrain[numRows][numCols];
+
+        //FOR all rows on the map.
+        for (int row = 0; row < numRows; row++)
+        {
+            //FOR all cols on the map.
+            for (int col = 0; col < numCols; col++)
+            {
+                //Make a view of the cell.
+                view[row][col] = new BoardTerrain(this, row, col);
+            }
+            //ENDFOR
+        }
+        //ENDFOR
+
+        //Return the view.
+        return view;
     }
     
+    /**
+    * Gets the number of rows in the map.
+    *
+    * @return the number of rows in the map
+    */
+    public int getNumRows()
+    {
+        return numRows;
+    }
+
+    /**
+    * Gets the number of cols in the map.
+    *
+    * @return the number of cols in the map
+    */
+    public int getNumCols()
+    {
+        return numCols;
+    }
+
+    /**
+    * Gets the number of Units on the map that belong to the given Player.
+    * The count is kept up to date as Units are loaded, placed and killed, so
+    * this does not look at the map.
+    *
+    * @param owner the Player whose Units to count
+    * @return the number of Units owner has on the map
+    */
+    public int getUnitCount(Player owner)
+    {
+        return units.getUnitCount(owner);
+    }
+
+    /**
+    * Gets the sum of the current health of the Units on the map that belong
+    * to the given Player. Like getUnitCount(Player), this is kept up to date
+    * rather than counted.
+    *
+    * @param owner the Player whose Units to count
+    * @return the total health of owner's Units on the map
+    */
+    public long getTotalHealth(Player owner)
+    {
+        return units.getTotalHealth(owner);
+    }
+
+    /**
+    * Gets whose turn it is, as given by the last call to loadMap(String) or
+    * resetUnits(Player).
+    *
+    * @return the active player
+    */
+    public Player getActivePlayer()
+    {
+        return activePlayer;
+    }
+
+    /**
+    * Gets the Zobrist hash of the current position: the kind of Terrain in
+    * every cell, the type, owner, health, moves and attack of every Unit, and
+    * the active player. The hash is kept up to date as the board changes, so
+    * this does not look at the map. Two boards in the same position have the
+    * same hash.
+    *
+    * @return the hash of the position
+    */
+    public long getHash()
+    {
+        return terrainHash ^ units.getHash() ^
+            Zobrist.key(Zobrist.kActivePlayer, 0, activePlayer.ordinal());
+    }
+
+    /**
+    * Works out the Zobrist hash of the current position from scratch, by
+    * looking at every cell. It always equals getHash(), and is here to check
+    * that it does.
+    *
+    * @return the hash of the position
+    */
+    public long computeHash()
+    {
+        long rtn = Zobrist.key(Zobrist.kActivePlayer, 0, activePlayer.ordinal());
+
+        //FOR every cell on the map.
+        for (int cell = 0; cell < terrainIds.length; cell++)
+        {
+            rtn ^= terrainKey(cell, terrainIds[cell]);
+        }
+        //ENDFOR
+
+        return rtn ^ units.computeHash();
+    }
+
+    /**
+    * Gets the locations of every Unit on the map that belongs to the given
+    * Player. Like getUnitCount(Player), this does not look at the map.
+    *
+    * @param owner the Player whose Units to find
+    * @return an ArrayList containing the coordinates of owner's Units
+    */
+    public ArrayList<Point> getUnitLocations(Player owner)
+    {
+        //Create a new ArrayList of Points.
+        ArrayList<Point> locations = new ArrayList<Point>();
+
+        //FOR each of owner's Units.
+        for (int slot = units.getFirstSlot(owner); slot != UnitStore.kNoSlot;
+            slot = units.getNextSlot(slot))
+        {
+            int cell = units.getCell(slot);
+
+            //Add the Unit's location to the ArrayList of Points.
+            locations.add(new Point(cell / numCols, cell % numCols));
+        }
+        //ENDFOR
+
+        //Return the ArrayList of Points.
+        return locations;
+    }
+
     /**
     * Gets the terrain at a given X and Y coordinates.
     *
@@ -393,8 +1402,11 @@ public class GameBoard extends Observable
     */
     public Terrain getTerrain(int xCoord, int yCoord)
     {
-        //Return the Terrain pointed to by xCoord and yCoord.
-        return map[xCoord][yCoord];
+        //Make sure the coordinates are on the map.
+        cellOf(xCoord, yCoord);
+
+        //Return a view of the Terrain pointed to by xCoord and yCoord.
+        return new BoardTerrain(this, xCoord, yCoord);
     }
     
     /**
@@ -435,6 +1447,18 @@ public class GameBoard extends Observable
         backStory = newBackStory;
     }
     
+    /**
+    * Sets whether resetUnits(Player) only resets the Units of the player whose
+    * turn is next, leaving the other player's Units as they are.
+    *
+    * @param nextOnly true to reset only the next player's Units, false to
+    * reset every Unit
+    */
+    public void setResetNextPlayerOnly(boolean nextOnly)
+    {
+        resetNextPlayerOnly = nextOnly;
+    }
+
     /**
     * Sets the selected Terrain to a given Terrain.
     *
@@ -453,6 +1477,15 @@ public class GameBoard extends Observable
         //Get a Terrain from TerrainFactory matching the param, terrain.
         Terrain tempTerrain =
                 tFactory.build(terrain, selection.getX(), selection.getY());
+
+        int cell = cellOf(selection.getX(), selection.getY());
+
+        //Set the selected location to the new kind of Terrain.
+        setKind(cell, terrainTypeId(tempTerrain));
+
+        //Clear the Unit that was on the selected location.
+        removeUnitAt(cell);
+        forgetHistory();
         
         //IF the passed Unit name is not null
         if (unit != null)
@@ -460,20 +1493,15 @@ public class GameBoard extends Observable
             //Get a Unit from UnitFactory matching the unit and the param (player).
             Unit tempUnit = uFactory.build(unit, player);
             
-            //Add the aquired unit to Unit to the Terrain.
-            tempTerrain.setUnit(tempUnit);
+            //Copy the aquired Unit onto the selected location.
+            putUnit(cell, tempUnit, false);
         }
         //ENDIF
         
-        //Set the selected location to the new Terrain.
-        map[selection.getX()][selection.getY()] = tempTerrain;
-        
-        //Set the oberservable status to changed.
+        //Notify any observers that the selected location changed.
         //Fix Defect # 170
-        setChanged();
-
-        //Notify any observers.
-        notifyObservers(null);
+        change.addCell(cell);
+        publish();
     }
     
     /**
@@ -500,15 +1528,13 @@ public class GameBoard extends Observable
         else
         {
             //Make the Terrain pointed to by xCoord and yCoord the selected Terrain.
-            selection = map[xCoord][yCoord];
+            selection = getTerrain(xCoord, yCoord);
         }
         
-        //Set the oberservable status to changed.
+        //Notify any observers that the selection changed.
         //Fix Defect # 170
-        setChanged();
-
-        //Notify any observers.
-        notifyObservers(null);
+        change.addSelection();
+        publish();
     }
     
     /**
@@ -531,24 +1557,40 @@ public class GameBoard extends Observable
      */
     public void move(int xChange, int yChange)
     {
+        int from = cellOf(selection.getX(), selection.getY());
+        int to = cellOf(selection.getX() + xChange, selection.getY() + yChange);
+
         //Remove the unit from the currently selected terrain.
-        Unit tempUnit = selection.removeUnit();
+        int slot = unitSlots[from];
+        int oldMoves = units.getCurrentMoves(slot);
+        unitSlots[from] = kNoUnit;
         //Place the unit just removed onto the location at 
         // (currentlySelectedXCoordinate + xChange, currentlySelectedYCoordinate +
         // yChange).
-        map[selection.getX() + xChange][selection.getY() + yChange].setUnit(tempUnit);
+        unitSlots[to] = slot;
+        units.setCell(slot, to);
+        index.move(slot, to);
         
         //Fixes defect #214
         //Decrement the units move the cost of the tarrain moved onto.
-        tempUnit.decrementMove(map[selection.getX() +
-            xChange][selection.getY() + yChange].getMoveCost());
+        units.setCurrentMoves(slot, units.getCurrentMoves(slot) -
+            terrainTypes.get(terrainIds[to]).getMoveCost());
 
-        //Set the oberservable status to changed.
-        //Fix Defect # 170
-        setChanged();
+        //IF there is a history, record the move.
+        if (history != null)
+        {
+            history.begin();
+            record(from, to, units.getCurrentHealth(slot), oldMoves,
+                units.canAttack(slot), null);
+            history.end(activePlayer, activePlayer);
+        }
+        //ENDIF
 
-        //Notify any observers.
-        notifyObservers(null);
+        //Notify any observers that the two locations changed.
+        //Fix Defect # 170
+        change.addCell(from);
+        change.addCell(to);
+        publish();
     }
     
     /**
@@ -573,119 +1615,109 @@ public class GameBoard extends Observable
     {
         //Craete an ArrayList of Integers to hold the damage dealt.
         ArrayList<Integer> damages = new ArrayList<Integer>();
+
+        int attackerCell = cellOf(selection.getX(), selection.getY());
+        int defenderCell = cellOf(xCoord, yCoord);
         
         //Get the attacking unit (the unit on the selected location).
-        Unit attacker = selection.getUnit();
+        int attacker = unitSlots[attackerCell];
 
         //Get the defending unit (the unit on the location pointed to by
         // (xCoord, yCoord).
-        Unit defender = map[xCoord][yCoord].getUnit();
-        
-        //Get the numeric modifier for the attackers attack type against the
-        // defenders armor type.
-        double mod = attacker.getAttackType().modAgainstType(defender.getArmorType());
-        
-        //Damage Equation (Code-named: Jon's Equation)
-        //AttackVDefenseModifier*(1-((TotalHealth-CurrentHealth)/TotalHealth)/2)*
-        // (AttackValue - DefenseValue)
-        
-        //Obtain the amount of damage by performing the damage equation.
-        int damage = (int)(mod * (1.0 - (((double)attacker.getMaxHealth() -
-            attacker.getCurrentHealth()) / (double)attacker.getMaxHealth()) / 2.0) *
-            ((double)attacker.getAttackValue() -
-            ((double)defender.getArmorValue() +
-            (double)(map[xCoord][yCoord].getDefMod()))));
+        int defender = unitSlots[defenderCell];
 
-        //IF damage to be dealt is less than 1.
-        if (damage < 1)
-        {
-            //Set the damage to be done to 1.
-            damage = 1;
-        }
-        //ELSE IF damage to be dealt is greater than the defneding Unit's health.
-        else if (damage > defender.getCurrentHealth())
-        {
-            //Reduce the damage to the defensing units health.
-            damage = defender.getCurrentHealth();
-        }
+        //Remember both units as they were, for the history.
+        int attackerHealth = units.getCurrentHealth(attacker);
+        int attackerMoves = units.getCurrentMoves(attacker);
+        boolean attackerCanAttack = units.canAttack(attacker);
+        int defenderHealth = units.getCurrentHealth(defender);
+        int defenderMoves = units.getCurrentMoves(defender);
+        boolean defenderCanAttack = units.canAttack(defender);
+        Unit attackerKilled = null;
+        Unit defenderKilled = null;
+
+        //Work out the attack and any counter-attack.
+        fight(attackerCell, defenderCell);
         
-        //Inflict the amount of damage calculated by the damage equation on the
-        // defending unit.
-        defender.takeDamage(damage);
+        //Inflict the damage on the defending unit.
+        units.setCurrentHealth(defender, combat.getDefenderHealth());
         
         //Consume the attacking unit's attack.
-        attacker.useAttack();
+        units.setCanAttack(attacker, false);
         
         //Add the amount of damage dealt to the ArrayList of Integers.
-        damages.add(new Integer(damage));
+        damages.add(new Integer(combat.getDamage()));
         
         //IF the defending Unit is dead (health == 0)
-        if (defender.getCurrentHealth() <= 0)
+        if (combat.getDefenderHealth() <= 0)
         {
             //remmove that unit from the board.
-            map[xCoord][yCoord].removeUnit();
+            defenderKilled = removeUnitAt(defenderCell);
         }
-        //ELSE IF the attacker is in range of the defender attempt to perform a
-        // counter-attack
-        else if (Math.abs(xCoord - selection.getX()) +
-                Math.abs(yCoord - selection.getY()) <= defender.getAttackRange())
+        //ELSE IF the attacker is in range of the defender, it counter-attacked
+        else if (combat.hasCounter())
         {
-            //Get the numeric modifier for the defenders attack type against the
-            // attackers armor type.
-            mod = defender.getAttackType().modAgainstType(attacker.getArmorType());
+            //Inflict the counter-attack's damage on the attacking unit.
+            units.setCurrentHealth(attacker, combat.getAttackerHealth());
             
-            //Obtain the amount of damage by performing the damage equation.
-            damage = (int)(mod * (1.0 - (((double)defender.getMaxHealth() -
-                (double)defender.getCurrentHealth()) / defender.getMaxHealth()) / 2.0)
-                * ((double)defender.getAttackValue() -
-                ((double)attacker.getArmorValue() +
-                (double)selection.getDefMod())));
-            
-            //IF damage to be dealt is less than 1.
-            if (damage < 1)
-            {
-                //Set the damage to be done to 1.
-                damage = 1;
-            }
-            //ELSE IF damage to be dealt is greater than the defneding Unit's health.
-            else if (damage > attacker.getCurrentHealth())
-            {
-                //Reduce the damage to the defensing units health.
-                damage = attacker.getCurrentHealth();
-            }
-            //ENDIF
- 
-            //Inflict the amount of damage calculated by the damage equation on
-            // the defending unit.
-            attacker.takeDamage(damage);
+            //Consume the defending unit's attack.
+            units.setCanAttack(defender, false);
             
             //IF the "attacking" (the Unit being counter-attacked) Unit is
             // dead (health == 0)
-            if (attacker.getCurrentHealth() <= 0)
+            if (combat.getAttackerHealth() <= 0)
             {
                 //Remove that unit from the board.
-                selection.removeUnit();
+                attackerKilled = removeUnitAt(attackerCell);
             }
             //ENDIF
             
-            //Consume the attacking unit's attack.
-            defender.useAttack();
-            
             //Add the amount of damage dealt to the ArrayList of Integers.
-            damages.add(new Integer(damage));
+            damages.add(new Integer(combat.getCounterDamage()));
         }
         //ENDIF
 
-        //Set the oberservable status to changed.
-        //Fix Defect # 170
-        setChanged();
+        //IF there is a history, record what happened to both units.
+        if (history != null)
+        {
+            history.begin();
+            record(attackerCell, attackerCell, attackerHealth, attackerMoves,
+                attackerCanAttack, attackerKilled);
+            record(defenderCell, defenderCell, defenderHealth, defenderMoves,
+                defenderCanAttack, defenderKilled);
+            history.end(activePlayer, activePlayer);
+        }
+        //ENDIF
 
-        //Notify any observers.
-        notifyObservers(null);
+        //Notify any observers that both locations changed.
+        //Fix Defect # 170
+        change.addCell(attackerCell);
+        change.addCell(defenderCell);
+        publish();
         
         //Return the amount of damage the defending unit took.
         return damages;
     }
+
+    /**
+    * Works out what would happen if the Unit at the selected Terrain attacked
+    * the Unit at xCoord, yCoord, without changing the board or notifying any
+    * observers. The result is read from the returned CombatKernel, which is
+    * reused by the next call to this method or to attack(int, int).
+    *
+    * @pre the same as for attack(int, int)
+    *
+    * @param xCoord the X coordinate of the Terrain to be attacked
+    * @param yCoord the Y coordinate of the Terrain to be attacked
+    *
+    * @return the CombatKernel holding the result of the attack
+    */
+    public CombatKernel predictAttack(int xCoord, int yCoord)
+    {
+        fight(cellOf(selection.getX(), selection.getY()),
+            cellOf(xCoord, yCoord));
+        return combat;
+    }
     
     /**
     * Get a list of the enemies in range of the Unit on the selected Terrain.
@@ -701,42 +1733,174 @@ public class GameBoard extends Observable
         //Create a new ArrayList of Points.
         ArrayList<Point> enemies = new ArrayList<Point>();
         
-        //Get the currently selected Unit's attack range.
-        int attkRange = selection.getUnit().getAttackRange();
+        //Get the currently selected Unit's attack range and owner.
+        int selected = unitSlots[cellOf(selection.getX(), selection.getY())];
+        int attkRange = units.getType(selected).getAttackRange();
+        Player owner = units.getOwner(selected);
         
-        //FOR all map rows.
-        for (int row = 0; row < map.length; row++)
+        //Ask the index for the enemies in range.
+        int numEnemies = index.findEnemies(owner, selection.getX(),
+            selection.getY(), attkRange);
+
+        //FOR each enemy found.
+        for (int i = 0; i < numEnemies; i++)
         {
-            //FOR all map cols.
-            for (int col = 0; col < map[row].length; col++)
-            {
-                //IF the terrain is in range and has an enemy unit.
-                if (map[row][col].getUnit() != null &&
-                    map[row][col].getUnit().getOwner() !=
-                    selection.getUnit().getOwner() &&
-                    (Math.abs(row - selection.getX()) +
-                    Math.abs(col - selection.getY()) <= attkRange))
-                {
-                    //Add the enemy's location to the ArrayList of Points.
-                    enemies.add(new Point(row, col));
-                }
-                //ENDIF
-            }
-            //ENDFOR
+            int cell = index.getFound(i);
+
+            //Add the enemy's location to the ArrayList of Points.
+            enemies.add(new Point(cell / numCols, cell % numCols));
         }
         //ENDFOR
 
-        //Set the oberservable status to changed.
-        //Fix Defect # 170
-        setChanged();
-
         //Notify any observers with the ArrayList of Points.
-        notifyObservers(enemies);
+        //Fix Defect # 170
+        change.addEnemies(enemies);
+        publish();
         
         //Return the ArrayList of Points.
         return enemies;
     }
     
+    /**
+    * Gets every location the Unit on the selected Terrain can move to with the
+    * moves it has left. Each step costs the move cost of the Terrain moved
+    * onto, and no step may be onto a Terrain that has a Unit, the same as for
+    * move(int, int). The selected location itself is not included.
+    *
+    * @pre the map has been instantiated by calling loadMap(String)
+    * @pre the selected Terrain has a Unit
+    *
+    * @return an ArrayList containing the coordinates of every reachable
+    * location, cheapest first
+    */
+    public ArrayList<Point> getReachableCells()
+    {
+        //Create a new ArrayList of Points.
+        ArrayList<Point> reachable = new ArrayList<Point>();
+
+        //Search out from the selected location as far as its Unit's moves go.
+        int numReached = searchFromSelection();
+
+        //FOR each location reached.
+        for (int i = 0; i < numReached; i++)
+        {
+            int cell = getPathfinder().getReached(i);
+
+            //Add the location to the ArrayList of Points.
+            reachable.add(new Point(cell / numCols, cell % numCols));
+        }
+        //ENDFOR
+
+        //Return the ArrayList of Points.
+        return reachable;
+    }
+
+    /**
+    * Gets the cheapest path the Unit on the selected Terrain can take to the
+    * given location with the moves it has left.
+    *
+    * @pre the map has been instantiated by calling loadMap(String)
+    * @pre the selected Terrain has a Unit
+    *
+    * @param xCoord the X coordinate of the location to move to
+    * @param yCoord the Y coordinate of the location to move to
+    * @return an ArrayList containing the coordinates of each location moved
+    * onto in order, ending with the given location, or null if the Unit can
+    * not reach it
+    */
+    public ArrayList<Point> getPath(int xCoord, int yCoord)
+    {
+        int target = cellOf(xCoord, yCoord);
+
+        //Search out from the selected location and trace back from the target.
+        searchFromSelection();
+        int length = getPathfinder().findPath(target);
+
+        //IF the target can not be reached
+        if (length < 0)
+        {
+            return null;
+        }
+        //ENDIF
+
+        //Create a new ArrayList of Points.
+        ArrayList<Point> path = new ArrayList<Point>(length);
+
+        //FOR each step of the path.
+        for (int i = 0; i < length; i++)
+        {
+            int cell = getPathfinder().getStep(i);
+
+            //Add the step's location to the ArrayList of Points.
+            path.add(new Point(cell / numCols, cell % numCols));
+        }
+        //ENDFOR
+
+        //Return the ArrayList of Points.
+        return path;
+    }
+
+    /**
+    * Move the currently selected Terrain's Unit to the given location along
+    * the cheapest path to it. The Unit's moves are decremented by the cost of
+    * the whole path, as if it had been moved one location at a time with
+    * move(int, int), but observers are only notified once. Like
+    * move(int, int), the selection is not changed.
+    *
+    * @pre the map has been instantiated by calling loadMap(String)
+    * @pre the selected Terrain has a Unit
+    *
+    * @param xCoord the X coordinate of the location to move to
+    * @param yCoord the Y coordinate of the location to move to
+    * @return true if the Unit was moved, false if it could not reach the
+    * location or is already there
+    */
+    public boolean moveTo(int xCoord, int yCoord)
+    {
+        int from = cellOf(selection.getX(), selection.getY());
+        int to = cellOf(xCoord, yCoord);
+
+        //Search out from the selected location.
+        searchFromSelection();
+        int cost = getPathfinder().getCost(to);
+
+        //IF the location can not be reached or is where the Unit already is
+        if (cost < 0 || to == from)
+        {
+            return false;
+        }
+        //ENDIF
+
+        //Remove the unit from the currently selected terrain and place it
+        // onto the location at (xCoord, yCoord).
+        int slot = unitSlots[from];
+        int oldMoves = units.getCurrentMoves(slot);
+        unitSlots[from] = kNoUnit;
+        unitSlots[to] = slot;
+        units.setCell(slot, to);
+        index.move(slot, to);
+
+        //Decrement the unit's moves by the cost of the path.
+        units.setCurrentMoves(slot, oldMoves - cost);
+
+        //IF there is a history, record the move.
+        if (history != null)
+        {
+            history.begin();
+            record(from, to, units.getCurrentHealth(slot), oldMoves,
+                units.canAttack(slot), null);
+            history.end(activePlayer, activePlayer);
+        }
+        //ENDIF
+
+        //Notify any observers that the two locations changed.
+        change.addCell(from);
+        change.addCell(to);
+        publish();
+
+        return true;
+    }
+    
     /**
     * Gets the list of Unit type names from the UnitFactory.
     *
@@ -763,44 +1927,690 @@ public class GameBoard extends Observable
     
     /**
     * Resets ALL of the Units on the board, not just those belonging to the given
-    * Player. The Player arguement is instead used to tell the GameButtonView
+    * Player, unless setResetNextPlayerOnly(true) has been called. The Player
+    * arguement is also used to tell the GameButtonView
     * what player's turn it is, so it can display the correct color. This method
     * MUST notify its Observers and give the nextPlayer as the blind pass.
+    * Only the Units are looked at, not every cell of the map.
     *
     * @pre the map has been instantiated by calling loadMap(String)
-    * @post every Unit on the map has had its moves set to maxMoves, and canAttack
-    * set to true
+    * @post every Unit on the map (or every Unit of nextPlayer) has had its
+    * moves set to maxMoves, and canAttack set to true
     *
     *
     * @param nextPlayer the player whose turn is will become after the Units
-    * are reset. This will not be used in the resetUnits, but is required for
-    * the GUI to know what player's turn it is
+    * are reset
     */
     public void resetUnits(Player nextPlayer)
     {
-        //FOR all the rows in map.
-        for (int row = 0; row < map.length; row++)
+        //IF there is a history, start an entry for the reset.
+        if (history != null)
         {
-            //FOR all the cols in map.
-            for (int col = 0; col < map[row].length; col++)
+            history.begin();
+        }
+        //ENDIF
+
+        //FOR each Player whose Units will be reset, record the Units that
+        // will change.
+        for (Player owner : Player.values())
+        {
+            if (!resetNextPlayerOnly || owner == nextPlayer)
+            {
+                recordReset(owner);
+            }
+        }
+        //ENDFOR
+
+        //IF there is a history, finish the entry.
+        if (history != null)
+        {
+            history.end(activePlayer, nextPlayer);
+        }
+        //ENDIF
+
+        //IF only the next player's Units should be reset
+        if (resetNextPlayerOnly)
+        {
+            //Reset the next player's Units.
+            units.resetOwner(nextPlayer);
+        }
+        //ELSE
+        else
+        {
+            //Reset every Unit in the store.
+            units.resetAll();
+        }
+        //ENDIF
+
+        //It is now the next player's turn.
+        activePlayer = nextPlayer;
+
+        //Notify any observers of the Units reset, with the nextPlayer.
+        //Fix Defect # 170
+        change.addPlayer(nextPlayer);
+        publish();
+    }
+
+    /**
+    * Replaces the Terrain at the given coordinates with the kind of the given
+    * Terrain. The Unit on the given Terrain, if any, is placed on the map
+    * along with it and stays live: changes the board makes to it can be seen
+    * through the Unit.
+    *
+    * @pre the coordinates are on the map
+    *
+    * @param xCoord the X coordinate of the Terrain to be replaced
+    * @param yCoord the Y coordinate of the Terrain to be replaced
+    * @param terrain the Terrain to place
+    */
+    public void setTerrain(int xCoord, int yCoord, Terrain terrain)
+    {
+        int cell = cellOf(xCoord, yCoord);
+
+        //Set the location to the kind of the given Terrain.
+        setKind(cell, terrainTypeId(terrain));
+
+        //Move the given Terrain's Unit, or the lack of one, onto the location.
+        placeUnit(xCoord, yCoord, terrain.getUnit());
+
+        //Notify any observers that the location changed.
+        change.addCell(cell);
+        publish();
+    }
+
+    /**
+    * Gets the archetype of the kind of Terrain at the given coordinates.
+    *
+    * @param xCoord the X coordinate of the cell
+    * @param yCoord the Y coordinate of the cell
+    * @return the archetype, whose coordinates mean nothing
+    */
+    Terrain terrainTypeAt(int xCoord, int yCoord)
+    {
+        return terrainTypes.get(terrainIds[cellOf(xCoord, yCoord)]);
+    }
+
+    /**
+    * Gets the Unit at the given coordinates.
+    *
+    * @param xCoord the X coordinate of the cell
+    * @param yCoord the Y coordinate of the cell
+    * @return the Unit, or null if the cell is empty
+    */
+    Unit unitAt(int xCoord, int yCoord)
+    {
+        int slot = unitSlots[cellOf(xCoord, yCoord)];
+
+        //IF the cell is empty
+        if (slot == kNoUnit)
+        {
+            return null;
+        }
+        //ENDIF
+
+        return units.getUnit(slot);
+    }
+
+    /**
+    * Places the given Unit at the given coordinates, replacing whatever Unit
+    * was there. A Unit that is already on this board is moved, any other Unit
+    * is attached to the board so that it stays live.
+    *
+    * @param xCoord the X coordinate of the cell
+    * @param yCoord the Y coordinate of the cell
+    * @param unit the Unit to place, or null to empty the cell
+    */
+    void placeUnit(int xCoord, int yCoord, Unit unit)
+    {
+        int cell = cellOf(xCoord, yCoord);
+        forgetHistory();
+
+        //IF there is no Unit to place
+        if (unit == null)
+        {
+            removeUnitAt(cell);
+            return;
+        }
+        //ENDIF
+
+        int slot = units.slotOf(unit);
+
+        //IF the Unit is already on this board
+        if (slot != -1)
+        {
+            //IF it is somewhere else, move it here.
+            if (units.getCell(slot) != cell)
             {
-                //IF the current terrain contains a Unit.
-                if (map[row][col].getUnit() != null)
+                unitSlots[units.getCell(slot)] = kNoUnit;
+                removeUnitAt(cell);
+                unitSlots[cell] = slot;
+                units.setCell(slot, cell);
+                index.move(slot, cell);
+            }
+            //ENDIF
+        }
+        //ELSE
+        else
+        {
+            putUnit(cell, unit, true);
+        }
+        //ENDIF
+    }
+
+    /**
+    * Removes the Unit at the given coordinates.
+    *
+    * @param xCoord the X coordinate of the cell
+    * @param yCoord the Y coordinate of the cell
+    * @return the removed Unit, or null if the cell was empty
+    */
+    Unit takeUnit(int xCoord, int yCoord)
+    {
+        forgetHistory();
+        return removeUnitAt(cellOf(xCoord, yCoord));
+    }
+
+    /**
+    * Gets the cost of moving onto the given cell.
+    *
+    * @param cell the cell
+    * @return the move cost of the Terrain in the cell
+    */
+    int moveCostOf(int cell)
+    {
+        return terrainTypes.get(terrainIds[cell]).getMoveCost();
+    }
+
+    /**
+    * Adds a record of a Unit changed by an action to the history.
+    *
+    * @param from the cell the Unit was in before
+    * @param to the cell the Unit is in now
+    * @param health the Unit's health before
+    * @param moves the Unit's moves before
+    * @param attack whether the Unit could attack before
+    * @param killed the Unit if the action took it off the map, otherwise null
+    */
+    private void record(int from, int to, int health, int moves,
+        boolean attack, Unit killed)
+    {
+        //IF the Unit is gone, its state is in the Unit itself.
+        if (killed != null)
+        {
+            history.add(from, to, health, killed.getCurrentHealth(), moves,
+                killed.getCurrentMoves(), attack, killed.canAttack(), killed);
+        }
+        //ELSE it is in the store.
+        else
+        {
+            int slot = unitSlots[to];
+            history.add(from, to, health, units.getCurrentHealth(slot), moves,
+                units.getCurrentMoves(slot), attack, units.canAttack(slot),
+                null);
+        }
+        //ENDIF
+    }
+
+    /**
+    * Records the change to each of the given Player's Units that resetting
+    * would change, and adds a record of each to the history if there is one.
+    *
+    * @param owner the Player whose Units are about to be reset
+    */
+    private void recordReset(Player owner)
+    {
+        //FOR each of the owner's Units
+        for (int slot = units.getFirstSlot(owner); slot != UnitStore.kNoSlot;
+            slot = units.getNextSlot(slot))
+        {
+            int maxMoves = units.getType(slot).getMaxMoves();
+
+            //IF resetting would change it, record it.
+            if (units.getCurrentMoves(slot) != maxMoves ||
+                !units.canAttack(slot))
+            {
+                int cell = units.getCell(slot);
+                change.addCell(cell);
+
+                //IF there is a history, record the Unit.
+                if (history != null)
                 {
-                    //Reset that unit.
-                    map[row][col].getUnit().reset();
+                    int health = units.getCurrentHealth(slot);
+                    history.add(cell, cell, health, health,
+                        units.getCurrentMoves(slot), maxMoves,
+                        units.canAttack(slot), true, null);
                 }
                 //ENDIF
             }
-            //ENDFOR
+            //ENDIF
         }
         //ENDFOR
+    }
+
+    /**
+    * Sets the state of the Unit in the given slot for a Unit on the map that
+    * has been changed, such as by Unit.takeDamage(int). That is an edit rather
+    * than an action, so the history is forgotten, the same as when a Unit is
+    * placed through a Terrain. Observers are told of the Unit's cell.
+    *
+    * @param slot the slot of the Unit
+    * @param health the Unit's new health
+    * @param moves the Unit's new moves
+    * @param attack whether the Unit can now attack
+    */
+    private void setUnitState(int slot, int health, int moves, boolean attack)
+    {
+        forgetHistory();
+        units.setCurrentHealth(slot, health);
+        units.setCurrentMoves(slot, moves);
+        units.setCanAttack(slot, attack);
+        change.addCell(units.getCell(slot));
+        publish();
+    }
+
+    /**
+    * Moves the Unit in one cell to another and sets its state, for undo()
+    * and redo().
+    *
+    * @param from the cell the Unit is in
+    * @param to the cell to put it in, which is empty unless it is from
+    * @param health the Unit's health
+    * @param moves the Unit's moves
+    * @param attack whether the Unit can attack
+    */
+    private void setUnit(int from, int to, int health, int moves,
+        boolean attack)
+    {
+        int slot = unitSlots[from];
+        change.addCell(from);
+        change.addCell(to);
+
+        //IF the Unit moves, move it.
+        if (from != to)
+        {
+            unitSlots[from] = kNoUnit;
+            unitSlots[to] = slot;
+            units.setCell(slot, to);
+            index.move(slot, to);
+        }
+        //ENDIF
+
+        units.setCurrentHealth(slot, health);
+        units.setCurrentMoves(slot, moves);
+        units.setCanAttack(slot, attack);
+    }
+
+    /**
+    * Makes it the given player's turn after an undo() or redo(), clears the
+    * selection and notifies observers, with the player if the turn changed.
+    *
+    * @param player whose turn it is now
+    */
+    private void changeTurn(Player player)
+    {
+        boolean changed = player != activePlayer;
+        activePlayer = player;
+        selection = null;
+
+        //Notify any observers of the Units changed and the selection, with
+        // the player if it is a new turn.
+        change.addSelection();
+
+        //IF it is a new turn, tell them whose.
+        if (changed)
+        {
+            change.addPlayer(player);
+        }
+        //ENDIF
+        publish();
+    }
+
+    /**
+    * Starts a batch of changes. Until the matching endChange(), changes are
+    * recorded but not published, and are then published to observers
+    * together as one BoardChange. Batches may be nested; only the outermost
+    * publishes.
+    */
+    public void beginChange()
+    {
+        batchDepth++;
+    }
+
+    /**
+    * Ends a batch of changes started by beginChange(), publishing everything
+    * that changed in it if it is the outermost batch.
+    */
+    public void endChange()
+    {
+        batchDepth--;
+        publish();
+    }
+
+    /**
+    * Publishes everything changed so far in an open batch without ending
+    * it, so that observers are up to date before the caller shows something
+    * of its own, such as a battle summary.
+    */
+    public void flushChange()
+    {
+        int depth = batchDepth;
+        batchDepth = 0;
+
+        try
+        {
+            publish();
+        }
+        finally
+        {
+            batchDepth = depth;
+        }
+    }
+
+    /**
+    * Publishes the changes recorded so far to any observers, unless a batch
+    * is open or nothing has changed, and then starts recording anew.
+    */
+    private void publish()
+    {
+        //IF a batch is open or there is nothing to publish, wait.
+        if (batchDepth > 0 || change.isEmpty())
+        {
+            return;
+        }
+        //ENDIF
 
         //Set the oberservable status to changed.
-        //Fix Defect # 170
         setChanged();
 
-        //Notify any observers with the nextPlayer.
-        notifyObservers(nextPlayer);
+        //Notify any observers with what changed, and clear it even if one
+        // of them fails.
+        try
+        {
+            notifyObservers(change);
+        }
+        finally
+        {
+            change.clear();
+        }
+    }
+
+    /**
+    * Clears the history, if there is one, because Units have been changed
+    * in a way it does not record.
+    */
+    private void forgetHistory()
+    {
+        //IF there is a history, clear it.
+        if (history != null)
+        {
+            history.clear();
+        }
+        //ENDIF
+    }
+
+    /**
+    * Has the combat kernel work out a fight between the Units in the given
+    * cells, leaving the board as it is.
+    *
+    * @param attackerCell the cell of the attacking Unit
+    * @param defenderCell the cell of the defending Unit
+    */
+    private void fight(int attackerCell, int defenderCell)
+    {
+        int attacker = unitSlots[attackerCell];
+        int defender = unitSlots[defenderCell];
+
+        combat.predict(units.getType(attacker),
+            units.getCurrentHealth(attacker),
+            terrainTypes.get(terrainIds[attackerCell]).getDefMod(),
+            units.getType(defender),
+            units.getCurrentHealth(defender),
+            terrainTypes.get(terrainIds[defenderCell]).getDefMod(),
+            Math.abs(attackerCell / numCols - defenderCell / numCols) +
+            Math.abs(attackerCell % numCols - defenderCell % numCols));
+    }
+
+    /**
+    * Gets whether there is a Unit in the given cell.
+    *
+    * @param cell the cell
+    * @return true if the cell has a Unit
+    */
+    boolean isOccupied(int cell)
+    {
+        return unitSlots[cell] != kNoUnit;
+    }
+
+    /**
+    * Gets the board's pathfinder, making it the first time, so that copies
+    * of the board that never look for a path never make one.
+    *
+    * @return the pathfinder
+    */
+    private Pathfinder getPathfinder()
+    {
+        //IF there is no pathfinder yet, make one.
+        if (pathfinder == null)
+        {
+            pathfinder = new Pathfinder(this);
+        }
+        //ENDIF
+
+        return pathfinder;
+    }
+
+    /**
+    * Has the pathfinder search out from the selected location as far as the
+    * moves of the Unit there go.
+    *
+    * @return the number of cells reached, not counting the selected one
+    */
+    private int searchFromSelection()
+    {
+        int cell = cellOf(selection.getX(), selection.getY());
+
+        return getPathfinder().search(cell,
+            units.getCurrentMoves(unitSlots[cell]));
+    }
+
+    /**
+    * Gets the cell number of the given coordinates.
+    *
+    * @param xCoord the X coordinate (row)
+    * @param yCoord the Y coordinate (col)
+    * @return the index of the cell in terrainIds and unitSlots
+    * @throws ArrayIndexOutOfBoundsException if the coordinates are not on
+    * the map
+    */
+    private int cellOf(int xCoord, int yCoord)
+    {
+        //IF the coordinates are off the map
+        if (xCoord < 0 || yCoord < 0 || xCoord >= numRows || yCoord >= numCols)
+        {
+            throw new ArrayIndexOutOfBoundsException("(" + xCoord + ", " +
+                yCoord + ") is not on the map");
+        }
+        //ENDIF
+
+        return xCoord * numCols + yCoord;
+    }
+
+    /**
+    * Adds the given Unit to the store and puts it in the given cell,
+    * replacing whatever Unit was there.
+    *
+    * @param cell the cell to put the Unit in
+    * @param unit the Unit to add
+    * @param attach true to bind the Unit to the store, false to only copy it
+    */
+    private void putUnit(int cell, Unit unit, boolean attach)
+    {
+        //Clear the cell.
+        removeUnitAt(cell);
+
+        //IF the Unit should stay live
+        if (attach)
+        {
+            unitSlots[cell] = units.attach(unit, cell);
+        }
+        //ELSE
+        else
+        {
+            unitSlots[cell] = units.add(unit, cell);
+        }
+        //ENDIF
+
+        //Record where the Unit is.
+        index.add(unitSlots[cell], units.getOwner(unitSlots[cell]), cell);
+    }
+
+    /**
+    * Removes the Unit in the given cell from the board.
+    *
+    * @param cell the cell to clear
+    * @return the removed Unit, or null if the cell was empty
+    */
+    private Unit removeUnitAt(int cell)
+    {
+        int slot = unitSlots[cell];
+
+        //IF the cell is empty
+        if (slot == kNoUnit)
+        {
+            return null;
+        }
+        //ENDIF
+
+        unitSlots[cell] = kNoUnit;
+        index.remove(slot);
+        return units.remove(slot);
+    }
+
+    /**
+    * Sets the kind of Terrain in the given cell, keeping terrainHash up to
+    * date.
+    *
+    * @param cell the cell
+    * @param kind the kind's index in terrainTypes
+    */
+    private void setKind(int cell, short kind)
+    {
+        terrainHash ^= terrainKey(cell, terrainIds[cell]) ^
+            terrainKey(cell, kind);
+        terrainIds[cell] = kind;
+
+        //IF the cell's chunk is shared with a snapshot, mark it changed.
+        int chunk = cell >> BoardSnapshot.kChunkBits;
+        if (baseChunks != null && !chunkDirty[chunk])
+        {
+            chunkDirty[chunk] = true;
+            dirtyChunks[numDirty++] = chunk;
+        }
+        //ENDIF
+    }
+
+    /**
+    * Stops sharing chunks of the map with any snapshot, so the next
+    * snapshot() copies every chunk.
+    */
+    private void forgetChunks()
+    {
+        int numChunks = BoardSnapshot.chunksFor(terrainIds.length);
+        baseChunks = null;
+        chunkDirty = new boolean[numChunks];
+        dirtyChunks = new int[numChunks];
+        numDirty = 0;
+    }
+
+    /**
+    * Makes a copy of one chunk of the map.
+    *
+    * @param chunk the chunk to copy
+    * @return the copy
+    */
+    private short[] copyChunk(int chunk)
+    {
+        int first = chunk << BoardSnapshot.kChunkBits;
+        short[] rtn = new short[Math.min(BoardSnapshot.kChunkSize,
+            terrainIds.length - first)];
+        System.arraycopy(terrainIds, first, rtn, 0, rtn.length);
+        return rtn;
+    }
+
+    /**
+    * Gets the Zobrist key of a kind of Terrain in a cell.
+    *
+    * @param cell the cell
+    * @param kind the kind's index in terrainTypes
+    * @return the key, 0 for DefaultTerrain
+    */
+    private long terrainKey(int cell, short kind)
+    {
+        //IF the kind is DefaultTerrain it adds nothing.
+        if (kind == 0)
+        {
+            return 0;
+        }
+        //ENDIF
+
+        return Zobrist.key(Zobrist.kTerrain, cell, terrainKeys[kind]);
+    }
+
+    /**
+    * Finds the kind of the given Terrain, adding it to terrainTypes if it has
+    * not been placed on this board before.
+    *
+    * @param terrain the Terrain whose kind to find
+    * @return the index of the kind in terrainTypes
+    */
+    private short terrainTypeId(Terrain terrain)
+    {
+        //A kind is its name along with its properties.
+        String key = terrain.getType() + "," + terrain.getDefMod() + "," +
+            terrain.getMoveCost();
+        Integer id = terrainTypeIds.get(key);
+
+        //IF this kind is new
+        if (id == null)
+        {
+            //IF there is no room for another kind
+            if (terrainTypes.size() > Short.MAX_VALUE)
+            {
+                throw new IllegalStateException("too many kinds of Terrain");
+            }
+            //ENDIF
+
+            //Add an archetype for the kind.
+            id = terrainTypes.size();
+            terrainTypes.add(new Terrain(terrain.getType(), terrain.getDefMod(),
+                terrain.getMoveCost(), -1, -1));
+            terrainTypeIds.put(key, id);
+
+            //IF there is no room for the kind's Zobrist value, grow the keys
+            if (id == terrainKeys.length)
+            {
+                long[] newTerrainKeys = new long[terrainKeys.length * 2];
+                System.arraycopy(terrainKeys, 0, newTerrainKeys, 0, id);
+                terrainKeys = newTerrainKeys;
+            }
+            //ENDIF
+            terrainKeys[id] = Zobrist.valueOf(key);
+        }
+        //ENDIF
+
+        return id.shortValue();
+    }
+
+    /**
+    * Hands changes made through the Units on the map to the board, so that
+    * its hash, history and observers see them.
+    */
+    private class Holder implements I_UnitHolder
+    {
+        public void setUnitState(int slot, int health, int moves,
+            boolean attack)
+        {
+            GameBoard.this.setUnitState(slot, health, moves, attack);
+        }
     }
 }
@@ -0,0 +1,303 @@
+package toleco.logic;
+
+import toleco.controller.Player;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+* Records a game to an append-only binary journal that a GameReplay can play
+* back. The journal is a short header followed by records, each a one byte
+* code and its fields:
+* a move one cell in a direction (from, change), a move along a path (from,
+* to), an attack (from, to), an end of turn (the next player) and a keyframe
+* (the turn it was taken at and the whole position, as written by
+* GameBoard.writeKeyframe). Coordinates are written as shorts, so a move or an
+* attack takes 9 bytes.
+* A keyframe is written whenever a map is loaded, after every kKeyframeTurns
+* ends of turns, and after an undo or redo, so that a replay can start at the
+* nearest keyframe before any turn instead of at the start of the game.
+* Records are written through a buffer, which is only flushed at the end of a
+* turn, so recording a game costs play next to nothing. If the journal can
+* not be written, the error is printed and recording stops; the game goes on.
+*
+* @author Eriq Augustine
+* @version 1.0
+*/
+public class GameJournal
+{
+    /**
+    * The first four bytes of every journal, "TJNL".
+    */
+    static final int kMagic = 0x544A4E4C;
+
+    /**
+    * The version of the journal format.
+    */
+    static final int kVersion = 1;
+
+    /**
+    * The code of a keyframe record.
+    */
+    static final int kKeyframe = 0;
+
+    /**
+    * The code of a record of a move one cell in a direction.
+    */
+    static final int kMove = 1;
+
+    /**
+    * The code of a record of a move along a path.
+    */
+    static final int kMoveTo = 2;
+
+    /**
+    * The code of a record of an attack.
+    */
+    static final int kAttack = 3;
+
+    /**
+    * The code of a record of the end of a turn.
+    */
+    static final int kEndTurn = 4;
+
+    /**
+    * The number of ends of turns between keyframes.
+    */
+    public static final int kKeyframeTurns = 8;
+
+    /**
+    * The size of the write buffer, in bytes.
+    */
+    private static final int kBufferSize = 1 << 16;
+
+    /**
+    * Where the records are written, or null once recording has stopped.
+    */
+    private DataOutputStream out;
+
+    /**
+    * The buffer keyframes are written into, to find their length.
+    */
+    private ByteArrayOutputStream frame;
+
+    /**
+    * The number of ends of turns recorded.
+    */
+    private int turn;
+
+    /**
+    * The number of ends of turns since the last keyframe.
+    */
+    private int turnsSinceKeyframe;
+
+    /**
+    * Starts a journal, replacing any file of the same name.
+    *
+    * @param fileName the file to write the journal to
+    * @throws IOException if the file could not be opened
+    */
+    public GameJournal(String fileName) throws IOException
+    {
+        out = new DataOutputStream(new BufferedOutputStream(
+            new FileOutputStream(fileName), kBufferSize));
+        frame = new ByteArrayOutputStream();
+        out.writeInt(kMagic);
+        out.writeByte(kVersion);
+    }
+
+    /**
+    * Gets the number of ends of turns recorded.
+    *
+    * @return the number of turns
+    */
+    public int getTurn()
+    {
+        return turn;
+    }
+
+    /**
+    * Records the whole position.
+    *
+    * @param board the board
+    */
+    public void keyframe(GameBoard board)
+    {
+        //IF recording has stopped, do nothing.
+        if (out == null)
+        {
+            return;
+        }
+        //ENDIF
+
+        try
+        {
+            frame.reset();
+            board.writeKeyframe(new DataOutputStream(frame));
+            out.writeByte(kKeyframe);
+            out.writeInt(turn);
+            out.writeInt(frame.size());
+            frame.writeTo(out);
+            turnsSinceKeyframe = 0;
+        }
+        //CATCH an error writing, stop recording.
+        catch (IOException e)
+        {
+            fail(e);
+        }
+    }
+
+    /**
+    * Records a move of the Unit at a location one cell in a direction.
+    *
+    * @param xCoord the X coordinate the Unit moved from
+    * @param yCoord the Y coordinate the Unit moved from
+    * @param xChange the change in X
+    * @param yChange the change in Y
+    */
+    public void move(int xCoord, int yCoord, int xChange, int yChange)
+    {
+        write(kMove, xCoord, yCoord, xChange, yChange);
+    }
+
+    /**
+    * Records a move of the Unit at a location along a path to another.
+    *
+    * @param xCoord the X coordinate the Unit moved from
+    * @param yCoord the Y coordinate the Unit moved from
+    * @param toX the X coordinate the Unit moved to
+    * @param toY the Y coordinate the Unit moved to
+    */
+    public void moveTo(int xCoord, int yCoord, int toX, int toY)
+    {
+        write(kMoveTo, xCoord, yCoord, toX, toY);
+    }
+
+    /**
+    * Records an attack by the Unit at a location on the Unit at another.
+    *
+    * @param xCoord the X coordinate of the attacker
+    * @param yCoord the Y coordinate of the attacker
+    * @param toX the X coordinate of the defender
+    * @param toY the Y coordinate of the defender
+    */
+    public void attack(int xCoord, int yCoord, int toX, int toY)
+    {
+        write(kAttack, xCoord, yCoord, toX, toY);
+    }
+
+    /**
+    * Records the end of a turn and flushes the journal, adding a keyframe
+    * every kKeyframeTurns turns.
+    *
+    * @param next the player whose turn it is now
+    * @param board the board, for the keyframe
+    */
+    public void endTurn(Player next, GameBoard board)
+    {
+        //IF recording has stopped, do nothing.
+        if (out == null)
+        {
+            return;
+        }
+        //ENDIF
+
+        try
+        {
+            out.writeByte(kEndTurn);
+            out.writeByte(next.ordinal());
+            turn++;
+            turnsSinceKeyframe++;
+
+            //IF it is time for a keyframe, write one.
+            if (turnsSinceKeyframe == kKeyframeTurns)
+            {
+                keyframe(board);
+            }
+            //ENDIF
+
+            //IF recording has not stopped, hand the turn to the file.
+            if (out != null)
+            {
+                out.flush();
+            }
+            //ENDIF
+        }
+        //CATCH an error writing, stop recording.
+        catch (IOException e)
+        {
+            fail(e);
+        }
+    }
+
+    /**
+    * Writes anything buffered and closes the journal. Nothing more is
+    * recorded.
+    */
+    public void close()
+    {
+        //IF recording has stopped, do nothing.
+        if (out == null)
+        {
+            return;
+        }
+        //ENDIF
+
+        try
+        {
+            out.close();
+        }
+        //CATCH an error writing
+        catch (IOException e)
+        {
+            System.err.println("Error writing journal: " + e.getMessage());
+        }
+        out = null;
+    }
+
+    /**
+    * Writes a record of a move or an attack.
+    *
+    * @param code the record's code
+    * @param xCoord the first field
+    * @param yCoord the second field
+    * @param toX the third field
+    * @param toY the fourth field
+    */
+    private void write(int code, int xCoord, int yCoord, int toX, int toY)
+    {
+        //IF recording has stopped, do nothing.
+        if (out == null)
+        {
+            return;
+        }
+        //ENDIF
+
+        try
+        {
+            out.writeByte(code);
+            out.writeShort(xCoord);
+            out.writeShort(yCoord);
+            out.writeShort(toX);
+            out.writeShort(toY);
+        }
+        //CATCH an error writing, stop recording.
+        catch (IOException e)
+        {
+            fail(e);
+        }
+    }
+
+    /**
+    * Prints an error writing the journal and stops recording.
+    *
+    * @param e the error
+    */
+    private void fail(IOException e)
+    {
+        System.err.println("Error writing journal: " + e.getMessage());
+        close();
+    }
+}
@@ -0,0 +1,388 @@
+package toleco.logic;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+* Plays back a journal written by a GameJournal onto a GameBoard. The whole
+* journal is read into memory and indexed when the replay is made: where each
+* turn starts and where each keyframe is. Seeking to a turn restores the
+* nearest keyframe at or before the start of the turn and replays only the
+* records after it, so it costs at most kKeyframeTurns turns of actions
+* however long the game was.
+* Records are played through the same GameBoard methods the GameController
+* uses, so observers of the board see a replay as they would a game. A
+* journal cut short, by a crash for instance, is played up to its last whole
+* record.
+*
+* @author Eriq Augustine
+* @version 1.0
+*/
+public class GameReplay
+{
+    /**
+    * The journal.
+    */
+    private byte[] data;
+
+    /**
+    * The number of bytes of the journal that hold whole records.
+    */
+    private int length;
+
+    /**
+    * Where each turn starts: turnStarts[n] is just after the nth end of turn.
+    */
+    private int[] turnStarts;
+
+    /**
+    * Where each keyframe starts, in order.
+    */
+    private int[] keyframes;
+
+    /**
+    * The number of records that are not keyframes.
+    */
+    private int numActions;
+
+    /**
+    * Where the next record starts.
+    */
+    private int position;
+
+    /**
+    * The number of ends of turns before the next record.
+    */
+    private int turn;
+
+    /**
+    * Reads and indexes a journal.
+    *
+    * @param fileName the journal
+    * @throws IOException if the journal could not be read or is not a journal
+    */
+    public GameReplay(String fileName) throws IOException
+    {
+        File file = new File(fileName);
+        data = new byte[(int)file.length()];
+        DataInputStream in = new DataInputStream(new FileInputStream(file));
+
+        try
+        {
+            in.readFully(data);
+        }
+        finally
+        {
+            in.close();
+        }
+
+        //IF it does not start like a journal
+        if (data.length < 5 || readInt(0) != GameJournal.kMagic ||
+            data[4] != GameJournal.kVersion)
+        {
+            throw new IOException(fileName + " is not a journal");
+        }
+        //ENDIF
+
+        index();
+        position = turnStarts[0];
+    }
+
+    /**
+    * Gets the number of turns in the journal, that is the number of ends of
+    * turns recorded.
+    *
+    * @return the number of turns
+    */
+    public int getTurnCount()
+    {
+        return turnStarts.length - 1;
+    }
+
+    /**
+    * Gets the number of moves, attacks and ends of turns in the journal.
+    *
+    * @return the number of actions
+    */
+    public int getActionCount()
+    {
+        return numActions;
+    }
+
+    /**
+    * Gets the number of keyframes in the journal.
+    *
+    * @return the number of keyframes
+    */
+    public int getKeyframeCount()
+    {
+        return keyframes.length;
+    }
+
+    /**
+    * Gets the number of ends of turns before the next record.
+    *
+    * @return the turn being played
+    */
+    public int getTurn()
+    {
+        return turn;
+    }
+
+    /**
+    * Gets whether every record has been played.
+    *
+    * @return true if there is nothing left to play
+    */
+    public boolean isFinished()
+    {
+        return position >= length;
+    }
+
+    /**
+    * Puts the board in the position at the start of the given turn, by
+    * restoring the nearest keyframe before it and playing on from there.
+    *
+    * @param board the board to play on
+    * @param target the turn, from 0 for the start of the journal to
+    * getTurnCount() for after its last end of turn
+    * @throws IOException if a keyframe could not be read
+    * @throws IllegalArgumentException if the turn is not in the journal
+    * @throws IllegalStateException if there is no keyframe before the turn
+    */
+    public void seek(GameBoard board, int target) throws IOException
+    {
+        //IF the turn is not in the journal
+        if (target < 0 || target >= turnStarts.length)
+        {
+            throw new IllegalArgumentException("no turn " + target);
+        }
+        //ENDIF
+
+        int end = turnStarts[target];
+        int keyframe = -1;
+
+        //FOR each keyframe, IF it is before the turn starts, it is nearer.
+        // A keyframe right where the turn starts may be of an undo made at
+        // the start of the turn, so it is only used at the start of the
+        // journal.
+        for (int i = 0; i < keyframes.length && (keyframes[i] < end ||
+            (i == 0 && keyframes[i] == end)); i++)
+        {
+            keyframe = keyframes[i];
+        }
+        //ENDFOR
+
+        //IF there is no keyframe to start from
+        if (keyframe < 0)
+        {
+            throw new IllegalStateException("no keyframe before turn " +
+                target);
+        }
+        //ENDIF
+
+        position = keyframe;
+        turn = readInt(keyframe + 1);
+
+        //WHILE the turn has not been reached, play on.
+        while (position < end || (position == keyframe && position == end))
+        {
+            step(board);
+        }
+        //ENDWHILE
+    }
+
+    /**
+    * Plays the next record onto the board.
+    *
+    * @param board the board to play on
+    * @return true if a record was played, false if there were none left
+    * @throws IOException if the record could not be read
+    */
+    public boolean step(GameBoard board) throws IOException
+    {
+        //IF there is nothing left to play
+        if (isFinished())
+        {
+            return false;
+        }
+        //ENDIF
+
+        int code = data[position];
+        int fromX = readShort(position + 1);
+        int fromY = readShort(position + 3);
+        int toX = readShort(position + 5);
+        int toY = readShort(position + 7);
+
+        //CASE code OF
+        switch (code)
+        {
+            //kKeyframe: restore the whole position
+            case GameJournal.kKeyframe:
+                turn = readInt(position + 1);
+                board.readKeyframe(new DataInputStream(new ByteArrayInputStream(
+                    data, position + 9, readInt(position + 5))));
+                break;
+            //kMove: move as GameController.move does
+            case GameJournal.kMove:
+                board.selectTerrain(fromX, fromY);
+                board.move(toX, toY);
+                board.selectTerrain(fromX + toX, fromY + toY);
+                break;
+            //kMoveTo: move as GameController.moveTo does
+            case GameJournal.kMoveTo:
+                board.selectTerrain(fromX, fromY);
+                board.moveTo(toX, toY);
+                board.selectTerrain(toX, toY);
+                break;
+            //kAttack: attack as GameController.runAttackMode does
+            case GameJournal.kAttack:
+                board.selectTerrain(fromX, fromY);
+                board.attack(toX, toY);
+                break;
+            //kEndTurn: end the turn as GameController.endTurn does
+            case GameJournal.kEndTurn:
+                board.selectTerrain(-1, -1);
+                board.resetUnits(GameBoard.playerOf(data[position + 1]));
+                turn++;
+                break;
+            //anything else: the journal is bad
+            default:
+                throw new IOException("unknown record " + code + " at " +
+                    position);
+        }
+        //ENDCASE
+
+        position += recordLength(position);
+        return true;
+    }
+
+    /**
+    * Finds where each turn and each keyframe starts, and how much of the
+    * journal holds whole records.
+    */
+    private void index()
+    {
+        ArrayList<Integer> turns = new ArrayList<Integer>();
+        ArrayList<Integer> frames = new ArrayList<Integer>();
+        int at = 5;
+        turns.add(at);
+
+        //WHILE there is a whole record left
+        while (at < data.length && at + recordLength(at) <= data.length)
+        {
+            int code = data[at];
+
+            //IF it is a keyframe, remember where.
+            if (code == GameJournal.kKeyframe)
+            {
+                frames.add(at);
+            }
+            //ELSE it is an action
+            else
+            {
+                numActions++;
+            }
+            //ENDIF
+
+            at += recordLength(at);
+
+            //IF it ends a turn, the next turn starts after it.
+            if (code == GameJournal.kEndTurn)
+            {
+                turns.add(at);
+            }
+            //ENDIF
+        }
+        //ENDWHILE
+        length = at;
+
+        turnStarts = new int[turns.size()];
+        //FOR each turn
+        for (int i = 0; i < turnStarts.length; i++)
+        {
+            turnStarts[i] = turns.get(i);
+        }
+        //ENDFOR
+        keyframes = new int[frames.size()];
+        //FOR each keyframe
+        for (int i = 0; i < keyframes.length; i++)
+        {
+            keyframes[i] = frames.get(i);
+        }
+        //ENDFOR
+    }
+
+    /**
+    * Gets the length of the record at the given place.
+    *
+    * @param at where the record starts
+    * @return its length in bytes, or more than is left if its length can not
+    * be read
+    */
+    private int recordLength(int at)
+    {
+        int code = data[at];
+        int recordLength;
+
+        //IF it is a keyframe, its length follows the turn.
+        if (code == GameJournal.kKeyframe)
+        {
+            recordLength = at + 9 <= data.length ? 9 + readInt(at + 5) : -1;
+
+            //IF the length is cut off or bad, the record is not whole.
+            if (recordLength < 9)
+            {
+                recordLength = data.length + 1;
+            }
+            //ENDIF
+        }
+        //ELSE IF it is an end of turn
+        else if (code == GameJournal.kEndTurn)
+        {
+            recordLength = 2;
+        }
+        //ELSE it is a move or an attack
+        else
+        {
+            recordLength = 9;
+        }
+        //ENDIF
+
+        return recordLength;
+    }
+
+    /**
+    * Reads a big-endian short from the journal, or 0 past its end.
+    *
+    * @param at where the short starts
+    * @return the short
+    */
+    private int readShort(int at)
+    {
+        //IF the short is past the end
+        if (at + 2 > data.length)
+        {
+            return 0;
+        }
+        //ENDIF
+
+        return (short)((data[at] << 8) | (data[at + 1] & 0xFF));
+    }
+
+    /**
+    * Reads a big-endian int from the journal.
+    *
+    * @param at where the int starts
+    * @return the int
+    */
+    private int readInt(int at)
+    {
+        return (data[at] << 24) | ((data[at + 1] & 0xFF) << 16) |
+            ((data[at + 2] & 0xFF) << 8) | (data[at + 3] & 0xFF);
+    }
+}
@@ -0,0 +1,402 @@
+package toleco.logic;
+
+/**
+ * Finds the cheapest way for a Unit to move across a GameBoard. Moving onto a
+ * cell costs that cell's Terrain.getMoveCost(), and a Unit can not move onto
+ * or through a cell that holds another Unit. This is the same rule the
+ * controller uses for a single step, applied to whole paths with Dijkstra's
+ * algorithm.
+ * A search finds every cell reachable within a budget of moves, along with
+ * the cheapest path to each. All of the search's buffers are kept between
+ * calls and are only remade when the board changes size, so repeated
+ * searches on the same board allocate nothing.
+ *
+ * @author Eriq Augustine
+ * @version 1.0
+ */
+class Pathfinder
+{
+    /**
+     * The value of parent for the cell a search started from.
+     */
+    private static final int kNone = -1;
+
+    /**
+     * The board being searched.
+     */
+    private GameBoard board;
+
+    /**
+     * The number of rows on the board when the buffers were sized.
+     */
+    private int numRows;
+
+    /**
+     * The number of cols on the board when the buffers were sized.
+     */
+    private int numCols;
+
+    /**
+     * The cheapest known cost to reach each cell in the current search. Only
+     * meaningful where stamp matches generation.
+     */
+    private int[] cost;
+
+    /**
+     * The cell each cell was reached from on its cheapest path.
+     */
+    private int[] parent;
+
+    /**
+     * The search each entry of cost and parent was written by.
+     */
+    private int[] stamp;
+
+    /**
+     * The number of the current search, bumped instead of clearing cost.
+     */
+    private int generation;
+
+    /**
+     * The cells in the priority queue, a binary heap ordered by heapCosts.
+     * A cell may be in the heap more than once, stale entries are skipped.
+     */
+    private int[] heapCells;
+
+    /**
+     * The cost each entry in heapCells was queued with.
+     */
+    private int[] heapCosts;
+
+    /**
+     * The number of entries in the heap.
+     */
+    private int heapSize;
+
+    /**
+     * The cells reached by the last search, not counting its start, in the
+     * order they were settled.
+     */
+    private int[] reached;
+
+    /**
+     * The number of cells in reached.
+     */
+    private int numReached;
+
+    /**
+     * The cells of the last path asked for, from the first step to the end.
+     */
+    private int[] path;
+
+    /**
+     * The cell the last search started from.
+     */
+    private int start;
+
+    /**
+     * Makes a pathfinder for the given board.
+     *
+     * @param board the board to search
+     */
+    Pathfinder(GameBoard board)
+    {
+        this.board = board;
+        heapCells = new int[16];
+        heapCosts = new int[16];
+    }
+
+    /**
+     * Finds every cell reachable from the given cell within the given number
+     * of moves. The cells can then be read with getReached(int), and paths to
+     * them found with findPath(int).
+     *
+     * @param startCell the cell to start from
+     * @param budget the number of moves that may be spent
+     * @return the number of cells reached, not counting startCell
+     */
+    int search(int startCell, int budget)
+    {
+        //Make sure the buffers fit the board.
+        fitBoard();
+
+        //Start a new search.
+        generation++;
+        start = startCell;
+        numReached = 0;
+        heapSize = 0;
+        visit(startCell, 0, kNone);
+
+        //WHILE there are cells left to settle
+        while (heapSize > 0)
+        {
+            int cell = heapCells[0];
+            int cellCost = heapCosts[0];
+            pop();
+
+            //IF a cheaper way to this cell was already settled, skip it
+            if (cellCost > cost[cell])
+            {
+                continue;
+            }
+            //ENDIF
+
+            //IF this is not the start, it is reachable
+            if (cell != startCell)
+            {
+                reached[numReached++] = cell;
+            }
+            //ENDIF
+
+            int row = cell / numCols;
+            int col = cell % numCols;
+
+            //Try each of the four neighbours.
+            //IF there is a row above
+            if (row > 0)
+            {
+                relax(cell - numCols, cellCost, cell, budget);
+            }
+            //ENDIF
+            //IF there is a row below
+            if (row < numRows - 1)
+            {
+                relax(cell + numCols, cellCost, cell, budget);
+            }
+            //ENDIF
+            //IF there is a col to the left
+            if (col > 0)
+            {
+                relax(cell - 1, cellCost, cell, budget);
+            }
+            //ENDIF
+            //IF there is a col to the right
+            if (col < numCols - 1)
+            {
+                relax(cell + 1, cellCost, cell, budget);
+            }
+            //ENDIF
+        }
+        //ENDWHILE
+
+        return numReached;
+    }
+
+    /**
+     * Gets one of the cells reached by the last search.
+     *
+     * @param which the index of the cell, less than what search returned
+     * @return the cell
+     */
+    int getReached(int which)
+    {
+        return reached[which];
+    }
+
+    /**
+     * Gets the cost of the cheapest path to the given cell found by the last
+     * search.
+     *
+     * @param cell the cell to look up
+     * @return the cost, or -1 if the last search did not reach the cell
+     */
+    int getCost(int cell)
+    {
+        //IF the last search did not reach the cell
+        if (cost == null || cell < 0 || cell >= stamp.length ||
+            stamp[cell] != generation)
+        {
+            return -1;
+        }
+        //ENDIF
+
+        return cost[cell];
+    }
+
+    /**
+     * Builds the cheapest path from the last search's start to the given
+     * cell. The steps can then be read with getStep(int).
+     *
+     * @param target the cell to find the path to
+     * @return the number of steps in the path, 0 if target is the start, or
+     * -1 if the last search did not reach target
+     */
+    int findPath(int target)
+    {
+        //IF the target was not reached
+        if (getCost(target) < 0)
+        {
+            return -1;
+        }
+        //ENDIF
+
+        //Count the steps back to the start.
+        int length = 0;
+        //FOR each cell on the way back
+        for (int cell = target; cell != start; cell = parent[cell])
+        {
+            length++;
+        }
+        //ENDFOR
+
+        //Write the steps in from the end.
+        int step = length;
+        //FOR each cell on the way back
+        for (int cell = target; cell != start; cell = parent[cell])
+        {
+            path[--step] = cell;
+        }
+        //ENDFOR
+
+        return length;
+    }
+
+    /**
+     * Gets one step of the last path built by findPath(int).
+     *
+     * @param which the index of the step, less than what findPath returned
+     * @return the cell moved onto in that step
+     */
+    int getStep(int which)
+    {
+        return path[which];
+    }
+
+    /**
+     * Looks at moving from one cell onto a neighbour, and queues the
+     * neighbour if that is the cheapest way onto it found so far.
+     *
+     * @param cell the neighbour being moved onto
+     * @param fromCost the cost of reaching the cell being moved from
+     * @param from the cell being moved from
+     * @param budget the number of moves that may be spent
+     */
+    private void relax(int cell, int fromCost, int from, int budget)
+    {
+        //IF another Unit is in the way
+        if (board.isOccupied(cell))
+        {
+            return;
+        }
+        //ENDIF
+
+        int newCost = fromCost + board.moveCostOf(cell);
+
+        //IF the cell is within budget and is cheaper this way
+        if (newCost <= budget &&
+            (stamp[cell] != generation || newCost < cost[cell]))
+        {
+            visit(cell, newCost, from);
+        }
+        //ENDIF
+    }
+
+    /**
+     * Records the cheapest known way onto a cell and queues it.
+     *
+     * @param cell the cell
+     * @param newCost the cost of reaching it
+     * @param from the cell it is reached from
+     */
+    private void visit(int cell, int newCost, int from)
+    {
+        stamp[cell] = generation;
+        cost[cell] = newCost;
+        parent[cell] = from;
+        push(cell, newCost);
+    }
+
+    /**
+     * Adds an entry to the heap.
+     *
+     * @param cell the cell to add
+     * @param cellCost the cost to order it by
+     */
+    private void push(int cell, int cellCost)
+    {
+        //IF the heap is full, grow it
+        if (heapSize == heapCells.length)
+        {
+            int[] newCells = new int[heapCells.length * 2];
+            int[] newCosts = new int[heapCosts.length * 2];
+            System.arraycopy(heapCells, 0, newCells, 0, heapSize);
+            System.arraycopy(heapCosts, 0, newCosts, 0, heapSize);
+            heapCells = newCells;
+            heapCosts = newCosts;
+        }
+        //ENDIF
+
+        //Sift the new entry up from the bottom.
+        int index = heapSize++;
+        //WHILE the entry is cheaper than its parent
+        while (index > 0 && heapCosts[(index - 1) / 2] > cellCost)
+        {
+            heapCells[index] = heapCells[(index - 1) / 2];
+            heapCosts[index] = heapCosts[(index - 1) / 2];
+            index = (index - 1) / 2;
+        }
+        //ENDWHILE
+        heapCells[index] = cell;
+        heapCosts[index] = cellCost;
+    }
+
+    /**
+     * Removes the cheapest entry from the heap.
+     */
+    private void pop()
+    {
+        heapSize--;
+        int cell = heapCells[heapSize];
+        int cellCost = heapCosts[heapSize];
+
+        //Sift the last entry down from the top.
+        int index = 0;
+        //WHILE the entry has a child
+        while (index * 2 + 1 < heapSize)
+        {
+            int child = index * 2 + 1;
+            //IF the right child is cheaper, use it
+            if (child + 1 < heapSize && heapCosts[child + 1] < heapCosts[child])
+            {
+                child++;
+            }
+            //ENDIF
+
+            //IF the entry is no more than its cheapest child, it goes here
+            if (cellCost <= heapCosts[child])
+            {
+                break;
+            }
+            //ENDIF
+
+            heapCells[index] = heapCells[child];
+            heapCosts[index] = heapCosts[child];
+            index = child;
+        }
+        //ENDWHILE
+        heapCells[index] = cell;
+        heapCosts[index] = cellCost;
+    }
+
+    /**
+     * Resizes the per cell buffers if the board has changed size since they
+     * were made.
+     */
+    private void fitBoard()
+    {
+        //IF the board is a different size than the buffers
+        if (cost == null || board.getNumRows() != numRows ||
+            board.getNumCols() != numCols)
+        {
+            numRows = board.getNumRows();
+            numCols = board.getNumCols();
+            cost = new int[numRows * numCols];
+            parent = new int[numRows * numCols];
+            stamp = new int[numRows * numCols];
+            reached = new int[numRows * numCols];
+            path = new int[numRows * numCols];
+            generation = 0;
+        }
+        //ENDIF
+    }
+}
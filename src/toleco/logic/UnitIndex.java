@@ -0,0 +1,367 @@
+package toleco.logic;
+
+import toleco.controller.Player;
+import java.util.Arrays;
+
+/**
+ * A spatial index of where every Unit on a GameBoard is, kept separately for
+ * each Player. The map is cut into square buckets of kBucketSize cells, and
+ * each bucket keeps a linked list of the unit slots inside it. Range queries
+ * only look at the buckets that overlap the range, so they cost time in
+ * proportion to the units nearby rather than to the size of the map.
+ * GameBoard keeps the index current every time a Unit is placed, moved or
+ * removed.
+ *
+ * @author Eriq Augustine
+ * @version 1.0
+ */
+class UnitIndex
+{
+    /**
+     * The width and height of a bucket, in cells.
+     */
+    private static final int kBucketSize = 8;
+
+    /**
+     * The end of a bucket's list.
+     */
+    private static final int kNone = -1;
+
+    /**
+     * Every Player, indexed by ordinal.
+     */
+    private static final Player[] kPlayers = Player.values();
+
+    /**
+     * The number of rows in the map.
+     */
+    private int numRows;
+
+    /**
+     * The number of cols in the map, used to turn cells into coordinates.
+     */
+    private int numCols;
+
+    /**
+     * The number of cols of buckets.
+     */
+    private int bucketCols;
+
+    /**
+     * The first slot in each bucket's list, for each Player.
+     */
+    private int[][] heads;
+
+    /**
+     * The next slot in the same bucket's list.
+     */
+    private int[] next;
+
+    /**
+     * The previous slot in the same bucket's list.
+     */
+    private int[] prev;
+
+    /**
+     * The cell each slot is in.
+     */
+    private int[] cells;
+
+    /**
+     * The owner of each slot, as a Player ordinal.
+     */
+    private byte[] owners;
+
+    /**
+     * The cells found by the last query.
+     */
+    private int[] found;
+
+    /**
+     * The number of cells in found.
+     */
+    private int numFound;
+
+    /**
+     * Makes an empty index for a map of the given size.
+     *
+     * @param rows the number of rows in the map
+     * @param cols the number of cols in the map
+     */
+    UnitIndex(int rows, int cols)
+    {
+        numRows = rows;
+        numCols = cols;
+        bucketCols = (cols + kBucketSize - 1) / kBucketSize;
+        int bucketRows = (rows + kBucketSize - 1) / kBucketSize;
+
+        heads = new int[kPlayers.length][bucketRows * bucketCols];
+        //FOR each Player
+        for (int[] playerHeads : heads)
+        {
+            Arrays.fill(playerHeads, kNone);
+        }
+        //ENDFOR
+
+        next = new int[16];
+        prev = new int[16];
+        cells = new int[16];
+        owners = new byte[16];
+        found = new int[16];
+    }
+
+    /**
+     * Makes a copy of the given index.
+     *
+     * @param other the index to copy
+     */
+    UnitIndex(UnitIndex other)
+    {
+        numRows = other.numRows;
+        numCols = other.numCols;
+        bucketCols = other.bucketCols;
+
+        heads = new int[other.heads.length][];
+        //FOR each Player
+        for (int player = 0; player < heads.length; player++)
+        {
+            heads[player] = other.heads[player].clone();
+        }
+        //ENDFOR
+
+        next = other.next.clone();
+        prev = other.prev.clone();
+        cells = other.cells.clone();
+        owners = other.owners.clone();
+        found = new int[16];
+    }
+
+    /**
+     * Adds a unit to the index.
+     *
+     * @param slot the unit's slot in the board's UnitStore
+     * @param owner the Player that owns the unit
+     * @param cell the cell the unit is in
+     */
+    void add(int slot, Player owner, int cell)
+    {
+        //IF the slot is past the end of the arrays, grow them
+        if (slot >= next.length)
+        {
+            grow(Math.max(slot + 1, next.length * 2));
+        }
+        //ENDIF
+
+        owners[slot] = (byte)owner.ordinal();
+        cells[slot] = cell;
+        link(slot);
+    }
+
+    /**
+     * Removes a unit from the index.
+     *
+     * @param slot the unit's slot in the board's UnitStore
+     */
+    void remove(int slot)
+    {
+        unlink(slot);
+    }
+
+    /**
+     * Records that a unit has moved.
+     *
+     * @param slot the unit's slot in the board's UnitStore
+     * @param cell the cell the unit is now in
+     */
+    void move(int slot, int cell)
+    {
+        //IF the unit is changing buckets
+        if (bucketOf(cell) != bucketOf(cells[slot]))
+        {
+            unlink(slot);
+            cells[slot] = cell;
+            link(slot);
+        }
+        //ELSE
+        else
+        {
+            cells[slot] = cell;
+        }
+        //ENDIF
+    }
+
+    /**
+     * Finds every unit not owned by the given Player that is within the given
+     * Manhattan distance of the given coordinates. The cells found are put in
+     * row major order and can be read with getFound(int).
+     *
+     * @param owner the Player whose enemies to look for
+     * @param xCoord the X coordinate (row) to measure from
+     * @param yCoord the Y coordinate (col) to measure from
+     * @param range the largest Manhattan distance to include
+     * @return the number of units found
+     */
+    int findEnemies(Player owner, int xCoord, int yCoord, int range)
+    {
+        numFound = 0;
+
+        //Work out which buckets the range's bounding square covers.
+        int firstRow = Math.max(0, xCoord - range) / kBucketSize;
+        int lastRow = Math.min(numRows - 1, xCoord + range) / kBucketSize;
+        int firstCol = Math.max(0, yCoord - range) / kBucketSize;
+        int lastCol = Math.min(numCols - 1, yCoord + range) / kBucketSize;
+
+        //FOR each Player that is not the owner
+        for (int player = 0; player < kPlayers.length; player++)
+        {
+            //IF the player is the owner, skip it
+            if (player == owner.ordinal())
+            {
+                continue;
+            }
+            //ENDIF
+
+            //FOR each bucket in the square
+            for (int row = firstRow; row <= lastRow; row++)
+            {
+                for (int col = firstCol; col <= lastCol; col++)
+                {
+                    //FOR each unit in the bucket
+                    for (int slot = heads[player][row * bucketCols + col];
+                        slot != kNone; slot = next[slot])
+                    {
+                        int cell = cells[slot];
+
+                        //IF the unit is in range, keep it
+                        if (Math.abs(cell / numCols - xCoord) +
+                            Math.abs(cell % numCols - yCoord) <= range)
+                        {
+                            addFound(cell);
+                        }
+                        //ENDIF
+                    }
+                    //ENDFOR
+                }
+            }
+            //ENDFOR
+        }
+        //ENDFOR
+
+        //Cells are numbered in row major order.
+        Arrays.sort(found, 0, numFound);
+        return numFound;
+    }
+
+    /**
+     * Gets one of the cells found by the last query.
+     *
+     * @param which the index of the result, less than what the query returned
+     * @return the cell
+     */
+    int getFound(int which)
+    {
+        return found[which];
+    }
+
+    /**
+     * Gets the bucket a cell is in.
+     *
+     * @param cell the cell
+     * @return the bucket's index
+     */
+    private int bucketOf(int cell)
+    {
+        return (cell / numCols / kBucketSize) * bucketCols +
+            (cell % numCols) / kBucketSize;
+    }
+
+    /**
+     * Puts a slot at the front of its bucket's list.
+     *
+     * @param slot the slot to link
+     */
+    private void link(int slot)
+    {
+        int[] playerHeads = heads[owners[slot]];
+        int bucket = bucketOf(cells[slot]);
+
+        prev[slot] = kNone;
+        next[slot] = playerHeads[bucket];
+        //IF the bucket already had units
+        if (next[slot] != kNone)
+        {
+            prev[next[slot]] = slot;
+        }
+        //ENDIF
+        playerHeads[bucket] = slot;
+    }
+
+    /**
+     * Takes a slot out of its bucket's list.
+     *
+     * @param slot the slot to unlink
+     */
+    private void unlink(int slot)
+    {
+        //IF the slot is first in its list
+        if (prev[slot] == kNone)
+        {
+            heads[owners[slot]][bucketOf(cells[slot])] = next[slot];
+        }
+        //ELSE
+        else
+        {
+            next[prev[slot]] = next[slot];
+        }
+        //ENDIF
+
+        //IF the slot is not last in its list
+        if (next[slot] != kNone)
+        {
+            prev[next[slot]] = prev[slot];
+        }
+        //ENDIF
+    }
+
+    /**
+     * Adds a cell to the results of the current query.
+     *
+     * @param cell the cell to add
+     */
+    private void addFound(int cell)
+    {
+        //IF the results are full, grow them
+        if (numFound == found.length)
+        {
+            int[] bigger = new int[found.length * 2];
+            System.arraycopy(found, 0, bigger, 0, numFound);
+            found = bigger;
+        }
+        //ENDIF
+
+        found[numFound++] = cell;
+    }
+
+    /**
+     * Grows the per slot arrays to the given capacity, keeping their contents.
+     *
+     * @param capacity the new number of slots
+     */
+    private void grow(int capacity)
+    {
+        int[] newNext = new int[capacity];
+        int[] newPrev = new int[capacity];
+        int[] newCells = new int[capacity];
+        byte[] newOwners = new byte[capacity];
+
+        System.arraycopy(next, 0, newNext, 0, next.length);
+        System.arraycopy(prev, 0, newPrev, 0, prev.length);
+        System.arraycopy(cells, 0, newCells, 0, cells.length);
+        System.arraycopy(owners, 0, newOwners, 0, owners.length);
+
+        next = newNext;
+        prev = newPrev;
+        cells = newCells;
+        owners = newOwners;
+    }
+}
@@ -0,0 +1,279 @@
+package toleco.sim;
+
+import toleco.controller.Player;
+import toleco.logic.GameBoard;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+* Plays whole games on a map between two policies, without a view or a
+* GameController, and reports who won. The map is loaded once through
+* GameBoard.loadMap(String) and every game is played on a copy of it, using
+* the same GameBoard methods as interactive play. Turns end the way
+* GameController ends them, and a game is over as soon as a player has no
+* Units left.
+* Games are spread across a pool of threads. Each game gets its own random
+* numbers, seeded from the run's seed and the game's number, so a run gives
+* the same results no matter how many threads play it.
+*
+* @author Eriq Augustine
+* @version 1.0
+*/
+public class BattleSimulator
+{
+    /**
+    * The number of turns after which a game is called a draw, if no one set
+    * a different limit.
+    */
+    public static final int kDefaultTurnLimit = 200;
+
+    /**
+    * The name of the map the games are played on.
+    */
+    private String mapName;
+
+    /**
+    * The map as loaded, which is copied for every game and never changed.
+    */
+    private GameBoard template;
+
+    /**
+    * The player who moves first on the map.
+    */
+    private Player firstPlayer;
+
+    /**
+    * The policy for each player, indexed by Player ordinal.
+    */
+    private I_Policy[] policies;
+
+    /**
+    * The number of turns after which a game is called a draw.
+    */
+    private int turnLimit;
+
+    /**
+    * Loads a map to play games on.
+    *
+    * @param mapName the name of the map file
+    * @param player1 the policy that plays kPlayer1
+    * @param player2 the policy that plays kPlayer2
+    *
+    * @throws java.io.FileNotFoundException if the map can not be loaded
+    */
+    public BattleSimulator(String mapName, I_Policy player1, I_Policy player2)
+        throws java.io.FileNotFoundException
+    {
+        this.mapName = mapName;
+        template = new GameBoard();
+        firstPlayer = template.loadMap(mapName);
+        policies = new I_Policy[] {player1, player2};
+        turnLimit = kDefaultTurnLimit;
+    }
+
+    /**
+    * Sets the number of turns after which a game is called a draw.
+    *
+    * @param turnLimit the number of turns, counting each player's turn
+    */
+    public void setTurnLimit(int turnLimit)
+    {
+        this.turnLimit = turnLimit;
+    }
+
+    /**
+    * Plays the given number of games across the given number of threads.
+    *
+    * @param games the number of games to play
+    * @param threads the number of threads to play them on
+    * @param seed the seed for the games' random numbers
+    * @return the results
+    *
+    * @throws InterruptedException if the thread is interrupted while waiting
+    * for the games to finish
+    */
+    public SimulationReport run(int games, int threads, long seed)
+        throws InterruptedException
+    {
+        int[] wins = new int[Player.values().length];
+        int draws = 0;
+        long turns = 0;
+
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+
+        try
+        {
+            ArrayList<Future<long[]>> results = new ArrayList<Future<long[]>>();
+
+            //FOR each thread, hand it every threads'th game.
+            for (int first = 0; first < threads; first++)
+            {
+                results.add(pool.submit(new Batch(first, threads, games, seed)));
+            }
+            //ENDFOR
+
+            //FOR each batch, add in its results.
+            for (Future<long[]> result : results)
+            {
+                long[] totals = result.get();
+                //FOR each player
+                for (int player = 0; player < wins.length; player++)
+                {
+                    wins[player] += (int)totals[player];
+                }
+                //ENDFOR
+                draws += (int)totals[wins.length];
+                turns += totals[wins.length + 1];
+            }
+            //ENDFOR
+        }
+        //CATCH a game that threw
+        catch (ExecutionException e)
+        {
+            throw new IllegalStateException("simulated game failed", e.getCause());
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+
+        return new SimulationReport(mapName, games, wins, draws, turns,
+            System.nanoTime() - start);
+    }
+
+    /**
+    * Plays one game on a copy of the map.
+    *
+    * @param seed the seed for the game's random numbers
+    * @param result filled in with the winner's Player ordinal, or -1 for a
+    * draw, and then the number of turns played
+    */
+    public void playGame(long seed, int[] result)
+    {
+        GameBoard board = template.copy();
+        Random rand = new Random(seed);
+        Player active = firstPlayer;
+
+        //FOR each turn until the limit
+        for (int turn = 1; turn <= turnLimit; turn++)
+        {
+            policies[active.ordinal()].playTurn(board, active, rand);
+
+            //FOR each player, IF they have no Units left the other one won.
+            for (Player player : Player.values())
+            {
+                if (board.getUnitCount(player) == 0)
+                {
+                    result[0] = Policies.opponent(player).ordinal();
+                    result[1] = turn;
+                    return;
+                }
+            }
+            //ENDFOR
+
+            //End the turn the way GameController.endTurn does.
+            board.selectTerrain(-1, -1);
+            active = Policies.opponent(active);
+            board.resetUnits(active);
+        }
+        //ENDFOR
+
+        result[0] = -1;
+        result[1] = turnLimit;
+    }
+
+    /**
+    * Gets the seed for one game of a run.
+    *
+    * @param seed the seed of the run
+    * @param game the number of the game in the run
+    * @return the game's seed
+    */
+    private static long gameSeed(long seed, int game)
+    {
+        return seed + game * 0x9E3779B97F4A7C15L;
+    }
+
+    /**
+    * Plays every threads'th game of a run and totals up the results.
+    */
+    private class Batch implements Callable<long[]>
+    {
+        /**
+        * The number of the first game to play.
+        */
+        private int first;
+
+        /**
+        * The number of games to skip between each game played.
+        */
+        private int step;
+
+        /**
+        * The number of games in the run.
+        */
+        private int games;
+
+        /**
+        * The seed of the run.
+        */
+        private long seed;
+
+        /**
+        * Makes a batch.
+        *
+        * @param first the number of the first game to play
+        * @param step the number of games to skip between each game played
+        * @param games the number of games in the run
+        * @param seed the seed of the run
+        */
+        Batch(int first, int step, int games, long seed)
+        {
+            this.first = first;
+            this.step = step;
+            this.games = games;
+            this.seed = seed;
+        }
+
+        /**
+        * Plays the batch.
+        *
+        * @return the wins of each player by Player ordinal, then the number
+        * of draws, then the number of turns played
+        */
+        public long[] call()
+        {
+            int numPlayers = Player.values().length;
+            long[] totals = new long[numPlayers + 2];
+            int[] result = new int[2];
+
+            //FOR each game in the batch
+            for (int game = first; game < games; game += step)
+            {
+                playGame(gameSeed(seed, game), result);
+
+                //IF the game was a draw
+                if (result[0] < 0)
+                {
+                    totals[numPlayers]++;
+                }
+                //ELSE
+                else
+                {
+                    totals[result[0]]++;
+                }
+                //ENDIF
+                totals[numPlayers + 1] += result[1];
+            }
+            //ENDFOR
+
+            return totals;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package toleco.sim;
+
+import toleco.controller.Player;
+import toleco.logic.CombatKernel;
+import toleco.logic.GameBoard;
+import toleco.unit.Unit;
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+* A scripted policy that plays every Unit greedily. Each Unit makes the attack
+* that trades best for it, then moves to the reachable location closest to
+* an enemy, then attacks from there if it has not already.
+*
+* @author Eriq Augustine
+* @version 1.0
+*/
+public class GreedyPolicy implements I_Policy
+{
+    /**
+    * {@inheritDoc}
+    */
+    public void playTurn(GameBoard board, Player player, Random rand)
+    {
+        Player enemy = Policies.opponent(player);
+
+        //FOR each of the player's Units, in the order they were found.
+        for (Point location : board.getUnitLocations(player))
+        {
+            //IF the Unit was killed earlier in the turn, skip it.
+            if (!Policies.isOwnUnit(board, location.x, location.y, player))
+            {
+                continue;
+            }
+            //ENDIF
+
+            board.selectTerrain(location.x, location.y);
+            attackBest(board);
+
+            //IF the Unit survived its attack
+            if (board.getSelection().getUnit() != null)
+            {
+                Point target = closestToEnemy(board, location,
+                    board.getUnitLocations(enemy));
+
+                //IF a better location was found, move there.
+                if (!target.equals(location))
+                {
+                    board.moveTo(target.x, target.y);
+                    board.selectTerrain(target.x, target.y);
+                }
+                //ENDIF
+
+                attackBest(board);
+            }
+            //ENDIF
+        }
+        //ENDFOR
+
+        board.selectTerrain(-1, -1);
+    }
+
+    /**
+    * Has the Unit on the selected Terrain make the attack that does the most
+    * damage for the least counter-attack, if it can attack.
+    *
+    * @param board the board to play on
+    */
+    private void attackBest(GameBoard board)
+    {
+        Unit unit = board.getSelection().getUnit();
+
+        //IF the Unit can not attack, there is nothing to do.
+        if (unit == null || !unit.canAttack())
+        {
+            return;
+        }
+        //ENDIF
+
+        Point best = null;
+        int bestScore = Integer.MIN_VALUE;
+
+        //FOR each enemy in range
+        for (Point enemy : board.getEnemiesInRange())
+        {
+            CombatKernel result = board.predictAttack(enemy.x, enemy.y);
+            int score = result.getDamage() - result.getCounterDamage();
+
+            //IF the attack would kill, it is worth more than any damage
+            if (result.getDefenderHealth() == 0)
+            {
+                score += unit.getMaxHealth();
+            }
+            //ENDIF
+
+            //IF this is the best attack so far, keep it
+            if (score > bestScore)
+            {
+                best = enemy;
+                bestScore = score;
+            }
+            //ENDIF
+        }
+        //ENDFOR
+
+        //IF there was an enemy in range, attack it
+        if (best != null)
+        {
+            board.attack(best.x, best.y);
+        }
+        //ENDIF
+    }
+
+    /**
+    * Finds the location, out of where the selected Unit is and everywhere it
+    * can reach, that is closest to an enemy.
+    *
+    * @param board the board to play on
+    * @param location where the selected Unit is
+    * @param enemies where the enemies are
+    * @return the closest location
+    */
+    private Point closestToEnemy(GameBoard board, Point location,
+        ArrayList<Point> enemies)
+    {
+        Point best = location;
+        int bestDistance = Policies.distanceTo(location, enemies);
+
+        //FOR each location the Unit can reach
+        for (Point cell : board.getReachableCells())
+        {
+            int distance = Policies.distanceTo(cell, enemies);
+
+            //IF it is closer, keep it
+            if (distance < bestDistance)
+            {
+                best = cell;
+                bestDistance = distance;
+            }
+            //ENDIF
+        }
+        //ENDFOR
+
+        return best;
+    }
+}
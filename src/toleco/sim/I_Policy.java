@@ -0,0 +1,29 @@
+package toleco.sim;
+
+import toleco.controller.Player;
+import toleco.logic.GameBoard;
+import java.util.Random;
+
+/**
+* The I_Policy interface models a player that the BattleSimulator can run
+* without a person or a view. A policy plays one whole turn at a time by
+* calling the same GameBoard methods that the GameController does, and must
+* follow the same rules: it only moves and attacks with its own Units, a Unit
+* only moves as far as its moves allow, and a Unit only attacks an enemy in
+* range once per turn.
+*
+* @author Eriq Augustine
+* @version 1.0
+*/
+public interface I_Policy
+{
+    /**
+    * Plays one turn for the given player. The BattleSimulator ends the turn
+    * afterwards, so the policy must not call GameBoard.resetUnits(Player).
+    *
+    * @param board the board to play on
+    * @param player the player whose turn it is
+    * @param rand the random numbers to use, so that games can be replayed
+    */
+    public void playTurn(GameBoard board, Player player, Random rand);
+}
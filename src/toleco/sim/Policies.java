@@ -0,0 +1,74 @@
+package toleco.sim;
+
+import toleco.controller.Player;
+import toleco.logic.GameBoard;
+import toleco.unit.Unit;
+import java.awt.Point;
+import java.util.ArrayList;
+
+/**
+* Helpers shared by the policies in this package.
+*
+* @author Eriq Augustine
+* @version 1.0
+*/
+final class Policies
+{
+    /**
+    * Not to be made.
+    */
+    private Policies()
+    {
+    }
+
+    /**
+    * Gets the player who is not the given player.
+    *
+    * @param player the player
+    * @return the other player
+    */
+    static Player opponent(Player player)
+    {
+        return Player.values()[(player.ordinal() + 1) % Player.values().length];
+    }
+
+    /**
+    * Gets whether the given location has a Unit that belongs to the given
+    * player.
+    *
+    * @param board the board to look at
+    * @param xCoord the X coordinate of the location
+    * @param yCoord the Y coordinate of the location
+    * @param player the player
+    * @return true if there is a Unit there and player owns it
+    */
+    static boolean isOwnUnit(GameBoard board, int xCoord, int yCoord,
+        Player player)
+    {
+        Unit unit = board.getTerrain(xCoord, yCoord).getUnit();
+        return unit != null && unit.getOwner() == player;
+    }
+
+    /**
+    * Gets the Manhattan distance from a location to the closest of the given
+    * locations.
+    *
+    * @param from the location to measure from
+    * @param others the locations to measure to
+    * @return the distance, or Integer.MAX_VALUE if there are no others
+    */
+    static int distanceTo(Point from, ArrayList<Point> others)
+    {
+        int closest = Integer.MAX_VALUE;
+
+        //FOR each other location
+        for (Point other : others)
+        {
+            closest = Math.min(closest,
+                Math.abs(other.x - from.x) + Math.abs(other.y - from.y));
+        }
+        //ENDFOR
+
+        return closest;
+    }
+}
@@ -0,0 +1,87 @@
+package toleco.sim;
+
+import toleco.controller.Player;
+import toleco.logic.GameBoard;
+import toleco.unit.Unit;
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+* A policy that plays every Unit at random. Each Unit attacks a random enemy
+* in range if it can, then moves to a random location it can reach, then
+* attacks again if it has not already.
+*
+* @author Eriq Augustine
+* @version 1.0
+*/
+public class RandomPolicy implements I_Policy
+{
+    /**
+    * {@inheritDoc}
+    */
+    public void playTurn(GameBoard board, Player player, Random rand)
+    {
+        //FOR each of the player's Units, in the order they were found.
+        for (Point location : board.getUnitLocations(player))
+        {
+            //IF the Unit was killed earlier in the turn, skip it.
+            if (!Policies.isOwnUnit(board, location.x, location.y, player))
+            {
+                continue;
+            }
+            //ENDIF
+
+            board.selectTerrain(location.x, location.y);
+            attackRandom(board, rand);
+
+            //IF the Unit survived its attack
+            if (board.getSelection().getUnit() != null)
+            {
+                //Move to a random reachable location.
+                ArrayList<Point> reachable = board.getReachableCells();
+                //IF there is anywhere to go
+                if (!reachable.isEmpty())
+                {
+                    Point target = reachable.get(rand.nextInt(reachable.size()));
+                    board.moveTo(target.x, target.y);
+                    board.selectTerrain(target.x, target.y);
+                }
+                //ENDIF
+
+                attackRandom(board, rand);
+            }
+            //ENDIF
+        }
+        //ENDFOR
+
+        board.selectTerrain(-1, -1);
+    }
+
+    /**
+    * Has the Unit on the selected Terrain attack a random enemy in range, if
+    * it can attack.
+    *
+    * @param board the board to play on
+    * @param rand the random numbers to use
+    */
+    private void attackRandom(GameBoard board, Random rand)
+    {
+        Unit unit = board.getSelection().getUnit();
+
+        //IF the Unit can attack
+        if (unit != null && unit.canAttack())
+        {
+            ArrayList<Point> enemies = board.getEnemiesInRange();
+
+            //IF there is an enemy in range, attack one
+            if (!enemies.isEmpty())
+            {
+                Point target = enemies.get(rand.nextInt(enemies.size()));
+                board.attack(target.x, target.y);
+            }
+            //ENDIF
+        }
+        //ENDIF
+    }
+}
@@ -0,0 +1,161 @@
+package toleco.sim;
+
+import toleco.controller.Player;
+
+/**
+* The results of a run of the BattleSimulator on one map: how many games each
+* player won, how long the games took, and how fast they were played.
+*
+* @author Eriq Augustine
+* @version 1.0
+*/
+public class SimulationReport
+{
+    /**
+    * The name of the map the games were played on.
+    */
+    private String mapName;
+
+    /**
+    * The number of games played.
+    */
+    private int games;
+
+    /**
+    * The number of games each player won, indexed by Player ordinal.
+    */
+    private int[] wins;
+
+    /**
+    * The number of games that hit the turn limit.
+    */
+    private int draws;
+
+    /**
+    * The number of turns played over all of the games.
+    */
+    private long turns;
+
+    /**
+    * How long the games took to play, in nanoseconds.
+    */
+    private long elapsedNanos;
+
+    /**
+    * Makes a report.
+    *
+    * @param mapName the name of the map the games were played on
+    * @param games the number of games played
+    * @param wins the number of games each player won, by Player ordinal
+    * @param draws the number of games that hit the turn limit
+    * @param turns the number of turns played over all of the games
+    * @param elapsedNanos how long the games took to play, in nanoseconds
+    */
+    public SimulationReport(String mapName, int games, int[] wins, int draws,
+        long turns, long elapsedNanos)
+    {
+        this.mapName = mapName;
+        this.games = games;
+        this.wins = wins.clone();
+        this.draws = draws;
+        this.turns = turns;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+    * Gets the name of the map the games were played on.
+    *
+    * @return the map's name
+    */
+    public String getMapName()
+    {
+        return mapName;
+    }
+
+    /**
+    * Gets the number of games played.
+    *
+    * @return the number of games
+    */
+    public int getGames()
+    {
+        return games;
+    }
+
+    /**
+    * Gets the number of games the given player won.
+    *
+    * @param player the player
+    * @return the number of games player won
+    */
+    public int getWins(Player player)
+    {
+        return wins[player.ordinal()];
+    }
+
+    /**
+    * Gets the fraction of the games the given player won.
+    *
+    * @param player the player
+    * @return the win rate, between 0 and 1
+    */
+    public double getWinRate(Player player)
+    {
+        return games == 0 ? 0.0 : (double)getWins(player) / games;
+    }
+
+    /**
+    * Gets the number of games that hit the turn limit without a winner.
+    *
+    * @return the number of draws
+    */
+    public int getDraws()
+    {
+        return draws;
+    }
+
+    /**
+    * Gets the average number of turns in a game. Each player's turn counts
+    * as one.
+    *
+    * @return the average number of turns
+    */
+    public double getAverageTurns()
+    {
+        return games == 0 ? 0.0 : (double)turns / games;
+    }
+
+    /**
+    * Gets the number of games played per second of wall clock time.
+    *
+    * @return the games per second
+    */
+    public double getGamesPerSecond()
+    {
+        return elapsedNanos == 0 ? 0.0 : games * 1e9 / elapsedNanos;
+    }
+
+    /**
+    * Gets a one line summary of the report.
+    *
+    * @return the summary
+    */
+    @Override
+    public String toString()
+    {
+        String rtn = mapName + ": " + games + " games, " +
+            String.format("%.1f", getGamesPerSecond()) + " games/sec, " +
+            String.format("%.1f", getAverageTurns()) + " turns/game";
+
+        //FOR each player, add their win rate.
+        for (Player player : Player.values())
+        {
+            rtn += ", " + player + " " +
+                String.format("%.1f", getWinRate(player) * 100) + "%";
+        }
+        //ENDFOR
+
+        return rtn + ", draws " +
+            String.format("%.1f", games == 0 ? 0.0 : draws * 100.0 / games) + "%";
+    }
+}
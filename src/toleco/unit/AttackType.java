@@ -1,6 +1,6 @@
 package toleco.unit;
 
-import java.util.HashMap;
+import java.util.Arrays;
 
 /**
 * Represents the various AttackTypes that a Unit has. All units have an AttackType,
@@ -46,12 +46,11 @@ public enum AttackType
     private static final double kStrong = 1.5;
     
     /**
-    * Internally stores the modifiers for AttackType vs ArmorType. This
-    * must be instantiated at program start by AttackType.init(). The
-    * String will be a composite of the 'This'.toString(), ':', and
-    * the given armorType.toString().
+    * Internally stores the modifiers for AttackType vs ArmorType, indexed by
+    * the AttackType's ordinal and then the ArmorType's ordinal. It is filled
+    * in once at class load by AttackType.init().
     */
-    private static HashMap<String, Double> modMap = init();
+    private static final double[][] kModTable = init();
     
     /**
      * Given an ArmorType to compare to, returns the modifier to the attackValue.
@@ -61,54 +60,40 @@ public enum AttackType
      */
     public double modAgainstType(ArmorType armorType)
     {
-        //Create a string with the current attack type and given armor type
-        //seperated by a ':'
-        String types = this + ":" + armorType;
-        //Create a double modifier
-        Double modifier;
-        //IF the string is in the HashMap
-        if(modMap.containsKey(types))
-        {
-            //Set modifier to the value the string maps to in modMap
-            modifier = modMap.get(types);
-        }
-        //ELSE
-        else
-        {
-            //Set modifier to 1.0
-            modifier = kNeutral;
-        }
-        //END IF
-        
-        //Return modifier
-        return modifier;
+        //Return the modifier for this attack type and the given armor type
+        return kModTable[ordinal()][armorType.ordinal()];
     }
     
     /**
-    * Must be called at program start to get the value of modMap. The HashMap
-    * key of String will be a composite of a particular AttackType.toString() +
-    * ':' + a particular ArmorType.toString().
-    * @return the statically created HashMap containing the mappings of
-    * AttackType,ArmorType to Double
+    * Called at class load to fill in kModTable. Any pairing that is not
+    * listed is neutral.
+    * @return the table of modifiers, indexed by AttackType ordinal and then
+    * ArmorType ordinal
     */
-    private static HashMap<String, Double> init()
+    private static double[][] init()
     {
-        //Create a new HashMap<String,Double> modifiers
-        HashMap<String, Double> modifiers = new HashMap<String, Double>();
+        //Create a new table with every pairing neutral
+        double[][] modifiers =
+            new double[values().length][ArmorType.values().length];
+        //FOR each AttackType
+        for (double[] row : modifiers)
+        {
+            Arrays.fill(row, kNeutral);
+        }
+        //ENDFOR
         
         //Set the values of modifiers (hardcoded to help with maintainability)
-        modifiers.put("kCrush:kPadded", kWeak);
-        modifiers.put("kCrush:kHide", kNeutral);
-        modifiers.put("kCrush:kBone", kStrong);
-        modifiers.put("kPierce:kHide", kWeak);
-        modifiers.put("kPierce:kBone", kNeutral);
-        modifiers.put("kPierce:kPadded", kStrong);
-        modifiers.put("kMaul:kBone", kWeak);
-        modifiers.put("kMaul:kPadded", kNeutral);
-        modifiers.put("kMaul:kHide", kStrong);
+        modifiers[kCrush.ordinal()][ArmorType.kPadded.ordinal()] = kWeak;
+        modifiers[kCrush.ordinal()][ArmorType.kHide.ordinal()] = kNeutral;
+        modifiers[kCrush.ordinal()][ArmorType.kBone.ordinal()] = kStrong;
+        modifiers[kPierce.ordinal()][ArmorType.kHide.ordinal()] = kWeak;
+        modifiers[kPierce.ordinal()][ArmorType.kBone.ordinal()] = kNeutral;
+        modifiers[kPierce.ordinal()][ArmorType.kPadded.ordinal()] = kStrong;
+        modifiers[kMaul.ordinal()][ArmorType.kBone.ordinal()] = kWeak;
+        modifiers[kMaul.ordinal()][ArmorType.kPadded.ordinal()] = kNeutral;
+        modifiers[kMaul.ordinal()][ArmorType.kHide.ordinal()] = kStrong;
         
         //Return modifiers
         return modifiers;
     }
 }
-
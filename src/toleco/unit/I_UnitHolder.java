@@ -0,0 +1,26 @@
+package toleco.unit;
+
+/**
+* The I_UnitHolder interface models whatever keeps a UnitStore and has to know
+* of every change to the Units in it, such as a GameBoard that keeps a hash,
+* a history and a list of changed cells for its Units. A change made through
+* a Unit bound to the store is handed to the store's holder to make, so that
+* the holder can keep its records of the Units up to date.
+*
+* @author Eriq Augustine
+* @version 1.0
+*/
+public interface I_UnitHolder
+{
+    /**
+    * Sets the state of the Unit in the given slot of the holder's store, for
+    * a Unit bound to the slot that has been changed. The holder makes the
+    * change with the store's setters.
+    *
+    * @param slot the slot of the Unit
+    * @param health the Unit's new current health
+    * @param moves the Unit's new current moves
+    * @param attack whether the Unit can now attack
+    */
+    public void setUnitState(int slot, int health, int moves, boolean attack);
+}
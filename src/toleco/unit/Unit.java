@@ -82,6 +82,17 @@ public class Unit
     */
     private boolean canAttack;
 
+    /**
+    * The store that holds this unit's mutable state while the unit is on a
+    * GameBoard, or null while the unit holds its own state.
+    */
+    private UnitStore store;
+
+    /**
+    * The slot in store that holds this unit's mutable state.
+    */
+    private int slot;
+
     //CHECKSTYLE:OFF - Ignore the large number of params for the Unit constructor.
     // Ignore authorized by Dr. Dalbey
 
@@ -148,6 +159,12 @@ public class Unit
     */
     public Player getOwner()
     {
+        //IF the unit is on a board
+        if (store != null)
+        {
+            return store.getOwner(slot);
+        }
+        //ENDIF
         return owner;
     }
     
@@ -166,6 +183,12 @@ public class Unit
     */
     public int getCurrentHealth()
     {
+        //IF the unit is on a board
+        if (store != null)
+        {
+            return store.getCurrentHealth(slot);
+        }
+        //ENDIF
         return currentHealth;
     }
     
@@ -184,6 +207,12 @@ public class Unit
     */
     public int getCurrentMoves()
     {
+        //IF the unit is on a board
+        if (store != null)
+        {
+            return store.getCurrentMoves(slot);
+        }
+        //ENDIF
         return currentMoves;
     }
     /**
@@ -237,6 +266,12 @@ public class Unit
     */
     public boolean canAttack()
     {
+        //IF the unit is on a board
+        if (store != null)
+        {
+            return store.canAttack(slot);
+        }
+        //ENDIF
         return canAttack;
     }
     
@@ -247,19 +282,22 @@ public class Unit
     */
     public void takeDamage(int dmg)
     {
+        //GET the current health
+        int health = getCurrentHealth();
         //IF dmg is greater than or equal to 0
-        if(dmg >= currentHealth)
+        if(dmg >= health)
         {
             //SET currentHealth to 0
-            currentHealth = 0;
+            health = 0;
         }
         //ELSE
         else
         {
             //Subtract dmg from currentHealth
-            currentHealth -= dmg;
+            health -= dmg;
         }
         //END IF
+        setCurrentHealth(health);
     }
     
     /**
@@ -268,7 +306,7 @@ public class Unit
     public void useAttack()
     {
         //Set the unit's ability to attack to false
-        canAttack = false;
+        setCanAttack(false);
     }
     
     /**
@@ -279,7 +317,7 @@ public class Unit
     public void decrementMove(int moveCost)
     {
         //Decrement current moves by moveCost
-        currentMoves -= moveCost;
+        setCurrentMoves(getCurrentMoves() - moveCost);
     }
     
     /**
@@ -289,9 +327,115 @@ public class Unit
     public void reset()
     {
         //Set the unit's current moves to the unit's max moves
-        currentMoves = maxMoves;
+        setCurrentMoves(maxMoves);
         //Set the unit's ability to attack to true
-        canAttack = true;
+        setCanAttack(true);
+    }
+
+    /**
+    * Sets the current health of the unit, wherever it is stored.
+    * @param health the new current health
+    */
+    private void setCurrentHealth(int health)
+    {
+        //IF the unit is on a board
+        if (store != null)
+        {
+            store.update(slot, health, store.getCurrentMoves(slot),
+                store.canAttack(slot));
+        }
+        //ELSE
+        else
+        {
+            currentHealth = health;
+        }
+        //ENDIF
+    }
+
+    /**
+    * Sets the current moves of the unit, wherever they are stored.
+    * @param moves the new current moves
+    */
+    private void setCurrentMoves(int moves)
+    {
+        //IF the unit is on a board
+        if (store != null)
+        {
+            store.update(slot, store.getCurrentHealth(slot), moves,
+                store.canAttack(slot));
+        }
+        //ELSE
+        else
+        {
+            currentMoves = moves;
+        }
+        //ENDIF
+    }
+
+    /**
+    * Sets whether the unit can attack, wherever that is stored.
+    * @param attack whether the unit can attack
+    */
+    private void setCanAttack(boolean attack)
+    {
+        //IF the unit is on a board
+        if (store != null)
+        {
+            store.update(slot, store.getCurrentHealth(slot),
+                store.getCurrentMoves(slot), attack);
+        }
+        //ELSE
+        else
+        {
+            canAttack = attack;
+        }
+        //ENDIF
+    }
+
+    /**
+    * Hands this unit's mutable state over to a UnitStore. From now on the
+    * unit reads its state from the store, and its changes are made by the
+    * store's I_UnitHolder, such as the GameBoard the unit is on.
+    * @param newStore the store that now holds the unit's state
+    * @param newSlot the slot in newStore holding the unit's state
+    */
+    void bind(UnitStore newStore, int newSlot)
+    {
+        store = newStore;
+        slot = newSlot;
+    }
+
+    /**
+    * Takes this unit's mutable state back from its UnitStore, so the unit
+    * keeps its last state after it leaves the board.
+    */
+    void unbind()
+    {
+        //Copy the state out of the store
+        owner = store.getOwner(slot);
+        currentHealth = store.getCurrentHealth(slot);
+        currentMoves = store.getCurrentMoves(slot);
+        canAttack = store.canAttack(slot);
+        //Forget the store
+        store = null;
+    }
+
+    /**
+    * Gets the store currently holding this unit's mutable state.
+    * @return the store, or null if the unit holds its own state
+    */
+    UnitStore getStore()
+    {
+        return store;
+    }
+
+    /**
+    * Gets the slot in the store holding this unit's mutable state.
+    * @return the slot, only meaningful while getStore() is not null
+    */
+    int getSlot()
+    {
+        return slot;
     }
     
     /**
@@ -302,8 +446,8 @@ public class Unit
     public String toString()
     {
         //Return a string with all unit status information
-        return type+"\nHealth: "+currentHealth+"/"+maxHealth+"\nMoves: "+
-            currentMoves+"/"+maxMoves+"\nAttack Value: "+attackValue+
+        return type+"\nHealth: "+getCurrentHealth()+"/"+maxHealth+"\nMoves: "+
+            getCurrentMoves()+"/"+maxMoves+"\nAttack Value: "+attackValue+
             "\nAttack Range: "+attackRange+"\nArmor Value: "+armorValue;
     }
     
@@ -315,7 +459,7 @@ public class Unit
     public String toStringForFile()
     {
         //Return a string representing the unit in a file
-        return type+","+owner.toString()+","+currentHealth+","+currentMoves+","
-            +canAttack;
+        return type+","+getOwner().toString()+","+getCurrentHealth()+","
+            +getCurrentMoves()+","+canAttack();
     }
 }
@@ -0,0 +1,935 @@
+package toleco.unit;
+
+import toleco.controller.Player;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+* A UnitStore keeps the mutable state of many Units in parallel primitive
+* arrays, one slot per Unit, so that a large board does not need an object for
+* every Unit on it. The immutable properties of a Unit are kept once per unit
+* type in a table of archetypes.
+* Unit objects are only made for a slot when someone asks for one. Such a Unit
+* reads its state from the store, hands changes to it to the store's
+* I_UnitHolder if it has one, and gets its state back when its slot is
+* removed, so references held to it stay valid.
+* A copy of a store shares its arrays with the store it was copied from, and
+* whichever of the two is changed first copies them then, so copying a store
+* to keep or search from costs nothing until one of them changes.
+*
+* @author Eriq Augustine
+* @version 1.0
+*/
+public class UnitStore
+{
+    /**
+    * The number of slots a new store has room for.
+    */
+    private static final int kInitialCapacity = 16;
+
+    /**
+    * The end of an owner's list of slots.
+    */
+    public static final int kNoSlot = -1;
+
+    /**
+    * Every Player, indexed by the number stored for an owner.
+    */
+    private static final Player[] kPlayers = Player.values();
+
+    /**
+    * The unit type of each slot, an index into types.
+    */
+    private short[] typeIds;
+
+    /**
+    * The owner of each slot, the ordinal of the owning Player.
+    */
+    private byte[] owners;
+
+    /**
+    * The current health of each slot.
+    */
+    private int[] health;
+
+    /**
+    * The current moves of each slot.
+    */
+    private int[] moves;
+
+    /**
+    * Whether each slot can still attack.
+    */
+    private boolean[] canAttack;
+
+    /**
+    * The board cell each slot occupies, as given by whoever added it.
+    */
+    private int[] cells;
+
+    /**
+    * Whether each slot is in use.
+    */
+    private boolean[] live;
+
+    /**
+    * The Unit object bound to each slot, null until one is asked for. The
+    * array itself is null until the first Unit is bound, and is never shared.
+    */
+    private Unit[] handles;
+
+    /**
+    * The slots below this one have been used at some point.
+    */
+    private int highWater;
+
+    /**
+    * Slots that have been removed and can be reused.
+    */
+    private int[] freeSlots;
+
+    /**
+    * The number of entries in freeSlots.
+    */
+    private int numFree;
+
+    /**
+    * The number of slots in use.
+    */
+    private int size;
+
+    /**
+    * The first slot in each Player's list of units, indexed by ordinal.
+    */
+    private int[] ownerHeads;
+
+    /**
+    * The next slot with the same owner.
+    */
+    private int[] ownerNext;
+
+    /**
+    * The previous slot with the same owner.
+    */
+    private int[] ownerPrev;
+
+    /**
+    * The number of units each Player owns, indexed by ordinal.
+    */
+    private int[] ownerCounts;
+
+    /**
+    * The sum of the current health of the units each Player owns, indexed by
+    * ordinal.
+    */
+    private long[] ownerHealth;
+
+    /**
+    * The archetype of each unit type, holding its immutable properties.
+    */
+    private ArrayList<Unit> types;
+
+    /**
+    * A lookup table mapping the immutable properties of a unit type to its
+    * index in types.
+    */
+    private HashMap<String, Integer> typeIndex;
+
+    /**
+    * The Zobrist value of each unit type, indexed the same as types.
+    */
+    private long[] typeKeys;
+
+    /**
+    * The Zobrist hash of every unit in the store, in the cell it occupies.
+    */
+    private long hash;
+
+    /**
+    * Whether the slot arrays may be shared with another store. They are
+    * copied before the next change to a slot.
+    */
+    private boolean shared;
+
+    /**
+    * Whether types, typeIndex and typeKeys may be shared with another store.
+    * They are copied before the next new unit type is added.
+    */
+    private boolean typesShared;
+
+    /**
+    * Makes the changes asked for through bound Units, or null if the store
+    * makes them itself. It is never shared.
+    */
+    private I_UnitHolder holder;
+
+    /**
+    * Makes an empty store.
+    */
+    public UnitStore()
+    {
+        types = new ArrayList<Unit>();
+        typeIndex = new HashMap<String, Integer>();
+        typeKeys = new long[kInitialCapacity];
+        allocate(kInitialCapacity);
+    }
+
+    /**
+    * Makes a store holding a copy of every slot in the given store. No Unit is
+    * bound to the copy, so changes to one store do not show in the other.
+    * The two share their arrays until either is changed.
+    * @param other the store to copy
+    */
+    public UnitStore(UnitStore other)
+    {
+        shareFrom(other);
+    }
+
+    /**
+    * Sets who makes the changes asked for through Units bound to the store.
+    * @param newHolder the holder, or null for the store to make them itself
+    */
+    public void setHolder(I_UnitHolder newHolder)
+    {
+        holder = newHolder;
+    }
+
+    /**
+    * Removes every Unit from the store. Units that were bound to a slot get
+    * their state back.
+    */
+    public void clear()
+    {
+        //FOR every slot that has been used, IF any Unit is bound
+        for (int slot = 0; handles != null && slot < highWater; slot++)
+        {
+            //IF a Unit is bound to the slot, give it its state back
+            if (handles[slot] != null)
+            {
+                handles[slot].unbind();
+            }
+            //ENDIF
+        }
+        //ENDFOR
+
+        allocate(kInitialCapacity);
+    }
+
+    /**
+    * Replaces every slot with a copy of the slots in the given store. Units
+    * that were bound to a slot get their state back, the same as for
+    * clear(), and no Unit is bound to the copied slots. The two stores share
+    * their arrays until either is changed.
+    * @param other the store to copy
+    */
+    public void restore(UnitStore other)
+    {
+        //FOR every slot that has been used, IF any Unit is bound
+        for (int slot = 0; handles != null && slot < highWater; slot++)
+        {
+            //IF a Unit is bound to the slot, give it its state back
+            if (handles[slot] != null)
+            {
+                handles[slot].unbind();
+            }
+            //ENDIF
+        }
+        //ENDFOR
+
+        shareFrom(other);
+    }
+
+    /**
+    * Copies the state of the given Unit into a new slot. The Unit itself is
+    * not bound to the slot and can be thrown away.
+    * @param unit the Unit to copy
+    * @param cell the board cell the Unit occupies
+    * @return the new slot
+    */
+    public int add(Unit unit, int cell)
+    {
+        own();
+        //Find a slot
+        int slot = newSlot();
+        //Copy the unit into it
+        typeIds[slot] = typeOf(unit);
+        owners[slot] = (byte)unit.getOwner().ordinal();
+        health[slot] = unit.getCurrentHealth();
+        moves[slot] = unit.getCurrentMoves();
+        canAttack[slot] = unit.canAttack();
+        cells[slot] = cell;
+        //Hash the unit in
+        hash ^= slotKey(slot);
+        //Count the unit for its owner
+        ownerCounts[owners[slot]]++;
+        ownerHealth[owners[slot]] += health[slot];
+        //Put the slot at the front of its owner's list
+        ownerPrev[slot] = kNoSlot;
+        ownerNext[slot] = ownerHeads[owners[slot]];
+        //IF the owner already had units
+        if (ownerNext[slot] != kNoSlot)
+        {
+            ownerPrev[ownerNext[slot]] = slot;
+        }
+        //ENDIF
+        ownerHeads[owners[slot]] = slot;
+        return slot;
+    }
+
+    /**
+    * Copies the state of the given Unit into a new slot and binds the Unit to
+    * it, so that changes made through the Unit show up in the store and the
+    * other way around. A Unit already bound to another store is copied
+    * instead.
+    * @pre unit is not already bound to this store
+    * @param unit the Unit to attach
+    * @param cell the board cell the Unit occupies
+    * @return the new slot
+    */
+    public int attach(Unit unit, int cell)
+    {
+        //Copy the unit into a new slot
+        int slot = add(unit, cell);
+        //IF the unit holds its own state
+        if (unit.getStore() == null)
+        {
+            //Bind the unit to the slot
+            unit.bind(this, slot);
+            getHandles()[slot] = unit;
+        }
+        //ENDIF
+        return slot;
+    }
+
+    /**
+    * Gets the slot of the given Unit if it is bound to this store.
+    * @param unit the Unit to look for
+    * @return the Unit's slot, or -1 if it is not bound to this store
+    */
+    public int slotOf(Unit unit)
+    {
+        //IF the unit is bound here
+        if (unit.getStore() == this)
+        {
+            return unit.getSlot();
+        }
+        //ENDIF
+        return -1;
+    }
+
+    /**
+    * Removes the Unit in the given slot from the store. The slot may be
+    * reused by a later add.
+    * @param slot the slot to remove
+    * @return the removed Unit, which now holds its own state
+    */
+    public Unit remove(int slot)
+    {
+        own();
+        //Make sure there is a Unit to hand back
+        Unit unit = getUnit(slot);
+        //Give the unit its state back
+        unit.unbind();
+        handles[slot] = null;
+        live[slot] = false;
+        //Hash the unit out
+        hash ^= slotKey(slot);
+        size--;
+        //Stop counting the unit for its owner
+        ownerCounts[owners[slot]]--;
+        ownerHealth[owners[slot]] -= health[slot];
+        //Take the slot out of its owner's list
+        //IF the slot is first in the list
+        if (ownerPrev[slot] == kNoSlot)
+        {
+            ownerHeads[owners[slot]] = ownerNext[slot];
+        }
+        //ELSE
+        else
+        {
+            ownerNext[ownerPrev[slot]] = ownerNext[slot];
+        }
+        //ENDIF
+        //IF the slot is not last in the list
+        if (ownerNext[slot] != kNoSlot)
+        {
+            ownerPrev[ownerNext[slot]] = ownerPrev[slot];
+        }
+        //ENDIF
+        //Remember the slot for later
+        freeSlots[numFree++] = slot;
+        return unit;
+    }
+
+    /**
+    * Gets the Unit for the given slot, making one if there is none yet.
+    * @param slot a slot in use
+    * @return the Unit bound to the slot
+    */
+    public Unit getUnit(int slot)
+    {
+        //IF no unit has been made for this slot
+        if (getHandles()[slot] == null)
+        {
+            //Make a unit from the slot's archetype and bind it
+            Unit type = types.get(typeIds[slot]);
+            Unit unit = new Unit(type.getType(), getOwner(slot),
+                type.getMaxHealth(), health[slot], type.getMaxMoves(),
+                moves[slot], type.getAttackType(), type.getAttackValue(),
+                type.getAttackRange(), type.getArmorType(),
+                type.getArmorValue(), canAttack[slot]);
+            unit.bind(this, slot);
+            handles[slot] = unit;
+        }
+        //ENDIF
+        return handles[slot];
+    }
+
+    /**
+    * Gets the archetype holding the immutable properties of the given slot's
+    * unit type. Its mutable state means nothing.
+    * @param slot a slot in use
+    * @return the archetype of the slot's unit type
+    */
+    public Unit getType(int slot)
+    {
+        return types.get(typeIds[slot]);
+    }
+
+    /**
+    * Gets the owner of the given slot.
+    * @param slot a slot in use
+    * @return the owning Player
+    */
+    public Player getOwner(int slot)
+    {
+        return kPlayers[owners[slot]];
+    }
+
+    /**
+    * Gets the current health of the given slot.
+    * @param slot a slot in use
+    * @return the current health
+    */
+    public int getCurrentHealth(int slot)
+    {
+        return health[slot];
+    }
+
+    /**
+    * Sets the current health of the given slot.
+    * @param slot a slot in use
+    * @param newHealth the new current health
+    */
+    public void setCurrentHealth(int slot, int newHealth)
+    {
+        own();
+        ownerHealth[owners[slot]] += newHealth - health[slot];
+        hash ^= Zobrist.key(Zobrist.kHealth, cells[slot], health[slot]) ^
+            Zobrist.key(Zobrist.kHealth, cells[slot], newHealth);
+        health[slot] = newHealth;
+    }
+
+    /**
+    * Gets the current moves of the given slot.
+    * @param slot a slot in use
+    * @return the current moves
+    */
+    public int getCurrentMoves(int slot)
+    {
+        return moves[slot];
+    }
+
+    /**
+    * Sets the current moves of the given slot.
+    * @param slot a slot in use
+    * @param newMoves the new current moves
+    */
+    public void setCurrentMoves(int slot, int newMoves)
+    {
+        own();
+        hash ^= Zobrist.key(Zobrist.kMoves, cells[slot], moves[slot]) ^
+            Zobrist.key(Zobrist.kMoves, cells[slot], newMoves);
+        moves[slot] = newMoves;
+    }
+
+    /**
+    * Gets whether the given slot can still attack.
+    * @param slot a slot in use
+    * @return true if the slot can attack, otherwise false
+    */
+    public boolean canAttack(int slot)
+    {
+        return canAttack[slot];
+    }
+
+    /**
+    * Sets whether the given slot can still attack.
+    * @param slot a slot in use
+    * @param attack whether the slot can attack
+    */
+    public void setCanAttack(int slot, boolean attack)
+    {
+        own();
+        //IF the value is changing, swap its key
+        if (canAttack[slot] != attack)
+        {
+            hash ^= Zobrist.key(Zobrist.kCanAttack, cells[slot], 0) ^
+                Zobrist.key(Zobrist.kCanAttack, cells[slot], 1);
+        }
+        //ENDIF
+        canAttack[slot] = attack;
+    }
+
+    /**
+    * Sets the state of the given slot for the Unit bound to it, through the
+    * holder if there is one.
+    * @param slot a slot in use
+    * @param newHealth the new current health
+    * @param newMoves the new current moves
+    * @param attack whether the slot can attack
+    */
+    void update(int slot, int newHealth, int newMoves, boolean attack)
+    {
+        //IF there is a holder, it makes the change
+        if (holder != null)
+        {
+            holder.setUnitState(slot, newHealth, newMoves, attack);
+        }
+        //ELSE make it here
+        else
+        {
+            setCurrentHealth(slot, newHealth);
+            setCurrentMoves(slot, newMoves);
+            setCanAttack(slot, attack);
+        }
+        //ENDIF
+    }
+
+    /**
+    * Gets the board cell of the given slot.
+    * @param slot a slot in use
+    * @return the cell given when the slot was added or last moved
+    */
+    public int getCell(int slot)
+    {
+        return cells[slot];
+    }
+
+    /**
+    * Sets the board cell of the given slot.
+    * @param slot a slot in use
+    * @param cell the cell the slot now occupies
+    */
+    public void setCell(int slot, int cell)
+    {
+        own();
+        //Hash the unit out of its old cell and into the new one
+        hash ^= slotKey(slot);
+        cells[slot] = cell;
+        hash ^= slotKey(slot);
+    }
+
+    /**
+    * Gets whether the given slot is in use.
+    * @param slot any slot below getHighWater()
+    * @return true if the slot holds a unit, otherwise false
+    */
+    public boolean isLive(int slot)
+    {
+        return live[slot];
+    }
+
+    /**
+    * Gets the number of slots that have ever been used. Every slot in use is
+    * below this number.
+    * @return the number of slots that have been used
+    */
+    public int getHighWater()
+    {
+        return highWater;
+    }
+
+    /**
+    * Gets the number of units in the store.
+    * @return the number of slots in use
+    */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+    * Gets the number of units the given Player owns.
+    * @param owner the Player to count for
+    * @return the number of units owned by owner
+    */
+    public int getUnitCount(Player owner)
+    {
+        return ownerCounts[owner.ordinal()];
+    }
+
+    /**
+    * Gets the sum of the current health of the units the given Player owns.
+    * @param owner the Player to count for
+    * @return the total health of the units owned by owner
+    */
+    public long getTotalHealth(Player owner)
+    {
+        return ownerHealth[owner.ordinal()];
+    }
+
+    /**
+    * Gets the Zobrist hash of every unit in the store. Each unit's type,
+    * owner, health, moves and whether it can attack are hashed along with the
+    * cell it occupies. The hash is kept up to date as the store changes.
+    * @return the hash, 0 if the store is empty
+    */
+    public long getHash()
+    {
+        return hash;
+    }
+
+    /**
+    * Works out the Zobrist hash of every unit in the store from scratch. It
+    * always equals getHash(), and is here to check that it does.
+    * @return the hash, 0 if the store is empty
+    */
+    public long computeHash()
+    {
+        long rtn = 0;
+        //FOR every slot in use
+        for (int slot = 0; slot < highWater; slot++)
+        {
+            //IF the slot holds a unit, hash it in
+            if (live[slot])
+            {
+                rtn ^= slotKey(slot);
+            }
+            //ENDIF
+        }
+        //ENDFOR
+        return rtn;
+    }
+
+    /**
+    * Gets the first slot in the given Player's list of units. The rest of
+    * the list can be walked with getNextSlot(int).
+    * @param owner the Player whose units to list
+    * @return the first slot, or kNoSlot if owner has no units
+    */
+    public int getFirstSlot(Player owner)
+    {
+        return ownerHeads[owner.ordinal()];
+    }
+
+    /**
+    * Gets the slot after the given one in its owner's list of units.
+    * @param slot a slot in use
+    * @return the next slot, or kNoSlot at the end of the list
+    */
+    public int getNextSlot(int slot)
+    {
+        return ownerNext[slot];
+    }
+
+    /**
+    * Resets the moves and attack of every unit in the store, as Unit.reset()
+    * does for one unit.
+    */
+    public void resetAll()
+    {
+        //FOR each Player
+        for (Player owner : kPlayers)
+        {
+            resetOwner(owner);
+        }
+        //ENDFOR
+    }
+
+    /**
+    * Resets the moves and attack of every unit the given Player owns. Only
+    * that Player's units are looked at.
+    * @param owner the Player whose units to reset
+    */
+    public void resetOwner(Player owner)
+    {
+        //FOR each unit in the owner's list
+        for (int slot = ownerHeads[owner.ordinal()]; slot != kNoSlot;
+            slot = ownerNext[slot])
+        {
+            setCurrentMoves(slot, types.get(typeIds[slot]).getMaxMoves());
+            setCanAttack(slot, true);
+        }
+        //ENDFOR
+    }
+
+    /**
+    * Creates a String representation of the given slot's unit in the same
+    * form as Unit.toStringForFile().
+    * @param slot a slot in use
+    * @return the String representing the unit
+    */
+    public String toStringForFile(int slot)
+    {
+        return types.get(typeIds[slot]).getType() + "," + getOwner(slot) + ","
+            + health[slot] + "," + moves[slot] + "," + canAttack[slot];
+    }
+
+    /**
+    * Makes every array the given store's, with no Unit bound to any slot.
+    * Both stores copy the arrays before they next change them.
+    * @param other the store to share with
+    */
+    private void shareFrom(UnitStore other)
+    {
+        types = other.types;
+        typeIndex = other.typeIndex;
+        typeKeys = other.typeKeys;
+        hash = other.hash;
+        typeIds = other.typeIds;
+        owners = other.owners;
+        health = other.health;
+        moves = other.moves;
+        canAttack = other.canAttack;
+        cells = other.cells;
+        live = other.live;
+        handles = null;
+        freeSlots = other.freeSlots;
+        highWater = other.highWater;
+        numFree = other.numFree;
+        size = other.size;
+        ownerNext = other.ownerNext;
+        ownerPrev = other.ownerPrev;
+        ownerHeads = other.ownerHeads;
+        ownerCounts = other.ownerCounts;
+        ownerHealth = other.ownerHealth;
+        shared = true;
+        typesShared = true;
+        other.shared = true;
+        other.typesShared = true;
+    }
+
+    /**
+    * Makes the slot arrays this store's own, copying them if they may be
+    * shared with another store. Called before any slot is changed.
+    */
+    private void own()
+    {
+        //IF the arrays may be shared, copy them
+        if (shared)
+        {
+            typeIds = typeIds.clone();
+            owners = owners.clone();
+            health = health.clone();
+            moves = moves.clone();
+            canAttack = canAttack.clone();
+            cells = cells.clone();
+            live = live.clone();
+            freeSlots = freeSlots.clone();
+            ownerNext = ownerNext.clone();
+            ownerPrev = ownerPrev.clone();
+            ownerHeads = ownerHeads.clone();
+            ownerCounts = ownerCounts.clone();
+            ownerHealth = ownerHealth.clone();
+            shared = false;
+        }
+        //ENDIF
+    }
+
+    /**
+    * Gets the Unit bound to each slot, making the array if no Unit has been
+    * bound yet.
+    * @return the array of bound Units
+    */
+    private Unit[] getHandles()
+    {
+        //IF no Unit has been bound yet
+        if (handles == null)
+        {
+            handles = new Unit[live.length];
+        }
+        //ENDIF
+        return handles;
+    }
+
+    /**
+    * Finds the unit type of the given Unit, adding it to the type table if it
+    * is new.
+    * @param unit the Unit whose type to find
+    * @return the index of the Unit's type in types
+    */
+    private short typeOf(Unit unit)
+    {
+        //Build a key out of every immutable property
+        String key = unit.getType() + "," + unit.getMaxHealth() + ","
+            + unit.getMaxMoves() + "," + unit.getAttackType() + ","
+            + unit.getAttackValue() + "," + unit.getAttackRange() + ","
+            + unit.getArmorType() + "," + unit.getArmorValue();
+        Integer index = typeIndex.get(key);
+
+        //IF the type has not been seen before
+        if (index == null)
+        {
+            //IF the type table may be shared, copy it first
+            if (typesShared)
+            {
+                types = new ArrayList<Unit>(types);
+                typeIndex = new HashMap<String, Integer>(typeIndex);
+                typeKeys = typeKeys.clone();
+                typesShared = false;
+            }
+            //ENDIF
+
+            //IF there is no room for another type
+            if (types.size() > Short.MAX_VALUE)
+            {
+                throw new IllegalStateException("too many unit types");
+            }
+            //ENDIF
+
+            //Add an archetype for the type
+            index = types.size();
+            types.add(new Unit(unit.getType(), Player.kPlayer1,
+                unit.getMaxHealth(), unit.getMaxHealth(), unit.getMaxMoves(),
+                unit.getMaxMoves(), unit.getAttackType(), unit.getAttackValue(),
+                unit.getAttackRange(), unit.getArmorType(),
+                unit.getArmorValue(), true));
+            typeIndex.put(key, index);
+            //IF there is no room for the type's Zobrist value, grow the keys
+            if (index == typeKeys.length)
+            {
+                long[] newTypeKeys = new long[typeKeys.length * 2];
+                System.arraycopy(typeKeys, 0, newTypeKeys, 0, index);
+                typeKeys = newTypeKeys;
+            }
+            //ENDIF
+            typeKeys[index] = Zobrist.valueOf(key);
+        }
+        //ENDIF
+
+        return index.shortValue();
+    }
+
+    /**
+    * Gets the Zobrist key of everything about the unit in the given slot.
+    * @param slot a slot in use
+    * @return the exclusive or of the keys of the slot's properties
+    */
+    private long slotKey(int slot)
+    {
+        int cell = cells[slot];
+        return Zobrist.key(Zobrist.kUnitType, cell, typeKeys[typeIds[slot]]) ^
+            Zobrist.key(Zobrist.kOwner, cell, owners[slot]) ^
+            Zobrist.key(Zobrist.kHealth, cell, health[slot]) ^
+            Zobrist.key(Zobrist.kMoves, cell, moves[slot]) ^
+            Zobrist.key(Zobrist.kCanAttack, cell, canAttack[slot] ? 1 : 0);
+    }
+
+    /**
+    * Finds a slot for a new unit, reusing a removed slot if there is one.
+    * @return the slot, marked as in use
+    */
+    private int newSlot()
+    {
+        int slot;
+        //IF a removed slot can be reused
+        if (numFree > 0)
+        {
+            slot = freeSlots[--numFree];
+        }
+        //ELSE
+        else
+        {
+            //IF the arrays are full, grow them
+            if (highWater == live.length)
+            {
+                grow(live.length * 2);
+            }
+            //ENDIF
+            slot = highWater++;
+        }
+        //ENDIF
+
+        live[slot] = true;
+        size++;
+        return slot;
+    }
+
+    /**
+    * Replaces every array with an empty one of the given capacity.
+    * @param capacity the number of slots to make room for
+    */
+    private void allocate(int capacity)
+    {
+        typeIds = new short[capacity];
+        owners = new byte[capacity];
+        health = new int[capacity];
+        moves = new int[capacity];
+        canAttack = new boolean[capacity];
+        cells = new int[capacity];
+        live = new boolean[capacity];
+        handles = null;
+        freeSlots = new int[capacity];
+        highWater = 0;
+        numFree = 0;
+        size = 0;
+        ownerNext = new int[capacity];
+        ownerPrev = new int[capacity];
+        ownerHeads = new int[kPlayers.length];
+        Arrays.fill(ownerHeads, kNoSlot);
+        ownerCounts = new int[kPlayers.length];
+        ownerHealth = new long[kPlayers.length];
+        hash = 0;
+        shared = false;
+    }
+
+    /**
+    * Grows every array to the given capacity, keeping their contents.
+    * @param capacity the new number of slots
+    */
+    private void grow(int capacity)
+    {
+        short[] newTypeIds = new short[capacity];
+        byte[] newOwners = new byte[capacity];
+        int[] newHealth = new int[capacity];
+        int[] newMoves = new int[capacity];
+        boolean[] newCanAttack = new boolean[capacity];
+        int[] newCells = new int[capacity];
+        boolean[] newLive = new boolean[capacity];
+        int[] newFreeSlots = new int[capacity];
+        int[] newOwnerNext = new int[capacity];
+        int[] newOwnerPrev = new int[capacity];
+
+        System.arraycopy(typeIds, 0, newTypeIds, 0, highWater);
+        System.arraycopy(owners, 0, newOwners, 0, highWater);
+        System.arraycopy(health, 0, newHealth, 0, highWater);
+        System.arraycopy(moves, 0, newMoves, 0, highWater);
+        System.arraycopy(canAttack, 0, newCanAttack, 0, highWater);
+        System.arraycopy(cells, 0, newCells, 0, highWater);
+        System.arraycopy(live, 0, newLive, 0, highWater);
+        System.arraycopy(freeSlots, 0, newFreeSlots, 0, numFree);
+        System.arraycopy(ownerNext, 0, newOwnerNext, 0, highWater);
+        System.arraycopy(ownerPrev, 0, newOwnerPrev, 0, highWater);
+
+        typeIds = newTypeIds;
+        owners = newOwners;
+        health = newHealth;
+        moves = newMoves;
+        canAttack = newCanAttack;
+        cells = newCells;
+        live = newLive;
+        //IF any Unit is bound, grow the bound Units too
+        if (handles != null)
+        {
+            Unit[] newHandles = new Unit[capacity];
+            System.arraycopy(handles, 0, newHandles, 0, highWater);
+            handles = newHandles;
+        }
+        //ENDIF
+        freeSlots = newFreeSlots;
+        ownerNext = newOwnerNext;
+        ownerPrev = newOwnerPrev;
+    }
+}
@@ -0,0 +1,107 @@
+package toleco.unit;
+
+/**
+* Makes the 64-bit keys used to Zobrist hash a board position. A position's
+* hash is the exclusive or of one key for every fact about it: the kind of
+* Terrain in a cell, each property of the Unit in a cell, and whose turn it
+* is. Changing one fact only takes two exclusive ors, one to take out the old
+* key and one to put in the new one.
+* Keys are worked out from what they describe by a mixing function rather
+* than drawn from a table, so every board, and every run of the program, gives
+* the same position the same hash.
+*
+* @author Eriq Augustine
+* @version 1.0
+*/
+public final class Zobrist
+{
+    /**
+    * The part of a key for the kind of Terrain in a cell.
+    */
+    public static final int kTerrain = 1;
+
+    /**
+    * The part of a key for the type of the Unit in a cell.
+    */
+    public static final int kUnitType = 2;
+
+    /**
+    * The part of a key for the owner of the Unit in a cell.
+    */
+    public static final int kOwner = 3;
+
+    /**
+    * The part of a key for the current health of the Unit in a cell.
+    */
+    public static final int kHealth = 4;
+
+    /**
+    * The part of a key for the current moves of the Unit in a cell.
+    */
+    public static final int kMoves = 5;
+
+    /**
+    * The part of a key for whether the Unit in a cell can attack.
+    */
+    public static final int kCanAttack = 6;
+
+    /**
+    * The part of a key for whose turn it is.
+    */
+    public static final int kActivePlayer = 7;
+
+    /**
+    * Not to be made.
+    */
+    private Zobrist()
+    {
+    }
+
+    /**
+    * Gets the key for one fact about a position.
+    *
+    * @param part what the fact is about, one of the constants of this class
+    * @param cell the cell the fact is about, or 0 if it is not about a cell
+    * @param value the value of the fact
+    * @return the key
+    */
+    public static long key(int part, int cell, long value)
+    {
+        return mix(mix(mix(part) ^ cell) ^ value);
+    }
+
+    /**
+    * Gets a value for the given String to pass to key(int, int, long). The
+    * value depends only on the characters in the String.
+    *
+    * @param name the String
+    * @return the value
+    */
+    public static long valueOf(String name)
+    {
+        //FNV-1a over the characters.
+        long value = 0xcbf29ce484222325L;
+        //FOR each character
+        for (int i = 0; i < name.length(); i++)
+        {
+            value = (value ^ name.charAt(i)) * 0x100000001b3L;
+        }
+        //ENDFOR
+
+        return mix(value);
+    }
+
+    /**
+    * Scrambles the bits of a number, the finalizer of SplitMix64.
+    *
+    * @param value the number to scramble
+    * @return the scrambled number
+    */
+    private static long mix(long value)
+    {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -1,7 +1,9 @@
 package toleco.view;
 
+import toleco.controller.Command;
 import toleco.controller.I_Controller;
 import toleco.controller.PlayerAction;
+import toleco.logic.BoardChange;
 import toleco.logic.GameBoard;
 import toleco.terrain.Terrain;
 import toleco.unit.Unit;
@@ -9,19 +11,40 @@ import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.Observable;
 import java.util.Scanner;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
 import javax.swing.JPanel;
 import toleco.controller.Player;
 
 /**
 * A ConsoleGameView controls all of the user interaction when the game is
-* being run in console mode.
+* being run in console mode. Lines typed at the console are read on a thread
+* of their own and carried out, one at a time, on the thread that called
+* start(), along with any other task handed to the view through execute(), so
+* the controller is only ever driven from that one thread.
 *
 * @author Evan Ralston - Javadocs
 * @author Matt Tognetti - implementation
 * @version 1.0
 */
-public class ConsoleGameView extends Observable implements I_GameView
+public class ConsoleGameView extends Observable implements I_GameView,
+    Executor
 {
+    /**
+     * Handed to the tasks once the console has no more input.
+     */
+    private static final Runnable kEndOfInput = new Runnable()
+    {
+        public void run()
+        {
+        }
+    };
+
+    /**
+     * The tasks to carry out on the thread that called start, in order.
+     */
+    private LinkedBlockingQueue<Runnable> tasks;
+
     /**
     * Board holds the the game logic.
     */
@@ -47,11 +70,6 @@ public class ConsoleGameView extends Observable implements I_GameView
      */
     private Boolean isSelect;
 
-    /**
-     * if the latest command entered was a move command
-     */
-    private Boolean isDoubleUpdateCommand;
-
 
     /**
      * Constructor, initializes private variables.
@@ -62,21 +80,15 @@ public class ConsoleGameView extends Observable implements I_GameView
         redraw = false;
         //SET isSelect to false
         isSelect = false;
-        //SET isMove to false
-        isDoubleUpdateCommand = false;
+        tasks = new LinkedBlockingQueue<Runnable>();
     }
 
-    //CHECKSTYLE:OFF - Ignore Cyclomatic Complexity
-    // Ignore Authorized by Dr. Dalbey
-
     /**
      * Waits for and handles user input for console mode.
      * @pre the controller has already been set using setController
      */
     public void start()
     {
-        //CHECKSTYLE:ON
-
         //PRINT out a help message
         System.out.println("Type 'H' to see a list of available" +
                 " commands and how to use them.");
@@ -84,70 +96,140 @@ public class ConsoleGameView extends Observable implements I_GameView
         drawMap();
         //PRINT command prompt
         System.out.print("\nCommand: ");
-        //INIT a Scanner to stdin
-        Scanner in = new Scanner(System.in);
-        //WHILE true
-        while(in.hasNextLine())
+
+        //START a thread that hands each line typed to this one
+        Thread reader = new Thread(new Runnable()
         {
-            //Store the line
-            String line = in.nextLine();
-            //IF line length is greater than 0 (check for EOF)
-            if (line == null || line.length() == 0)
+            public void run()
             {
-                doQuit();
+                //INIT a Scanner to stdin
+                Scanner in = new Scanner(System.in);
+                //WHILE there is a line, hand it over
+                while(in.hasNextLine())
+                {
+                    final String line = in.nextLine();
+                    execute(new Runnable()
+                    {
+                        public void run()
+                        {
+                            doCommand(line);
+                        }
+                    });
+                }
+                //END WHILE
+                execute(kEndOfInput);
             }
-            System.out.println("-------------------------------------");
-            //Pull out the command
-            char command = line.charAt(0);
+        }, "ConsoleGameView input");
+        reader.setDaemon(true);
+        reader.start();
 
-            //SWITCH based on the command
-            switch(command)
+        //TRY
+        try
+        {
+            //WHILE there is input, carry out the next task
+            for (Runnable task = tasks.take(); task != kEndOfInput;
+                task = tasks.take())
             {
-                //CASE select command
-                case 'S':
-                    //CALL doSelect
-                    doSelect(line);
-                    break;
-                //CASE attack command
-                case 'A':
-                    //CALL doAttack
-                    doAttack(line);
-                    break;
-                //CASE move command
-                case 'M':
-                    //CALL doMove
-                    doMove(line);
-                    break;
-                //CASE end turn command
-                case 'E':
-                    //CALL doEndTurn
-                    doEndTurn();
-                    break;
-                //CASE help command
-                case 'H':
-                    //CALL doHelp
-                    doHelp();
-                    break;
-                //CASE about command
-                case 'O':
-                    //CALL doAbout
-                    doAbout();
-                    break;
-                //CASE quit command
-                case 'Q':
-                    //CALL doQuit
-                    doQuit();
-                    break;
-                //Default
-                default:
-                    //PRINT help message
-                    System.out.println("Type H for a list of available commands");
-                    break;
+                task.run();
             }
-            //END CASE
-            //PRINT command prompt
-            System.out.print("\nCommand: ");
+            //END WHILE
+        }
+        //CATCH an interruption, stop
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
         }
+        //END
+    }
+
+    /**
+     * Carries out a task on the thread that called start, after the tasks
+     * and lines already waiting.
+     *
+     * @param task the task
+     */
+    public void execute(Runnable task)
+    {
+        tasks.add(task);
+    }
+
+    //CHECKSTYLE:OFF - Ignore Cyclomatic Complexity
+    // Ignore Authorized by Dr. Dalbey
+
+    /**
+     * Handles a line typed at the console.
+     * @param line the line
+     */
+    private void doCommand(String line)
+    {
+        //CHECKSTYLE:ON
+
+        //IF line length is greater than 0 (check for EOF)
+        if (line == null || line.length() == 0)
+        {
+            doQuit();
+        }
+        System.out.println("-------------------------------------");
+        //Pull out the command
+        char command = line.charAt(0);
+
+        //SWITCH based on the command
+        switch(command)
+        {
+            //CASE select command
+            case 'S':
+                //CALL doSelect
+                doSelect(line);
+                break;
+            //CASE attack command
+            case 'A':
+                //CALL doAttack
+                doAttack(line);
+                break;
+            //CASE move command
+            case 'M':
+                //CALL doMove
+                doMove(line);
+                break;
+            //CASE end turn command
+            case 'E':
+                //CALL doEndTurn
+                doEndTurn();
+                break;
+            //CASE undo command
+            case 'U':
+                //CALL doUndo
+                doUndo(PlayerAction.kUndo);
+                break;
+            //CASE redo command
+            case 'R':
+                //CALL doUndo
+                doUndo(PlayerAction.kRedo);
+                break;
+            //CASE help command
+            case 'H':
+                //CALL doHelp
+                doHelp();
+                break;
+            //CASE about command
+            case 'O':
+                //CALL doAbout
+                doAbout();
+                break;
+            //CASE quit command
+            case 'Q':
+                //CALL doQuit
+                doQuit();
+                break;
+            //Default
+            default:
+                //PRINT help message
+                System.out.println("Type H for a list of available commands");
+                break;
+        }
+        //END CASE
+        //PRINT command prompt
+        System.out.print("\nCommand: ");
     }
 
     /*
@@ -206,7 +288,7 @@ public class ConsoleGameView extends Observable implements I_GameView
                     line.length()).trim());
 
             //SET redraw to true
-            isDoubleUpdateCommand = true;
+            redraw = true;
 
             //CALL setChanged and notifyObservers with the attack string and
             //x,y coordinates
@@ -275,8 +357,8 @@ public class ConsoleGameView extends Observable implements I_GameView
         }
         //END IF
 
-        //SET is double update command to true
-        isDoubleUpdateCommand = true;
+        //SET redraw to true
+        redraw = true;
 
         //CALL setChanged and notifyObservers with the action String
         setChanged();
@@ -290,14 +372,28 @@ public class ConsoleGameView extends Observable implements I_GameView
     private void doEndTurn()
     {
         System.out.println("End turn");
-        //SET isDoubleUpdateCommand to true
-        isDoubleUpdateCommand = true;
+        //SET redraw to true
+        redraw = true;
 
         //CALL setChanged and notifyObservers with the endTurn String
         setChanged();
         notifyObservers(PlayerAction.kEndTurn.toString());
     }
 
+    /***
+     * Undoes or redoes the last move, attack or end of turn.
+     * @param action kUndo or kRedo
+     */
+    private void doUndo(PlayerAction action)
+    {
+        //SET redraw to true
+        redraw = true;
+
+        //CALL setChanged and notifyObservers with the action String
+        setChanged();
+        notifyObservers(action.toString());
+    }
+
     /*
      * Displays a list of available commands for console mode and instructions
      * and restrictions on using them.
@@ -322,6 +418,10 @@ public class ConsoleGameView extends Observable implements I_GameView
                 " under your control must have aready been selected.");
         //PRINT end turn format: "E"
         System.out.println("End Turn: 'E' - ends the current player's turn");
+        //PRINT undo and redo format: "U" and "R"
+        System.out.println("Undo: 'U' - undoes the last move, attack or end" +
+                " of turn");
+        System.out.println("Redo: 'R' - redoes the last undone action");
         //PRINT quit format: "Q"
         System.out.println("Quit: 'Q' - exits the Toleco App");
         //PRINT help format: "H"
@@ -379,9 +479,17 @@ public class ConsoleGameView extends Observable implements I_GameView
         Terrain terrain;
         //Get the current map from the game board
         Terrain[][] map = board.getMap();
-        //PRINT the column numbers
-        System.out.format("    0    1    2    3    4    5    6 " +
-                "   7    8    9\n");
+        //Build the column numbers, each one over the middle of its cell
+        StringBuilder header = new StringBuilder("  ");
+        //FOR each column in the map
+        for (int column = 0; column < board.getNumCols(); column++)
+        {
+            //ADD the column number padded to the width of a cell
+            header.append(String.format("  %-3d", column));
+        }
+        //END FOR
+        //PRINT the column numbers without trailing spaces
+        System.out.print(header.toString().replaceAll("\\s+$", "") + "\n");
         //FOR each row in the map
         for (int row = 0; row < map.length; row++)
         {
@@ -489,6 +597,23 @@ public class ConsoleGameView extends Observable implements I_GameView
             //SET board to the observable
             board = (GameBoard)obs;
         }
+        //IF obj is a BoardChange
+        if (obj instanceof BoardChange)
+        {
+            BoardChange change = (BoardChange)obj;
+
+            //IF only the enemies in range were found, there is nothing to
+            // draw until the attack.
+            if (change.getEnemies() != null && change.getCellCount() == 0 &&
+                !change.isSelectionChanged() && change.getPlayer() == null)
+            {
+                return;
+            }
+            //ENDIF
+
+            //Take the new player, if the turn changed.
+            obj = change.getPlayer();
+        }
         //IF obj is a Player enum
         if (obj != null && obj.getClass() == Player.class)
         {
@@ -512,14 +637,6 @@ public class ConsoleGameView extends Observable implements I_GameView
             //print status
             printStatus();
         }
-        //IF last command was a move
-        if (isDoubleUpdateCommand)
-        {
-            //SET isMove to false
-            isDoubleUpdateCommand = false;
-            //SET redraw to true
-            redraw = true;
-        }
     }
     
     /**
@@ -598,7 +715,23 @@ public class ConsoleGameView extends Observable implements I_GameView
      */
     public void acceptAction(String action)
     {
-        //Not implemented
+        //Call setChanged();
+        setChanged();
+
+        //Call notifyObservers with the passed in String.
+        notifyObservers(action);
+    }
+
+    /**
+    * {@inheritDoc}
+    */
+    public void acceptCommand(Command<?> command)
+    {
+        //Call setChanged();
+        setChanged();
+
+        //Call notifyObservers with the passed in Command.
+        notifyObservers(command);
     }
 
     /**
@@ -5,6 +5,7 @@ import java.awt.image.BufferedImage;
 import java.util.Observable;
 import java.util.Observer;
 import javax.swing.JPanel;
+import toleco.controller.Command;
 import toleco.controller.Player;
 
 /**
@@ -72,6 +73,14 @@ public interface I_GameView extends Observer
      */
     public void acceptAction(String action);
 
+    /**
+     * Accept a Command that will be used in an update. The Command is handled
+     * before this returns, so the caller may fill it in again afterwards.
+     *
+     * @param command the Command to pass in the update
+     */
+    public void acceptCommand(Command<?> command);
+
     /**
      * Reutrns the JPanel that represents the SwingGameView.
      *
@@ -0,0 +1,522 @@
+package toleco.view.gui;
+
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import javax.imageio.ImageIO;
+import toleco.terrain.TerrainFactory;
+import toleco.unit.ArmorType;
+import toleco.unit.AttackType;
+import toleco.unit.UnitFactory;
+
+/**
+* Loads every image the GUI shows, once for the whole program, and hands the
+* same images to every view. The images are kept in one HashMap by name: each
+* unit and terrain by its type, each unit's greyed image by its type and
+* MapView.kGreyedSuffix, each attack and armor type by its enum name, and
+* "Select", "Highlight", "OverlayPlayer1" and "OverlayPlayer2". Getting a
+* name that was not loaded gives the default image.
+* If the images have been packed into an ImageAtlas, they are all read from
+* it, except any whose file has changed since. Otherwise they are decoded in
+* parallel, a file to a thread. Loading begins as soon as start() is called,
+* which the program does as it starts so that the images are ready by the
+* time a game or the editor is opened. Each image is turned into one the
+* screen can draw without converting it, and keeps the same pixels.
+* getImages() waits for loading to finish, starting it if it has not been.
+*
+* @author Eriq Augustine
+* @version 1.0
+*/
+public final class AssetManager
+{
+    /**
+    * The folder that all images are held in.
+    */
+    private static final String kImagePath = "images/";
+
+    /**
+    * The folder that all unit images are held in.
+    */
+    private static final String kUnitImagePath = "images/units/";
+
+    /**
+    * The folder that all terrain images are held in.
+    */
+    private static final String kTerrainImagePath = "images/terrain/";
+
+    /**
+    * The extension for all images.
+    */
+    private static final String kImageExtension = ".gif";
+
+    /**
+    * The name of the default image, shown for any name that was not loaded.
+    */
+    private static final String kDefaultImage = "Default";
+
+    /**
+    * The names of the images in kImagePath that are named after their file.
+    */
+    private static final String[] kOtherImages = {"Select", "Highlight",
+        "OverlayPlayer1", "OverlayPlayer2"};
+
+    /**
+    * The asset manager for the whole program.
+    */
+    private static AssetManager shared = new AssetManager();
+
+    /**
+    * The images by name, filled in once loading is done.
+    */
+    private ImageMap images;
+
+    /**
+    * The loading of the images, or null if it has not been started.
+    */
+    private Future<ImageMap> loading;
+
+    /**
+    * Makes an asset manager that has not started loading.
+    */
+    private AssetManager()
+    {
+    }
+
+    /**
+    * Gets the asset manager for the whole program.
+    *
+    * @return the shared asset manager
+    */
+    public static AssetManager getShared()
+    {
+        return shared;
+    }
+
+    /**
+    * Starts loading the images in the background, if they are not already
+    * loading or loaded.
+    */
+    public synchronized void start()
+    {
+        //IF loading has not been started
+        if (loading == null)
+        {
+            final ExecutorService pool = Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors(),
+                new ThreadFactory()
+                {
+                    public Thread newThread(Runnable task)
+                    {
+                        Thread thread = new Thread(task, "AssetManager");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+
+            //Load on one thread, which hands each file to the pool.
+            ExecutorService loader = Executors.newSingleThreadExecutor(
+                new ThreadFactory()
+                {
+                    public Thread newThread(Runnable task)
+                    {
+                        Thread thread = new Thread(task, "AssetManager");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+            loading = loader.submit(new Callable<ImageMap>()
+            {
+                public ImageMap call() throws InterruptedException
+                {
+                    try
+                    {
+                        return load(pool);
+                    }
+                    finally
+                    {
+                        pool.shutdown();
+                    }
+                }
+            });
+            loader.shutdown();
+        }
+        //ENDIF
+    }
+
+    /**
+    * Gets the images by name, waiting for them to load.
+    *
+    * @return the images, which every view shares and must not change except
+    * to add images
+    */
+    public synchronized HashMap<String, BufferedImage> getImages()
+    {
+        //IF the images have not been loaded yet
+        if (images == null)
+        {
+            start();
+            boolean interrupted = false;
+
+            //WHILE the images are loading, wait for them.
+            while (images == null)
+            {
+                try
+                {
+                    images = loading.get();
+                }
+                //CATCH being interrupted, wait on and interrupt afterwards.
+                catch (InterruptedException e)
+                {
+                    interrupted = true;
+                }
+                //CATCH loading failing
+                catch (ExecutionException e)
+                {
+                    throw new IllegalStateException("Unable to load images.",
+                        e.getCause());
+                }
+            }
+            //ENDWHILE
+
+            //IF waiting was interrupted, pass it on.
+            if (interrupted)
+            {
+                Thread.currentThread().interrupt();
+            }
+            //ENDIF
+        }
+        //ENDIF
+
+        return images;
+    }
+
+    /**
+    * Gets the file of every image loaded, by the name it is loaded as. Unit
+    * images are listed before the rest, and the default image is named
+    * "Default".
+    *
+    * @return the path of each image by name
+    */
+    static LinkedHashMap<String, String> getImageFiles()
+    {
+        LinkedHashMap<String, String> files =
+            new LinkedHashMap<String, String>();
+
+        //FOR each unit type, list its image.
+        for (String unit : new UnitFactory().getUnitNames())
+        {
+            files.put(unit, kUnitImagePath + unit + kImageExtension);
+        }
+        //ENDFOR
+
+        //FOR each terrain type, list its image.
+        for (String terrain : new TerrainFactory().getTerrainNames())
+        {
+            files.put(terrain, kTerrainImagePath + terrain + kImageExtension);
+        }
+        //ENDFOR
+
+        //FOR each attack type, list its image, named without the k.
+        for (AttackType type : AttackType.values())
+        {
+            files.put(type.toString(), kImagePath +
+                type.toString().substring(1) + kImageExtension);
+        }
+        //ENDFOR
+
+        //FOR each armor type, list its image, named without the k.
+        for (ArmorType type : ArmorType.values())
+        {
+            files.put(type.toString(), kImagePath +
+                type.toString().substring(1) + kImageExtension);
+        }
+        //ENDFOR
+
+        //FOR each other image, list it.
+        for (String other : kOtherImages)
+        {
+            files.put(other, kImagePath + other + kImageExtension);
+        }
+        //ENDFOR
+
+        files.put(kDefaultImage, kImagePath + kDefaultImage + kImageExtension);
+        return files;
+    }
+
+    /**
+    * Loads every image, from the atlas if it has it, and otherwise a file to
+    * a task on the pool.
+    *
+    * @param pool the threads to load on
+    * @return the images by name
+    * @throws InterruptedException if interrupted while waiting for a file
+    */
+    private ImageMap load(ExecutorService pool) throws InterruptedException
+    {
+        LinkedHashMap<String, String> files = getImageFiles();
+        HashMap<String, BufferedImage> packed = readAtlas(files);
+        ImageMap loaded = new ImageMap();
+        ArrayList<String> names = new ArrayList<String>();
+        ArrayList<Future<BufferedImage>> decoded =
+            new ArrayList<Future<BufferedImage>>();
+
+        //FOR each image, take it from the atlas or decode its file.
+        for (Map.Entry<String, String> file : files.entrySet())
+        {
+            //IF the atlas has it, keep it, ELSE decode it.
+            if (packed.containsKey(file.getKey()))
+            {
+                loaded.put(file.getKey(), packed.get(file.getKey()));
+            }
+            else
+            {
+                names.add(file.getKey());
+                decoded.add(pool.submit(new Decode(file.getValue())));
+            }
+            //ENDIF
+        }
+        //ENDFOR
+
+        //FOR each image decoded, wait for it and keep it.
+        for (int index = 0; index < names.size(); index++)
+        {
+            BufferedImage image = waitFor(decoded.get(index));
+
+            //IF it loaded, keep it, ELSE say so.
+            if (image != null)
+            {
+                loaded.put(names.get(index), image);
+            }
+            else
+            {
+                System.err.println("Unable to locate image file for '" +
+                    names.get(index) + "'.");
+            }
+            //ENDIF
+        }
+        //ENDFOR
+
+        names.clear();
+        decoded.clear();
+
+        //FOR each unit type that loaded, grey its image.
+        for (String unit : new UnitFactory().getUnitNames())
+        {
+            //IF its image loaded
+            if (loaded.containsKey(unit))
+            {
+                names.add(unit + MapView.kGreyedSuffix);
+                decoded.add(pool.submit(new Grey(loaded.get(unit))));
+            }
+            //ENDIF
+        }
+        //ENDFOR
+
+        //FOR each greyed image, wait for it and keep it.
+        for (int index = 0; index < names.size(); index++)
+        {
+            loaded.put(names.get(index), waitFor(decoded.get(index)));
+        }
+        //ENDFOR
+
+        loaded.setDefaultImage(loaded.get(kDefaultImage));
+        return loaded;
+    }
+
+    /**
+    * Reads the images out of the atlas, if it has been packed. An image whose
+    * file has changed since is left out, so that it is loaded from its file.
+    *
+    * @param files the file of each image by name
+    * @return the images in the atlas by name, which is empty if there is no
+    * atlas or it could not be read
+    */
+    private static HashMap<String, BufferedImage> readAtlas(
+        HashMap<String, String> files)
+    {
+        File atlasFile = new File(ImageAtlas.kAtlasImage);
+        File indexFile = new File(ImageAtlas.kAtlasIndex);
+        HashMap<String, BufferedImage> packed =
+            new HashMap<String, BufferedImage>();
+
+        //IF there is an atlas, read it
+        if (atlasFile.isFile() && indexFile.isFile())
+        {
+            //TRY to read the atlas
+            try
+            {
+                packed = ImageAtlas.read(atlasFile, indexFile);
+            }
+            //CATCH an atlas that can not be read, and use the files instead
+            catch (IOException e)
+            {
+                System.err.println("Unable to read " + atlasFile +
+                    ", loading images from their files.");
+            }
+            //END
+
+            //FOR each image packed, leave it out if its file is newer
+            for (Map.Entry<String, String> file : files.entrySet())
+            {
+                //IF the file changed after the atlas was packed
+                if (new File(file.getValue()).lastModified() >
+                    indexFile.lastModified())
+                {
+                    packed.remove(file.getKey());
+                }
+                //ENDIF
+            }
+            //ENDFOR
+        }
+        //ENDIF
+
+        return packed;
+    }
+
+    /**
+    * Waits for an image to be decoded.
+    *
+    * @param image the image being decoded
+    * @return the image, or null if it could not be
+    * @throws InterruptedException if interrupted while waiting
+    */
+    private static BufferedImage waitFor(Future<BufferedImage> image)
+        throws InterruptedException
+    {
+        try
+        {
+            return image.get();
+        }
+        //CATCH an error decoding it
+        catch (ExecutionException e)
+        {
+            return null;
+        }
+    }
+
+    /**
+    * Turns an image into one the screen can draw without converting it, with
+    * the same pixels. Images are opaque, since white is their transparent
+    * color, so they become RGB images.
+    *
+    * @param image the image
+    * @return an image the screen can draw
+    */
+    static BufferedImage toCompatible(BufferedImage image)
+    {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        BufferedImage compatible = null;
+
+        //IF there is a screen, ask it for an image it draws quickly
+        if (!GraphicsEnvironment.isHeadless())
+        {
+            GraphicsConfiguration config = GraphicsEnvironment
+                .getLocalGraphicsEnvironment().getDefaultScreenDevice()
+                .getDefaultConfiguration();
+            compatible = config.createCompatibleImage(width, height,
+                Transparency.OPAQUE);
+        }
+        //ENDIF
+
+        //IF the screen's image would not keep every pixel as it is, use RGB
+        if (compatible == null ||
+            compatible.getType() != BufferedImage.TYPE_INT_RGB)
+        {
+            compatible = new BufferedImage(width, height,
+                BufferedImage.TYPE_INT_RGB);
+        }
+        //ENDIF
+
+        int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+        compatible.setRGB(0, 0, width, height, pixels, 0, width);
+        return compatible;
+    }
+
+    /**
+    * Decodes one image file.
+    */
+    private static class Decode implements Callable<BufferedImage>
+    {
+        private String path;
+
+        public Decode(String path)
+        {
+            this.path = path;
+        }
+
+        public BufferedImage call() throws Exception
+        {
+            BufferedImage image = ImageIO.read(new File(path));
+
+            //IF the file is not an image
+            if (image == null)
+            {
+                return null;
+            }
+            //ENDIF
+
+            return toCompatible(image);
+        }
+    }
+
+    /**
+    * Greys one loaded image.
+    */
+    private static class Grey implements Callable<BufferedImage>
+    {
+        private BufferedImage image;
+
+        public Grey(BufferedImage image)
+        {
+            this.image = image;
+        }
+
+        public BufferedImage call()
+        {
+            return toCompatible(MapView.greyImage(image));
+        }
+    }
+
+    /**
+    * A HashMap of images that gives a default image for a name it does not
+    * have.
+    */
+    private static class ImageMap extends HashMap<String, BufferedImage>
+    {
+        private BufferedImage defaultImage;
+
+        public void setDefaultImage(BufferedImage image)
+        {
+            defaultImage = image;
+        }
+
+        @Override
+        public BufferedImage get(Object key)
+        {
+            BufferedImage rtn = super.get(key);
+
+            //IF there is no image by that name, give the default.
+            if (rtn == null)
+            {
+                rtn = defaultImage;
+            }
+            //ENDIF
+
+            return rtn;
+        }
+    }
+}
@@ -0,0 +1,551 @@
+package toleco.view.gui;
+
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.GraphicsConfiguration;
+import java.awt.Image;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.VolatileImage;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+/**
+* A CanvasMapView shows the map by painting each cell's image straight onto
+* a back buffer, instead of through a JTable and a renderer for each cell.
+* The back buffer is a VolatileImage, kept in video memory where it can be,
+* and is only the size of the part of the map that can be seen, so in a
+* JScrollPane a map of any size costs the same to show, and cells out of
+* view are never drawn or composed. Only the cells that changed are drawn
+* into it before it is copied to the screen, and when the map scrolls what
+* it holds is moved over and only what came into view is drawn. If its
+* contents are lost what can be seen is drawn again. Where there is no screen
+* to make a VolatileImage for, the buffer is a BufferedImage.
+* Cells are laid out as the JTable lays them out, getCellSize() pixels
+* apart, but a click is only on a cell if it is on the cell's image, not in
+* the gap between cells or past the edge of the map.
+* It is made by MapView.create(HashMap) when the toleco.mapView system
+* property is "canvas", and is otherwise used as a MapView.
+*
+* @author Jon Moorman
+* @version 1.0
+*/
+public class CanvasMapView extends MapView
+{
+    /**
+     * The distance from the start of one cell to the start of the next, at
+     * the default zoom level.
+     */
+    public static final int kCellSize = kImageSize + 1;
+
+    /**
+     * The back buffer the cells that can be seen are drawn into, a
+     * VolatileImage if there is a screen to make one for.
+     */
+    private Image buffer;
+
+    /**
+     * The part of the map the buffer holds, or null if it holds nothing.
+     */
+    private Rectangle bufferArea;
+
+    /**
+     * The cells, numbered row by row, that the buffer holds and that need to
+     * be drawn into it again.
+     */
+    private BitSet dirty;
+
+    /**
+     * Whether every cell needs to be drawn into the buffer.
+     */
+    private boolean allDirty;
+
+    /**
+    * Create a CanvasMapView with a reference to the images it will need to
+    * display.
+    *
+    * @param images a HashMap used to look up images the map will
+    * display
+    */
+    public CanvasMapView(HashMap<String, BufferedImage> images)
+    {
+        this(images, TileCache.getShared());
+    }
+
+    /**
+    * Create a CanvasMapView with a reference to the images it will need to
+    * display and the cache to keep its composed cells in.
+    *
+    * @param images a HashMap used to look up images the map will
+    * display
+    * @param tiles the cache of composed cells
+    */
+    public CanvasMapView(HashMap<String, BufferedImage> images,
+        TileCache tiles)
+    {
+        super(images, tiles, false);
+    }
+
+    /**
+    * {@inheritDoc}
+    */
+    @Override
+    protected void boardResized()
+    {
+        allDirty = true;
+
+        //IF there are dirty cells, they were numbered for the old board
+        if (dirty != null)
+        {
+            dirty.clear();
+        }
+        //ENDIF
+
+        //The size has changed, so everything is laid out and painted again
+        revalidate();
+        repaint();
+    }
+
+    /**
+    * {@inheritDoc}
+    */
+    @Override
+    protected void cellChanged(int row, int col)
+    {
+        //IF there are no dirty cells yet, make the set of them
+        if (dirty == null)
+        {
+            dirty = new BitSet();
+        }
+        //ENDIF
+
+        Rectangle cell = new Rectangle(col * getCellSize(),
+            row * getCellSize(), getImageSize(), getImageSize());
+
+        //IF the buffer holds the cell, draw it again when next painted
+        if (bufferArea != null && cell.intersects(bufferArea))
+        {
+            dirty.set(row * getNumCols() + col);
+        }
+        //ENDIF
+
+        //IF the cell can be seen, repaint it
+        if (cell.intersects(getVisibleRect()))
+        {
+            repaint(cell);
+        }
+        //ENDIF
+    }
+
+    /**
+    * {@inheritDoc}
+    */
+    @Override
+    protected void zoomChanged()
+    {
+        //Every cell is a new size, so, as for a new board, everything is
+        // drawn again
+        boardResized();
+    }
+
+    /**
+    * Get the cell at a point on the map, if the point is on the cell's image.
+    *
+    * @param point the point, relative to this
+    * @return the cell, with the row as x and the column as y, or null if
+    * the point is between cells or off the map
+    */
+    @Override
+    protected Point getCellAt(Point point)
+    {
+        //IF the point is left of or above the map
+        if (point.x < 0 || point.y < 0)
+        {
+            return null;
+        }
+        //ENDIF
+
+        int row = point.y / getCellSize();
+        int col = point.x / getCellSize();
+
+        //IF it is past the map or in the gap after a cell
+        if (row >= getNumRows() || col >= getNumCols() ||
+            point.y % getCellSize() >= getImageSize() ||
+            point.x % getCellSize() >= getImageSize())
+        {
+            return null;
+        }
+        //ENDIF
+
+        return new Point(row, col);
+    }
+
+    /**
+    * Get the size of the map.
+    *
+    * @return the size of every cell and the gaps between them
+    */
+    @Override
+    public Dimension getPreferredSize()
+    {
+        return new Dimension(getNumCols() * getCellSize(),
+            getNumRows() * getCellSize());
+    }
+
+    /**
+    * Paint the part of the map that can be seen, bringing the back buffer up
+    * to date and copying it to the screen.
+    *
+    * @param graphics the graphics to paint with
+    */
+    @Override
+    protected void paintComponent(Graphics graphics)
+    {
+        Rectangle visible = getVisibleRect();
+
+        //Fill any space around the map with the background
+        super.paintComponent(graphics);
+
+        //IF none of the map can be seen, there is nothing to draw
+        if (visible.isEmpty())
+        {
+            return;
+        }
+        //ENDIF
+
+        //DO until the buffer is copied without its contents being lost
+        do
+        {
+            //CALL updateBuffer to hold what can be seen
+            updateBuffer(visible);
+
+            graphics.drawImage(buffer, visible.x, visible.y, null);
+        }
+        while (buffer instanceof VolatileImage &&
+            ((VolatileImage)buffer).contentsLost());
+        //ENDDO
+    }
+
+    /**
+    * Forget the back buffer when the map is no longer shown.
+    */
+    @Override
+    public void removeNotify()
+    {
+        super.removeNotify();
+
+        //IF there is a buffer, let go of its memory
+        if (buffer != null)
+        {
+            buffer.flush();
+            buffer = null;
+            bufferArea = null;
+        }
+        //ENDIF
+    }
+
+    /**
+    * Bring the back buffer up to date with the part of the map that can be
+    * seen. A buffer that is the wrong size, or can not be used, is made
+    * again. If the map has scrolled, what the buffer already holds is moved
+    * over and only the part that came into view is drawn. Then the cells
+    * that changed are drawn.
+    *
+    * @param visible the part of the map that can be seen
+    */
+    private void updateBuffer(Rectangle visible)
+    {
+        GraphicsConfiguration config = getGraphicsConfiguration();
+        int state = VolatileImage.IMAGE_OK;
+
+        //IF the buffer is video memory, check it can still be used
+        if (buffer instanceof VolatileImage)
+        {
+            state = ((VolatileImage)buffer).validate(config);
+        }
+        //ENDIF
+
+        //IF there is no buffer, or it is the wrong size or can not be used
+        if (buffer == null || buffer.getWidth(null) != visible.width ||
+            buffer.getHeight(null) != visible.height ||
+            state == VolatileImage.IMAGE_INCOMPATIBLE)
+        {
+            //IF there is an old buffer, let go of its memory
+            if (buffer != null)
+            {
+                buffer.flush();
+            }
+            //ENDIF
+
+            buffer = null;
+
+            //IF there is a screen, make the buffer in video memory
+            if (config != null)
+            {
+                buffer = createVolatileImage(visible.width, visible.height);
+            }
+            //ENDIF
+
+            //IF it could not be made there, make it in memory
+            if (buffer == null)
+            {
+                buffer = new BufferedImage(visible.width, visible.height,
+                    BufferedImage.TYPE_INT_RGB);
+            }
+            //ENDIF
+            allDirty = true;
+        }
+        //ELSEIF its contents were lost, everything is drawn again
+        else if (state == VolatileImage.IMAGE_RESTORED)
+        {
+            allDirty = true;
+        }
+        //ENDIF
+
+        Graphics bufferGraphics = buffer.getGraphics();
+
+        //IF the buffer holds a different part of the map
+        if (!allDirty && !visible.getLocation().equals(
+            bufferArea.getLocation()))
+        {
+            //IF what it holds can still be seen, move it over
+            if (visible.intersects(bufferArea))
+            {
+                bufferGraphics.copyArea(0, 0, visible.width, visible.height,
+                    bufferArea.x - visible.x, bufferArea.y - visible.y);
+
+                //IF the map scrolled left or right, draw the new columns
+                if (visible.x < bufferArea.x)
+                {
+                    drawArea(bufferGraphics, new Rectangle(visible.x,
+                        visible.y, bufferArea.x - visible.x, visible.height),
+                        visible);
+                }
+                else if (visible.x > bufferArea.x)
+                {
+                    drawArea(bufferGraphics, new Rectangle(bufferArea.x +
+                        visible.width, visible.y, visible.x - bufferArea.x,
+                        visible.height), visible);
+                }
+                //ENDIF
+
+                //IF the map scrolled up or down, draw the new rows
+                if (visible.y < bufferArea.y)
+                {
+                    drawArea(bufferGraphics, new Rectangle(visible.x,
+                        visible.y, visible.width, bufferArea.y - visible.y),
+                        visible);
+                }
+                else if (visible.y > bufferArea.y)
+                {
+                    drawArea(bufferGraphics, new Rectangle(visible.x,
+                        bufferArea.y + visible.height, visible.width,
+                        visible.y - bufferArea.y), visible);
+                }
+                //ENDIF
+            }
+            //ELSE none of it can be seen, so everything is drawn
+            else
+            {
+                allDirty = true;
+            }
+            //ENDIF
+        }
+        //ENDIF
+
+        //IF everything is drawn, draw what can be seen
+        if (allDirty)
+        {
+            drawArea(bufferGraphics, visible, visible);
+        }
+        //ELSEIF some cells changed, draw them
+        else if (dirty != null)
+        {
+            int cols = getNumCols();
+
+            //FOR every changed cell, draw it
+            for (int cell = dirty.nextSetBit(0); cell >= 0;
+                cell = dirty.nextSetBit(cell + 1))
+            {
+                drawCell(bufferGraphics, cell / cols, cell % cols, visible);
+            }
+            //ENDFOR
+        }
+        //ENDIF
+
+        bufferGraphics.dispose();
+
+        //IF there is a set of dirty cells, they have all been drawn
+        if (dirty != null)
+        {
+            dirty.clear();
+        }
+        //ENDIF
+
+        allDirty = false;
+        bufferArea = new Rectangle(visible);
+    }
+
+    /**
+    * Draw the cells in part of the map into the buffer, and the background
+    * between them.
+    *
+    * @param graphics the graphics of the buffer
+    * @param area the part of the map to draw
+    * @param origin the part of the map the buffer holds
+    */
+    private void drawArea(Graphics graphics, Rectangle area, Rectangle origin)
+    {
+        graphics.setClip(area.x - origin.x, area.y - origin.y, area.width,
+            area.height);
+        graphics.setColor(getBackground());
+        graphics.fillRect(area.x - origin.x, area.y - origin.y, area.width,
+            area.height);
+
+        int cellSize = getCellSize();
+        int firstRow = area.y / cellSize;
+        int firstCol = area.x / cellSize;
+        int lastRow = Math.min(getNumRows() - 1,
+            (area.y + area.height - 1) / cellSize);
+        int lastCol = Math.min(getNumCols() - 1,
+            (area.x + area.width - 1) / cellSize);
+
+        //IF the cells touch, there are too many to draw one at a time, so
+        // draw them as one image
+        if (cellSize == getImageSize())
+        {
+            //IF any of the area is on the map, draw its cells
+            if (firstRow <= lastRow && firstCol <= lastCol)
+            {
+                drawPixels(graphics, new Rectangle(firstCol, firstRow,
+                    lastCol - firstCol + 1, lastRow - firstRow + 1), origin);
+            }
+            //ENDIF
+        }
+        //ELSE draw every cell in the area
+        else
+        {
+            for (int row = firstRow; row <= lastRow; row++)
+            {
+                for (int col = firstCol; col <= lastCol; col++)
+                {
+                    drawCell(graphics, row, col, origin);
+                }
+            }
+        }
+        //ENDIF
+
+        graphics.setClip(null);
+    }
+
+    /**
+    * Draw a block of cells that touch into the buffer as one image, by
+    * copying the pixels of each cell's image into it. An overview of a large
+    * map shows hundreds of thousands of cells, which would take many frames
+    * to draw one at a time.
+    *
+    * @param graphics the graphics of the buffer
+    * @param cells the block of cells, with the first column as x and the
+    * first row as y
+    * @param origin the part of the map the buffer holds
+    */
+    private void drawPixels(Graphics graphics, Rectangle cells,
+        Rectangle origin)
+    {
+        int size = getImageSize();
+        int width = cells.width * size;
+        BufferedImage block = new BufferedImage(width, cells.height * size,
+            BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt)block.getRaster().getDataBuffer())
+            .getData();
+        int[] blank = new int[size * size];
+        Arrays.fill(blank, getBackground().getRGB());
+
+        //The pixels of each image, as many cells share the same image
+        IdentityHashMap<BufferedImage, int[]> imagePixels =
+            new IdentityHashMap<BufferedImage, int[]>();
+
+        //The last cell's image and pixels, as cells next to each other are
+        // often alike
+        BufferedImage lastImage = null;
+        int[] lastPixels = blank;
+
+        //FOR every cell in the block, copy its image's pixels into place
+        for (int row = 0; row < cells.height; row++)
+        {
+            for (int col = 0; col < cells.width; col++)
+            {
+                BufferedImage image = getCellImage(cells.y + row,
+                    cells.x + col);
+                int[] cell = blank;
+
+                //IF the cell has an image, get its pixels
+                if (image == lastImage)
+                {
+                    cell = lastPixels;
+                }
+                else if (image != null)
+                {
+                    cell = imagePixels.get(image);
+
+                    //IF they have not been got yet, get them
+                    if (cell == null)
+                    {
+                        cell = image.getRGB(0, 0, size, size, null, 0, size);
+                        imagePixels.put(image, cell);
+                    }
+                    //ENDIF
+                }
+                //ENDIF
+
+                lastImage = image;
+                lastPixels = cell;
+                int start = row * size * width + col * size;
+
+                //FOR every line of the cell's image, copy it
+                for (int line = 0; line < size; line++)
+                {
+                    System.arraycopy(cell, line * size, pixels,
+                        start + line * width, size);
+                }
+                //ENDFOR
+            }
+        }
+        //ENDFOR
+
+        graphics.drawImage(block, cells.x * size - origin.x,
+            cells.y * size - origin.y, null);
+    }
+
+    /**
+    * Draw one cell's image in its place in the buffer.
+    *
+    * @param graphics the graphics of the buffer
+    * @param row the row of the cell
+    * @param col the column of the cell
+    * @param origin the part of the map the buffer holds
+    */
+    private void drawCell(Graphics graphics, int row, int col,
+        Rectangle origin)
+    {
+        BufferedImage image = getCellImage(row, col);
+        int x = col * getCellSize() - origin.x;
+        int y = row * getCellSize() - origin.y;
+
+        //IF the cell has an image, draw it, ELSE leave the background
+        if (image != null)
+        {
+            graphics.drawImage(image, x, y, null);
+        }
+        else
+        {
+            graphics.setColor(getBackground());
+            graphics.fillRect(x, y, getImageSize(), getImageSize());
+        }
+        //ENDIF
+    }
+}
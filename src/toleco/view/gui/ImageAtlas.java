@@ -0,0 +1,274 @@
+package toleco.view.gui;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import javax.imageio.ImageIO;
+
+/**
+* Packs many small images into one atlas image and an index of where each
+* one is, and reads them back out. Reading an atlas opens two files instead
+* of one for every image, and the images read share the atlas's pixels, so
+* drawing them reads from one block of memory.
+* The atlas is a PNG, so its pixels are exactly those of the images packed.
+* The index is a text file with a line for each image: its name, then the x,
+* y, width and height of its region of the atlas, separated by spaces.
+* Images are packed onto shelves, tallest first, with the space around them
+* left in MapView.kTransparentColor.
+* Running main packs every image the AssetManager loads into kAtlasImage and
+* kAtlasIndex, which the build does with "ant atlas". The AssetManager uses
+* the atlas when it is there and falls back to the loose files when it is
+* not.
+*
+* @author Eriq Augustine
+* @version 1.0
+*/
+public final class ImageAtlas
+{
+    /**
+    * The atlas of every image the AssetManager loads.
+    */
+    public static final String kAtlasImage = "images/atlas.png";
+
+    /**
+    * The index of kAtlasImage.
+    */
+    public static final String kAtlasIndex = "images/atlas.txt";
+
+    /**
+    * The widest an atlas is packed, in pixels.
+    */
+    public static final int kMaxWidth = 512;
+
+    /**
+    * Not used, all methods are static.
+    */
+    private ImageAtlas()
+    {
+    }
+
+    /**
+    * Packs images into an atlas and writes it and its index.
+    *
+    * @param images the images by name, none wider than kMaxWidth, and no
+    * name with a space in it
+    * @param atlasFile the file to write the atlas to
+    * @param indexFile the file to write the index to
+    * @throws IOException if either file can not be written
+    */
+    public static void pack(Map<String, BufferedImage> images, File atlasFile,
+        File indexFile) throws IOException
+    {
+        String[] names = images.keySet().toArray(new String[images.size()]);
+        final Map<String, BufferedImage> byName = images;
+
+        //Sort the names tallest image first, then by name so packing the
+        // same images always gives the same atlas.
+        Arrays.sort(names, new Comparator<String>()
+        {
+            public int compare(String first, String second)
+            {
+                int taller = byName.get(second).getHeight() -
+                    byName.get(first).getHeight();
+                return taller != 0 ? taller : first.compareTo(second);
+            }
+        });
+
+        int[][] regions = new int[names.length][];
+        int width = 0;
+        int shelfX = 0;
+        int shelfY = 0;
+        int shelfHeight = 0;
+
+        //FOR each image, place it on the shelf, or a new one if it is full
+        for (int index = 0; index < names.length; index++)
+        {
+            BufferedImage image = images.get(names[index]);
+
+            //IF it does not fit on this shelf, start another below it
+            if (shelfX + image.getWidth() > kMaxWidth)
+            {
+                shelfY += shelfHeight;
+                shelfX = 0;
+                shelfHeight = 0;
+            }
+            //ENDIF
+
+            regions[index] = new int[] {shelfX, shelfY, image.getWidth(),
+                image.getHeight()};
+            shelfX += image.getWidth();
+            shelfHeight = Math.max(shelfHeight, image.getHeight());
+            width = Math.max(width, shelfX);
+        }
+        //ENDFOR
+
+        BufferedImage atlas = new BufferedImage(Math.max(width, 1),
+            Math.max(shelfY + shelfHeight, 1), BufferedImage.TYPE_INT_RGB);
+        int[] blank = new int[atlas.getWidth() * atlas.getHeight()];
+        Arrays.fill(blank, MapView.kTransparentColor);
+        atlas.setRGB(0, 0, atlas.getWidth(), atlas.getHeight(), blank, 0,
+            atlas.getWidth());
+
+        PrintWriter index = new PrintWriter(indexFile);
+
+        try
+        {
+            //FOR each image, copy it into its region and list it
+            for (int image = 0; image < names.length; image++)
+            {
+                int[] region = regions[image];
+                int[] pixels = images.get(names[image]).getRGB(0, 0,
+                    region[2], region[3], null, 0, region[2]);
+                atlas.setRGB(region[0], region[1], region[2], region[3],
+                    pixels, 0, region[2]);
+                index.println(names[image] + " " + region[0] + " " +
+                    region[1] + " " + region[2] + " " + region[3]);
+            }
+            //ENDFOR
+        }
+        finally
+        {
+            index.close();
+        }
+
+        //IF the atlas could not be written
+        if (!ImageIO.write(atlas, "png", atlasFile))
+        {
+            throw new IOException("Unable to write " + atlasFile + ".");
+        }
+        //ENDIF
+    }
+
+    /**
+    * Reads the images out of an atlas. Each image is a region of the atlas,
+    * and shares its pixels, so they must not be drawn on.
+    *
+    * @param atlasFile the atlas
+    * @param indexFile its index
+    * @return the images by name, all of one type
+    * @throws IOException if either file can not be read, or the index does
+    * not fit the atlas
+    */
+    public static HashMap<String, BufferedImage> read(File atlasFile,
+        File indexFile) throws IOException
+    {
+        BufferedImage atlas = ImageIO.read(atlasFile);
+
+        //IF the atlas is not an image
+        if (atlas == null)
+        {
+            throw new IOException(atlasFile + " is not an image.");
+        }
+        //ENDIF
+
+        atlas = AssetManager.toCompatible(atlas);
+        HashMap<String, BufferedImage> images =
+            new HashMap<String, BufferedImage>();
+        BufferedReader index = new BufferedReader(new FileReader(indexFile));
+
+        try
+        {
+            String line = index.readLine();
+
+            //WHILE there is another line of the index, take its region
+            while (line != null)
+            {
+                String[] parts = line.trim().split(" ");
+
+                //IF the line is not blank, it names an image
+                if (parts.length > 1)
+                {
+                    //TRY to find the region
+                    try
+                    {
+                        images.put(parts[0], atlas.getSubimage(
+                            Integer.parseInt(parts[1]),
+                            Integer.parseInt(parts[2]),
+                            Integer.parseInt(parts[3]),
+                            Integer.parseInt(parts[4])));
+                    }
+                    //CATCH a line that does not fit the atlas
+                    catch (RuntimeException e)
+                    {
+                        throw new IOException("Bad line in " + indexFile +
+                            ": " + line);
+                    }
+                }
+                //ENDIF
+
+                line = index.readLine();
+            }
+            //ENDWHILE
+        }
+        finally
+        {
+            index.close();
+        }
+
+        return images;
+    }
+
+    /**
+    * Packs every image the AssetManager loads into kAtlasImage and
+    * kAtlasIndex.
+    *
+    * @param args not used
+    * @throws IOException if an image can not be read or the atlas written
+    */
+    public static void main(String[] args) throws IOException
+    {
+        HashMap<String, BufferedImage> images =
+            new HashMap<String, BufferedImage>();
+        ArrayList<String> missing = new ArrayList<String>();
+
+        //FOR each image the AssetManager loads, read its file
+        for (Map.Entry<String, String> file :
+            AssetManager.getImageFiles().entrySet())
+        {
+            BufferedImage image = null;
+
+            //TRY to read it
+            try
+            {
+                image = ImageIO.read(new File(file.getValue()));
+            }
+            //CATCH a missing file, which is left to be reported
+            catch (IOException e)
+            {
+                image = null;
+            }
+            //END
+
+            //IF it was read, pack it, ELSE leave it to be loaded loose
+            if (image != null)
+            {
+                images.put(file.getKey(), image);
+            }
+            else
+            {
+                missing.add(file.getValue());
+            }
+            //ENDIF
+        }
+        //ENDFOR
+
+        pack(images, new File(kAtlasImage), new File(kAtlasIndex));
+        System.out.println("Packed " + images.size() + " images into " +
+            kAtlasImage + ".");
+
+        //IF some could not be read, say so
+        if (!missing.isEmpty())
+        {
+            System.err.println("Unable to read " + missing + ".");
+        }
+        //ENDIF
+    }
+}
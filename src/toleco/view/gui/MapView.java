@@ -1,28 +1,43 @@
 package toleco.view.gui;
 
 import java.awt.Component;
+import java.awt.Dimension;
 import toleco.terrain.Terrain;
 import toleco.view.I_GameView;
+import java.awt.Graphics;
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.color.ColorSpace;
 import java.awt.event.MouseAdapter;
+import java.awt.event.ActionEvent;
 import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.event.MouseWheelListener;
 import java.util.ArrayList;
 import javax.swing.JTable;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.awt.image.BufferedImage;
 import java.awt.image.BufferedImageOp;
 import java.awt.image.ColorConvertOp;
-import javax.swing.ImageIcon;
+import java.awt.image.IndexColorModel;
+import javax.swing.AbstractAction;
+import javax.swing.Icon;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.JViewport;
+import javax.swing.KeyStroke;
 import javax.swing.ListSelectionModel;
+import javax.swing.Scrollable;
+import javax.swing.SwingConstants;
 import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
+import toleco.controller.Command;
 import toleco.controller.EditorAction;
 import toleco.controller.Player;
 import toleco.controller.PlayerAction;
+import toleco.logic.BoardChange;
 import toleco.logic.GameBoard;
 import toleco.unit.Unit;
 
@@ -30,12 +45,30 @@ import toleco.unit.Unit;
 * A MapView is responsible for providing the logic to properly display the
 * game map. MapView is used by the SwingGameView class and the
 * EditorGameView class.
+* Each cell keeps the images it was last drawn from: its terrain, unit, team
+* overlay, and any selection or highlight. A unit that has done all it can
+* this turn is drawn from its greyed image, which the AssetManager makes as
+* it loads the unit's image, so greying a unit is only a change of image. A cell is
+* only composed again when one of these changes, and only the cells that
+* changed are repainted, so a move repaints two cells rather than the whole
+* map. drawChange(GameBoard, BoardChange) goes further and only looks at the
+* cells a BoardChange lists.
+* Composed cells come from a TileCache, shared by default with every other
+* MapView, so cells that look alike share one image.
+* The map can be zoomed, with control and the mouse wheel or control and plus
+* or minus, from an overview with a pixel a cell up to twice kImageSize.
+* Cells are composed at kImageSize and scaled to each zoom level once, each
+* level from the one above it, and the scaled images are kept in the
+* TileCache too, so changing level scales only the looks not yet seen at it.
+* A MapView shows its cells in a JTable. create(HashMap) makes a
+* CanvasMapView instead, which paints them itself, if the toleco.mapView
+* system property is "canvas".
 *
 * @author Adam Armstrong (Javadoc)
 * @author Jon Moorman (Implementation)
 * @version 1.0
 */
-public class MapView extends JPanel
+public class MapView extends JPanel implements Scrollable
 {
     /**
      * The size of an image that will be used for map cells
@@ -48,7 +81,47 @@ public class MapView extends JPanel
     public static final int kTransparentColor = -1;
 
     /**
-    * Stores all Terrain and Unit images.
+     * Added to the name of a unit to name its greyed image
+     */
+    public static final String kGreyedSuffix = "Greyed";
+
+    /**
+     * The system property that names the kind of MapView create() makes
+     */
+    public static final String kViewProperty = "toleco.mapView";
+
+    /**
+     * The value of kViewProperty that makes create() make a CanvasMapView
+     */
+    public static final String kCanvasView = "canvas";
+
+    /**
+     * The size of a cell's image at each zoom level, smallest first. Each
+     * smaller level is scaled from the one above it, and the largest from
+     * kImageSize.
+     */
+    private static final int[] kZoomSizes = {1, 2, 5, 10, 20, kImageSize,
+        2 * kImageSize};
+
+    /**
+     * The number of zoom levels
+     */
+    public static final int kNumZoomLevels = kZoomSizes.length;
+
+    /**
+     * The zoom level a map is first shown at, with images kImageSize square
+     */
+    public static final int kDefaultZoom = 5;
+
+    /**
+     * The smallest image size that cells are drawn apart at, with a pixel
+     * between them. Smaller cells are drawn touching, so an overview of the
+     * map is all map.
+     */
+    public static final int kMinGapSize = 10;
+
+    /**
+    * Stores all Terrain and Unit images, or null if a subclass shows them.
     */
     private JTable gameTable;
     
@@ -63,6 +136,11 @@ public class MapView extends JPanel
     * name.
     */
     private HashMap<String, BufferedImage> images;
+
+    /**
+     * Stores the composed images of cells, shared with other MapViews.
+     */
+    private TileCache tiles;
     
     /**
      * Stores the state of the GUI for dealing with overlays.
@@ -74,6 +152,49 @@ public class MapView extends JPanel
      */
     private Point selectedCell;
 
+    /**
+     * The pixels of the image being overlaid onto, kept between overlays.
+     */
+    private int[] destPixels = new int[kImageSize * kImageSize];
+
+    /**
+     * The pixels of the image being overlaid, kept between overlays.
+     */
+    private int[] layerPixels = new int[kImageSize * kImageSize];
+
+    /**
+     * The palette indices of the image being overlaid, if it has a palette.
+     */
+    private byte[] layerIndices = new byte[kImageSize * kImageSize];
+
+    /**
+     * The palette of the image being overlaid, if it has one.
+     */
+    private int[] palette = new int[256];
+
+    /**
+     * The zoom level the map is shown at.
+     */
+    private int zoom = kDefaultZoom;
+
+    /**
+     * The scaled image of each composed image shown at the zoom level, so
+     * the many cells that look alike find theirs without going to the
+     * TileCache.
+     */
+    private IdentityHashMap<BufferedImage, BufferedImage> scaledImages =
+        new IdentityHashMap<BufferedImage, BufferedImage>();
+
+    /**
+     * The number of rows currently displayed.
+     */
+    private int numRows;
+
+    /**
+     * The number of cols currently displayed.
+     */
+    private int numCols;
+
     /**
     * Create a MapView with a reference to the images it will need to display.
     *
@@ -81,68 +202,343 @@ public class MapView extends JPanel
     * display
     */
     public MapView(HashMap<String, BufferedImage> images)
+    {
+        this(images, TileCache.getShared());
+    }
+
+    /**
+    * Create a MapView with a reference to the images it will need to display
+    * and the cache to keep its composed cells in.
+    *
+    * @param images a HashMap used to look up images the map will
+    * display
+    * @param tiles the cache of composed cells
+    */
+    public MapView(HashMap<String, BufferedImage> images, TileCache tiles)
+    {
+        this(images, tiles, true);
+    }
+
+    /**
+    * Create a MapView that shows its cells in a JTable, or that leaves
+    * showing them to a subclass. A subclass that does not use the table
+    * must override boardResized(), zoomChanged(), cellChanged(int, int)
+    * and getCellAt(Point) to show the cells itself.
+    *
+    * @param images a HashMap used to look up images the map will
+    * display
+    * @param tiles the cache of composed cells
+    * @param useTable whether to show the cells in a JTable
+    */
+    protected MapView(HashMap<String, BufferedImage> images, TileCache tiles,
+        boolean useTable)
     {
         //STORE a reference to images
         this.images = images;
+        this.tiles = tiles;
+
+        //IF the cells are shown in a table
+        if (useTable)
+        {
+            //SET gameTable to a new JTable over the board cells
+            gameTable = new JTable(new BoardTableModel())
+            {
+                //Override the isCellEditable method to always return false
+                @Override
+                public boolean isCellEditable(int x, int y)
+                {
+                    //RETURN false
+                    return false;
+                }
+            };
+
+            //INIT gameTable to display the gird properly
+            gameTable.setShowGrid(false);
+            gameTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+            gameTable.setCellSelectionEnabled(false);
+            gameTable.setRowHeight(getCellSize());
+            gameTable.setCellEditor(null);
+            gameTable.setAutoResizeMode(JTable.AUTO_RESIZE_OFF);
+
+            //SET every cell to be drawn by an ImageRenderer
+            gameTable.setDefaultRenderer(Object.class, new ImageRenderer());
+
+            //add a mouse listener to the gameTable
+            gameTable.addMouseListener(new MyMouseAdapter());
+
+            add(gameTable);
+        }
+        //ELSE the subclass shows the cells on this panel
+        else
+        {
+            //add a mouse listener to this panel
+            addMouseListener(new MyMouseAdapter());
+        }
+        //ENDIF
+
+        //Zoom with the mouse wheel while control is held, and with control
+        // and plus or minus
+        addMouseWheelListener(new ZoomWheelListener());
+        getInputMap(WHEN_IN_FOCUSED_WINDOW).put(
+            KeyStroke.getKeyStroke("control EQUALS"), "zoomInAction");
+        getInputMap(WHEN_IN_FOCUSED_WINDOW).put(
+            KeyStroke.getKeyStroke("control ADD"), "zoomInAction");
+        getInputMap(WHEN_IN_FOCUSED_WINDOW).put(
+            KeyStroke.getKeyStroke("control MINUS"), "zoomOutAction");
+        getInputMap(WHEN_IN_FOCUSED_WINDOW).put(
+            KeyStroke.getKeyStroke("control SUBTRACT"), "zoomOutAction");
+        getActionMap().put("zoomInAction", new ZoomAction(1));
+        getActionMap().put("zoomOutAction", new ZoomAction(-1));
+
+        //SIZE the board to the default number of rows and columns
+        resizeBoard(GameBoard.kNumRows, GameBoard.kNumCols);
+
+        setVisible(true);
+    }
+
+    /**
+    * Make a MapView of the kind the toleco.mapView system property names:
+    * a CanvasMapView if it is "canvas", or else one that shows its cells in
+    * a JTable.
+    *
+    * @param images a HashMap used to look up images the map will
+    * display
+    * @return the new MapView
+    */
+    public static MapView create(HashMap<String, BufferedImage> images)
+    {
+        //IF the canvas is asked for
+        if (kCanvasView.equals(System.getProperty(kViewProperty)))
+        {
+            return new CanvasMapView(images);
+        }
+        //ENDIF
+
+        return new MapView(images);
+    }
+
+    /**
+     * Replace the displayed board with an empty one of the given size.
+     *
+     * @param rows the number of rows to display
+     * @param cols the number of cols to display
+     */
+    private void resizeBoard(int rows, int cols)
+    {
+        numRows = rows;
+        numCols = cols;
 
         //INIT board with the number of rows and columns
-        board = new BoardCell[GameBoard.kNumRows][GameBoard.kNumCols];
-        
+        board = new BoardCell[rows][cols];
+
         //FOR every row of the board
-        for (int row = 0; row < GameBoard.kNumRows; row++)
+        for (int row = 0; row < rows; row++)
         {
             //FOR every column of the board
-            for (int col = 0; col < GameBoard.kNumCols; col++)
+            for (int col = 0; col < cols; col++)
             {
                 //SET the current cell of the board to a cell with null values
                 board[row][col] = new BoardCell(null, null, null);
             }
         }
 
-        //Create an array of strings to use as column headings
-        String[] emptyCols = new String[GameBoard.kNumCols];
+        //Any selection was on the old board
+        selectedCell = null;
 
-        //FOR every column of the board
-        for (int col = 0; col < GameBoard.kNumCols; col++)
+        //CALL boardResized to show the new board
+        boardResized();
+    }
+
+    /**
+    * Show a board that has been resized, whose cells are all empty. The
+    * table rebuilds its columns, and is laid out and painted again.
+    */
+    protected void boardResized()
+    {
+        //Let the table rebuild its columns for the new board
+        ((BoardTableModel)gameTable.getModel()).fireTableStructureChanged();
+
+        //FOR every column on the board
+        for (int col = 0; col < numCols; col++)
         {
-            //SET the column array to be an empty String
-            emptyCols[col] = "";
+            //SET the column's width to the cell size, which may be less
+            // than the table's least width for a column
+            gameTable.getColumnModel().getColumn(col).setMinWidth(getCellSize());
+            gameTable.getColumnModel().getColumn(col).setPreferredWidth(getCellSize());
         }
 
-        //SET gameTable to a new JTable with board and column array
-        gameTable = new JTable(board, emptyCols)
-        {
-            //Override the isCellEditable method to always return false
-            @Override
-            public boolean isCellEditable(int x, int y)
-            {
-                //RETURN false
-                return false;
-            }
-        };
+        //The layout has changed, so everything is laid out and painted again
+        revalidate();
+        repaint();
+    }
 
-        //INIT gameTable to display the gird properly
-        gameTable.setShowGrid(false);
-        gameTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
-        gameTable.setCellSelectionEnabled(false);
-        gameTable.setRowHeight(kImageSize + 1);
-        gameTable.setCellEditor(null);
+    /**
+    * Show the board at a new zoom level. The table's rows and columns are
+    * made the new cell size, and it is laid out and painted again.
+    */
+    protected void zoomChanged()
+    {
+        int gap = getCellSize() - getImageSize();
+
+        //SET the rows and the space between cells to the new size
+        gameTable.setIntercellSpacing(new Dimension(gap, gap));
+        gameTable.setRowHeight(getCellSize());
 
         //FOR every column on the board
-        for (int col = 0; col < GameBoard.kNumCols; col++)
+        for (int col = 0; col < numCols; col++)
         {
-            //SET preferred column width to image size + 1
-            gameTable.getColumnModel().getColumn(col).setPreferredWidth(kImageSize + 1);
-            //SET cell renderer to be a new ImageRenderer
-            gameTable.getColumnModel().getColumn(col).setCellRenderer(
-                new ImageRenderer());
+            //SET the column's width to the cell size, which may be less
+            // than the table's least width for a column
+            gameTable.getColumnModel().getColumn(col).setMinWidth(getCellSize());
+            gameTable.getColumnModel().getColumn(col).setPreferredWidth(getCellSize());
         }
 
-        //add a mouse listener to the gameTable
-        gameTable.addMouseListener(new MyMouseAdapter());
+        //The layout has changed, so everything is laid out and painted again
+        revalidate();
+        repaint();
+    }
 
-        add(gameTable);
-        setVisible(true);
+    /**
+    * Get the zoom level the map is shown at.
+    *
+    * @return the zoom level, from 0, the smallest, to kNumZoomLevels - 1
+    */
+    public int getZoom()
+    {
+        return zoom;
+    }
+
+    /**
+    * Show the map at a zoom level. Each cell's image is scaled to the
+    * level's size once, and kept in the TileCache with the other cells that
+    * look alike, so changing back to a level already shown scales nothing.
+    * If the map is in a viewport, the place at the center of the viewport is
+    * kept there.
+    *
+    * @param level the zoom level, which is moved into the range from 0 to
+    * kNumZoomLevels - 1
+    */
+    public void setZoom(int level)
+    {
+        level = Math.max(0, Math.min(kNumZoomLevels - 1, level));
+
+        //IF the map is already shown at the level, there is nothing to do
+        if (level == zoom)
+        {
+            return;
+        }
+        //ENDIF
+
+        Rectangle visible = getVisibleRect();
+        int oldCellSize = getCellSize();
+
+        zoom = level;
+        scaledImages.clear();
+
+        //CALL zoomChanged to show the cells at their new size
+        zoomChanged();
+
+        //IF the map is in a viewport, keep its center where it was
+        if (getParent() instanceof JViewport)
+        {
+            JViewport viewport = (JViewport)getParent();
+            Dimension size = getPreferredSize();
+            Dimension extent = viewport.getExtentSize();
+            int centerX = (visible.x + visible.width / 2) * getCellSize() /
+                oldCellSize;
+            int centerY = (visible.y + visible.height / 2) * getCellSize() /
+                oldCellSize;
+
+            viewport.setViewSize(size);
+            viewport.setViewPosition(new Point(
+                Math.max(0, Math.min(size.width - extent.width,
+                centerX - extent.width / 2)),
+                Math.max(0, Math.min(size.height - extent.height,
+                centerY - extent.height / 2))));
+        }
+        //ENDIF
+    }
+
+    /**
+    * Get the size of a cell's image at the zoom level the map is shown at.
+    *
+    * @return the width and height of a cell's image, in pixels
+    */
+    public int getImageSize()
+    {
+        return kZoomSizes[zoom];
+    }
+
+    /**
+    * Get the distance from the start of one cell to the start of the next,
+    * at the zoom level the map is shown at. Cells at least kMinGapSize
+    * across have a pixel between them.
+    *
+    * @return the size of a cell and the gap after it, in pixels
+    */
+    public int getCellSize()
+    {
+        return getImageSize() + (getImageSize() >= kMinGapSize ? 1 : 0);
+    }
+
+    /**
+    * Get the number of rows currently displayed.
+    *
+    * @return the number of rows
+    */
+    public int getNumRows()
+    {
+        return numRows;
+    }
+
+    /**
+    * Get the number of cols currently displayed.
+    *
+    * @return the number of cols
+    */
+    public int getNumCols()
+    {
+        return numCols;
+    }
+
+    /**
+    * Get the image a cell shows, composed from its terrain, unit, overlay and
+    * selection.
+    *
+    * @param row the row of the cell
+    * @param col the column of the cell
+    * @return the image, which must not be drawn on, or null if the cell has
+    * not been drawn
+    */
+    protected BufferedImage getCellImage(int row, int col)
+    {
+        BufferedImage image = board[row][col].getDispImage();
+
+        //IF there is no image, or it is not scaled
+        if (image == null || getImageSize() == kImageSize)
+        {
+            return image;
+        }
+        //ENDIF
+
+        BufferedImage scaled = scaledImages.get(image);
+
+        //IF no cell that looks alike has been shown at this level yet
+        if (scaled == null)
+        {
+            //IF the images are too many, some are of looks no longer shown
+            if (scaledImages.size() >= tiles.getCapacity())
+            {
+                scaledImages.clear();
+            }
+            //ENDIF
+
+            scaled = board[row][col].getScaledImage(getImageSize());
+            scaledImages.put(image, scaled);
+        }
+        //ENDIF
+
+        return scaled;
     }
 
     /**
@@ -168,11 +564,9 @@ public class MapView extends JPanel
         }
         board[xCoord][yCoord].setSelection();
         selectedCell = new Point(xCoord, yCoord);
- 
-        //CALL validate
-        validate();
-        //CALL repaint
-        repaint();
+
+        //CALL repaintCell for the selected cell
+        repaintCell(xCoord, yCoord);
     }
     
     /**
@@ -186,13 +580,11 @@ public class MapView extends JPanel
             //Remove the selection at the coordinates of selectedCell
             board[selectedCell.x][selectedCell.y].removeSelection();
 
+            //CALL repaintCell for the cell that was selected
+            repaintCell(selectedCell.x, selectedCell.y);
+
             //Set selectedCell to null
             selectedCell = null;
-
-            //CALL validate
-            validate();
-            //CALL repaint
-            repaint();
         }
         //ENDIF
     }
@@ -209,12 +601,10 @@ public class MapView extends JPanel
         {
             //Add a highlight to the cell at the current point
             board[points.get(index).x][points.get(index).y].setHighlight();
-        }
 
-        //CALL validate
-        validate();
-        //CALL repaint
-        repaint();
+            //CALL repaintCell for the cell
+            repaintCell(points.get(index).x, points.get(index).y);
+        }
     }
     
     /**
@@ -223,23 +613,19 @@ public class MapView extends JPanel
     public void removeHighLights()
     {
         //FOR every row of the board
-        for (int row = 0; row < GameBoard.kNumRows; row++)
+        for (int row = 0; row < numRows; row++)
         {
             //FOR every column of the board
-            for (int col = 0; col < GameBoard.kNumCols; col++)
+            for (int col = 0; col < numCols; col++)
             {
                 //Remove selection from current cell
                 if(board[row][col].isSelected())
                 {
                     board[row][col].removeHighlight();
+                    repaintCell(row, col);
                 }
             }
         }
-
-        //CALL validate
-        validate();
-        //CALL repaint
-        repaint();
     }
     
     /**
@@ -249,56 +635,342 @@ public class MapView extends JPanel
     */
     public void drawMap(Terrain[][] map)
     {
+        //IF the map is not the size of the displayed board
+        if (map.length != numRows || map[0].length != numCols)
+        {
+            //Resize the displayed board to fit the map
+            resizeBoard(map.length, map[0].length);
+        }
+        //ENDIF
+
         //FOR every row in the map
-        for(int row = 0; row < GameBoard.kNumRows; row++)
+        for(int row = 0; row < numRows; row++)
         {
             //FOR every column in the map
-            for(int col = 0; col < GameBoard.kNumCols; col++)
+            for(int col = 0; col < numCols; col++)
             {
-                //System.err.println(map[row][col].getType());
-                //System.err.println(images.get(map[row][col].getType()));
-                
-                //SET terrain image from images
-                board[row][col].setTerrain(images.get(map[row][col].getType()));
-                
-                Unit unit = map[row][col].getUnit();
-                //IF there is a unit on the terrain
-                if(unit != null)
-                {
-                    board[row][col].setUnit(images.get(unit.getType()));
+                //CALL drawCell with the Terrain
+                drawCell(row, col, map[row][col]);
+            }
+        }
+    }
 
-                    //IF the unit is owned by Player 1
-                    if(unit.getOwner() == Player.kPlayer1)
-                    {
-                        board[row][col].setTeamOverlay(images.get("OverlayPlayer1"));
-                    }
-                    //ELSE IF the unit is owned by Player 2
-                    else if(unit.getOwner() == Player.kPlayer2)
+    /**
+    * Draw the cells of a board that a change lists. The whole board is drawn
+    * if the change is to everything or the board is a different size.
+    *
+    * @param gameBoard the board that changed
+    * @param change what changed on it
+    */
+    public void drawChange(GameBoard gameBoard, BoardChange change)
+    {
+        //IF the whole board changed or it is not the size displayed
+        if (change.isEverything() || gameBoard.getNumRows() != numRows ||
+            gameBoard.getNumCols() != numCols)
+        {
+            //CALL drawMap with the whole map
+            drawMap(gameBoard.getMap());
+        }
+        //ELSE
+        else
+        {
+            //FOR every changed cell
+            for (int index = 0; index < change.getCellCount(); index++)
+            {
+                int row = change.getX(index);
+                int col = change.getY(index);
+
+                //CALL drawCell with the cell's Terrain
+                drawCell(row, col, gameBoard.getTerrain(row, col));
+            }
+            //ENDFOR
+        }
+        //ENDIF
+    }
+
+    /**
+    * Set a cell to show a Terrain and any Unit on it, and repaint the cell if
+    * that changed how it looks.
+    *
+    * @param row the row of the cell
+    * @param col the column of the cell
+    * @param terrain the Terrain to show
+    */
+    private void drawCell(int row, int col, Terrain terrain)
+    {
+        BoardCell cell = board[row][col];
+
+        //SET terrain image from images
+        cell.setTerrain(images.get(terrain.getType()));
+
+        Unit unit = terrain.getUnit();
+        //IF there is a unit on the terrain
+        if(unit != null)
+        {
+            //IF the unit has no moves or attack left, show it greyed
+            if (!(unit.canAttack() || unit.getCurrentMoves() > 0))
+            {
+                cell.setUnit(getGreyedImage(unit.getType()));
+            }
+            //ELSE show it as it is
+            else
+            {
+                cell.setUnit(images.get(unit.getType()));
+            }
+            //ENDIF
+
+            //IF the unit is owned by Player 1
+            if(unit.getOwner() == Player.kPlayer1)
+            {
+                cell.setTeamOverlay(images.get("OverlayPlayer1"));
+            }
+            //ELSE IF the unit is owned by Player 2
+            else if(unit.getOwner() == Player.kPlayer2)
+            {
+                cell.setTeamOverlay(images.get("OverlayPlayer2"));
+            }
+        }
+        else
+        {
+            cell.setUnit(null);
+            cell.setTeamOverlay(null);
+        }
+
+        //CALL repaintCell for the cell
+        repaintCell(row, col);
+    }
+
+    /**
+    * Get the greyed image of a unit, as loaded under the unit's name and
+    * kGreyedSuffix. If none was loaded, the unit's image is greyed now and
+    * kept under that name, so each unit is only greyed once.
+    *
+    * @param type the unit's type
+    * @return the greyed image
+    */
+    private BufferedImage getGreyedImage(String type)
+    {
+        String name = type + kGreyedSuffix;
+
+        //IF no greyed image was loaded and the unit has an image
+        if (!images.containsKey(name) && images.get(type) != null)
+        {
+            //Grey the unit's image and keep it
+            images.put(name, greyImage(images.get(type)));
+        }
+        //ENDIF
+
+        return images.get(name);
+    }
+
+    /**
+    * Make a grey copy of an image, to show a unit that has done all it can
+    * this turn. Views grey each unit's image as they load it, and store it
+    * under the unit's name and kGreyedSuffix.
+    *
+    * @param image the image to grey
+    * @return a new, grey image
+    */
+    public static BufferedImage greyImage(BufferedImage image)
+    {
+        BufferedImageOp op = new ColorConvertOp(ColorSpace.getInstance(
+            ColorSpace.CS_GRAY), null);
+        return op.filter(image, null);
+    }
+
+    /**
+    * Scale a cell's image to another size. Each pixel of an image made
+    * smaller is the average of the pixels it covers, so small details fade
+    * rather than vanish, and each pixel of one made larger is repeated.
+    *
+    * @param image the image to scale
+    * @param size the width and height of the scaled image
+    * @return a new, RGB image
+    */
+    public static BufferedImage scaleTile(BufferedImage image, int size)
+    {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+        int[] scaled = new int[size * size];
+
+        //FOR every pixel of the scaled image
+        for (int y = 0; y < size; y++)
+        {
+            int top = y * height / size;
+            int bottom = Math.max(top + 1, (y + 1) * height / size);
+
+            for (int x = 0; x < size; x++)
+            {
+                int left = x * width / size;
+                int right = Math.max(left + 1, (x + 1) * width / size);
+                int red = 0;
+                int green = 0;
+                int blue = 0;
+
+                //FOR every pixel it covers, add up its color
+                for (int row = top; row < bottom; row++)
+                {
+                    for (int col = left; col < right; col++)
                     {
-                        board[row][col].setTeamOverlay(images.get("OverlayPlayer2"));
+                        int rgb = pixels[row * width + col];
+                        red += (rgb >> 16) & 0xFF;
+                        green += (rgb >> 8) & 0xFF;
+                        blue += rgb & 0xFF;
                     }
-                    board[row][col].setGreyed(!(unit.canAttack() ||
-                        unit.getCurrentMoves() > 0));
-                }
-                else
-                {
-                    board[row][col].setUnit(null);
-                    board[row][col].setTeamOverlay(null);
-                    board[row][col].setGreyed(false);
                 }
+                //ENDFOR
+
+                int count = (bottom - top) * (right - left);
+                scaled[y * size + x] = 0xFF000000 | (red / count) << 16 |
+                    (green / count) << 8 | blue / count;
             }
         }
+        //ENDFOR
 
-        //CALL validate
-        validate();
-        //CALL repaint
-        repaint();
+        BufferedImage result = new BufferedImage(size, size,
+            BufferedImage.TYPE_INT_RGB);
+        result.setRGB(0, 0, size, size, scaled, 0, size);
+        return result;
     }
-    
+
+    /**
+    * Get the image size of the zoom level above the one with the given size.
+    *
+    * @param size the image size of a zoom level below the largest
+    * @return the image size of the next larger zoom level
+    */
+    private static int getLargerSize(int size)
+    {
+        int level = 0;
+
+        //WHILE the level is not larger, go up a level
+        while (kZoomSizes[level] <= size)
+        {
+            level++;
+        }
+        //ENDWHILE
+
+        return kZoomSizes[level];
+    }
+
+    /**
+    * Ask for a cell to be repainted if it has changed since it was last
+    * asked for.
+    *
+    * @param row the row of the cell
+    * @param col the column of the cell
+    */
+    private void repaintCell(int row, int col)
+    {
+        //IF the cell has changed
+        if (board[row][col].takeChanged())
+        {
+            //CALL cellChanged to repaint it
+            cellChanged(row, col);
+        }
+        //ENDIF
+    }
+
+    /**
+    * Repaint a cell that has changed how it looks.
+    *
+    * @param row the row of the cell
+    * @param col the column of the cell
+    */
+    protected void cellChanged(int row, int col)
+    {
+        //Every cell is the same size, so its place is worked out directly
+        // rather than by adding up the widths of the columns before it.
+        Rectangle cell = new Rectangle(col * getCellSize(),
+            row * getCellSize(), getCellSize(), getCellSize());
+
+        //IF the cell can be seen, repaint only the cell's part of the table
+        if (cell.intersects(gameTable.getVisibleRect()))
+        {
+            gameTable.repaint(cell);
+        }
+        //ENDIF
+    }
+
+    /**
+    * {@inheritDoc}
+    */
+    public Dimension getPreferredScrollableViewportSize()
+    {
+        return getPreferredSize();
+    }
+
+    /**
+    * Scroll a cell at a time.
+    *
+    * @param visible the part of the map that can be seen
+    * @param orientation SwingConstants.VERTICAL or SwingConstants.HORIZONTAL
+    * @param direction less than zero to scroll up or left
+    * @return the size of a cell
+    */
+    public int getScrollableUnitIncrement(Rectangle visible, int orientation,
+        int direction)
+    {
+        return getCellSize();
+    }
+
+    /**
+    * Scroll by what can be seen, less a cell so that a row or column of
+    * cells stays in view.
+    *
+    * @param visible the part of the map that can be seen
+    * @param orientation SwingConstants.VERTICAL or SwingConstants.HORIZONTAL
+    * @param direction less than zero to scroll up or left
+    * @return the distance to scroll
+    */
+    public int getScrollableBlockIncrement(Rectangle visible, int orientation,
+        int direction)
+    {
+        int length = orientation == SwingConstants.VERTICAL ? visible.height
+            : visible.width;
+        return Math.max(getCellSize(), length - getCellSize());
+    }
+
+    /**
+    * {@inheritDoc}
+    */
+    public boolean getScrollableTracksViewportWidth()
+    {
+        return false;
+    }
+
+    /**
+    * {@inheritDoc}
+    */
+    public boolean getScrollableTracksViewportHeight()
+    {
+        return false;
+    }
+
+    /**
+    * Get the cell at a point on the map. The table's cells are each
+    * getCellSize() pixels square, and a point past the last row or column
+    * gives a cell past them, which left clicks move back onto the board.
+    *
+    * @param point the point, relative to the component clicked
+    * @return the cell, with the row as x and the column as y, or null if
+    * the point is on no cell
+    */
+    protected Point getCellAt(Point point)
+    {
+        //Fixes defect #212 by using the cell size, not the image size
+        return new Point((int) (point.getY() / getCellSize()),
+            (int) (point.getX() / getCellSize()));
+    }
+
     /**
     * Overlays the images in src on top of one another, with the lowest indexed
     * image being the base and every subsequent image being laid on top of the
-    * one before it.
+    * one before it. Pixels of kTransparentColor are not laid on.
+    * The pixels are worked on in bulk, a layer at a time, in buffers kept
+    * between calls, rather than one getRGB and setRGB at a time. A dest that
+    * does not store its pixels as ints is overlaid a pixel at a time.
     *
     * @pre all images, in src and the dest image, must be the same size
     * @param dest an image that will be overwritten by the new overlaid image
@@ -306,6 +978,113 @@ public class MapView extends JPanel
     * @return the resulting image after all images in src have been overlaid
     */
     public BufferedImage overlayImages(BufferedImage dest, ArrayList<BufferedImage> src)
+    {
+        int type = dest.getType();
+
+        //IF dest does not store its pixels as ints
+        if (type != BufferedImage.TYPE_INT_RGB &&
+            type != BufferedImage.TYPE_INT_ARGB)
+        {
+            //RETURN dest overlaid a pixel at a time
+            return overlayPixels(dest, src);
+        }
+        //ENDIF
+
+        //An RGB dest keeps no alpha, as setRGB would drop it
+        int mask = type == BufferedImage.TYPE_INT_RGB ? 0x00FFFFFF : -1;
+
+        //GET the pixels of dest
+        dest.getRaster().getDataElements(0, 0, kImageSize, kImageSize,
+            destPixels);
+
+        //FOR each image in src
+        for(int imgIndex = 0; imgIndex < src.size(); imgIndex++)
+        {
+            //GET the rgb values of the current image
+            readPixels(src.get(imgIndex));
+
+            //FOR every pixel
+            for (int pixel = 0; pixel < layerPixels.length; pixel++)
+            {
+                int rgb = layerPixels[pixel];
+
+                //IF rgb is not the transparent color THEN
+                if (rgb != kTransparentColor)
+                {
+                    //SET the pixel of dest to rgb
+                    destPixels[pixel] = rgb & mask;
+                }
+                //END IF
+            }
+            //END FOR
+        }
+        //END FOR
+
+        //SET the pixels of dest
+        dest.getRaster().setDataElements(0, 0, kImageSize, kImageSize,
+            destPixels);
+
+        //RETURN dest
+        return dest;
+    }
+
+    /**
+    * Reads the rgb values of an image into layerPixels. The images loaded
+    * from GIFs are read as palette indices and looked up in the palette, and
+    * RGB images are copied as they are, which gives what getRGB would without
+    * converting a pixel at a time.
+    *
+    * @param image the image to read
+    */
+    private void readPixels(BufferedImage image)
+    {
+        //IF the image is a palette of at most 256 colors
+        if (image.getType() == BufferedImage.TYPE_BYTE_INDEXED)
+        {
+            IndexColorModel model = (IndexColorModel)image.getColorModel();
+            model.getRGBs(palette);
+            image.getRaster().getDataElements(0, 0, kImageSize, kImageSize,
+                layerIndices);
+
+            //FOR every pixel, look up its color
+            for (int pixel = 0; pixel < layerPixels.length; pixel++)
+            {
+                layerPixels[pixel] = palette[layerIndices[pixel] & 0xFF];
+            }
+            //ENDFOR
+        }
+        //ELSEIF the image is RGB, as the AssetManager loads them, copy it
+        else if (image.getType() == BufferedImage.TYPE_INT_RGB)
+        {
+            image.getRaster().getDataElements(0, 0, kImageSize, kImageSize,
+                layerPixels);
+
+            //FOR every pixel, make it opaque as getRGB would
+            for (int pixel = 0; pixel < layerPixels.length; pixel++)
+            {
+                layerPixels[pixel] |= 0xFF000000;
+            }
+            //ENDFOR
+        }
+        //ELSE
+        else
+        {
+            image.getRGB(0, 0, kImageSize, kImageSize, layerPixels, 0,
+                kImageSize);
+        }
+        //ENDIF
+    }
+
+    /**
+    * Overlays the images in src on top of one another a pixel at a time, for
+    * a dest whose pixels overlayImages(BufferedImage, ArrayList) can not work
+    * on in bulk.
+    *
+    * @param dest an image that will be overwritten by the new overlaid image
+    * @param src a list of images to be overlaid
+    * @return the resulting image after all images in src have been overlaid
+    */
+    private BufferedImage overlayPixels(BufferedImage dest, ArrayList<BufferedImage> src)
     {
         //FOR each image in src
         for(int imgIndex = 0; imgIndex < src.size(); imgIndex++)
@@ -318,8 +1097,6 @@ public class MapView extends JPanel
                 {
                     //SET rgb to rgb value of current image
                     int rgb = src.get(imgIndex).getRGB(row, col);
-                    
-                    //System.err.println("RGB!: " + rgb);
 
                     //IF rgb is not the transparent color THEN
                     if (rgb != kTransparentColor)
@@ -351,7 +1128,7 @@ public class MapView extends JPanel
 
         private BufferedImage dispImg;
         private boolean isValid;
-        private boolean isGreyed;
+        private boolean isChanged;
         private boolean isHighlight;
 
         public BoardCell(BufferedImage unit, BufferedImage teamOverlay,
@@ -364,7 +1141,6 @@ public class MapView extends JPanel
 
             isHighlight = false;
             isValid = false;
-            isGreyed = false;
         }
 
         public boolean isSelected()
@@ -372,12 +1148,21 @@ public class MapView extends JPanel
             return (selectImg != null);
         }
 
+        //Gets whether the cell has changed since this was last called
+        public boolean takeChanged()
+        {
+            boolean changed = isChanged;
+            isChanged = false;
+            return changed;
+        }
+
         public void removeSelection()
         {
             //IF the image has a selection overlay
             if (selectImg != null && !isHighlight)
             {
                 isValid = false;
+                isChanged = true;
                 selectImg = null;
             }
         }
@@ -387,6 +1172,7 @@ public class MapView extends JPanel
             if (selectImg != null && isHighlight)
             {
                 isValid = false;
+                isChanged = true;
                 selectImg = null;
                 isHighlight = false;
             }
@@ -397,6 +1183,7 @@ public class MapView extends JPanel
             if (selectImg != images.get("Select"))
             {
                 isValid = false;
+                isChanged = true;
                 selectImg = images.get("Select");
                 isHighlight = false;
             }
@@ -407,27 +1194,19 @@ public class MapView extends JPanel
             if (selectImg != images.get("Highlight"))
             {
                 isValid = false;
+                isChanged = true;
                 selectImg = images.get("Highlight");
                 isHighlight = true;
             }
         }
 
-        public void setGreyed(boolean newGreyed)
-        {
-            //IF the image is being changed to or from gray
-            if (newGreyed != isGreyed)
-            {
-                isValid = false;
-                isGreyed = newGreyed;
-            }
-        }
-
         public void setUnit(BufferedImage newUnit)
         {
             // IF the unit being set is different than what is already there
             if (newUnit != unitImg)
             {
                 isValid = false;
+                isChanged = true;
                 unitImg = newUnit;
             }
         }
@@ -438,6 +1217,7 @@ public class MapView extends JPanel
             if (newTeamOverlay != teamOverlayImg)
             {
                 isValid = false;
+                isChanged = true;
                 teamOverlayImg = newTeamOverlay;
             }
         }
@@ -448,6 +1228,7 @@ public class MapView extends JPanel
             if (newTerrain != null && newTerrain != terrainImg)
             {
                 isValid = false;
+                isChanged = true;
                 terrainImg = newTerrain;
             }
         }
@@ -455,38 +1236,44 @@ public class MapView extends JPanel
         //Terrain should never! be null!
         public BufferedImage getDispImage()
         {
-            ArrayList<BufferedImage> imgs = new ArrayList<BufferedImage>();
-            BufferedImageOp op;
-
             //IF the image is invalid
             if (!isValid)
             {
-                //IF there is a terrain image
-                if (terrainImg != null)
-                {
-                    dispImg = (BufferedImage)createImage(terrainImg.getWidth(),
-                        terrainImg.getHeight());
-                }
-                else
+                //IF there is no terrain image
+                if (terrainImg == null)
                 {
                     return null;
                 }
-                //IF there is a terrain image
-                if (terrainImg != null)
+                //ENDIF
+
+                //GET the tile from the cache, if it has been composed before
+                TileCache.Key key = new TileCache.Key(terrainImg, unitImg,
+                    teamOverlayImg, selectImg, getBackground().getRGB());
+                dispImg = tiles.get(key);
+
+                //IF it has, use it
+                if (dispImg != null)
                 {
-                    imgs.add(terrainImg);
+                    isValid = true;
+                    return dispImg;
                 }
+                //ENDIF
+
+                //Start from the background, as a new image would
+                dispImg = new BufferedImage(terrainImg.getWidth(),
+                    terrainImg.getHeight(), BufferedImage.TYPE_INT_RGB);
+                Graphics graphics = dispImg.getGraphics();
+                graphics.setColor(getBackground());
+                graphics.fillRect(0, 0, dispImg.getWidth(),
+                    dispImg.getHeight());
+                graphics.dispose();
+
+                ArrayList<BufferedImage> imgs = new ArrayList<BufferedImage>();
+                imgs.add(terrainImg);
 
                 //IF there is a unit image
                 if (unitImg != null)
                 {
-                    //IF the unit should be greyed
-                    if (isGreyed)
-                    {
-                        op = new ColorConvertOp(ColorSpace.getInstance(
-                            ColorSpace.CS_GRAY), null);
-                        unitImg = op.filter(unitImg, null);
-                    }
                     imgs.add(unitImg);
                 }
                 //IF there is a team overlay image
@@ -501,17 +1288,68 @@ public class MapView extends JPanel
                 }
 
                 dispImg = overlayImages(dispImg, imgs);
+                tiles.put(key, dispImg);
             }
 
             isValid = true;
             return dispImg;
         }
+
+        //Gets the image scaled to a size from the cache, or if no cell that
+        // looks alike has been scaled to it, scales the image of the next
+        // larger zoom level
+        public BufferedImage getScaledImage(int size)
+        {
+            TileCache.Key key = new TileCache.Key(terrainImg, unitImg,
+                teamOverlayImg, selectImg, getBackground().getRGB(), size);
+            BufferedImage scaled = tiles.get(key);
+
+            //IF it has not been scaled before
+            if (scaled == null)
+            {
+                BufferedImage source = dispImg;
+
+                //IF it is made smaller, scale it from the next level up
+                if (size < kImageSize && getLargerSize(size) != kImageSize)
+                {
+                    source = getScaledImage(getLargerSize(size));
+                }
+                //ENDIF
+
+                scaled = scaleTile(source, size);
+                tiles.put(key, scaled);
+            }
+            //ENDIF
+
+            return scaled;
+        }
     }
     /**
-     * An inner class that overrides the default table model being used
+     * An inner class that shows the board cells as the table's contents
      */
-    private class MyDefaultTableModel extends DefaultTableModel
+    private class BoardTableModel extends AbstractTableModel
     {
+        public int getRowCount()
+        {
+            return numRows;
+        }
+
+        public int getColumnCount()
+        {
+            return numCols;
+        }
+
+        @Override
+        public String getColumnName(int col)
+        {
+            return "";
+        }
+
+        public Object getValueAt(int row, int col)
+        {
+            return board[row][col];
+        }
+
         @Override
         public boolean isCellEditable(int row, int col)
         {
@@ -524,21 +1362,30 @@ public class MapView extends JPanel
      */
     private class ImageRenderer extends DefaultTableCellRenderer
     {
+        //The label and icon every cell is drawn with, as only the cells
+        // that can be seen are drawn, one at a time
+        private JLabel rtn = new JLabel();
+        private CellIcon icon = new CellIcon();
+
+        public ImageRenderer()
+        {
+            rtn.setIcon(icon);
+        }
+
         @Override
         public Component getTableCellRendererComponent(JTable table, Object value, 
             boolean isSelected, boolean hasFocus, int row, int column)
         {
-            JLabel rtn = new JLabel();
             BufferedImage dispImg;
 
             //IF the given object is a board cell
             if ((value instanceof BoardCell))
             {
-                dispImg = ((BoardCell)value).getDispImage();
+                dispImg = getCellImage(row, column);
                 //IF there is a display image
                 if (dispImg != null)
                 {
-                    rtn.setIcon(new ImageIcon(dispImg));
+                    icon.image = dispImg;
                     return rtn;
                 }
                 else
@@ -555,30 +1402,128 @@ public class MapView extends JPanel
             }
         }
     }
+    /**
+     * An inner class that draws a cell's image, without the image being
+     * loaded into a new ImageIcon for every cell drawn
+     */
+    private static class CellIcon implements Icon
+    {
+        private BufferedImage image;
+
+        public void paintIcon(Component component, Graphics graphics, int x,
+            int y)
+        {
+            graphics.drawImage(image, x, y, null);
+        }
+
+        public int getIconWidth()
+        {
+            return image == null ? 0 : image.getWidth();
+        }
+
+        public int getIconHeight()
+        {
+            return image == null ? 0 : image.getHeight();
+        }
+    }
+
+    /**
+     * An inner class that zooms the map in or out a level
+     */
+    private class ZoomAction extends AbstractAction
+    {
+        //The number of levels to zoom in by, less than zero to zoom out
+        private int step;
+
+        public ZoomAction(int step)
+        {
+            this.step = step;
+        }
+
+        public void actionPerformed(ActionEvent ev)
+        {
+            setZoom(zoom + step);
+        }
+    }
+
+    /**
+     * An inner class that zooms the map with the mouse wheel while control
+     * is held, and otherwise passes the wheel on to scroll the map
+     */
+    private class ZoomWheelListener implements MouseWheelListener
+    {
+        public void mouseWheelMoved(MouseWheelEvent ev)
+        {
+            //IF control is held, zoom in as the wheel turns up
+            if (ev.isControlDown())
+            {
+                setZoom(zoom - ev.getWheelRotation());
+            }
+            //ELSEIF the map is in something that can scroll it, pass it on
+            else if (getParent() != null)
+            {
+                getParent().dispatchEvent(SwingUtilities.convertMouseEvent(
+                    MapView.this, ev, getParent()));
+            }
+            //ENDIF
+        }
+    }
+
     /**
      * An inner class that overrides the MouseAdapter
      */
     private class MyMouseAdapter extends MouseAdapter
     {
+        /**
+        * The Command filled in and issued for each click in a game.
+        */
+        private Command<PlayerAction> gameCommand =
+            new Command<PlayerAction>();
+
+        /**
+        * The Command filled in and issued for each click in the editor.
+        */
+        private Command<EditorAction> editorCommand =
+            new Command<EditorAction>();
+
         @Override
         public void mouseReleased(MouseEvent ev)
         {
-            int col = gameTable.getSelectedColumn();
-            int row = gameTable.getSelectedRow();
+            Point cell = getCellAt(ev.getPoint());
 
-            // Is it a left mouse click?
-            if (SwingUtilities.isLeftMouseButton(ev))
+            //IF the click is on no cell
+            if (cell == null)
             {
-                //Fixes defect #212 by adding 1 to image size
-                row = (int) (ev.getPoint().getY()/(kImageSize + 1));
-                col = (int) (ev.getPoint().getX()/(kImageSize + 1));
+                return;
+            }
+            //ENDIF
+
+            int row = cell.x;
+            int col = cell.y;
 
+            // Is it a right mouse click in the game?
+            if (SwingUtilities.isRightMouseButton(ev) &&
+                gameView instanceof SwingGameView)
+            {
+
+                //IF the clicked cell is on the board
+                if (row >= 0 && row < numRows && col >= 0 && col < numCols)
+                {
+                    //Move the selected unit straight to the clicked cell
+                    gameView.acceptCommand(gameCommand.set(
+                        PlayerAction.kMoveTo, row, col));
+                }
+                //ENDIF
+            }
+            // Is it a left mouse click?
+            else if (SwingUtilities.isLeftMouseButton(ev))
+            {
                 //Fixes defect #231
                 //IF clicked row is above bounds
-                if (row >= GameBoard.kNumRows)
+                if (row >= numRows)
                 {
-                    //SET row to 1 less than kNumRows
-                    row = GameBoard.kNumRows - 1;
+                    //SET row to 1 less than numRows
+                    row = numRows - 1;
                 }
                 //ELSE IF clicked row is below bounds
                 else if (row < 0)
@@ -588,10 +1533,10 @@ public class MapView extends JPanel
                 }
 
                 //IF clicked col is above bounds
-                if (col >= GameBoard.kNumCols)
+                if (col >= numCols)
                 {
-                    //SET col to 1 less than kNumCols
-                    col = GameBoard.kNumCols - 1;
+                    //SET col to 1 less than numCols
+                    col = numCols - 1;
                 }
                 //ELSE IF clicked col is below bounds
                 else if (col < 0)
@@ -603,15 +1548,13 @@ public class MapView extends JPanel
                 //IF gameView is a SwingGameView
                 if (gameView instanceof SwingGameView)
                 {
-                    String action = PlayerAction.kSelect.toString() +
-                        " " + row + " " + col;
-                    gameView.acceptAction(action);
+                    gameView.acceptCommand(gameCommand.set(
+                        PlayerAction.kSelect, row, col));
                 }
                 else
                 {
-                    String action = EditorAction.kSelectCell.toString() +
-                        " " + row + " " + col;
-                    gameView.acceptAction(action);
+                    gameView.acceptCommand(editorCommand.set(
+                        EditorAction.kSelectCell, row, col));
                 }
             }
         }
@@ -6,21 +6,24 @@ import java.awt.Point;
 import java.awt.event.ActionEvent;
 import javax.swing.Action;
 import toleco.view.I_GameView;
+import toleco.logic.BoardChange;
 import toleco.logic.GameBoard;
 import toleco.unit.Unit;
 import java.awt.image.BufferedImage;
-import java.io.File;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Observable;
-import javax.imageio.ImageIO;
+import java.util.concurrent.Executor;
 import javax.swing.AbstractAction;
 import javax.swing.BoxLayout;
 import javax.swing.JComponent;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.JScrollPane;
 import javax.swing.KeyStroke;
+import javax.swing.SwingUtilities;
+import toleco.controller.Command;
 import toleco.controller.Player;
 import toleco.controller.PlayerAction;
 import toleco.terrain.Terrain;
@@ -28,9 +31,10 @@ import toleco.terrain.Terrain;
 
 /**
 * A SwingGameView is the main controller for the GUI.  The SwingGameView
-* maintains the MapView, the StatusView, and the GameButtonView. The HashMap
-* is created using unit names from the UnitFactory and with the images loaded
-* with the same name as the units.
+* maintains the MapView, the StatusView, and the GameButtonView. The images
+* are the ones shared by every view, from the AssetManager. Tasks handed to
+* it through execute() are carried out on the Swing event thread, which is
+* the thread that drives the controller.
 *
 * This is the view in the MVC architecture.
 *
@@ -38,47 +42,9 @@ import toleco.terrain.Terrain;
 * @author Eriq Augustine (Implementation)
 * @version 1.0
 */
-public class SwingGameView extends Observable implements I_GameView
+public class SwingGameView extends Observable implements I_GameView,
+    Executor
 {
-    /**
-    * The folder that all unit images are to be held in.
-    */
-    private static final String kUnitImagePath = new String("images/units/");
-    
-    /**
-    * The folder that all terrain images are to be held in.
-    */
-    private static final String kTerrainImagePath = 
-        new String("images/terrain/");
-    
-    /**
-    * The path to the overlay image for the first player.
-    */
-    private static final String kPlayerOneOverlayPath =
-        new String("images/OverlayPlayer1.gif");
-    
-    /**
-    * The path to the overlay image for the first player.
-    */
-    private static final String kPlayerTwoOverlayPath =
-        new String("images/OverlayPlayer2.gif");
-    
-    /**
-    * The path to the image for the default Unit.
-    */
-    private static final String kDefaultImagePath = 
-        new String("images/Default.gif");
-    
-    /**
-    * The root of the folder that all images are to be held in.
-    */
-    private static final String kImagePath = new String("images/");
-    
-    /**
-    * The extension for all images.
-    */
-    private static final String kImageExtension = new String(".gif");
-    
     /**
     * The color of the background for when the first player is active.
     */
@@ -89,47 +55,6 @@ public class SwingGameView extends Observable implements I_GameView
     */
     private static final Color kPlayerTwoColor = new Color(199, 21, 133);
     
-    /**
-    * The image representing a selected location.
-    */
-    private static final String kSelectImage = new String("images/Select.gif");
-    
-    /**
-    * The image representing a crush attack type.
-    */
-    private static final String kCrushImage = new String("images/Crush.gif");
-    
-    /**
-    * The image representing a crush attack type.
-    */
-    private static final String kPierceImage = new String("images/Pierce.gif");
-    
-    /**
-    * The image representing a maul attack type.
-    */
-    private static final String kMaulImage = new String("images/Maul.gif");
-    
-    /**
-    * The image representing a hide armor type.
-    */
-    private static final String kHideImage = new String("images/Hide.gif");
-    
-    /**
-    * The image representing a padded armor type.
-    */
-    private static final String kPaddedImage = new String("images/Padded.gif");
-    
-    /**
-    * The image representing a bone armor type.
-    */
-    private static final String kBoneImage = new String("images/Bone.gif");
-    
-    /**
-    * The image representing a highlighted location.
-    */
-    private static final String kHighlightImage = 
-        new String("images/Highlight.gif");
-    
     /**
      * The width of the map area (in pixels).
      */
@@ -148,7 +73,7 @@ public class SwingGameView extends Observable implements I_GameView
     /**
     * Holds the game images used by the GUI.
     */
-    private MyHash images;
+    private HashMap<String, BufferedImage> images;
     
     /**
     * A JPanel representing the SwingGameView.
@@ -179,6 +104,11 @@ public class SwingGameView extends Observable implements I_GameView
     * Status is the game status the GUI will display.
     */
     private StatusView status;
+
+    /**
+    * The Command filled in and issued for each key press.
+    */
+    private Command<PlayerAction> keyCommand = new Command<PlayerAction>();
     
     /**
      * Creates new form SwingGameView.
@@ -190,14 +120,11 @@ public class SwingGameView extends Observable implements I_GameView
         this.board = board;
         
         
-        //Initialize images to be an empty HashMap<String, BufferedImage>.
-        images = new MyHash();
-        
-        //CALL loadImages.
-        loadImages();
+        //GET the images shared by every view from the AssetManager.
+        images = AssetManager.getShared().getImages();
         
-        //Initialize map to a new MapView.
-        map = new MapView(images);
+        //Initialize map to a new MapView of the configured kind.
+        map = MapView.create(images);
         
         //CALL map.setGameView with this.
         map.setGameView(this);
@@ -238,8 +165,8 @@ public class SwingGameView extends Observable implements I_GameView
     public SwingGameView(GameBoard board, MapView map, StatusView status,
     GameButtonView buttons)
     {
-        //Initialize images to be an empty HashMap<String, BufferedImage>.
-        images = new MyHash();
+        //GET the images shared by every view from the AssetManager.
+        images = AssetManager.getShared().getImages();
         
         //Set this.board to the passed in GameBoard.
         this.board = board;
@@ -267,9 +194,6 @@ public class SwingGameView extends Observable implements I_GameView
         
         //Call initComponents.
         initComponents();
-        
-        //CALL loadImages
-        loadImages();
     }
     
     /**
@@ -290,8 +214,9 @@ public class SwingGameView extends Observable implements I_GameView
         //Set panel's layout to be the newly created layout.
         panel.setLayout(layout);
         
-        //Add map to panel.
-        panel.add(map);
+        //Add map to panel inside a scroll pane so that maps larger than the
+        // map area can still be reached.
+        panel.add(new JScrollPane(map));
         
         //Set innerPanel's maximum size to kStatusWidth x kMapHeight.
         innerPanel.setMaximumSize(new java.awt.Dimension(kStatusWidth, kMapHeight));
@@ -346,272 +271,6 @@ public class SwingGameView extends Observable implements I_GameView
     {
         //Set this.board to be the passed in board.
         this.board = board;
-        
-        //CALL loadImages.
-        loadImages();
-    }
-    
-    /**
-    * Stores all default images into images
-    */
-    private void loadDefaultImage()
-    {
-        //TRY
-        try
-        {
-            //Load the image at kdefaultImagePath into a BufferedImage.
-            BufferedImage temp = ImageIO.read(new File(kDefaultImagePath));
-            
-            //Call images.setDefaultImage with temp.
-            images.setDefaultImage(temp);
-        }
-        //CATCH
-        catch (Exception ex)
-        {
-            //Print an error about being unable to locate the image file.
-            System.err.println("Unable to load the default image.");
-        }
-        //END
-    }
-    
-    /**
-    * Stores all unit images into images
-    */
-    private void loadUnitImages()
-    {
-        //Get an ArrayList of Unit names from the new board.
-        ArrayList<String> unitList = board.getUnitNames();
-        
-        //FOR all Unit names
-        for(String unit : unitList)
-        {
-            //Concat the image path, unit name, and image extension.
-            String unitImage = kUnitImagePath + unit + kImageExtension;
-            
-            //TRY
-            try
-            {
-                //Using ImageIO.read, get a buffered image from the image path.
-                BufferedImage temp = ImageIO.read(new File(unitImage));
-                
-                //Add the new BufferedImage to the hash of images using the unit's
-                // name as the key and image as the value.
-                images.put(unit, temp);
-            }
-            //CATCH IOException
-            catch (Exception ex)
-            {
-                //Print an error about being unable to locate the image file.
-                System.err.println("Unable to locate image file for '" + unit +
-                    "' unit.");
-            }
-            //END
-        }
-        //END FOR
-    }
-    
-    /**
-    * Store all location images in images
-    */
-    private void loadTerrainImages()
-    {
-        //Get an ArrayList of Terrain names from the new board.
-        ArrayList<String> terrains = board.getTerrainNames();
-        
-        //FOR all terrain names.
-        for (String tName : terrains)
-        {
-            //Concat the image path, terrain name, and image extension.
-            String terrainImage = kTerrainImagePath + tName + kImageExtension;
-            
-            //TRY
-            try
-            {
-                //Using ImageIO.read, get a buffered image from the image path.
-                BufferedImage temp = ImageIO.read(new File(terrainImage));
-                
-                //Add the new BufferedImage to the hash of images using the terrain's
-                // name as the key and image as the value.
-                images.put(tName, temp);
-            }
-            //CATCH IOException
-            catch (Exception ex)
-            {
-                //Print an error about being unable to locate the image file.
-                System.err.println("Unable to locate image file for '" +
-                    tName + "' terrian.");
-            }
-            //END
-        }
-    }
-    
-    /**
-    * Load the selection images into images
-    */
-    private void loadSelectImages()
-    {
-        //TRY
-        try
-        {
-            //Using ImageIO.read, get a buffered image from the select image path.
-            BufferedImage temp = ImageIO.read(new File(kSelectImage));
-            
-            //Add the new BufferedImage to the hash of images using "select"
-            // as the key and image as the value.
-            images.put("Select", temp);
-            
-            //Using ImageIO.read, get a buffered image from the highlight image path.
-            temp = ImageIO.read(new File(kHighlightImage));
-            
-            //Add the new BufferedImage to the hash of images using "highlight"
-            // as the key and image as the value.
-            images.put("Highlight", temp);
-        }
-        //CATCH
-        catch (Exception ex)
-        {
-            //Print an error about being unable to locate the image file.
-            System.err.println("Unable to locate select or highlight image files.");
-        }
-        //END
-    }
-    
-    /**
-    * Loads the overlay images into images
-    */
-    private void loadOverlayImages()
-    {
-        //TRY
-        try
-        {
-            //Using ImageIO.read, get a buffered image from the
-            // player one overlay image path.
-            BufferedImage temp =
-                ImageIO.read(new File(kPlayerOneOverlayPath));
-            
-            //Add the new BufferedImage to the hash of images using "OverlayPlayer1"
-            // as the key and image as the value.
-            images.put("OverlayPlayer1", temp);
-            
-            //Using ImageIO.read, get a buffered image from the player
-            // two overlay image path.
-            temp = ImageIO.read(new File(kPlayerTwoOverlayPath));
-            
-            //Add the new BufferedImage to the hash of images using "OverlayPlayer2"
-            // as the key and image as the value.
-            images.put("OverlayPlayer2", temp);
-        }
-        //CATCH
-        catch (Exception ex)
-        {
-            //Print an error about being unable to locate the image file.
-            System.err.println("Unable to locate overlay image files.");
-        }
-        //END
-    }
-    
-    /**
-    * Loads the attack type images into images
-    */
-    private void loadAttackTypeImages()
-    {
-        //TRY
-        try
-        {
-            //Using ImageIO.read, get a buffered image from the Crush image path.
-            BufferedImage temp = ImageIO.read(new File(kCrushImage));
-            
-            //Add the new BufferedImage to the hash of images using Crush
-            // as the key and image as the value.
-            images.put("kCrush", temp);
-            
-            //Using ImageIO.read, get a buffered image from the Pierce image path.
-            temp = ImageIO.read(new File(kPierceImage));
-            
-            //Add the new BufferedImage to the hash of images using Pierce
-            // as the key and image as the value.
-            images.put("kPierce", temp);
-            
-            //Using ImageIO.read, get a buffered image from the Maul image path.
-            temp = ImageIO.read(new File(kMaulImage));
-            
-            //Add the new BufferedImage to the hash of images using Maul
-            // as the key and image as the value.
-            images.put("kMaul", temp);
-        }
-        //CATCH
-        catch (Exception ex)
-        {
-            //Print an error about being unable to locate the image file.
-            System.err.println("Unable to locate attack type image files.");
-        }
-        //END
-    }
-    
-    /**
-    * Loads the armor type images into images
-    */
-    private void loadArmorTypeImages()
-    {
-        //TRY
-        try
-        {
-            //Using ImageIO.read, get a buffered image from the Hide image path.
-            BufferedImage temp = ImageIO.read(new File(kHideImage));
-            
-            //Add the new BufferedImage to the hash of images using Hide
-            // as the key and image as the value.
-            images.put("kHide", temp);
-            
-            //Using ImageIO.read, get a buffered image from the Padded image path.
-            temp = ImageIO.read(new File(kPaddedImage));
-            
-            //Add the new BufferedImage to the hash of images using Padded
-            // as the key and image as the value.
-            images.put("kPadded", temp);
-            
-            //Using ImageIO.read, get a buffered image from the Bone image path.
-            temp = ImageIO.read(new File(kBoneImage));
-            
-            //Add the new BufferedImage to the hash of images using Bone
-            // as the key and image as the value.
-            images.put("kBone", temp);
-        }
-        //CATCH
-        catch (Exception ex)
-        {
-            //Print an error about being unable to locate the image file.
-            System.err.println("Unable to locate armor type image files.");
-        }
-        //END
-    }
-    
-    
-    /**
-    * @pre board is not null
-    */
-    private void loadImages()
-    {
-        //CALL loadDefaultImage
-        loadDefaultImage();
-        
-        //CALL loadUnitImages.
-        loadUnitImages();
-        
-        //CALL loadTerrainImages.
-        loadTerrainImages();
-        
-        //CALL loadSelectImages.
-        loadSelectImages();
-        
-        //CALL loadAttackTypeImages
-        loadAttackTypeImages();
-        
-        //CALL loadArmorTypeImages
-        loadArmorTypeImages();
-        
-        //Call loadOverlayImages
-        loadOverlayImages();
     }
     
     /**
@@ -645,11 +304,20 @@ public class SwingGameView extends Observable implements I_GameView
     */
     public void update(Observable obs, Object obj)
     {
-        //IF obj is an ArrayList
-        if (obj instanceof ArrayList)
+        ArrayList<Point> enemies = null;
+        Player newPlayer = null;
+
+        //IF obj is a BoardChange, take the enemies and player from it
+        if (obj instanceof BoardChange)
+        {
+            enemies = ((BoardChange)obj).getEnemies();
+            newPlayer = ((BoardChange)obj).getPlayer();
+        }
+        //ELSEIF obj is an ArrayList
+        else if (obj instanceof ArrayList)
         {
             //Create a new ArrayList<Point>.
-            ArrayList<Point> enemies = new ArrayList<Point>();
+            enemies = new ArrayList<Point>();
 
             //Cast obj to an ArrayList (note that this is not a generic ArrayList).
             ArrayList temp = ((ArrayList)(obj));
@@ -661,19 +329,29 @@ public class SwingGameView extends Observable implements I_GameView
                 enemies.add(((Point)(element)));
             }
             //ENDFOR
-            
-            //CALL MapView.addHighlights with the ArrayList<Point>
-            map.addHighlights(enemies);
         }
         //ELSEIF obj is a Player
         else if (obj instanceof Player)
+        {
+            //Cast obj to a Player
+            newPlayer = (Player)(obj);
+        }
+        //END
+
+        //IF there are enemies to show
+        if (enemies != null)
+        {
+            //CALL MapView.addHighlights with the ArrayList<Point>
+            map.addHighlights(enemies);
+        }
+        //ENDIF
+
+        //IF it is a new player's turn
+        if (newPlayer != null)
         {
             //Switch the StatusGameView to display the backstory
             status.switchToBackStory(board.getBackStory());
             
-            //Cast obj to a Player
-            Player newPlayer = (Player)(obj);
-            
             //Call switchPlayer
             switchPlayer(newPlayer);
 
@@ -681,7 +359,7 @@ public class SwingGameView extends Observable implements I_GameView
             //CALL map.deselectLocation
             map.deselectLocation();
         }
-        //END
+        //ENDIF
         
         //IF the board has a Terrain selected which has a Unit that can attack.
         if(((GameBoard)obs).getSelection() != null
@@ -699,8 +377,19 @@ public class SwingGameView extends Observable implements I_GameView
         }
         //ENDIF
         
-        //CALL drawMap on the the MapView
-        map.drawMap(board.getMap());
+        //IF obj is a BoardChange
+        if (obj instanceof BoardChange)
+        {
+            //CALL drawChange on the MapView to draw only what changed
+            map.drawChange(board, (BoardChange)obj);
+        }
+        //ELSE
+        else
+        {
+            //CALL drawMap on the the MapView
+            map.drawMap(board.getMap());
+        }
+        //ENDIF
         
         //IF the board has a selected Terrain.
         if (board.getSelection() != null)
@@ -748,6 +437,28 @@ public class SwingGameView extends Observable implements I_GameView
         //Call notifyObservers with the passed in String.
         notifyObservers(action);
     }
+
+    /**
+    * {@inheritDoc}
+    */
+    public void acceptCommand(Command<?> command)
+    {
+        //Call setChanged();
+        setChanged();
+
+        //Call notifyObservers with the passed in Command.
+        notifyObservers(command);
+    }
+
+    /**
+    * Carries out a task on the Swing event thread.
+    *
+    * @param task the task
+    */
+    public void execute(Runnable task)
+    {
+        SwingUtilities.invokeLater(task);
+    }
     
     /**
     * {@inheritDoc}
@@ -757,6 +468,18 @@ public class SwingGameView extends Observable implements I_GameView
     {
         //CALL tatus.switchToTerrainSelected with the selection from board.
         status.switchToTerrainSelected(board.getSelection());
+
+        //CALL map.removeHighLights to clear the last selection's cells.
+        map.removeHighLights();
+
+        //IF the selected Terrain has a Unit owned by the passed in player.
+        if (board.getSelection().getUnit() != null &&
+            board.getSelection().getUnit().getOwner() == currentPlayer)
+        {
+            //CALL map.addHighlights with the cells the Unit can move to.
+            map.addHighlights(board.getReachableCells());
+        }
+        //ENDIF
         
         //IF the selected Terrain has a Unit owned by the passed in player.
         if (board.getSelection().getUnit() != null &&
@@ -836,61 +559,17 @@ public class SwingGameView extends Observable implements I_GameView
     */
     private void setupKeys()
     {
-        //Create a new AbstractAction called upAction.
-        Action upAction = new AbstractAction()
-        {
-            //Override actionPerformed in the newly created AbstractAction.
-            public void actionPerformed(ActionEvent e)
-            {
-                //Call setChanged.
-                setChanged();
-                
-                //Call notifyObservers with PlayerAction.kMoveUp.toString().
-                notifyObservers(PlayerAction.kMoveUp.toString());
-            }
-        };
+        //Create an action called upAction that issues kMoveUp.
+        Action upAction = new IssueAction(PlayerAction.kMoveUp);
         
-        //Create a new AbstractAction called downAction.
-        Action downAction = new AbstractAction()
-        {
-            //Override actionPerformed in the newly created AbstractAction.
-            public void actionPerformed(ActionEvent e)
-            {
-                //Call setChanged.
-                setChanged();
-                
-                //Call notifyObservers with PlayerAction.kMoveDown.toString().
-                notifyObservers(PlayerAction.kMoveDown.toString());
-            }
-        };
+        //Create an action called downAction that issues kMoveDown.
+        Action downAction = new IssueAction(PlayerAction.kMoveDown);
         
-        //Create a new AbstractAction called leftAction.
-        Action leftAction = new AbstractAction()
-        {
-            //Override actionPerformed in the newly created AbstractAction.
-            public void actionPerformed(ActionEvent e)
-            {
-                //Call setChanged.
-                setChanged();
-                
-                //Call notifyObservers with PlayerAction.kMoveLeft.toString().
-                notifyObservers(PlayerAction.kMoveLeft.toString());
-            }
-        };
+        //Create an action called leftAction that issues kMoveLeft.
+        Action leftAction = new IssueAction(PlayerAction.kMoveLeft);
         
-        //Create a new AbstractAction called rightAction.
-        Action rightAction = new AbstractAction()
-        {
-            //Override actionPerformed in the newly created AbstractAction.
-            public void actionPerformed(ActionEvent e)
-            {
-                //Call setChanged.
-                setChanged();
-                
-                //Call notifyObservers with PlayerAction.kMoveRight.toString().
-                notifyObservers(PlayerAction.kMoveRight.toString());
-            }
-        };
+        //Create an action called rightAction that issues kMoveRight.
+        Action rightAction = new IssueAction(PlayerAction.kMoveRight);
         
         //Put into panel's WHEN_IN_FOCUSED_WINDOW InputMap the KeyStroke
         // "released UP" and the String "upAction"
@@ -927,67 +606,51 @@ public class SwingGameView extends Observable implements I_GameView
         //Put into panel's ActionMap the String "rightAction"
         // and the AbstractAction rightAction.
         panel.getActionMap().put("rightAction", rightAction);
+
+        //Put into panel's WHEN_IN_FOCUSED_WINDOW InputMap the
+        // KeyStrokes "control Z" and "control Y" for undo and redo.
+        panel.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(
+            KeyStroke.getKeyStroke("control Z"), "undoAction");
+        panel.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(
+            KeyStroke.getKeyStroke("control Y"), "redoAction");
+
+        //Put into panel's ActionMap actions that issue kUndo and kRedo.
+        panel.getActionMap().put("undoAction",
+            new IssueAction(PlayerAction.kUndo));
+        panel.getActionMap().put("redoAction",
+            new IssueAction(PlayerAction.kRedo));
     }
     
     /**
-    * A private class to provide extra functionality to a HashMap.
-    * A MyHash provides all teh same functionality as a HashMap except that
-    * if a key is not found, than get() returns a default value set on construction.
+    * An action that issues a PlayerAction to the controller when a key is
+    * pressed.
     */
-    private class MyHash extends HashMap<String, BufferedImage>
+    private class IssueAction extends AbstractAction
     {
         /**
-        * A default value to return if a key is not found.
+        * The PlayerAction to issue.
         */
-        private BufferedImage defaultImage;
-        
-        /**
-        * Constructs a new MyHash using null as the 'default image'.
-        */
-        public MyHash()
-        {
-            //CALL super
-            super();
-            
-            //Set defaultImage to be the passed in BufferedImage.
-            this.defaultImage = null;
-        }
-        
+        private PlayerAction action;
+
         /**
-        * Sets the default image to be the passed in BufferedImage.
+        * Makes an action that issues the given PlayerAction.
         *
-        * @param img the new default image.
+        * @param action the PlayerAction to issue
         */
-        public void setDefaultImage(BufferedImage img)
+        IssueAction(PlayerAction action)
         {
-            //Set defaultImage to be the passed in BufferedImage.
-            defaultImage = img;
+            this.action = action;
         }
-        
+
         /**
-        * Returns the value repesented by key in the hashmap.
+        * Issues the PlayerAction.
         *
-        * @param key the key linked to the value being searched for
-        * @return the BufferedImage reresented by key, or a default image if the key was
-        * not found.
+        * @param e the key event
         */
-        @Override
-        public BufferedImage get(Object key)
+        public void actionPerformed(ActionEvent e)
         {
-            //Create a new BufferedImage and give it the result
-            // of a call to super.get with the given key.
-            BufferedImage rtn = super.get((String)key);
-            
-            //IF the newly created BufferedImage is null.
-            if (rtn == null)
-            {
-                //Set the BufferedImage to the defaultImage.
-                rtn = defaultImage;
-            }
-            //ENDIF
-            
-            //RETURN the created BufferedImage.
-            return rtn;
+            //Call acceptCommand with the key's Command, filled in.
+            acceptCommand(keyCommand.set(action));
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,302 @@
+package toleco.view.gui;
+
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+* A bounded cache of composited map tiles, so that the many cells of a map
+* that look alike, such as every empty Plains, share one image instead of
+* each composing its own. A tile is found by the images it was composed from,
+* its terrain, unit (greyed or not), team overlay and selection or highlight,
+* the background it was composed on, and the size it was scaled to. When the cache is full the tile used
+* least recently is dropped.
+* Images are compared by identity, so a tile is only shared by MapViews that
+* show the same loaded images, and a name given a new image gets new tiles.
+* Tiles handed out are shared and must not be drawn on.
+* One shared cache, from getShared(), is used by every MapView unless it is
+* given its own, and counts its hits and misses so its use can be checked.
+*
+* @author Eriq Augustine
+* @version 1.0
+*/
+public class TileCache
+{
+    /**
+    * The number of tiles the shared cache holds, enough for every look of a
+    * large map at a few zoom levels with memory to spare (a tile is about
+    * 6 KB, and 25 KB at the largest zoom level).
+    */
+    public static final int kDefaultCapacity = 1024;
+
+    /**
+    * The cache used by every MapView not given one of its own.
+    */
+    private static TileCache shared = new TileCache(kDefaultCapacity);
+
+    /**
+    * The tiles, by what they were composed from, least recently used first.
+    */
+    private LinkedHashMap<Key, BufferedImage> tiles;
+
+    /**
+    * The most tiles kept.
+    */
+    private int capacity;
+
+    /**
+    * The number of bytes of pixels in the tiles kept.
+    */
+    private long memory;
+
+    /**
+    * The number of lookups that found a tile.
+    */
+    private long hits;
+
+    /**
+    * The number of lookups that did not.
+    */
+    private long misses;
+
+    /**
+    * Makes an empty cache.
+    *
+    * @param capacity the most tiles to keep, at least 1
+    */
+    public TileCache(int capacity)
+    {
+        this.capacity = capacity;
+        tiles = new LinkedHashMap<Key, BufferedImage>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(
+                Map.Entry<Key, BufferedImage> eldest)
+            {
+                //IF the cache is too full, drop the tile used least recently
+                if (size() > TileCache.this.capacity)
+                {
+                    memory -= bytesOf(eldest.getValue());
+                    return true;
+                }
+                //ENDIF
+                return false;
+            }
+        };
+    }
+
+    /**
+    * Gets the cache shared by every MapView not given its own.
+    *
+    * @return the shared cache
+    */
+    public static TileCache getShared()
+    {
+        return shared;
+    }
+
+    /**
+    * Gets the tile composed from the given images, if it is kept.
+    *
+    * @param key what the tile is composed from
+    * @return the tile, or null if it is not kept
+    */
+    public synchronized BufferedImage get(Key key)
+    {
+        BufferedImage tile = tiles.get(key);
+
+        //IF it was kept, count a hit, ELSE a miss
+        if (tile != null)
+        {
+            hits++;
+        }
+        else
+        {
+            misses++;
+        }
+        //ENDIF
+
+        return tile;
+    }
+
+    /**
+    * Keeps a tile, dropping the tile used least recently if the cache is
+    * full.
+    *
+    * @param key what the tile is composed from
+    * @param tile the tile, which must not be drawn on afterwards
+    */
+    public synchronized void put(Key key, BufferedImage tile)
+    {
+        BufferedImage old = tiles.put(key, tile);
+
+        //IF it replaced a tile, forget the old one's memory
+        if (old != null)
+        {
+            memory -= bytesOf(old);
+        }
+        //ENDIF
+        memory += bytesOf(tile);
+    }
+
+    /**
+    * Drops every tile and resets the counts.
+    */
+    public synchronized void clear()
+    {
+        tiles.clear();
+        memory = 0;
+        hits = 0;
+        misses = 0;
+    }
+
+    /**
+    * Gets the number of tiles kept.
+    *
+    * @return the number of tiles
+    */
+    public synchronized int getSize()
+    {
+        return tiles.size();
+    }
+
+    /**
+    * Gets the most tiles kept.
+    *
+    * @return the capacity
+    */
+    public int getCapacity()
+    {
+        return capacity;
+    }
+
+    /**
+    * Gets the memory used by the pixels of the tiles kept.
+    *
+    * @return the number of bytes
+    */
+    public synchronized long getMemory()
+    {
+        return memory;
+    }
+
+    /**
+    * Gets the number of lookups that found a tile.
+    *
+    * @return the number of hits
+    */
+    public synchronized long getHits()
+    {
+        return hits;
+    }
+
+    /**
+    * Gets the number of lookups that did not find a tile.
+    *
+    * @return the number of misses
+    */
+    public synchronized long getMisses()
+    {
+        return misses;
+    }
+
+    /**
+    * Gets the fraction of lookups that found a tile.
+    *
+    * @return the hit rate from 0 to 1, or 0 if nothing has been looked up
+    */
+    public synchronized double getHitRate()
+    {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double)hits / lookups;
+    }
+
+    /**
+    * Gets the number of bytes of pixels in an image, at four bytes a pixel.
+    *
+    * @param image the image
+    * @return its size in bytes
+    */
+    private static long bytesOf(BufferedImage image)
+    {
+        return 4L * image.getWidth() * image.getHeight();
+    }
+
+    /**
+    * What a tile is composed from. Images are compared by identity.
+    */
+    public static final class Key
+    {
+        private BufferedImage terrain;
+        private BufferedImage unit;
+        private BufferedImage overlay;
+        private BufferedImage select;
+        private int background;
+        private int size;
+
+        /**
+        * Makes a key for a tile MapView.kImageSize square.
+        *
+        * @param terrain the terrain image
+        * @param unit the unit image, greyed or not, or null
+        * @param overlay the team overlay image, or null
+        * @param select the selection or highlight image, or null
+        * @param background the RGB of the background the tile is composed on
+        */
+        public Key(BufferedImage terrain, BufferedImage unit,
+            BufferedImage overlay, BufferedImage select, int background)
+        {
+            this(terrain, unit, overlay, select, background,
+                MapView.kImageSize);
+        }
+
+        /**
+        * Makes a key for a tile scaled to a size.
+        *
+        * @param terrain the terrain image
+        * @param unit the unit image, greyed or not, or null
+        * @param overlay the team overlay image, or null
+        * @param select the selection or highlight image, or null
+        * @param background the RGB of the background the tile is composed on
+        * @param size the width and height the tile is scaled to
+        */
+        public Key(BufferedImage terrain, BufferedImage unit,
+            BufferedImage overlay, BufferedImage select, int background,
+            int size)
+        {
+            this.terrain = terrain;
+            this.unit = unit;
+            this.overlay = overlay;
+            this.select = select;
+            this.background = background;
+            this.size = size;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            //IF it is not a key
+            if (!(obj instanceof Key))
+            {
+                return false;
+            }
+            //ENDIF
+
+            Key other = (Key)obj;
+            return terrain == other.terrain && unit == other.unit &&
+                overlay == other.overlay && select == other.select &&
+                background == other.background && size == other.size;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            int hash = System.identityHashCode(terrain);
+            hash = hash * 31 + System.identityHashCode(unit);
+            hash = hash * 31 + System.identityHashCode(overlay);
+            hash = hash * 31 + System.identityHashCode(select);
+            hash = hash * 31 + background;
+            return hash * 31 + size;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package toleco.view.gui;
 import java.awt.Graphics2D;
 import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
+import java.util.IdentityHashMap;
 import javax.swing.ImageIcon;
 import toleco.terrain.Terrain;
 import toleco.unit.Unit;
@@ -30,6 +31,12 @@ import toleco.unit.Unit;
  */
 public class UnitSelected extends javax.swing.JPanel
 {
+    /**
+     * The scaled portrait of each unit image shown, so a unit's image is
+     * only scaled the first time it is selected.
+     */
+    private IdentityHashMap<BufferedImage, ImageIcon> portraits =
+        new IdentityHashMap<BufferedImage, ImageIcon>();
 
     /** 
      * Creates new form UnitSelected.
@@ -65,20 +72,31 @@ public class UnitSelected extends javax.swing.JPanel
         //GET unit from terrain
         Unit unit = terrain.getUnit();
 
-        //Scale the image to fit the portrait
-        BufferedImage scaledUnit = new BufferedImage(kWidth, kHeight,
-                BufferedImage.TYPE_INT_RGB);
-        //INIT Graphics2D by calling createGraphics on scaledImage
-        Graphics2D graphics2D = scaledUnit.createGraphics();
-        //CALL setRenderingHint with hints KEY_INTERPOLATION and
-        //VALUE_INTERPOLATION_BILINEAR
-        graphics2D.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
-                RenderingHints.VALUE_INTERPOLATION_BILINEAR);
-        //draw the iamge
-        graphics2D.drawImage(unitImage, 0, 0, kWidth, kHeight, null);
+        //GET the portrait of the unit image, if it has been scaled before
+        ImageIcon portrait = portraits.get(unitImage);
+
+        //IF it has not, scale the image to fit the portrait
+        if (portrait == null)
+        {
+            BufferedImage scaledUnit = new BufferedImage(kWidth, kHeight,
+                    BufferedImage.TYPE_INT_RGB);
+            //INIT Graphics2D by calling createGraphics on scaledImage
+            Graphics2D graphics2D = scaledUnit.createGraphics();
+            //CALL setRenderingHint with hints KEY_INTERPOLATION and
+            //VALUE_INTERPOLATION_BILINEAR
+            graphics2D.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                    RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            //draw the iamge
+            graphics2D.drawImage(unitImage, 0, 0, kWidth, kHeight, null);
+            graphics2D.dispose();
+
+            portrait = new ImageIcon(scaledUnit);
+            portraits.put(unitImage, portrait);
+        }
+        //ENDIF
 
         //SET the unit image
-        unitPortrait.setIcon(new ImageIcon(scaledUnit));
+        unitPortrait.setIcon(portrait);
         //SET unit name
         unitName.setText(unit.getType());
         //SET health display
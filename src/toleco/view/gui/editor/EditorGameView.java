@@ -1,18 +1,20 @@
 package toleco.view.gui.editor;
 
 import java.awt.Component;
+import toleco.logic.BoardChange;
 import toleco.logic.GameBoard;
 import toleco.unit.Unit;
+import toleco.view.gui.AssetManager;
 import toleco.view.gui.MapView;
 import toleco.view.I_GameView;
 import java.awt.image.BufferedImage;
-import java.io.File;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Observable;
-import javax.imageio.ImageIO;
 import javax.swing.BoxLayout;
 import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import toleco.controller.Command;
 import toleco.controller.Player;
 import toleco.terrain.Terrain;
 
@@ -30,46 +32,11 @@ import toleco.terrain.Terrain;
 public class EditorGameView extends Observable implements I_GameView
 {
     
-    /**
-     * The folder that all unit images are to be held in.
-     */
-    private static final String kUnitImagePath = "images/units/";
-
-    /**
-     * The folder that all terrain images are to be held in.
-     */
-    private static final String kTerrainImagePath = "images/terrain/";
-
-    /**
-     * The folder that all terrain images are to be held in.
-     */
-    private static final String kPlayerOneOverlayPath = "images/OverlayPlayer1.gif";
-
-    /**
-     * The folder that all terrain images are to be held in.
-     */
-    private static final String kPlayerTwoOverlayPath = "images/OverlayPlayer2.gif";
-
-    /**
-     * The root of the folder that all images are to be held in.
-     */
-    private static final String kImagePath = "images/";
-
-    /**
-    * The path to the image for the default Unit.
-    */
-    private static final String kDefaultImagePath = "images/Default.gif";
-
-    /**
-     * The extension for all images.
-     */
-    private static final String kImageExtension = ".gif";
-
     /**
     * A collection of all images used within the map editor. The key to an
     * image is the name of the unit/terrain/selector it represents.
     */
-    private MyHash images;
+    private HashMap<String, BufferedImage> images;
     
     /**
     * The playing area that units and terrain occupy.
@@ -114,14 +81,11 @@ public class EditorGameView extends Observable implements I_GameView
         this.board = board;
 
 
-        //Initialize images to be an empty HashMap<String, BufferedImage>.
-        images = new MyHash();
-
-        //CALL loadImages.
-        loadImages();
+        //GET the images shared by every view from the AssetManager.
+        images = AssetManager.getShared().getImages();
 
-        //Initialize map to a new MapView.
-        map = new MapView(images);
+        //Initialize map to a new MapView of the configured kind.
+        map = MapView.create(images);
 
         //CALL map.setGameView with this.
         map.setGameView(this);
@@ -162,8 +126,8 @@ public class EditorGameView extends Observable implements I_GameView
     public EditorGameView(GameBoard board, MapView map, ToolView tools,
         EditorButtonView buttons)
     {
-        //Initialize images to be an empty HashMap<String, BufferedImage>.
-        images = new MyHash();
+        //GET the images shared by every view from the AssetManager.
+        images = AssetManager.getShared().getImages();
 
         //Set this.board to the passed in GameBoard.
         this.board = board;
@@ -191,9 +155,6 @@ public class EditorGameView extends Observable implements I_GameView
 
         //Call initComponents.
         initComponents();
-
-        //CALL loadImages
-        loadImages();
     }
 
     /**
@@ -231,8 +192,19 @@ public class EditorGameView extends Observable implements I_GameView
     */
     public void update(Observable obs, Object obj)
     {
-        //CALL drawMap
-        map.drawMap(board.getMap());
+        //IF obj is a BoardChange
+        if (obj instanceof BoardChange)
+        {
+            //CALL drawChange to draw only what changed
+            map.drawChange(board, (BoardChange)obj);
+        }
+        //ELSE
+        else
+        {
+            //CALL drawMap
+            map.drawMap(board.getMap());
+        }
+        //ENDIF
     }
     
     /**
@@ -281,60 +253,31 @@ public class EditorGameView extends Observable implements I_GameView
     }
 
     /**
-     * {@inheritDoc}
-     */
-    public void displayBackStory(String story)
+    * {@inheritDoc}
+    */
+    public void acceptCommand(Command<?> command)
     {
-        //Not Supported
+        //Call setChanged();
+        setChanged();
+
+        //Call notifyObservers with the passed in Command.
+        notifyObservers(command);
     }
 
     /**
      * {@inheritDoc}
      */
-    public void displayTerrainSelected(Player currentPLayer)
+    public void displayBackStory(String story)
     {
         //Not Supported
     }
 
     /**
-     * @pre board is not null
+     * {@inheritDoc}
      */
-    private void loadImages()
-    {
-        //CALL loadDefaultImage.
-        loadDefaultImage();
-                
-        //CALL loadUnitImages.
-        loadUnitImages();
-
-        //CALL loadTerrainImages.
-        loadTerrainImages();
-
-        //Call loadOverlayImages
-        loadOverlayImages();
-    }
-
-    /**
-    * Stores all default images into images
-    */
-    private void loadDefaultImage()
+    public void displayTerrainSelected(Player currentPLayer)
     {
-        //TRY
-        try
-        {
-            //Load the image at kdefaultImagePath into a BufferedImage.
-            BufferedImage temp = ImageIO.read(new File(kDefaultImagePath));
-
-            //Call images.setDefaultImage with temp.
-            images.setDefaultImage(temp);
-        }
-        //CATCH
-        catch (Exception ex)
-        {
-            //Print an error about being unable to locate the image file.
-            System.err.println("Unable to load the default image.");
-        }
-        //END
+        //Not Supported
     }
 
     //CHECKSTYLE:OFF - Ignore generated code.
@@ -348,7 +291,7 @@ public class EditorGameView extends Observable implements I_GameView
         BoxLayout layout = new BoxLayout(panel, BoxLayout.X_AXIS);
         panel.setLayout(layout);
 
-        panel.add(map);
+        panel.add(new JScrollPane(map));
 
         innerPanel.setMaximumSize(new java.awt.Dimension(200, 415));
         innerPanel.setMinimumSize(new java.awt.Dimension(200, 415));
@@ -375,105 +318,6 @@ public class EditorGameView extends Observable implements I_GameView
 
     //CHECKSTYLE:ON
 
-    /**
-     * Stores all unit images into images
-     */
-    private void loadUnitImages()
-    {
-        //Get an ArrayList of Unit names from the new board.
-        ArrayList<String> unitList = board.getUnitNames();
-        //FOR all Unit names
-        for(String unit : unitList)
-        {
-            //Concat the image path, unit name, and image extension.
-            String unitImage = kUnitImagePath + unit + kImageExtension;
-
-            //TRY
-            try
-            {
-                //Using ImageIO.read, get a buffered image from the image path.
-                //System.err.println(new File("/build.xml"));
-                BufferedImage temp = ImageIO.read(new File(unitImage));
-
-                //Add the new BufferedImage to the hash of images using the unit's
-                // name as the key and image as the value.
-                images.put(unit, temp);
-            }
-            //CATCH IOException
-            catch (Exception ex)
-            {
-                //Print an error about being unable to locate the image file.
-                System.err.println("Unable to locate image file for " + unit +
-                        " unit.");
-            }
-        }
-        //END FOR
-    }
-
-    /**
-     * Store all location images in images
-     */
-    private void loadTerrainImages()
-    {
-        //Get an ArrayList of Terrain names from the new board.
-        ArrayList<String> terrains = board.getTerrainNames();
-        //FOR all Terrain names.
-        for (String tName : terrains)
-        {
-            //Concat the image path, terrain name, and image extension.
-            String terrainImage = kTerrainImagePath + tName + kImageExtension;
-
-            //TRY
-            try
-            {
-                //Using ImageIO.read, get a buffered image from the image path.
-                BufferedImage temp = ImageIO.read(new File(terrainImage));
-
-                //Add the new BufferedImage to the hash of images using the terrain's
-                // name as the key and image as the value.
-                images.put(tName, temp);
-            }
-            //CATCH IOException
-            catch (Exception ex)
-            {
-                //Print an error about being unable to locate the image file.
-                System.err.println("Unable to locate image file for " +
-                        tName + " terrian.");
-            }
-        }
-    }
-    /**
-     * Loads the overlay images into images
-     */
-    private void loadOverlayImages()
-    {
-        //TRY
-        try
-        {
-            //Using ImageIO.read, get a buffered image from the player one
-            //overlay image path.
-            BufferedImage temp = ImageIO.read(new File(kPlayerOneOverlayPath));
-
-            //Add the new BufferedImage to the hash of images using "OverlayPlayer1"
-            // as the key and image as the value.
-            images.put("OverlayPlayer1", temp);
-
-            //Using ImageIO.read, get a buffered image from the player two
-            //overlay image path.
-            temp = ImageIO.read(new File(kPlayerTwoOverlayPath));
-
-            //Add the new BufferedImage to the hash of images using "OverlayPlayer2"
-            // as the key and image as the value.
-            images.put("OverlayPlayer2", temp);
-        }
-        //CATCH
-        catch (Exception ex)
-        {
-            //Print an error about being unable to locate the image file.
-            System.err.println("Unable to locate overlay image files.");
-        }
-    }
-
     /**
      * {@inheritDoc}
      */
@@ -481,66 +325,4 @@ public class EditorGameView extends Observable implements I_GameView
     {
         //Not supported.
     }
-
-    /**
-    * A private class to provide extra functionality to a HashMap.
-    * A MyHash provides all teh same functionality as a HashMap except that
-    * if a key is not found, than get() returns a default value set on construction.
-    */
-    private class MyHash extends HashMap<String, BufferedImage>
-    {
-        /**
-        * A default value to return if a key is not found.
-        */
-        private BufferedImage defaultImage;
-
-        /**
-        * Constructs a new MyHash using null as the 'default image'.
-        */
-        public MyHash()
-        {
-            //CALL super
-            super();
-
-            //Set defaultImage to be the passed in BufferedImage.
-            this.defaultImage = null;
-        }
-
-        /**
-        * Sets the default image to be the passed in BufferedImage.
-        *
-        * @param img the new default image.
-        */
-        public void setDefaultImage(BufferedImage img)
-        {
-            //Set defaultImage to be the passed in BufferedImage.
-            defaultImage = img;
-        }
-
-        /**
-        * Returns the value repesented by key in the hashmap.
-        *
-        * @param key the key linked to the value being searched for
-        * @return the BufferedImage reresented by key, or a default image if the key was
-        * not found.
-        */
-        @Override
-        public BufferedImage get(Object key)
-        {
-            //Create a new BufferedImage and give it the result
-            // of a call to super.get with the given key.
-            BufferedImage rtn = super.get((String)key);
-
-            //IF the newly created BufferedImage is null.
-            if (rtn == null)
-            {
-                //Set the BufferedImage to the defaultImage.
-                rtn = defaultImage;
-            }
-            //ENDIF
-
-            //RETURN the created BufferedImage.
-            return rtn;
-        }
-    }
 }
@@ -0,0 +1,209 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package toleco.ai;
+
+import toleco.controller.Player;
+import toleco.logic.BoardHistory;
+import toleco.logic.GameBoard;
+import toleco.unit.ArmorType;
+import toleco.unit.AttackType;
+import toleco.unit.Unit;
+import java.awt.Point;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author eriq
+ */
+public class AlphaBetaSearchTest {
+
+    private AlphaBetaSearch search;
+
+    private GameBoard board;
+
+    public AlphaBetaSearchTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+        search = new AlphaBetaSearch();
+        board = new GameBoard();
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of search method, of class AlphaBetaSearch.
+     */
+    @Test
+    public void testSearchFindsKill()
+    {
+        System.out.println("search kill");
+
+        place(2, 2, unit(Player.kPlayer1, 100, 3));
+        place(2, 3, unit(Player.kPlayer2, 5, 3));
+        place(3, 2, unit(Player.kPlayer2, 100, 3));
+        long hash = board.getHash();
+
+        long action = search.search(board, System.nanoTime() + 200000000L);
+
+        assertEquals(AlphaBetaSearch.kAttack, AlphaBetaSearch.kindOf(action));
+        assertEquals(new Point(2, 2), AlphaBetaSearch.fromOf(action));
+        assertEquals(new Point(2, 3), AlphaBetaSearch.toOf(action));
+        assertTrue(search.getDepth() >= 1);
+        assertTrue(search.getNodes() > 0);
+        assertTrue(search.getNodesPerSecond() > 0);
+
+        //The board searched was not changed.
+        assertEquals(hash, board.getHash());
+        assertEquals(100, board.getTerrain(2, 2).getUnit().getCurrentHealth());
+    }
+
+    /**
+     * Test of search method, of class AlphaBetaSearch.
+     */
+    @Test
+    public void testSearchWins()
+    {
+        System.out.println("search win");
+
+        place(0, 0, unit(Player.kPlayer1, 100, 3));
+        place(0, 4, unit(Player.kPlayer2, 5, 3));
+
+        //Moving into range and killing the last enemy wins.
+        long action = search.search(board, System.nanoTime() + 200000000L);
+        assertEquals(AlphaBetaSearch.kMove, AlphaBetaSearch.kindOf(action));
+        assertTrue(search.getScore() > AlphaBetaSearch.kWin -
+            AlphaBetaSearch.kMaxDepth);
+
+        AlphaBetaSearch.apply(board, action);
+        action = search.search(board, System.nanoTime() + 200000000L);
+        assertEquals(AlphaBetaSearch.kAttack, AlphaBetaSearch.kindOf(action));
+
+        AlphaBetaSearch.apply(board, action);
+        assertTrue(AlphaBetaSearch.isGameOver(board));
+    }
+
+    /**
+     * Test of search method, of class AlphaBetaSearch.
+     */
+    @Test
+    public void testSearchDeadline()
+    {
+        System.out.println("search deadline");
+
+        //FOR a few rows, face off Units on each side.
+        for (int row = 0; row < 4; row++)
+        {
+            place(row, 0, unit(Player.kPlayer1, 100, 3));
+            place(row, 9, unit(Player.kPlayer2, 100, 3));
+        }
+
+        //A deadline already passed still finishes the first depth.
+        search.search(board, System.nanoTime());
+        assertEquals(1, search.getDepth());
+        assertTrue(search.getNodes() > 1);
+
+        long start = System.nanoTime();
+        search.search(board, start + 50000000L);
+        assertTrue(System.nanoTime() - start < 1000000000L);
+        assertTrue(search.getDepth() > 1);
+    }
+
+    /**
+     * Test that actions applied as the search applies them, a kill and an
+     * end of turn among them, are undone through a BoardHistory back to the
+     * position they were taken from.
+     */
+    @Test
+    public void testApplyUndo()
+    {
+        System.out.println("apply undo");
+
+        place(2, 2, unit(Player.kPlayer1, 100, 3));
+        place(2, 5, unit(Player.kPlayer2, 5, 3));
+        place(6, 6, unit(Player.kPlayer2, 100, 3));
+        long hash = board.getHash();
+        board.setHistory(new BoardHistory(4, 16));
+
+        AlphaBetaSearch.apply(board, AlphaBetaSearch.move(new Point(2, 2),
+            new Point(2, 4)));
+        AlphaBetaSearch.apply(board, AlphaBetaSearch.attack(new Point(2, 4),
+            new Point(2, 5)));
+        assertNull(board.getTerrain(2, 5).getUnit());
+        assertEquals(1, board.getUnitCount(Player.kPlayer2));
+        AlphaBetaSearch.apply(board, AlphaBetaSearch.endTurn());
+        assertEquals(3, board.getHistory().getUndoCount());
+
+        //WHILE there is an action to take back, take it back.
+        while (board.undo())
+        {
+            assertEquals(board.computeHash(), board.getHash());
+        }
+        //ENDWHILE
+
+        assertEquals(hash, board.getHash());
+        assertEquals(Player.kPlayer1, board.getActivePlayer());
+        assertEquals(2, board.getUnitCount(Player.kPlayer2));
+        assertEquals(5, board.getTerrain(2, 5).getUnit().getCurrentHealth());
+        assertEquals(3, board.getTerrain(2, 2).getUnit().getCurrentMoves());
+        assertTrue(board.getTerrain(2, 2).getUnit().canAttack());
+    }
+
+    /**
+     * Test of apply method, of class AlphaBetaSearch.
+     */
+    @Test
+    public void testApply()
+    {
+        System.out.println("apply");
+
+        Unit mine = unit(Player.kPlayer1, 100, 3);
+        Unit theirs = unit(Player.kPlayer2, 100, 3);
+        place(1, 1, mine);
+        place(1, 5, theirs);
+
+        AlphaBetaSearch.apply(board, AlphaBetaSearch.move(new Point(1, 1),
+            new Point(1, 4)));
+        assertNull(board.getTerrain(1, 1).getUnit());
+        assertSame(Player.kPlayer1, board.getTerrain(1, 4).getUnit().getOwner());
+
+        AlphaBetaSearch.apply(board, AlphaBetaSearch.attack(new Point(1, 4),
+            new Point(1, 5)));
+        assertTrue(board.getTerrain(1, 5).getUnit().getCurrentHealth() < 100);
+        assertFalse(board.getTerrain(1, 4).getUnit().canAttack());
+
+        AlphaBetaSearch.apply(board, AlphaBetaSearch.endTurn());
+        assertEquals(Player.kPlayer2, board.getActivePlayer());
+        assertNull(board.getSelection());
+    }
+
+    private Unit unit(Player owner, int health, int moves)
+    {
+        return new Unit("Soldier", owner, 100, health, moves, moves,
+            AttackType.kCrush, 50, 1, ArmorType.kPadded, 5, true);
+    }
+
+    private void place(int xCoord, int yCoord, Unit unit)
+    {
+        board.getTerrain(xCoord, yCoord).setUnit(unit);
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package toleco.ai;
+
+import toleco.controller.Command;
+import toleco.controller.Player;
+import toleco.controller.PlayerAction;
+import toleco.logic.GameBoard;
+import toleco.unit.ArmorType;
+import toleco.unit.AttackType;
+import toleco.unit.Unit;
+import java.util.ArrayList;
+import java.util.Observable;
+import java.util.Observer;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author eriq
+ */
+public class ComputerPlayerTest {
+
+    private GameBoard board;
+
+    public ComputerPlayerTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+        board = new GameBoard();
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of plan method, of class ComputerPlayer.
+     */
+    @Test
+    public void testPlan()
+    {
+        System.out.println("plan");
+
+        board.getTerrain(2, 2).setUnit(unit(Player.kPlayer1, 100));
+        board.getTerrain(2, 3).setUnit(unit(Player.kPlayer2, 5));
+        board.getTerrain(7, 7).setUnit(unit(Player.kPlayer2, 100));
+        long hash = board.getHash();
+
+        ComputerPlayer computer = new ComputerPlayer(Player.kPlayer1, null, 100);
+        ArrayList<Command<PlayerAction>> commands =
+            computer.plan(board.copy());
+
+        //The kill is issued the way a person would issue it.
+        assertEquals("kSelect 2 2", commands.get(0).toString());
+        assertEquals("kAttack", commands.get(1).toString());
+        assertEquals("kSelect 2 3", commands.get(2).toString());
+        assertEquals("kEndTurn", commands.get(commands.size() - 1).toString());
+        assertEquals(hash, board.getHash());
+
+        //Winning the game does not end the turn.
+        board.getTerrain(7, 7).removeUnit();
+        commands = computer.plan(board.copy());
+        assertEquals(3, commands.size());
+        assertEquals("kSelect 2 3", commands.get(2).toString());
+    }
+
+    /**
+     * Test of update method, of class ComputerPlayer.
+     */
+    @Test
+    public void testUpdate() throws InterruptedException
+    {
+        System.out.println("update");
+
+        board.getTerrain(2, 2).setUnit(unit(Player.kPlayer1, 100));
+        board.getTerrain(2, 3).setUnit(unit(Player.kPlayer2, 5));
+        board.getTerrain(7, 7).setUnit(unit(Player.kPlayer2, 100));
+
+        final LinkedBlockingQueue<Runnable> tasks =
+            new LinkedBlockingQueue<Runnable>();
+        ComputerPlayer computer = new ComputerPlayer(Player.kPlayer1,
+            new Executor()
+            {
+                public void execute(Runnable task)
+                {
+                    tasks.add(task);
+                }
+            }, 100);
+        final ArrayList<Object> commands = new ArrayList<Object>();
+        computer.addObserver(new Observer()
+        {
+            public void update(Observable observe, Object obj)
+            {
+                commands.add(obj);
+            }
+        });
+        board.addObserver(computer);
+
+        //The plan is issued on the owner's thread, as planned.
+        board.resetUnits(Player.kPlayer1);
+        Runnable task = tasks.poll(5, TimeUnit.SECONDS);
+        assertTrue(commands.isEmpty());
+        task.run();
+        assertTrue(commands.get(0) instanceof Command);
+        assertEquals("kSelect 2 2", commands.get(0).toString());
+        assertEquals("kEndTurn", commands.get(commands.size() - 1).toString());
+        assertTrue(computer.getCount() > 0);
+        assertTrue(computer.getCountPerSecond() > 0);
+        assertEquals("nodes", computer.getCountName());
+
+        //A plan for a turn that is over is dropped.
+        commands.clear();
+        board.resetUnits(Player.kPlayer1);
+        task = tasks.poll(5, TimeUnit.SECONDS);
+        board.resetUnits(Player.kPlayer2);
+        task.run();
+        assertTrue(commands.isEmpty());
+    }
+
+    /**
+     * Test that a plan being made is cancelled by a new turn, and that no
+     * plan is made after shutdown.
+     */
+    @Test
+    public void testCancel() throws InterruptedException
+    {
+        System.out.println("cancel");
+
+        board.getTerrain(2, 2).setUnit(unit(Player.kPlayer1, 100));
+        board.getTerrain(7, 7).setUnit(unit(Player.kPlayer2, 100));
+
+        final LinkedBlockingQueue<Runnable> tasks =
+            new LinkedBlockingQueue<Runnable>();
+        ComputerPlayer computer = new ComputerPlayer(Player.kPlayer1,
+            new Executor()
+            {
+                public void execute(Runnable task)
+                {
+                    tasks.add(task);
+                }
+            }, 1000);
+        board.addObserver(computer);
+
+        //The turn is over before the plan for it is made.
+        board.resetUnits(Player.kPlayer1);
+        board.resetUnits(Player.kPlayer2);
+        assertNull(tasks.poll(2, TimeUnit.SECONDS));
+
+        computer.shutdown();
+        board.resetUnits(Player.kPlayer1);
+        assertNull(tasks.poll(2, TimeUnit.SECONDS));
+    }
+
+    private Unit unit(Player owner, int health)
+    {
+        return new Unit("Soldier", owner, 100, health, 3, 3,
+            AttackType.kCrush, 50, 1, ArmorType.kPadded, 5, true);
+    }
+}
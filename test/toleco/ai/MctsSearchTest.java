@@ -0,0 +1,162 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package toleco.ai;
+
+import toleco.controller.Player;
+import toleco.logic.GameBoard;
+import toleco.unit.ArmorType;
+import toleco.unit.AttackType;
+import toleco.unit.Unit;
+import java.awt.Point;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author eriq
+ */
+public class MctsSearchTest {
+
+    private GameBoard board;
+
+    public MctsSearchTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+        board = new GameBoard();
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of search method, of class MctsSearch.
+     */
+    @Test
+    public void testSearch()
+    {
+        System.out.println("search");
+
+        place(2, 2, unit(Player.kPlayer1, 100));
+        place(2, 3, unit(Player.kPlayer2, 5));
+        long hash = board.getHash();
+
+        //FOR one tree and several, the winning attack is found.
+        for (int threads = 1; threads <= 3; threads += 2)
+        {
+            MctsSearch search = new MctsSearch(threads);
+            search.setSeed(11);
+
+            long start = System.nanoTime();
+            long action = search.search(board, start + 100000000L);
+
+            assertTrue(System.nanoTime() - start < 1000000000L);
+            assertEquals(AlphaBetaSearch.kAttack, AlphaBetaSearch.kindOf(action));
+            assertEquals(new Point(2, 3), AlphaBetaSearch.toOf(action));
+            assertTrue(search.getPlayouts() >= threads);
+            assertEquals(search.getPlayouts(), search.getCount());
+            assertTrue(search.getPlayoutsPerSecond() > 0);
+            assertEquals(hash, board.getHash());
+            search.shutdown();
+        }
+        //ENDFOR
+    }
+
+    /**
+     * Test of search method, of class MctsSearch.
+     */
+    @Test
+    public void testSearchDeadline()
+    {
+        System.out.println("search deadline");
+
+        //FOR a few rows, face off Units on each side.
+        for (int row = 0; row < 4; row++)
+        {
+            place(row, 0, unit(Player.kPlayer1, 100));
+            place(row, 9, unit(Player.kPlayer2, 100));
+        }
+
+        //A deadline already passed still makes a playout on each thread.
+        MctsSearch search = new MctsSearch(2);
+        long action = search.search(board, System.nanoTime());
+        assertEquals(2, search.getPlayouts());
+        assertEquals(AlphaBetaSearch.kEndTurn, AlphaBetaSearch.kindOf(action));
+    }
+
+    /**
+     * Test of shutdown method, of class MctsSearch.
+     */
+    @Test
+    public void testShutdown() throws InterruptedException
+    {
+        System.out.println("shutdown");
+
+        place(2, 2, unit(Player.kPlayer1, 100));
+        place(7, 7, unit(Player.kPlayer2, 100));
+
+        //Threads of searches shut down before this one may still be ending.
+        int before = waitForThreads(0);
+
+        //The threads started by the first search are used by the next.
+        MctsSearch search = new MctsSearch(2);
+        search.search(board, System.nanoTime() + 10000000L);
+        assertEquals(before + 2, countThreads());
+        search.search(board, System.nanoTime() + 10000000L);
+        assertEquals(before + 2, countThreads());
+
+        search.shutdown();
+        assertEquals(before, waitForThreads(before));
+    }
+
+    private int waitForThreads(int expected) throws InterruptedException
+    {
+        long end = System.nanoTime() + 1000000000L;
+        while (countThreads() != expected && System.nanoTime() < end)
+        {
+            Thread.sleep(10);
+        }
+        return countThreads();
+    }
+
+    private int countThreads()
+    {
+        int count = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet())
+        {
+            if (thread.isAlive() && thread.getName().equals("MctsSearch"))
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private Unit unit(Player owner, int health)
+    {
+        return new Unit("Soldier", owner, 100, health, 3, 3,
+            AttackType.kCrush, 50, 1, ArmorType.kPadded, 5, true);
+    }
+
+    private void place(int xCoord, int yCoord, Unit unit)
+    {
+        board.getTerrain(xCoord, yCoord).setUnit(unit);
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package toleco.controller;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author eriq
+ */
+public class CommandTest {
+
+    public CommandTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of set methods, of class Command.
+     */
+    @Test
+    public void testSet() {
+        System.out.println("set");
+        Command<PlayerAction> command = new Command<PlayerAction>();
+
+        assertSame(command, command.set(PlayerAction.kSelect, 3, 4));
+        assertEquals(PlayerAction.kSelect, command.getAction());
+        assertEquals(3, command.getX());
+        assertEquals(4, command.getY());
+        assertNull(command.getText());
+
+        command.set(PlayerAction.kSave, "saves/a game.osm");
+        assertEquals(PlayerAction.kSave, command.getAction());
+        assertEquals(-1, command.getX());
+        assertEquals("saves/a game.osm", command.getText());
+
+        command.set(PlayerAction.kEndTurn);
+        assertEquals(-1, command.getY());
+        assertNull(command.getText());
+    }
+
+    /**
+     * Test of parse and toString methods, of class Command.
+     */
+    @Test
+    public void testParse() {
+        System.out.println("parse");
+        Command<PlayerAction> command =
+            Command.parse(PlayerAction.class, "kSelect 3 4");
+        assertEquals(PlayerAction.kSelect, command.getAction());
+        assertEquals(3, command.getX());
+        assertEquals(4, command.getY());
+        assertEquals("kSelect 3 4", command.toString());
+
+        command = Command.parse(PlayerAction.class, "kEndTurn");
+        assertEquals(PlayerAction.kEndTurn, command.getAction());
+        assertEquals(-1, command.getX());
+        assertNull(command.getText());
+        assertEquals("kEndTurn", command.toString());
+
+        //Anything but a cell is text, even if it starts with a number.
+        command = Command.parse(PlayerAction.class, "kSave  12 saved games ");
+        assertEquals(-1, command.getX());
+        assertEquals("12 saved games", command.getText());
+        assertEquals("kSave 12 saved games", command.toString());
+
+        //A save name that looks like a cell is still text.
+        command = Command.parse(PlayerAction.class, "kSave 3 4");
+        assertEquals(-1, command.getX());
+        assertEquals("3 4", command.getText());
+        assertEquals("kSave 3 4", command.toString());
+
+        command = Command.parse(PlayerAction.class, "kMoveTo 0 9");
+        assertEquals(0, command.getX());
+        assertEquals(9, command.getY());
+
+        Command<EditorAction> edit =
+            Command.parse(EditorAction.class, "kChoosePlayer kPlayer2");
+        assertEquals(EditorAction.kChoosePlayer, edit.getAction());
+        assertEquals("kPlayer2", edit.getText());
+
+        edit = Command.parse(EditorAction.class, "kSave 3 4");
+        assertEquals("3 4", edit.getText());
+        edit = Command.parse(EditorAction.class, "kSelectCell 3 4");
+        assertEquals(3, edit.getX());
+        assertEquals(4, edit.getY());
+        assertNull(edit.getText());
+
+        try
+        {
+            Command.parse(PlayerAction.class, "kChoosePlayer kPlayer2");
+            fail("parsed an editor action as a player action");
+        }
+        catch (IllegalArgumentException e)
+        {
+        }
+    }
+}
@@ -71,7 +71,7 @@ public class EditorControllerTest {
      * Test of save method, of class EditorController.
      */
     @Test
-    public void testSave() {
+    public void testSave() throws Exception {
         System.out.println("save");
         controller.setChosenPlayer(Player.kPlayer1);
         try
@@ -84,14 +84,16 @@ public class EditorControllerTest {
         board.setBackStory("Lets do this!");
         Terrain temp = new DefaultTerrain(1, 1);
         temp.setUnit(new DefaultUnit());
-        board.getMap()[1][1] = temp;
+        board.setTerrain(1, 1, temp);
         board.getMap()[0][0].removeUnit();
 
-        controller.save("test/toleco/logic/myNewMap.ocem");
+        java.io.File saved = java.io.File.createTempFile("myNewMap", ".ocem");
+        saved.deleteOnExit();
+        controller.save(saved.getPath());
         try
         {
             board.loadMap("test/toleco/logic/testMap.ocem");
-            board.loadMap("test/toleco/logic/myNewMap.ocem");
+            board.loadMap(saved.getPath());
         }
         catch (Exception e)
         {
@@ -129,9 +131,14 @@ public class EditorControllerTest {
     @Test
     public void testSelectCell() {
         System.out.println("selectCell");
+        assertEquals("Clown", board.getTerrain(0, 0).getUnit().getType());
+
         controller.selectCell(0, 0);
 
-        assertEquals("Clown", board.getSelection().getUnit().getType());
+        //With no unit chosen, painting the cell clears its unit.
+        assertEquals(0, board.getSelection().getX());
+        assertEquals(0, board.getSelection().getY());
+        assertNull(board.getSelection().getUnit());
     }
 
     /**
@@ -166,11 +173,36 @@ public class EditorControllerTest {
         cont.update(null, "kQuit");
     }
 
+    /**
+     * Test that kLoad loads the whole file name it is given, spaces and all.
+     */
+    @Test
+    public void testLoadWithSpaces() throws Exception {
+        System.out.println("loadWithSpaces");
+        java.io.File dir = java.io.File.createTempFile("editor", "");
+        dir.delete();
+        dir.mkdir();
+        dir.deleteOnExit();
+        java.io.File map = new java.io.File(dir, "a test map.ocem");
+        map.deleteOnExit();
+        java.nio.file.Files.copy(
+            new java.io.File("test/toleco/logic/testMap.ocem").toPath(),
+            map.toPath());
+
+        GameBoard expected = new GameBoard();
+        expected.loadMap("test/toleco/logic/testMap.ocem");
+        assertFalse(expected.getHash() == board.getHash());
+
+        controller.update(null, EditorAction.kLoad.toString() + " " +
+            map.getPath());
+        assertEquals(expected.getHash(), board.getHash());
+    }
+
     /**
      * Test of loadMap method, of class EditorController.
      */
     @Test
-    public void testLoadMap() {
+    public void testLoadMap() throws Exception {
         System.out.println("loadMap");
         controller.setChosenPlayer(Player.kPlayer1);
 
@@ -184,14 +216,16 @@ public class EditorControllerTest {
         board.setBackStory("Lets do this!");
         Terrain temp = new DefaultTerrain(1, 1);
         temp.setUnit(new DefaultUnit());
-        board.getMap()[1][1] = temp;
+        board.setTerrain(1, 1, temp);
         board.getMap()[0][0].removeUnit();
 
-        controller.save("test/toleco/logic/myNewMap.ocem");
+        java.io.File saved = java.io.File.createTempFile("myNewMap", ".ocem");
+        saved.deleteOnExit();
+        controller.save(saved.getPath());
         try
         {
             controller.loadMap("test/toleco/logic/testMap.ocem");
-            controller.loadMap("test/toleco/logic/myNewMap.ocem");
+            controller.loadMap(saved.getPath());
         }
         catch (Exception e)
         {
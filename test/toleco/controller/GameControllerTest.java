@@ -124,6 +124,112 @@ public class GameControllerTest extends TestCase
         assertNull(board.getMap()[0][2].getUnit());
     }
 
+    /**
+     * Test of the kMoveTo action, of class GameController.
+     */
+    @Test
+    public void testMoveTo() {
+        System.out.println("moveTo");
+        controller.setActivePlayer(Player.kPlayer1);
+        controller.selectCell(0, 0);
+
+        controller.update(null, PlayerAction.kMoveTo.toString() + " 5 5");
+
+        assertEquals("Clown", board.getMap()[5][5].getUnit().getType());
+        assertNull(board.getMap()[0][0].getUnit());
+        assertEquals(5, board.getSelection().getX());
+        assertEquals(5, board.getSelection().getY());
+        assertEquals(GameState.kTerrainSelected, controller.getState());
+
+        //A cell with a Unit can not be moved onto.
+        controller.update(null, PlayerAction.kMoveTo.toString() + " 0 1");
+
+        assertEquals(Player.kPlayer2, board.getMap()[0][1].getUnit().getOwner());
+        assertEquals(Player.kPlayer1, board.getMap()[5][5].getUnit().getOwner());
+
+        //The other player's Unit can not be moved.
+        controller.selectCell(0, 1);
+        controller.update(null, PlayerAction.kMoveTo.toString() + " 9 9");
+
+        assertNull(board.getMap()[9][9].getUnit());
+        assertEquals("Clown", board.getMap()[0][1].getUnit().getType());
+    }
+
+    /**
+     * Test of the kUndo and kRedo actions, of class GameController.
+     */
+    @Test
+    public void testUndo() {
+        System.out.println("undo");
+        controller.setActivePlayer(Player.kPlayer1);
+        controller.selectCell(0, 0);
+        controller.update(null, PlayerAction.kMoveTo.toString() + " 5 5");
+        controller.update(null, PlayerAction.kEndTurn.toString());
+
+        assertEquals(Player.kPlayer2, board.getActivePlayer());
+
+        //Undo the end of turn, then the move.
+        controller.update(null, PlayerAction.kUndo.toString());
+
+        assertEquals(Player.kPlayer1, board.getActivePlayer());
+        assertEquals(GameState.kNoneSelected, controller.getState());
+
+        controller.update(null, PlayerAction.kUndo.toString());
+
+        assertEquals("Clown", board.getMap()[0][0].getUnit().getType());
+        assertNull(board.getMap()[5][5].getUnit());
+
+        //There is nothing more to undo.
+        controller.update(null, PlayerAction.kUndo.toString());
+
+        assertEquals("Clown", board.getMap()[0][0].getUnit().getType());
+
+        //Redo the move.
+        controller.update(null, PlayerAction.kRedo.toString());
+
+        assertEquals("Clown", board.getMap()[5][5].getUnit().getType());
+        assertNull(board.getMap()[0][0].getUnit());
+        assertNull(board.getSelection());
+
+        //The active player can still play after the redo.
+        controller.selectCell(5, 5);
+        controller.update(null, PlayerAction.kMoveTo.toString() + " 5 6");
+
+        assertEquals("Clown", board.getMap()[5][6].getUnit().getType());
+    }
+
+    /**
+     * Test of setComputerPlayer method, of class GameController.
+     */
+    @Test
+    public void testComputerTurn() {
+        System.out.println("computerTurn");
+        java.util.Observable computer = new java.util.Observable();
+        controller.setComputerPlayer(Player.kPlayer1, computer);
+        controller.setActivePlayer(Player.kPlayer1);
+
+        //A person can not play the computer's turn.
+        controller.update(null, PlayerAction.kSelect.toString() + " 0 0");
+        controller.update(null, PlayerAction.kMoveTo.toString() + " 5 5");
+
+        assertNull(board.getSelection());
+        assertEquals("Clown", board.getMap()[0][0].getUnit().getType());
+
+        //The computer can.
+        controller.update(computer, PlayerAction.kSelect.toString() + " 0 0");
+        controller.update(computer, PlayerAction.kMoveTo.toString() + " 5 5");
+        controller.update(computer, PlayerAction.kEndTurn.toString());
+
+        assertEquals("Clown", board.getMap()[5][5].getUnit().getType());
+        assertEquals(Player.kPlayer2, board.getActivePlayer());
+
+        //A person can play the other turn.
+        controller.update(null, PlayerAction.kSelect.toString() + " 0 1");
+        controller.update(null, PlayerAction.kMoveTo.toString() + " 9 9");
+
+        assertEquals("Clown", board.getMap()[9][9].getUnit().getType());
+    }
+
     /**
      * Test of quit method, of class GameController.
      */
@@ -148,7 +254,7 @@ public class GameControllerTest extends TestCase
      * Test of save method, of class GameController.
      */
     @Test
-    public void testSave() {
+    public void testSave() throws Exception {
         System.out.println("save");
         controller.setActivePlayer(Player.kPlayer1);
         try
@@ -161,15 +267,17 @@ public class GameControllerTest extends TestCase
         board.setBackStory("Lets do this!");
         Terrain temp = new DefaultTerrain(1, 1);
         temp.setUnit(new DefaultUnit());
-        board.getMap()[1][1] = temp;
+        board.setTerrain(1, 1, temp);
         board.getMap()[0][0].removeUnit();
 
-        controller.save("test/toleco/logic/myNewMap.ocem");
+        java.io.File saved = java.io.File.createTempFile("myNewMap", ".ocem");
+        saved.deleteOnExit();
+        controller.save(saved.getPath());
 
         try
         {
             board.loadMap("test/toleco/logic/testMap.ocem");
-            board.loadMap("test/toleco/logic/myNewMap.ocem");
+            board.loadMap(saved.getPath());
         }
         catch (Exception e)
         {
@@ -248,6 +356,38 @@ public class GameControllerTest extends TestCase
         controller.update(null, PlayerAction.kSelect.toString() + " 0 0");
     }
 
+    /**
+     * Test of update method with Commands, of class GameController.
+     */
+    @Test
+    public void testCommand() {
+        System.out.println("command");
+        controller.setActivePlayer(Player.kPlayer1);
+
+        //One Command is filled in again for every action.
+        Command<PlayerAction> command = new Command<PlayerAction>();
+        controller.update(null, command.set(PlayerAction.kSelect, 0, 0));
+        controller.update(null, command.set(PlayerAction.kMoveDown));
+
+        assertEquals("Clown", board.getMap()[1][0].getUnit().getType());
+        assertNull(board.getMap()[0][0].getUnit());
+
+        controller.update(null, command.set(PlayerAction.kMoveTo, 5, 5));
+
+        assertEquals("Clown", board.getMap()[5][5].getUnit().getType());
+        assertEquals(GameState.kTerrainSelected, controller.getState());
+
+        controller.update(null, command.set(PlayerAction.kUndo));
+
+        assertEquals("Clown", board.getMap()[1][0].getUnit().getType());
+
+        //Commands for the editor are ignored.
+        controller.update(null, new Command<EditorAction>().set(
+            EditorAction.kSelectCell, 5, 5));
+
+        assertNull(board.getMap()[5][5].getUnit());
+    }
+
     /**
      * Test of setApp method, of class GameController.
      */
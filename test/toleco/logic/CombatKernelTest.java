@@ -0,0 +1,180 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package toleco.logic;
+
+import toleco.controller.Player;
+import toleco.terrain.Terrain;
+import toleco.unit.ArmorType;
+import toleco.unit.AttackType;
+import toleco.unit.Unit;
+import java.util.ArrayList;
+import java.util.Random;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author eriq
+ */
+public class CombatKernelTest {
+
+    private CombatKernel kernel;
+
+    public CombatKernelTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+        kernel = new CombatKernel();
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of modifier method, of class CombatKernel.
+     */
+    @Test
+    public void testModifier()
+    {
+        System.out.println("modifier");
+
+        for (AttackType attack : AttackType.values())
+        {
+            for (ArmorType armor : ArmorType.values())
+            {
+                assertEquals(attack.modAgainstType(armor),
+                    CombatKernel.modifier(attack, armor), 0.0);
+            }
+        }
+    }
+
+    /**
+     * Compare predict against Jon's Equation worked out the long way, for
+     * random Units.
+     */
+    @Test
+    public void testPredict()
+    {
+        System.out.println("predict");
+        Random rand = new Random(7);
+
+        for (int i = 0; i < 10000; i++)
+        {
+            Unit attacker = randomUnit(rand, Player.kPlayer1);
+            Unit defender = randomUnit(rand, Player.kPlayer2);
+            int attackerMod = rand.nextInt(9) - 4;
+            int defenderMod = rand.nextInt(9) - 4;
+            int distance = rand.nextInt(4);
+
+            kernel.predict(attacker, attacker.getCurrentHealth(), attackerMod,
+                defender, defender.getCurrentHealth(), defenderMod, distance);
+
+            int damage = jon(attacker, attacker.getCurrentHealth(), defender,
+                defender.getCurrentHealth(), defenderMod);
+            int defenderHealth = defender.getCurrentHealth() - damage;
+            assertEquals(damage, kernel.getDamage());
+            assertEquals(defenderHealth, kernel.getDefenderHealth());
+
+            if (defenderHealth > 0 && distance <= defender.getAttackRange())
+            {
+                int counter = jon(defender, defenderHealth, attacker,
+                    attacker.getCurrentHealth(), attackerMod);
+                assertTrue(kernel.hasCounter());
+                assertEquals(counter, kernel.getCounterDamage());
+                assertEquals(attacker.getCurrentHealth() - counter,
+                    kernel.getAttackerHealth());
+            }
+            else
+            {
+                assertFalse(kernel.hasCounter());
+                assertEquals(0, kernel.getCounterDamage());
+                assertEquals(attacker.getCurrentHealth(),
+                    kernel.getAttackerHealth());
+            }
+        }
+    }
+
+    /**
+     * Test of predictAttack method, of class GameBoard.
+     */
+    @Test
+    public void testPredictAttack()
+    {
+        System.out.println("predictAttack");
+        GameBoard board = new GameBoard();
+
+        Unit attacker = new Unit("Attacker", Player.kPlayer1, 100, 100, 1, 1,
+            AttackType.kCrush, 60, 1, ArmorType.kPadded, 10, true);
+        Unit defender = new Unit("Defender", Player.kPlayer2, 100, 100, 1, 1,
+            AttackType.kPierce, 50, 1, ArmorType.kBone, 5, true);
+        Terrain hill = new Terrain("Hill", 3, 1, 2, 3);
+        hill.setUnit(defender);
+        board.setTerrain(2, 3, hill);
+        board.getTerrain(2, 2).setUnit(attacker);
+        board.selectTerrain(2, 2);
+
+        CombatKernel result = board.predictAttack(2, 3);
+        int damage = result.getDamage();
+        int counter = result.getCounterDamage();
+
+        //Nothing changed.
+        assertEquals(100, attacker.getCurrentHealth());
+        assertEquals(100, defender.getCurrentHealth());
+        assertTrue(attacker.canAttack());
+
+        ArrayList<Integer> damages = board.attack(2, 3);
+        assertEquals(2, damages.size());
+        assertEquals(damage, damages.get(0).intValue());
+        assertEquals(counter, damages.get(1).intValue());
+        assertEquals(100 - damage, defender.getCurrentHealth());
+        assertEquals(100 - counter, attacker.getCurrentHealth());
+    }
+
+    private Unit randomUnit(Random rand, Player owner)
+    {
+        int maxHealth = rand.nextInt(100) + 1;
+        return new Unit("Random", owner, maxHealth, rand.nextInt(maxHealth) + 1,
+            1, 1, AttackType.values()[rand.nextInt(AttackType.values().length)],
+            rand.nextInt(80), rand.nextInt(3),
+            ArmorType.values()[rand.nextInt(ArmorType.values().length)],
+            rand.nextInt(30), true);
+    }
+
+    private int jon(Unit attacker, int attackerHealth, Unit defender,
+        int defenderHealth, int defMod)
+    {
+        double mod = attacker.getAttackType().modAgainstType(defender.getArmorType());
+        int damage = (int)(mod * (1.0 - (((double)attacker.getMaxHealth() -
+            attackerHealth) / (double)attacker.getMaxHealth()) / 2.0) *
+            ((double)attacker.getAttackValue() -
+            ((double)defender.getArmorValue() + (double)defMod)));
+
+        if (damage < 1)
+        {
+            damage = 1;
+        }
+        else if (damage > defenderHealth)
+        {
+            damage = defenderHealth;
+        }
+
+        return damage;
+    }
+}
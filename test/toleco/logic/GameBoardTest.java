@@ -99,7 +99,7 @@ public class GameBoardTest {
      * Test of saveMap method, of class GameBoard.
      */
     @Test
-    public void testSaveMap() {
+    public void testSaveMap() throws Exception {
         System.out.println("saveMap");
         try
         {
@@ -111,15 +111,17 @@ public class GameBoardTest {
         testBoard.setBackStory("Lets do this!");
         Terrain temp = new DefaultTerrain(1, 1);
         temp.setUnit(new DefaultUnit());
-        testBoard.getMap()[1][1] = temp;
+        testBoard.setTerrain(1, 1, temp);
         testBoard.getMap()[0][0].removeUnit();
 
-        testBoard.saveMap("test/toleco/logic/myNewMap.ocem", Player.kPlayer2);
+        java.io.File saved = java.io.File.createTempFile("myNewMap", ".ocem");
+        saved.deleteOnExit();
+        testBoard.saveMap(saved.getPath(), Player.kPlayer2);
 
         try
         {
             testBoard.loadMap("test/toleco/logic/testMap.ocem");
-            testBoard.loadMap("test/toleco/logic/myNewMap.ocem");
+            testBoard.loadMap(saved.getPath());
         }
         catch (Exception e)
         {
@@ -131,6 +133,52 @@ public class GameBoardTest {
         assertNull(testBoard.getMap()[0][0].getUnit());
     }
 
+    /**
+     * Test loading a map written before maps had a size header.
+     */
+    @Test
+    public void testLoadHeaderless() throws Exception
+    {
+        System.out.println("loadHeaderless");
+        assertEquals(Player.kPlayer2,
+            testBoard.loadMap("test/toleco/logic/myNewMap.ocem"));
+        assertEquals(10, testBoard.getNumRows());
+        assertEquals(10, testBoard.getNumCols());
+        assertEquals("Lets do this!", testBoard.getBackStory());
+        assertEquals("Default", testBoard.getMap()[1][1].getUnit().getType());
+    }
+
+    /**
+     * Test loading and saving a map that is not the default 10x10 size.
+     */
+    @Test
+    public void testLargeMap() throws Exception
+    {
+        System.out.println("largeMap");
+        Player activePlayer = testBoard.loadMap("test/toleco/logic/testLargeMap.ocem");
+
+        assertEquals(Player.kPlayer2, activePlayer);
+        assertEquals(12, testBoard.getNumRows());
+        assertEquals(15, testBoard.getNumCols());
+        assertEquals(12, testBoard.getMap().length);
+        assertEquals(15, testBoard.getMap()[0].length);
+        assertEquals("Brute", testBoard.getMap()[11][14].getUnit().getType());
+        assertEquals(11, testBoard.getMap()[11][14].getX());
+        assertEquals(14, testBoard.getMap()[11][14].getY());
+
+        testBoard.saveMap("test/toleco/logic/myLargeMap.ocem", Player.kPlayer1);
+        testBoard.loadMap("test/toleco/logic/testMap.ocem");
+        assertEquals(GameBoard.kNumRows, testBoard.getNumRows());
+
+        activePlayer = testBoard.loadMap("test/toleco/logic/myLargeMap.ocem");
+        assertEquals(Player.kPlayer1, activePlayer);
+        assertEquals(12, testBoard.getNumRows());
+        assertEquals(15, testBoard.getNumCols());
+        assertEquals("Spearman", testBoard.getMap()[0][0].getUnit().getType());
+        assertEquals("Brute", testBoard.getMap()[11][14].getUnit().getType());
+        new java.io.File("test/toleco/logic/myLargeMap.ocem").delete();
+    }
+
     /**
      * Test of selectTerrain method, of class GameBoard.
      */
@@ -203,6 +251,518 @@ public class GameBoardTest {
         assertNull(testBoard.getMap()[0][0].getUnit());
     }
 
+    /**
+     * Builds a wall of Water down col 1 with a single gap of Plains at
+     * (5, 1), and puts a Unit with 3 moves at (0, 0).
+     */
+    private Unit buildWall()
+    {
+        for (int row = 0; row < GameBoard.kNumRows; row++)
+        {
+            testBoard.setTerrain(row, 1, new Terrain("Water", 0, 99, row, 1));
+        }
+        testBoard.setTerrain(5, 1, new Terrain("Plains", 1, 1, 5, 1));
+
+        Unit mover = new Unit("Mover", Player.kPlayer1, 10, 10, 3, 3,
+            AttackType.kCrush, 10, 1, ArmorType.kPadded, 10, true);
+        testBoard.getTerrain(0, 0).setUnit(mover);
+        testBoard.selectTerrain(0, 0);
+        return mover;
+    }
+
+    /**
+     * Test of getReachableCells method, of class GameBoard.
+     */
+    @Test
+    public void testGetReachableCells()
+    {
+        System.out.println("getReachableCells");
+        buildWall();
+
+        ArrayList<Point> reachable = testBoard.getReachableCells();
+
+        //All of col 0 but the start, the gap, and everything past the wall.
+        assertEquals(9 + 1 + 80, reachable.size());
+        assertFalse(reachable.contains(new Point(0, 0)));
+        assertFalse(reachable.contains(new Point(3, 1)));
+        assertTrue(reachable.contains(new Point(5, 1)));
+        assertTrue(reachable.contains(new Point(0, 9)));
+
+        //A Unit in the gap closes it.
+        testBoard.getTerrain(5, 1).setUnit(new Unit("Blocker", Player.kPlayer1,
+            10, 10, 3, 3, AttackType.kCrush, 10, 1, ArmorType.kPadded, 10, true));
+        reachable = testBoard.getReachableCells();
+        assertEquals(9, reachable.size());
+        assertFalse(reachable.contains(new Point(5, 1)));
+    }
+
+    /**
+     * Test of getPath method, of class GameBoard.
+     */
+    @Test
+    public void testGetPath()
+    {
+        System.out.println("getPath");
+        buildWall();
+
+        ArrayList<Point> path = testBoard.getPath(0, 9);
+        assertNotNull(path);
+        assertEquals(new Point(1, 0), path.get(0));
+        assertTrue(path.contains(new Point(5, 1)));
+        assertEquals(new Point(0, 9), path.get(path.size() - 1));
+
+        //Each step is onto a neighbour.
+        Point last = new Point(0, 0);
+        for (Point step : path)
+        {
+            assertEquals(1, Math.abs(step.x - last.x) + Math.abs(step.y - last.y));
+            last = step;
+        }
+
+        assertNull(testBoard.getPath(3, 1));
+        assertEquals(0, testBoard.getPath(0, 0).size());
+    }
+
+    /**
+     * Test of moveTo method, of class GameBoard.
+     */
+    @Test
+    public void testMoveTo()
+    {
+        System.out.println("moveTo");
+        Unit mover = buildWall();
+        testBoard.addObserver(new Watcher());
+
+        //Moves that can not be made do not notify.
+        assertFalse(testBoard.moveTo(3, 1));
+        assertFalse(testBoard.moveTo(0, 0));
+
+        try
+        {
+            testBoard.moveTo(0, 9);
+            fail();
+        }
+        catch (FunException ex)
+        {
+            assertEquals("other", ex.getMessage());
+        }
+        testBoard.deleteObservers();
+
+        assertSame(mover, testBoard.getTerrain(0, 9).getUnit());
+        assertNull(testBoard.getTerrain(0, 0).getUnit());
+        assertEquals(2, mover.getCurrentMoves());
+
+        //The Unit can still get back, the wall is only crossed once.
+        testBoard.selectTerrain(0, 9);
+        assertTrue(testBoard.moveTo(9, 0));
+        assertSame(mover, testBoard.getTerrain(9, 0).getUnit());
+        assertEquals(1, mover.getCurrentMoves());
+    }
+
+    /**
+     * Test of copy method, of class GameBoard.
+     */
+    @Test
+    public void testCopy() throws Exception
+    {
+        System.out.println("copy");
+        testBoard.loadMap("test/toleco/logic/testAttackMap.ocem");
+        testBoard.selectTerrain(0, 0);
+
+        GameBoard copy = testBoard.copy();
+        assertEquals(0, copy.getSelection().getX());
+        assertEquals("Clown", copy.getTerrain(0, 1).getUnit().getType());
+        assertNotSame(testBoard.getTerrain(0, 0).getUnit(),
+            copy.getTerrain(0, 0).getUnit());
+
+        //Changing the copy leaves the original alone.
+        copy.attack(0, 1);
+        copy.moveTo(5, 5);
+        assertEquals(100, testBoard.getTerrain(0, 1).getUnit().getCurrentHealth());
+        assertTrue(testBoard.getTerrain(0, 0).getUnit().canAttack());
+        assertNull(testBoard.getTerrain(5, 5).getUnit());
+        assertEquals(1, testBoard.getUnitLocations(Player.kPlayer1).size());
+        assertEquals(new Point(0, 0),
+            testBoard.getUnitLocations(Player.kPlayer1).get(0));
+        assertEquals(new Point(5, 5),
+            copy.getUnitLocations(Player.kPlayer1).get(0));
+
+        //A copy watched only after it is made still lists the cells it changes.
+        copy = testBoard.copy();
+        Recorder recorder = new Recorder();
+        copy.addObserver(recorder);
+        copy.moveTo(1, 0);
+        assertEquals(1, recorder.changes.size());
+        assertTrue(recorder.changes.get(0).startsWith("0,0 1,0"));
+
+        //Once nobody watches it, it stops listing them.
+        copy.deleteObserver(recorder);
+        copy.selectTerrain(1, 0);
+        copy.moveTo(2, 0);
+        assertEquals(1, recorder.changes.size());
+        assertEquals(new Point(2, 0),
+            copy.getUnitLocations(Player.kPlayer1).get(0));
+    }
+
+    /**
+     * Test of getHash method, of class GameBoard.
+     */
+    @Test
+    public void testGetHash() throws Exception
+    {
+        System.out.println("getHash");
+        long empty = testBoard.getHash();
+        assertEquals(empty, testBoard.computeHash());
+
+        testBoard.loadMap("test/toleco/logic/testLargeMap.ocem");
+        long loaded = testBoard.getHash();
+        assertEquals(loaded, testBoard.computeHash());
+        assertTrue(loaded != empty);
+
+        //The same position loaded onto another board hashes the same.
+        GameBoard other = new GameBoard();
+        other.loadMap("test/toleco/logic/testLargeMap.ocem");
+        assertEquals(loaded, other.getHash());
+        assertEquals(loaded, testBoard.copy().getHash());
+
+        //Play at random, checking the hash after every change.
+        java.util.Random rand = new java.util.Random(9);
+        Player active = testBoard.getActivePlayer();
+        for (int step = 0; step < 300; step++)
+        {
+            ArrayList<Point> mine = testBoard.getUnitLocations(active);
+            if (mine.isEmpty() || rand.nextInt(10) == 0)
+            {
+                active = Player.values()[(active.ordinal() + 1) % 2];
+                testBoard.resetUnits(active);
+            }
+            else
+            {
+                Point unit = mine.get(rand.nextInt(mine.size()));
+                testBoard.selectTerrain(unit.x, unit.y);
+                ArrayList<Point> enemies = testBoard.getEnemiesInRange();
+                ArrayList<Point> reachable = testBoard.getReachableCells();
+                if (!enemies.isEmpty() && rand.nextBoolean())
+                {
+                    Point enemy = enemies.get(rand.nextInt(enemies.size()));
+                    testBoard.attack(enemy.x, enemy.y);
+                }
+                else if (!reachable.isEmpty())
+                {
+                    Point cell = reachable.get(rand.nextInt(reachable.size()));
+                    testBoard.moveTo(cell.x, cell.y);
+                }
+                else
+                {
+                    testBoard.setTerrain(unit.x, unit.y,
+                        new Terrain("Swamp", -2, 3, unit.x, unit.y));
+                }
+            }
+            assertEquals(testBoard.computeHash(), testBoard.getHash());
+        }
+
+        //Changing only whose turn it is changes the hash.
+        Player next = Player.values()[(active.ordinal() + 1) % 2];
+        testBoard.resetUnits(active);
+        GameBoard turned = testBoard.copy();
+        turned.resetUnits(next);
+        assertTrue(turned.getHash() != testBoard.getHash());
+        turned.resetUnits(active);
+        assertEquals(testBoard.getHash(), turned.getHash());
+    }
+
+    /**
+     * Test of snapshot and restore methods, of class GameBoard.
+     */
+    @Test
+    public void testSnapshot() throws Exception
+    {
+        System.out.println("snapshot");
+        testBoard.loadMap(writeMap(40, 40, 12));
+        Unit before = testBoard.getTerrain(0, 0).getUnit();
+
+        //Play at random, taking a snapshot after every change.
+        java.util.Random rand = new java.util.Random(5);
+        ArrayList<BoardSnapshot> snaps = new ArrayList<BoardSnapshot>();
+        ArrayList<Long> hashes = new ArrayList<Long>();
+        ArrayList<ArrayList<Point>> places = new ArrayList<ArrayList<Point>>();
+        Player active = testBoard.getActivePlayer();
+        for (int step = 0; step < 200; step++)
+        {
+            snaps.add(testBoard.snapshot());
+            hashes.add(testBoard.getHash());
+            places.add(testBoard.getUnitLocations(Player.kPlayer1));
+            assertEquals(testBoard.getHash(), snaps.get(step).getHash());
+
+            ArrayList<Point> mine = testBoard.getUnitLocations(active);
+            if (mine.isEmpty() || rand.nextInt(8) == 0)
+            {
+                active = Player.values()[(active.ordinal() + 1) % 2];
+                testBoard.resetUnits(active);
+                continue;
+            }
+            Point unit = mine.get(rand.nextInt(mine.size()));
+            testBoard.selectTerrain(unit.x, unit.y);
+            ArrayList<Point> enemies = testBoard.getEnemiesInRange();
+            ArrayList<Point> reachable = testBoard.getReachableCells();
+            if (!enemies.isEmpty())
+            {
+                Point enemy = enemies.get(rand.nextInt(enemies.size()));
+                testBoard.attack(enemy.x, enemy.y);
+            }
+            else if (!reachable.isEmpty() && rand.nextBoolean())
+            {
+                Point cell = reachable.get(rand.nextInt(reachable.size()));
+                testBoard.moveTo(cell.x, cell.y);
+            }
+            else
+            {
+                int x = rand.nextInt(40);
+                int y = rand.nextInt(40);
+                testBoard.setTerrain(x, y, new Terrain("Swamp", -2, 3, x, y));
+            }
+        }
+
+        //Restoring any snapshot, in any order, gives back its position.
+        for (int i = 0; i < 100; i++)
+        {
+            int step = rand.nextInt(snaps.size());
+            testBoard.restore(snaps.get(step));
+            assertEquals(hashes.get(step).longValue(), testBoard.getHash());
+            assertEquals(testBoard.computeHash(), testBoard.getHash());
+            assertEquals(places.get(step),
+                testBoard.getUnitLocations(Player.kPlayer1));
+        }
+
+        //Units taken before a restore are off the board but keep their state.
+        testBoard.restore(snaps.get(0));
+        assertNotSame(before, testBoard.getTerrain(0, 0).getUnit());
+        assertEquals(before.getCurrentHealth(),
+            testBoard.getTerrain(0, 0).getUnit().getCurrentHealth());
+
+        //Snapshots share the chunks of the map that did not change.
+        BoardSnapshot first = testBoard.snapshot();
+        assertSame(first.getChunks(), testBoard.snapshot().getChunks());
+        testBoard.setTerrain(39, 39, new Terrain("Swamp", -2, 3, 39, 39));
+        BoardSnapshot second = testBoard.snapshot();
+        assertSame(first.getChunks()[0], second.getChunks()[0]);
+        int last = second.getChunks().length - 1;
+        assertNotSame(first.getChunks()[last], second.getChunks()[last]);
+        testBoard.restore(first);
+        assertEquals("Plains", testBoard.getTerrain(39, 39).getType());
+
+        //A snapshot only goes back on the board it was taken of.
+        try
+        {
+            new GameBoard().restore(first);
+            fail("restored a snapshot of another board");
+        }
+        catch (IllegalArgumentException e)
+        {
+        }
+    }
+
+    /**
+     * Test of undo and redo methods, of class GameBoard.
+     */
+    @Test
+    public void testUndo() throws Exception
+    {
+        System.out.println("undo");
+        testBoard.loadMap(writeMap(12, 12, 12));
+        testBoard.setHistory(new BoardHistory(1000, 100000));
+        assertFalse(testBoard.undo());
+
+        //Play at random, remembering each position.
+        java.util.Random rand = new java.util.Random(11);
+        ArrayList<Long> hashes = new ArrayList<Long>();
+        ArrayList<Player> players = new ArrayList<Player>();
+        hashes.add(testBoard.getHash());
+        players.add(testBoard.getActivePlayer());
+        Unit killed = null;
+        for (int step = 0; step < 300 && killed == null; step++)
+        {
+            Player active = testBoard.getActivePlayer();
+            ArrayList<Point> mine = testBoard.getUnitLocations(active);
+            if (rand.nextInt(6) == 0)
+            {
+                testBoard.resetUnits(Player.values()[(active.ordinal() + 1) % 2]);
+            }
+            else
+            {
+                Point unit = mine.get(rand.nextInt(mine.size()));
+                testBoard.selectTerrain(unit.x, unit.y);
+                ArrayList<Point> enemies = testBoard.getEnemiesInRange();
+                ArrayList<Point> reachable = testBoard.getReachableCells();
+                if (!enemies.isEmpty())
+                {
+                    Point enemy = enemies.get(rand.nextInt(enemies.size()));
+                    Unit defender = testBoard.getTerrain(enemy.x, enemy.y).getUnit();
+                    testBoard.attack(enemy.x, enemy.y);
+                    if (testBoard.getTerrain(enemy.x, enemy.y).getUnit() == null)
+                    {
+                        killed = defender;
+                    }
+                }
+                else if (!reachable.isEmpty())
+                {
+                    Point cell = reachable.get(rand.nextInt(reachable.size()));
+                    testBoard.moveTo(cell.x, cell.y);
+                }
+                else
+                {
+                    continue;
+                }
+            }
+            hashes.add(testBoard.getHash());
+            players.add(testBoard.getActivePlayer());
+        }
+        assertNotNull(killed);
+        assertEquals(hashes.size() - 1,
+            testBoard.getHistory().getUndoCount());
+
+        //Undo everything, one action at a time.
+        for (int step = hashes.size() - 2; step >= 0; step--)
+        {
+            assertTrue(testBoard.undo());
+            assertEquals(hashes.get(step).longValue(), testBoard.getHash());
+            assertEquals(testBoard.computeHash(), testBoard.getHash());
+            assertEquals(players.get(step), testBoard.getActivePlayer());
+            assertNull(testBoard.getSelection());
+        }
+        assertFalse(testBoard.undo());
+
+        //The killed Unit is back on the map, and is the same Unit.
+        int onMap = 0;
+        for (Player owner : Player.values())
+        {
+            for (Point cell : testBoard.getUnitLocations(owner))
+            {
+                if (testBoard.getTerrain(cell.x, cell.y).getUnit() == killed)
+                {
+                    onMap++;
+                }
+            }
+        }
+        assertEquals(1, onMap);
+
+        //Redo everything.
+        for (int step = 1; step < hashes.size(); step++)
+        {
+            assertTrue(testBoard.redo());
+            assertEquals(hashes.get(step).longValue(), testBoard.getHash());
+            assertEquals(testBoard.computeHash(), testBoard.getHash());
+        }
+        assertFalse(testBoard.redo());
+
+        //A new action after an undo can not redo what was undone.
+        testBoard.undo();
+        testBoard.resetUnits(testBoard.getActivePlayer());
+        assertFalse(testBoard.redo());
+    }
+
+    /**
+     * Test that the history forgets the oldest actions when it is full.
+     */
+    @Test
+    public void testUndoLimit() throws Exception
+    {
+        System.out.println("undoLimit");
+        testBoard.loadMap(writeMap(12, 12, 12));
+        BoardHistory history = new BoardHistory(4, 5);
+        testBoard.setHistory(history);
+        ArrayList<Long> hashes = new ArrayList<Long>();
+        hashes.add(testBoard.getHash());
+
+        //Moves one way and back, each one Unit change.
+        Point unit = testBoard.getUnitLocations(Player.kPlayer1).get(0);
+        for (int step = 0; step < 10; step++)
+        {
+            testBoard.selectTerrain(unit.x, unit.y + step % 2);
+            testBoard.move(0, step % 2 == 0 ? 1 : -1);
+            hashes.add(testBoard.getHash());
+            assertTrue(history.getUndoCount() <= 4);
+            assertTrue(history.getRecordCount() <= 5);
+        }
+
+        //Only the newest four can be undone.
+        for (int step = 9; step >= 6; step--)
+        {
+            assertTrue(testBoard.undo());
+            assertEquals(hashes.get(step).longValue(), testBoard.getHash());
+        }
+        assertFalse(testBoard.undo());
+
+        //Ending the turn with more Units to reset than fit clears it.
+        testBoard.resetUnits(Player.kPlayer1);
+        for (Point cell : testBoard.getUnitLocations(Player.kPlayer1))
+        {
+            testBoard.selectTerrain(cell.x, cell.y);
+            Point to = testBoard.getReachableCells().get(0);
+            assertTrue(testBoard.moveTo(to.x, to.y));
+        }
+        assertTrue(history.canUndo());
+        testBoard.resetUnits(Player.kPlayer2);
+        assertFalse(testBoard.undo());
+        assertEquals(0, history.getRecordCount());
+    }
+
+    private String writeMap(int rows, int cols, int units) throws Exception
+    {
+        java.io.File file = java.io.File.createTempFile("snapshot", ".ocem");
+        file.deleteOnExit();
+        java.io.PrintWriter out = new java.io.PrintWriter(file);
+        out.println("kPlayer1");
+        out.println(rows + "," + cols);
+        for (int row = 0; row < rows; row++)
+        {
+            StringBuilder line = new StringBuilder("Plains");
+            for (int col = 1; col < cols; col++)
+            {
+                line.append(",Plains");
+            }
+            out.println(line);
+        }
+        for (int i = 0; i < units; i++)
+        {
+            out.println("~," + i + "," + (i % 2 == 0 ? 0 : cols - 1) +
+                ",Brute," + Player.values()[i % 2] + ",100,3,true");
+        }
+        out.println("A test of snapshots.");
+        out.close();
+        return file.getPath();
+    }
+
+    /**
+     * Test that changing a Unit on the map goes through the board.
+     */
+    @Test
+    public void testChangeUnit() throws Exception
+    {
+        System.out.println("changeUnit");
+        testBoard.loadMap("test/toleco/logic/testAttackMap.ocem");
+        testBoard.setHistory(new BoardHistory(1000, 100000));
+        testBoard.selectTerrain(0, 0);
+        testBoard.moveTo(1, 0);
+        assertTrue(testBoard.getHistory().canUndo());
+
+        Recorder recorder = new Recorder();
+        testBoard.addObserver(recorder);
+        long before = testBoard.getHash();
+        Unit unit = testBoard.getTerrain(1, 0).getUnit();
+        unit.takeDamage(10);
+        unit.useAttack();
+
+        //Observers hear of the cell each time, the hash keeps up, and the
+        // history, which can not undo the change, is forgotten.
+        assertEquals(2, recorder.changes.size());
+        assertEquals("1,0", recorder.changes.get(0));
+        assertTrue(before != testBoard.getHash());
+        assertEquals(testBoard.computeHash(), testBoard.getHash());
+        assertFalse(testBoard.getHistory().canUndo());
+        assertEquals(90, testBoard.getTerrain(1, 0).getUnit().getCurrentHealth());
+    }
+
     /**
      * Test of attack method, of class GameBoard.
      */
@@ -411,6 +971,31 @@ public class GameBoardTest {
         assertTrue(testBoard.getMap()[0][0].getUnit().canAttack());
     }
 
+    /**
+     * Test of resetUnits method when only the next player's units are reset.
+     */
+    @Test
+    public void testResetNextPlayerOnly() throws Exception
+    {
+        System.out.println("resetUnits next player only");
+
+        testBoard.loadMap("test/toleco/logic/testAttackMap.ocem");
+        testBoard.setResetNextPlayerOnly(true);
+        Unit first = testBoard.getMap()[0][0].getUnit();
+        Unit second = testBoard.getMap()[0][1].getUnit();
+        first.useAttack();
+        second.useAttack();
+
+        testBoard.resetUnits(Player.kPlayer2);
+
+        assertFalse(first.canAttack());
+        assertTrue(second.canAttack());
+
+        testBoard.resetUnits(Player.kPlayer1);
+
+        assertTrue(first.canAttack());
+    }
+
     /**
      * Test a bad (not found) file.
      */
@@ -521,7 +1106,7 @@ public class GameBoardTest {
         {
         }
 
-        testBoard.getMap()[0][1] = new Terrain("TestTerrain", 1, 5, 0, 2);
+        testBoard.setTerrain(0, 1, new Terrain("TestTerrain", 1, 5, 0, 2));
         Unit mover = new Unit("Mover", Player.kPlayer1, 100, 100, 100, 100,
             AttackType.kCrush, 100, 100, ArmorType.kPadded, 100, true);
         testBoard.getMap()[0][0].setUnit(mover);
@@ -563,8 +1148,8 @@ public class GameBoardTest {
         atkTerrain.setUnit(attacker);
         defTerrain.setUnit(defender);
 
-        testBoard.getMap()[9][9] = atkTerrain;
-        testBoard.getMap()[9][8] = defTerrain;
+        testBoard.setTerrain(9, 9, atkTerrain);
+        testBoard.setTerrain(9, 8, defTerrain);
 
         //Get would-be damages.
         int terrMod = 20;
@@ -580,15 +1165,108 @@ public class GameBoardTest {
         assertEquals(defender.getMaxHealth() - damage, defender.getCurrentHealth());
     }
 
+    /**
+     * Test of beginChange and endChange methods, of class GameBoard.
+     */
+    @Test
+    public void testBeginChange() throws Exception
+    {
+        System.out.println("beginChange");
+
+        Recorder recorder = new Recorder();
+        testBoard.addObserver(recorder);
+
+        //Loading a map changes everything and says whose turn it is.
+        testBoard.loadMap("test/toleco/logic/testAttackMap.ocem");
+        assertEquals(1, recorder.changes.size());
+        assertEquals("everything kPlayer1", recorder.changes.get(0));
+
+        //Nothing is published until the outermost batch ends, and then a
+        // cell changed twice is listed once.
+        recorder.changes.clear();
+        testBoard.beginChange();
+        testBoard.selectTerrain(0, 0);
+        testBoard.move(1, 0);
+        testBoard.beginChange();
+        testBoard.selectTerrain(1, 0);
+        testBoard.move(-1, 0);
+        testBoard.endChange();
+        assertEquals(0, recorder.changes.size());
+        testBoard.endChange();
+        assertEquals(1, recorder.changes.size());
+        assertEquals("0,0 1,0 selection", recorder.changes.get(0));
+
+        //A batch in which nothing changes publishes nothing.
+        recorder.changes.clear();
+        testBoard.beginChange();
+        testBoard.endChange();
+        assertEquals(0, recorder.changes.size());
+
+        //Flushing publishes what has changed so far and keeps the batch open.
+        testBoard.beginChange();
+        testBoard.selectTerrain(0, 1);
+        testBoard.flushChange();
+        assertEquals(1, recorder.changes.size());
+        testBoard.getEnemiesInRange();
+        assertEquals(1, recorder.changes.size());
+        testBoard.endChange();
+        assertEquals(2, recorder.changes.size());
+        assertEquals("selection", recorder.changes.get(0));
+        assertEquals("enemies", recorder.changes.get(1));
+
+        //Outside a batch each change is published at once.
+        recorder.changes.clear();
+        testBoard.selectTerrain(-1, -1);
+        testBoard.resetUnits(Player.kPlayer2);
+        assertEquals(2, recorder.changes.size());
+        assertEquals("selection", recorder.changes.get(0));
+        assertTrue(recorder.changes.get(1).endsWith("kPlayer2"));
+    }
+
+    /**
+     * Writes down each BoardChange it is told of, since the board uses the
+     * same one again.
+     */
+    private class Recorder implements Observer
+    {
+        private ArrayList<String> changes = new ArrayList<String>();
+
+        public void update(Observable obs, Object obj)
+        {
+            BoardChange change = (BoardChange)obj;
+            String text = change.isEverything() ? " everything" : "";
+
+            for (int i = 0; i < change.getCellCount(); i++)
+            {
+                text += " " + change.getX(i) + "," + change.getY(i);
+            }
+            if (change.isSelectionChanged() && !change.isEverything())
+            {
+                text += " selection";
+            }
+            if (change.getEnemies() != null)
+            {
+                text += " enemies";
+            }
+            if (change.getPlayer() != null)
+            {
+                text += " " + change.getPlayer();
+            }
+            changes.add(text.trim());
+        }
+    }
+
     private class Watcher implements Observer
     {
         public void update(Observable obs, Object obj)
         {
-            if (obj instanceof ArrayList)
+            if (obj instanceof ArrayList || (obj instanceof BoardChange &&
+                ((BoardChange)obj).getEnemies() != null))
             {
                 throw new FunException("getEnemiesInRange");
             }
-            else if (obj instanceof Player)
+            else if (obj instanceof Player || (obj instanceof BoardChange &&
+                ((BoardChange)obj).getPlayer() != null))
             {
                 throw new FunException("player");
             }
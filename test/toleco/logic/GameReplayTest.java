@@ -0,0 +1,382 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package toleco.logic;
+
+import toleco.controller.Command;
+import toleco.controller.GameController;
+import toleco.controller.Player;
+import toleco.controller.PlayerAction;
+import toleco.unit.Unit;
+import toleco.view.I_GameView;
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.Observable;
+import java.util.Random;
+import javax.swing.JPanel;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author eriq
+ */
+public class GameReplayTest {
+
+    private GameBoard board;
+    private GameController controller;
+    private File journalFile;
+
+    public GameReplayTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        board = new GameBoard();
+        controller = new GameController(board);
+        controller.setView(new QuietView());
+        journalFile = File.createTempFile("replay", ".tjl");
+        journalFile.deleteOnExit();
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of seek and step methods, of class GameReplay.
+     */
+    @Test
+    public void testSeek() throws Exception
+    {
+        System.out.println("seek");
+        GameJournal journal = new GameJournal(journalFile.getPath());
+        controller.setJournal(journal);
+        controller.loadMap("maps/Bridge.ocem");
+
+        //Play at random through the controller, remembering the start of
+        // each turn.
+        ArrayList<Long> turnStarts = play(new Random(3), 400);
+        journal.close();
+
+        GameReplay replay = new GameReplay(journalFile.getPath());
+        assertEquals(turnStarts.size() - 1, replay.getTurnCount());
+        assertTrue(replay.getKeyframeCount() > 1);
+
+        //Seeking to any turn, in any order, gives the position it started in.
+        GameBoard replayBoard = new GameBoard();
+        Random rand = new Random(4);
+        for (int i = 0; i < 50; i++)
+        {
+            int turn = rand.nextInt(turnStarts.size());
+            replay.seek(replayBoard, turn);
+            assertEquals(turn, replay.getTurn());
+            assertEquals(turnStarts.get(turn).longValue(),
+                replayBoard.getHash());
+            assertEquals(replayBoard.computeHash(), replayBoard.getHash());
+        }
+
+        //Playing the whole journal ends where the game did.
+        replay.seek(replayBoard, 0);
+        while (replay.step(replayBoard))
+        {
+        }
+        assertTrue(replay.isFinished());
+        assertEquals(board.getHash(), replayBoard.getHash());
+        assertEquals(board.getActivePlayer(), replayBoard.getActivePlayer());
+        assertFalse(replay.step(replayBoard));
+    }
+
+    /**
+     * Test that a journal cut short is played up to its last whole record.
+     */
+    @Test
+    public void testCutShort() throws Exception
+    {
+        System.out.println("cutShort");
+        GameJournal journal = new GameJournal(journalFile.getPath());
+        controller.setJournal(journal);
+        controller.loadMap("maps/Bridge.ocem");
+        ArrayList<Long> turnStarts = play(new Random(5), 100);
+        journal.close();
+
+        //Cut a few bytes off the end.
+        byte[] data = new byte[(int)journalFile.length()];
+        FileInputStream in = new FileInputStream(journalFile);
+        in.read(data);
+        in.close();
+        File cut = File.createTempFile("cut", ".tjl");
+        cut.deleteOnExit();
+        FileOutputStream out = new FileOutputStream(cut);
+        out.write(data, 0, data.length - 3);
+        out.close();
+
+        GameReplay whole = new GameReplay(journalFile.getPath());
+        GameReplay replay = new GameReplay(cut.getPath());
+        assertTrue(replay.getActionCount() <= whole.getActionCount());
+        assertTrue(replay.getActionCount() >= whole.getActionCount() - 2);
+
+        GameBoard replayBoard = new GameBoard();
+        replay.seek(replayBoard, replay.getTurnCount());
+        assertEquals(turnStarts.get(replay.getTurnCount()).longValue(),
+            replayBoard.getHash());
+
+        //A file that is not a journal is refused.
+        try
+        {
+            new GameReplay("maps/Bridge.ocem");
+            fail("read a map as a journal");
+        }
+        catch (java.io.IOException e)
+        {
+        }
+    }
+
+    /**
+     * Test that a journal with bad players or unknown records is refused as
+     * it is played, rather than failing some other way.
+     */
+    @Test
+    public void testCorrupt() throws Exception
+    {
+        System.out.println("corrupt");
+        GameJournal journal = new GameJournal(journalFile.getPath());
+        controller.setJournal(journal);
+        controller.loadMap("maps/Bridge.ocem");
+        for (int turn = 0; turn < 5; turn++)
+        {
+            controller.update(null, PlayerAction.kEndTurn.toString());
+        }
+        journal.close();
+
+        byte[] data = new byte[(int)journalFile.length()];
+        FileInputStream in = new FileInputStream(journalFile);
+        in.read(data);
+        in.close();
+
+        //The keyframe's player follows the header, the record's code, turn
+        // and length, and the map's size.
+        int keyframePlayer = 5 + 9 + 8;
+        int endTurn = data.length - 5 * 2;
+        assertEquals(GameJournal.kEndTurn, data[endTurn]);
+        assertEquals(GameJournal.kEndTurn, data[endTurn + 2]);
+
+        GameBoard replayBoard = new GameBoard();
+        GameReplay replay = corrupt(data, keyframePlayer, 9);
+        try
+        {
+            replay.seek(replayBoard, 0);
+            fail("read a keyframe for an unknown player");
+        }
+        catch (java.io.IOException e)
+        {
+        }
+
+        //A keyframe refused does not change the board it was read onto.
+        new GameReplay(journalFile.getPath()).seek(replayBoard, 0);
+        long hash = replayBoard.getHash();
+        int rows = replayBoard.getNumRows();
+
+        //The map's size comes first in the keyframe.
+        replay = corrupt(data, keyframePlayer - 8, 0x7F);
+        try
+        {
+            replay.seek(replayBoard, 0);
+            fail("read a keyframe with a bad map size");
+        }
+        catch (java.io.IOException e)
+        {
+        }
+        assertEquals(hash, replayBoard.getHash());
+        assertEquals(rows, replayBoard.getNumRows());
+
+        //The number of kinds follows the player and the back story.
+        int kindCount = keyframePlayer + 1 + 2 +
+            (((data[keyframePlayer + 1] & 0xFF) << 8) |
+            (data[keyframePlayer + 2] & 0xFF));
+        replay = corrupt(data, kindCount, 0xFF);
+        try
+        {
+            replay.seek(replayBoard, 0);
+            fail("read a keyframe with a negative number of kinds");
+        }
+        catch (java.io.IOException e)
+        {
+        }
+        assertEquals(hash, replayBoard.getHash());
+
+        replay = corrupt(data, endTurn + 1, -1);
+        replay.seek(replayBoard, 0);
+        try
+        {
+            replay.step(replayBoard);
+            fail("ended the turn for an unknown player");
+        }
+        catch (java.io.IOException e)
+        {
+        }
+
+        replay = corrupt(data, endTurn, 99);
+        replay.seek(replayBoard, 0);
+        try
+        {
+            replay.step(replayBoard);
+            fail("played an unknown record");
+        }
+        catch (java.io.IOException e)
+        {
+        }
+    }
+
+    /**
+     * Writes a copy of a journal with one byte changed, and reads it back.
+     *
+     * @param data the journal
+     * @param at where the byte to change is
+     * @param value the byte's new value
+     * @return the changed journal
+     */
+    private GameReplay corrupt(byte[] data, int at, int value) throws Exception
+    {
+        File bad = File.createTempFile("corrupt", ".tjl");
+        bad.deleteOnExit();
+        FileOutputStream out = new FileOutputStream(bad);
+        out.write(data, 0, at);
+        out.write(value);
+        out.write(data, at + 1, data.length - at - 1);
+        out.close();
+        return new GameReplay(bad.getPath());
+    }
+
+    /**
+     * Plays at random through the controller, stopping before either side is
+     * down to its last Unit so that the game is never over.
+     *
+     * @param rand the random numbers
+     * @param actions the most actions to take
+     * @return the hash at the start of each turn, by the number of ends of
+     * turns before it
+     */
+    private ArrayList<Long> play(Random rand, int actions)
+    {
+        ArrayList<Long> turnStarts = new ArrayList<Long>();
+        turnStarts.add(board.getHash());
+
+        for (int i = 0; i < actions &&
+            board.getUnitCount(Player.kPlayer1) > 1 &&
+            board.getUnitCount(Player.kPlayer2) > 1; i++)
+        {
+            Player active = board.getActivePlayer();
+            ArrayList<Point> mine = board.getUnitLocations(active);
+            int pick = rand.nextInt(10);
+
+            if (pick == 0)
+            {
+                controller.update(null, PlayerAction.kEndTurn.toString());
+                turnStarts.add(board.getHash());
+            }
+            else if (pick == 1)
+            {
+                controller.update(null, PlayerAction.kUndo.toString());
+            }
+            else
+            {
+                Point unit = mine.get(rand.nextInt(mine.size()));
+                controller.update(null, PlayerAction.kSelect.toString() +
+                    " " + unit.x + " " + unit.y);
+                ArrayList<Point> enemies = board.getEnemiesInRange();
+                ArrayList<Point> reachable = board.getReachableCells();
+                if (!enemies.isEmpty() &&
+                    board.getSelection().getUnit().canAttack())
+                {
+                    Point enemy = enemies.get(rand.nextInt(enemies.size()));
+                    controller.update(null, PlayerAction.kAttack.toString());
+                    controller.update(null, PlayerAction.kSelect.toString() +
+                        " " + enemy.x + " " + enemy.y);
+                }
+                else if (!reachable.isEmpty())
+                {
+                    Point cell = reachable.get(rand.nextInt(reachable.size()));
+                    controller.update(null, PlayerAction.kMoveTo.toString() +
+                        " " + cell.x + " " + cell.y);
+                }
+                else if (unit.x > 0 && rand.nextBoolean())
+                {
+                    controller.update(null, PlayerAction.kMoveUp.toString());
+                }
+            }
+        }
+        return turnStarts;
+    }
+
+    /**
+     * A view that shows nothing.
+     */
+    private static class QuietView implements I_GameView
+    {
+        public void drawMap()
+        {
+        }
+
+        public BufferedImage getImage(String name)
+        {
+            return null;
+        }
+
+        public void displayBattleSummary(Unit attacker, Unit defender,
+            String summary)
+        {
+        }
+
+        public void displayTerrainSelected(Player currentPlayer)
+        {
+        }
+
+        public void update(Observable obs, Object obj)
+        {
+        }
+
+        public void removeHighlights()
+        {
+        }
+
+        public void acceptAction(String action)
+        {
+        }
+
+        public void acceptCommand(Command<?> command)
+        {
+        }
+
+        public JPanel getPanel()
+        {
+            return null;
+        }
+
+        public void displayBackStory(String story)
+        {
+        }
+
+        public void displayGameOver(String winner)
+        {
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package toleco.logic;
+
+import toleco.controller.Player;
+import toleco.terrain.Terrain;
+import toleco.unit.Unit;
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Random;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks the unit counters kept by GameBoard against a scan of the map.
+ *
+ * @author eriq
+ */
+public class UnitCountTest {
+
+    private GameBoard testBoard;
+
+    public UnitCountTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        testBoard = new GameBoard();
+        testBoard.loadMap("test/toleco/logic/testAttackMap.ocem");
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Count the units and health on the map the slow way, and compare.
+     */
+    private void checkCounts()
+    {
+        int[] counts = new int[Player.values().length];
+        long[] health = new long[Player.values().length];
+
+        for (Terrain[] row : testBoard.getMap())
+        {
+            for (Terrain terrain : row)
+            {
+                Unit unit = terrain.getUnit();
+                if (unit != null)
+                {
+                    counts[unit.getOwner().ordinal()]++;
+                    health[unit.getOwner().ordinal()] += unit.getCurrentHealth();
+                }
+            }
+        }
+
+        for (Player player : Player.values())
+        {
+            assertEquals(counts[player.ordinal()], testBoard.getUnitCount(player));
+            assertEquals(health[player.ordinal()], testBoard.getTotalHealth(player));
+        }
+    }
+
+    /**
+     * Test the counters after loading a map.
+     */
+    @Test
+    public void testLoad() throws Exception
+    {
+        System.out.println("counts after load");
+        assertEquals(1, testBoard.getUnitCount(Player.kPlayer1));
+        assertEquals(1, testBoard.getUnitCount(Player.kPlayer2));
+        assertEquals(100, testBoard.getTotalHealth(Player.kPlayer1));
+        checkCounts();
+
+        testBoard.loadMap("test/toleco/logic/testLargeMap.ocem");
+        checkCounts();
+    }
+
+    /**
+     * Test the counters after a long run of random placements, moves,
+     * attacks and damage.
+     */
+    @Test
+    public void testRandomActions()
+    {
+        System.out.println("counts after random actions");
+        Random rand = new Random(170);
+        ArrayList<String> unitNames = testBoard.getUnitNames();
+        int rows = testBoard.getNumRows();
+        int cols = testBoard.getNumCols();
+
+        for (int step = 0; step < 3000; step++)
+        {
+            int xCoord = rand.nextInt(rows);
+            int yCoord = rand.nextInt(cols);
+            Player player = rand.nextBoolean() ? Player.kPlayer1 : Player.kPlayer2;
+            Unit unit = testBoard.getTerrain(xCoord, yCoord).getUnit();
+
+            switch (rand.nextInt(5))
+            {
+                //Editor placement, sometimes clearing the cell.
+                case 0:
+                    testBoard.selectTerrain(xCoord, yCoord);
+                    testBoard.setTerrain("Default", rand.nextInt(4) == 0 ? null :
+                        unitNames.get(rand.nextInt(unitNames.size())), player);
+                    break;
+                //Move to a random empty neighbour.
+                case 1:
+                    int xChange = rand.nextInt(3) - 1;
+                    int yChange = xChange == 0 ? rand.nextInt(3) - 1 : 0;
+                    if (unit != null && xCoord + xChange >= 0 &&
+                        xCoord + xChange < rows && yCoord + yChange >= 0 &&
+                        yCoord + yChange < cols && (xChange != 0 || yChange != 0)
+                        && testBoard.getTerrain(xCoord + xChange,
+                        yCoord + yChange).getUnit() == null)
+                    {
+                        testBoard.selectTerrain(xCoord, yCoord);
+                        testBoard.move(xChange, yChange);
+                    }
+                    break;
+                //Attack an enemy in range.
+                case 2:
+                    if (unit != null)
+                    {
+                        testBoard.selectTerrain(xCoord, yCoord);
+                        ArrayList<Point> enemies = testBoard.getEnemiesInRange();
+                        if (!enemies.isEmpty())
+                        {
+                            Point target = enemies.get(rand.nextInt(enemies.size()));
+                            testBoard.attack(target.x, target.y);
+                        }
+                    }
+                    break;
+                //Damage through a Unit taken from the map.
+                case 3:
+                    if (unit != null && unit.getCurrentHealth() > 1)
+                    {
+                        unit.takeDamage(1);
+                    }
+                    break;
+                //Remove through a Terrain taken from the map.
+                default:
+                    testBoard.getTerrain(xCoord, yCoord).removeUnit();
+                    break;
+            }
+
+            checkCounts();
+        }
+    }
+}
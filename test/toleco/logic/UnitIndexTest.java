@@ -0,0 +1,154 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package toleco.logic;
+
+import toleco.controller.Player;
+import java.util.ArrayList;
+import java.util.Random;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author eriq
+ */
+public class UnitIndexTest {
+
+    private static final int kRows = 37;
+    private static final int kCols = 23;
+
+    private UnitIndex index;
+
+    public UnitIndexTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+        index = new UnitIndex(kRows, kCols);
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of findEnemies method, of class UnitIndex.
+     */
+    @Test
+    public void testFindEnemies()
+    {
+        System.out.println("findEnemies");
+
+        index.add(0, Player.kPlayer1, 0);
+        index.add(1, Player.kPlayer2, 1);
+        index.add(2, Player.kPlayer2, 3 * kCols + 3);
+        index.add(3, Player.kPlayer2, 36 * kCols + 22);
+
+        assertEquals(1, index.findEnemies(Player.kPlayer1, 0, 0, 1));
+        assertEquals(1, index.getFound(0));
+
+        assertEquals(2, index.findEnemies(Player.kPlayer1, 0, 0, 6));
+        assertEquals(1, index.getFound(0));
+        assertEquals(3 * kCols + 3, index.getFound(1));
+
+        assertEquals(1, index.findEnemies(Player.kPlayer2, 36, 22, 100));
+        assertEquals(0, index.getFound(0));
+        assertEquals(3, index.findEnemies(Player.kPlayer1, 36, 22, 100));
+
+        index.move(3, 35 * kCols + 22);
+        assertEquals(1, index.findEnemies(Player.kPlayer1, 35, 21, 1));
+        assertEquals(35 * kCols + 22, index.getFound(0));
+
+        index.remove(1);
+        assertEquals(0, index.findEnemies(Player.kPlayer1, 0, 0, 1));
+    }
+
+    /**
+     * Compare the index against a scan of every cell, under random adds,
+     * moves and removes.
+     */
+    @Test
+    public void testRandom()
+    {
+        System.out.println("random");
+        Random rand = new Random(214);
+        int[] board = new int[kRows * kCols];
+        int[] cellOf = new int[200];
+        Player[] ownerOf = new Player[200];
+        ArrayList<Integer> live = new ArrayList<Integer>();
+        java.util.Arrays.fill(board, -1);
+
+        for (int step = 0; step < 5000; step++)
+        {
+            int action = rand.nextInt(3);
+            int cell = rand.nextInt(kRows * kCols);
+
+            if (action == 0 && live.size() < cellOf.length && board[cell] == -1)
+            {
+                int slot = 0;
+                while (live.contains(slot))
+                {
+                    slot++;
+                }
+                Player owner = rand.nextBoolean() ? Player.kPlayer1 : Player.kPlayer2;
+                index.add(slot, owner, cell);
+                board[cell] = slot;
+                cellOf[slot] = cell;
+                ownerOf[slot] = owner;
+                live.add(slot);
+            }
+            else if (action == 1 && !live.isEmpty() && board[cell] == -1)
+            {
+                int slot = live.get(rand.nextInt(live.size()));
+                index.move(slot, cell);
+                board[cellOf[slot]] = -1;
+                board[cell] = slot;
+                cellOf[slot] = cell;
+            }
+            else if (action == 2 && !live.isEmpty())
+            {
+                Integer slot = live.get(rand.nextInt(live.size()));
+                index.remove(slot);
+                board[cellOf[slot]] = -1;
+                live.remove(slot);
+            }
+
+            int row = rand.nextInt(kRows);
+            int col = rand.nextInt(kCols);
+            int range = rand.nextInt(12);
+            Player owner = rand.nextBoolean() ? Player.kPlayer1 : Player.kPlayer2;
+
+            ArrayList<Integer> expected = new ArrayList<Integer>();
+            for (int i = 0; i < board.length; i++)
+            {
+                if (board[i] != -1 && ownerOf[board[i]] != owner &&
+                    Math.abs(i / kCols - row) + Math.abs(i % kCols - col) <= range)
+                {
+                    expected.add(i);
+                }
+            }
+
+            int numFound = index.findEnemies(owner, row, col, range);
+            assertEquals(expected.size(), numFound);
+            for (int i = 0; i < numFound; i++)
+            {
+                assertEquals(expected.get(i).intValue(), index.getFound(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package toleco.sim;
+
+import toleco.controller.Player;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author eriq
+ */
+public class BattleSimulatorTest {
+
+    private BattleSimulator sim;
+
+    public BattleSimulatorTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        sim = new BattleSimulator("test/toleco/logic/testLargeMap.ocem",
+            new GreedyPolicy(), new RandomPolicy());
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of run method, of class BattleSimulator.
+     */
+    @Test
+    public void testRun() throws Exception
+    {
+        System.out.println("run");
+        SimulationReport report = sim.run(40, 3, 214);
+
+        assertEquals(40, report.getGames());
+        assertEquals(40, report.getWins(Player.kPlayer1) +
+            report.getWins(Player.kPlayer2) + report.getDraws());
+        assertTrue(report.getAverageTurns() >= 1);
+        assertTrue(report.getAverageTurns() <= BattleSimulator.kDefaultTurnLimit);
+        assertTrue(report.getGamesPerSecond() > 0);
+
+        //The same seed gives the same games on any number of threads.
+        SimulationReport again = sim.run(40, 1, 214);
+        assertEquals(report.getWins(Player.kPlayer1),
+            again.getWins(Player.kPlayer1));
+        assertEquals(report.getDraws(), again.getDraws());
+        assertEquals(report.getAverageTurns(), again.getAverageTurns(), 0.0);
+    }
+
+    /**
+     * Test of playGame method, of class BattleSimulator.
+     */
+    @Test
+    public void testTurnLimit()
+    {
+        System.out.println("playGame");
+        int[] result = new int[2];
+
+        sim.setTurnLimit(1);
+        sim.playGame(7, result);
+
+        assertEquals(-1, result[0]);
+        assertEquals(1, result[1]);
+    }
+}
@@ -0,0 +1,218 @@
+/**
+ *
+ * @author eriq
+ */
+
+package toleco.unit;
+
+import toleco.controller.Player;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+public class UnitStoreTest {
+
+    private UnitStore store;
+
+    public UnitStoreTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+        store = new UnitStore();
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    private Unit makeUnit(Player owner, int health)
+    {
+        return new Unit("Test", owner, 10, health, 2, 2, AttackType.kMaul,
+                10, 1, ArmorType.kBone, 10, true);
+    }
+
+    @Test
+    public void addTest()
+    {
+        System.out.println("add");
+        int slot = store.add(makeUnit(Player.kPlayer2, 7), 42);
+
+        assertEquals(1, store.size());
+        assertTrue(store.isLive(slot));
+        assertEquals(Player.kPlayer2, store.getOwner(slot));
+        assertEquals(7, store.getCurrentHealth(slot));
+        assertEquals(2, store.getCurrentMoves(slot));
+        assertTrue(store.canAttack(slot));
+        assertEquals(42, store.getCell(slot));
+        assertEquals("Test", store.getType(slot).getType());
+        assertEquals("Test,kPlayer2,7,2,true", store.toStringForFile(slot));
+    }
+
+    @Test
+    public void attachTest()
+    {
+        System.out.println("attach");
+        Unit un = makeUnit(Player.kPlayer1, 10);
+        int slot = store.attach(un, 0);
+
+        assertEquals(slot, store.slotOf(un));
+        assertSame(un, store.getUnit(slot));
+
+        //Changes through the unit show up in the store and the other way around.
+        un.takeDamage(3);
+        assertEquals(7, store.getCurrentHealth(slot));
+        store.setCurrentMoves(slot, 0);
+        assertEquals(0, un.getCurrentMoves());
+
+        //A removed unit keeps its last state.
+        assertSame(un, store.remove(slot));
+        assertEquals(-1, store.slotOf(un));
+        assertEquals(7, un.getCurrentHealth());
+        assertEquals(0, un.getCurrentMoves());
+        un.takeDamage(1);
+        assertEquals(6, un.getCurrentHealth());
+    }
+
+    @Test
+    public void handleTest()
+    {
+        System.out.println("getUnit");
+        int slot = store.add(makeUnit(Player.kPlayer2, 5), 0);
+        Unit un = store.getUnit(slot);
+
+        assertSame(un, store.getUnit(slot));
+        assertEquals(5, un.getCurrentHealth());
+        assertEquals(10, un.getMaxHealth());
+        un.useAttack();
+        assertFalse(store.canAttack(slot));
+    }
+
+    @Test
+    public void removeTest()
+    {
+        System.out.println("remove");
+        int first = store.add(makeUnit(Player.kPlayer1, 10), 0);
+        int second = store.add(makeUnit(Player.kPlayer1, 10), 1);
+        store.remove(first);
+
+        assertEquals(1, store.size());
+        assertFalse(store.isLive(first));
+        assertTrue(store.isLive(second));
+
+        //Removed slots are reused.
+        assertEquals(first, store.add(makeUnit(Player.kPlayer2, 1), 2));
+        assertEquals(2, store.getHighWater());
+    }
+
+    @Test
+    public void growTest()
+    {
+        System.out.println("grow");
+        for (int i = 0; i < 1000; i++)
+        {
+            store.add(makeUnit(Player.kPlayer1, i % 10), i);
+        }
+
+        assertEquals(1000, store.size());
+        assertEquals(999, store.getCell(999));
+        assertEquals(9, store.getCurrentHealth(999));
+    }
+
+    @Test
+    public void resetAllTest()
+    {
+        System.out.println("resetAll");
+        Unit un = makeUnit(Player.kPlayer1, 10);
+        int slot = store.attach(un, 0);
+        un.decrementMove(2);
+        un.useAttack();
+
+        store.resetAll();
+
+        assertEquals(2, un.getCurrentMoves());
+        assertTrue(store.canAttack(slot));
+    }
+
+    @Test
+    public void ownerListTest()
+    {
+        System.out.println("getFirstSlot");
+        int first = store.add(makeUnit(Player.kPlayer1, 10), 0);
+        int second = store.add(makeUnit(Player.kPlayer2, 10), 1);
+        int third = store.add(makeUnit(Player.kPlayer1, 10), 2);
+        store.remove(first);
+
+        int slot = store.getFirstSlot(Player.kPlayer1);
+        assertEquals(third, slot);
+        assertEquals(UnitStore.kNoSlot, store.getNextSlot(slot));
+        assertEquals(second, store.getFirstSlot(Player.kPlayer2));
+
+        store.getUnit(third).useAttack();
+        store.getUnit(second).useAttack();
+        store.resetOwner(Player.kPlayer1);
+        assertTrue(store.canAttack(third));
+        assertFalse(store.canAttack(second));
+    }
+
+    @Test
+    public void clearTest()
+    {
+        System.out.println("clear");
+        Unit un = makeUnit(Player.kPlayer1, 10);
+        store.attach(un, 0);
+        un.takeDamage(4);
+
+        store.clear();
+
+        assertEquals(0, store.size());
+        assertEquals(-1, store.slotOf(un));
+        assertEquals(6, un.getCurrentHealth());
+    }
+
+    @Test
+    public void copyTest()
+    {
+        System.out.println("copy");
+        int first = store.add(makeUnit(Player.kPlayer1, 10), 0);
+        int second = store.add(makeUnit(Player.kPlayer2, 8), 1);
+        UnitStore copy = new UnitStore(store);
+
+        //Changing the store leaves the copy alone.
+        store.setCurrentHealth(first, 3);
+        store.setCell(second, 5);
+        assertEquals(10, copy.getCurrentHealth(first));
+        assertEquals(1, copy.getCell(second));
+        assertEquals(copy.computeHash(), copy.getHash());
+
+        //Changing the copy leaves the store alone.
+        copy.remove(first);
+        copy.add(makeUnit(Player.kPlayer2, 4), 2);
+        assertEquals(2, store.size());
+        assertEquals(1, store.getUnitCount(Player.kPlayer1));
+        assertEquals(3, store.getCurrentHealth(first));
+        assertEquals(store.computeHash(), store.getHash());
+        assertEquals(copy.computeHash(), copy.getHash());
+
+        //Restoring from the copy and then changing the store leaves the copy
+        // alone too.
+        Unit un = store.getUnit(second);
+        store.restore(copy);
+        assertEquals(-1, store.slotOf(un));
+        store.setCanAttack(second, false);
+        assertTrue(copy.canAttack(second));
+        assertEquals(12, store.getTotalHealth(Player.kPlayer2));
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package toleco.view.gui;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.HashMap;
+import javax.imageio.ImageIO;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author eriq
+ */
+public class AssetManagerTest {
+
+    public AssetManagerTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of getImages method, of class AssetManager.
+     */
+    @Test
+    public void testGetImages() throws Exception {
+        System.out.println("getImages");
+        AssetManager.getShared().start();
+        HashMap<String, BufferedImage> images =
+            AssetManager.getShared().getImages();
+
+        //Every view gets the same images.
+        assertSame(AssetManager.getShared(), AssetManager.getShared());
+        assertSame(images, AssetManager.getShared().getImages());
+
+        //Units, their greyed images, terrain, types and the rest are loaded.
+        assertTrue(images.containsKey("Clown"));
+        assertTrue(images.containsKey("Clown" + MapView.kGreyedSuffix));
+        assertTrue(images.containsKey("Plains"));
+        assertTrue(images.containsKey("kCrush"));
+        assertTrue(images.containsKey("kBone"));
+        assertTrue(images.containsKey("Select"));
+        assertTrue(images.containsKey("OverlayPlayer2"));
+
+        //A name that was not loaded gives the default image.
+        assertFalse(images.containsKey("NoSuchImage"));
+        assertNotNull(images.get("NoSuchImage"));
+        assertSame(images.get("NoSuchImage"), images.get("AlsoNoSuchImage"));
+
+        //The images are RGB, with the pixels of the files.
+        BufferedImage clown = images.get("Clown");
+        BufferedImage file = ImageIO.read(new File("images/units/Clown.gif"));
+        assertEquals(BufferedImage.TYPE_INT_RGB, clown.getType());
+        assertEquals(file.getWidth(), clown.getWidth());
+        assertEquals(file.getHeight(), clown.getHeight());
+        for (int x = 0; x < file.getWidth(); x++)
+        {
+            for (int y = 0; y < file.getHeight(); y++)
+            {
+                assertEquals(file.getRGB(x, y), clown.getRGB(x, y));
+            }
+        }
+    }
+}
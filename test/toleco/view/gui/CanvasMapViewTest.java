@@ -0,0 +1,428 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package toleco.view.gui;
+
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.event.InputEvent;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseListener;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Observable;
+import javax.imageio.ImageIO;
+import javax.swing.JPanel;
+import javax.swing.JViewport;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import toleco.controller.Command;
+import toleco.controller.Player;
+import toleco.terrain.DefaultTerrain;
+import toleco.terrain.Terrain;
+import toleco.unit.DefaultUnit;
+import toleco.unit.Unit;
+import toleco.view.I_GameView;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Jon
+ */
+public class CanvasMapViewTest {
+
+    private CanvasMapView view;
+    private HashMap<String, BufferedImage> images;
+    private Terrain[][] map;
+
+    public CanvasMapViewTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        Terrain terrain = new DefaultTerrain(0, 0);
+        Unit unit = new DefaultUnit();
+
+        images = new HashMap<String, BufferedImage>();
+        images.put(terrain.getType(),
+            ImageIO.read(new File("images/terrain/Mountains.gif")));
+        images.put(unit.getType(),
+            ImageIO.read(new File("images/units/Spearman.gif")));
+        images.put("Select", ImageIO.read(new File("images/Select.gif")));
+        images.put("Highlight",
+            ImageIO.read(new File("images/Highlight.gif")));
+
+        map = new Terrain[3][4];
+        for (int row = 0; row < map.length; row++)
+        {
+            for (int col = 0; col < map[row].length; col++)
+            {
+                map[row][col] = new DefaultTerrain(row, col);
+            }
+        }
+        map[1][2].setUnit(unit);
+
+        view = new CanvasMapView(images, new TileCache(16));
+        view.drawMap(map);
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of getCellAt method, of class CanvasMapView.
+     */
+    @Test
+    public void testGetCellAt() {
+        System.out.println("getCellAt");
+        int size = CanvasMapView.kCellSize;
+
+        assertEquals(new Dimension(4 * size, 3 * size),
+            view.getPreferredSize());
+        assertEquals(new Point(0, 0), view.getCellAt(new Point(0, 0)));
+        assertEquals(new Point(1, 2), view.getCellAt(
+            new Point(2 * size + 39, size + 39)));
+        assertEquals(new Point(2, 3), view.getCellAt(
+            new Point(3 * size, 2 * size)));
+
+        //The gaps between cells and the space past the map are on no cell.
+        assertNull(view.getCellAt(new Point(40, 5)));
+        assertNull(view.getCellAt(new Point(5, size + 40)));
+        assertNull(view.getCellAt(new Point(4 * size, 5)));
+        assertNull(view.getCellAt(new Point(5, 3 * size)));
+        assertNull(view.getCellAt(new Point(-1, 5)));
+    }
+
+    /**
+     * Test of paintComponent method, of class CanvasMapView.
+     */
+    @Test
+    public void testPaint() {
+        System.out.println("paint");
+        view.setSize(view.getPreferredSize());
+        view.selectLocation(2, 3);
+        BufferedImage screen = paint();
+
+        //Every cell is painted with its image, where the table would put it.
+        for (int row = 0; row < map.length; row++)
+        {
+            for (int col = 0; col < map[row].length; col++)
+            {
+                BufferedImage cell = view.getCellImage(row, col);
+                for (int x = 0; x < MapView.kImageSize; x += 7)
+                {
+                    for (int y = 0; y < MapView.kImageSize; y += 7)
+                    {
+                        assertEquals(cell.getRGB(x, y), screen.getRGB(
+                            col * CanvasMapView.kCellSize + x,
+                            row * CanvasMapView.kCellSize + y));
+                    }
+                }
+            }
+        }
+
+        //The gaps between cells are the background.
+        assertEquals(view.getBackground().getRGB(), screen.getRGB(40, 5));
+
+        //A unit that moves is painted where it went.
+        map[0][0].setUnit(map[1][2].getUnit());
+        map[1][2].setUnit(null);
+        view.drawMap(map);
+        screen = paint();
+        assertEquals(view.getCellImage(0, 0).getRGB(20, 20),
+            screen.getRGB(20, 20));
+        assertEquals(view.getCellImage(1, 2).getRGB(20, 20), screen.getRGB(
+            2 * CanvasMapView.kCellSize + 20, CanvasMapView.kCellSize + 20));
+    }
+
+    /**
+     * Test that a click selects the cell clicked on, and only on a cell.
+     */
+    @Test
+    public void testClick() {
+        System.out.println("click");
+        ClickView gameView = new ClickView();
+        view.setGameView(gameView);
+        MouseListener mouse = view.getMouseListeners()[0];
+
+        mouse.mouseReleased(click(2 * CanvasMapView.kCellSize + 5,
+            CanvasMapView.kCellSize + 5));
+        assertEquals(1, gameView.commands.size());
+        assertEquals("kSelectCell 1 2", gameView.commands.get(0));
+
+        //A click between cells selects nothing.
+        mouse.mouseReleased(click(CanvasMapView.kCellSize - 1, 5));
+        assertEquals(1, gameView.commands.size());
+    }
+
+    /**
+     * Test that the part of a large map that can be seen is painted right
+     * as it scrolls, with its selection and highlights.
+     */
+    @Test
+    public void testScroll() {
+        System.out.println("scroll");
+        int size = CanvasMapView.kCellSize;
+        map = new Terrain[30][30];
+        for (int row = 0; row < map.length; row++)
+        {
+            for (int col = 0; col < map[row].length; col++)
+            {
+                map[row][col] = new DefaultTerrain(row, col);
+                if ((row + col) % 7 == 0)
+                {
+                    map[row][col].setUnit(new DefaultUnit());
+                }
+            }
+        }
+        view.drawMap(map);
+        view.setSize(view.getPreferredSize());
+        JViewport viewport = new JViewport();
+        viewport.setView(view);
+        viewport.setSize(200, 150);
+        view.setSize(view.getPreferredSize());
+
+        viewport.setViewPosition(new Point(3 * size + 7, 2 * size + 11));
+        checkScreen();
+
+        //Select and highlight cells out of view, then scroll a little, so
+        // the buffer is moved over, and they come into view.
+        view.selectLocation(3, 9);
+        ArrayList<Point> enemies = new ArrayList<Point>();
+        enemies.add(new Point(4, 8));
+        enemies.add(new Point(2, 3));
+        view.addHighlights(enemies);
+        viewport.setViewPosition(new Point(5 * size + 3, 1 * size + 30));
+        checkScreen();
+        viewport.setViewPosition(new Point(2 * size + 1, 2 * size + 2));
+        checkScreen();
+
+        //A unit that moves in view is painted where it went.
+        map[3][4].setUnit(map[0][0].getUnit());
+        map[0][0].setUnit(null);
+        view.drawMap(map);
+        checkScreen();
+
+        //Scroll where none of what was seen can be seen.
+        viewport.setViewPosition(new Point(20 * size, 25 * size));
+        checkScreen();
+    }
+
+    /**
+     * Test that the map is shown right at every zoom level, and keeps its
+     * center in view as it zooms.
+     */
+    @Test
+    public void testZoom() {
+        System.out.println("zoom");
+        map = new Terrain[300][300];
+        for (int row = 0; row < map.length; row++)
+        {
+            for (int col = 0; col < map[row].length; col++)
+            {
+                map[row][col] = new DefaultTerrain(row, col);
+                if ((row * 3 + col) % 11 == 0)
+                {
+                    map[row][col].setUnit(new DefaultUnit());
+                }
+            }
+        }
+        view.drawMap(map);
+        JViewport viewport = new JViewport();
+        viewport.setView(view);
+        viewport.setSize(200, 150);
+        view.setSize(view.getPreferredSize());
+        view.selectLocation(150, 150);
+        viewport.setViewPosition(new Point(150 * CanvasMapView.kCellSize -
+            80, 150 * CanvasMapView.kCellSize - 55));
+        checkScreen();
+
+        //FOR every level, from the largest to the smallest and back
+        for (int step = 1; step < 2 * MapView.kNumZoomLevels - 1; step++)
+        {
+            int level = MapView.kDefaultZoom + 1 - step;
+            if (level < 0)
+            {
+                level = -level;
+            }
+            view.setZoom(level);
+            assertEquals(level, view.getZoom());
+            assertEquals(new Dimension(300 * view.getCellSize(),
+                300 * view.getCellSize()), view.getPreferredSize());
+            checkScreen();
+
+            //The selected cell, at the center, stays in view.
+            Rectangle visible = view.getVisibleRect();
+            Point center = view.getCellAt(new Point(150 * view.getCellSize(),
+                150 * view.getCellSize()));
+            assertEquals(new Point(150, 150), center);
+            assertTrue(visible.contains(150 * view.getCellSize(),
+                150 * view.getCellSize()));
+        }
+
+        //Zooming past the smallest or largest level stays there.
+        view.setZoom(-1);
+        assertEquals(0, view.getZoom());
+        assertEquals(1, view.getImageSize());
+        assertEquals(1, view.getCellSize());
+        view.setZoom(MapView.kNumZoomLevels);
+        assertEquals(MapView.kNumZoomLevels - 1, view.getZoom());
+        assertEquals(2 * MapView.kImageSize + 1, view.getCellSize());
+    }
+
+    /**
+     * Test of scaleTile method, of class MapView.
+     */
+    @Test
+    public void testScaleTile() {
+        System.out.println("scaleTile");
+        BufferedImage image = new BufferedImage(4, 4,
+            BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, 0xFF0000);
+        image.setRGB(1, 0, 0x0000FF);
+        image.setRGB(0, 1, 0x00FF00);
+        image.setRGB(1, 1, 0xFFFFFF);
+
+        //Each pixel made smaller is the average of those it covers.
+        BufferedImage smaller = MapView.scaleTile(image, 2);
+        assertEquals(2, smaller.getWidth());
+        assertEquals(0xFF7F7F7F, smaller.getRGB(0, 0));
+        assertEquals(0xFF000000, smaller.getRGB(1, 1));
+
+        //Each pixel made larger is repeated.
+        BufferedImage larger = MapView.scaleTile(image, 8);
+        assertEquals(8, larger.getHeight());
+        assertEquals(0xFFFF0000, larger.getRGB(1, 1));
+        assertEquals(0xFF0000FF, larger.getRGB(3, 0));
+        assertEquals(0xFFFFFFFF, larger.getRGB(2, 3));
+    }
+
+    /**
+     * Paints the part of the map that can be seen, as the viewport would,
+     * and checks every few pixels are the cell images or the background.
+     */
+    private void checkScreen()
+    {
+        int size = view.getCellSize();
+        Rectangle visible = view.getVisibleRect();
+        BufferedImage screen = new BufferedImage(visible.width,
+            visible.height, BufferedImage.TYPE_INT_RGB);
+        Graphics graphics = screen.getGraphics();
+        graphics.translate(-visible.x, -visible.y);
+        graphics.setClip(visible);
+        view.paint(graphics);
+        graphics.dispose();
+
+        for (int x = 0; x < visible.width; x += 3)
+        {
+            for (int y = 0; y < visible.height; y += 3)
+            {
+                int mapX = visible.x + x;
+                int mapY = visible.y + y;
+                int expected = view.getBackground().getRGB();
+                if (mapX % size < view.getImageSize() &&
+                    mapY % size < view.getImageSize() &&
+                    mapX / size < view.getNumCols() &&
+                    mapY / size < view.getNumRows())
+                {
+                    expected = view.getCellImage(mapY / size, mapX / size)
+                        .getRGB(mapX % size, mapY % size);
+                }
+                assertEquals("at " + mapX + ", " + mapY, expected,
+                    screen.getRGB(x, y));
+            }
+        }
+    }
+
+    private BufferedImage paint()
+    {
+        Dimension size = view.getPreferredSize();
+        BufferedImage screen = new BufferedImage(size.width, size.height,
+            BufferedImage.TYPE_INT_RGB);
+        Graphics graphics = screen.getGraphics();
+        view.paint(graphics);
+        graphics.dispose();
+        return screen;
+    }
+
+    private MouseEvent click(int x, int y)
+    {
+        return new MouseEvent(view, MouseEvent.MOUSE_RELEASED, 0,
+            InputEvent.BUTTON1_MASK, x, y, 1, false, MouseEvent.BUTTON1);
+    }
+
+    /**
+     * A view that remembers the Commands it is given.
+     */
+    private static class ClickView implements I_GameView
+    {
+        private ArrayList<String> commands = new ArrayList<String>();
+
+        public void drawMap()
+        {
+        }
+
+        public BufferedImage getImage(String name)
+        {
+            return null;
+        }
+
+        public void displayBattleSummary(Unit attacker, Unit defender,
+            String summary)
+        {
+        }
+
+        public void displayTerrainSelected(Player currentPlayer)
+        {
+        }
+
+        public void update(Observable obs, Object obj)
+        {
+        }
+
+        public void removeHighlights()
+        {
+        }
+
+        public void acceptAction(String action)
+        {
+        }
+
+        public void acceptCommand(Command<?> command)
+        {
+            commands.add(command.getAction() + " " + command.getX() + " " +
+                command.getY());
+        }
+
+        public JPanel getPanel()
+        {
+            return null;
+        }
+
+        public void displayBackStory(String story)
+        {
+        }
+
+        public void displayGameOver(String winner)
+        {
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package toleco.view.gui;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Random;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author eriq
+ */
+public class ImageAtlasTest {
+
+    private File atlasFile;
+    private File indexFile;
+
+    public ImageAtlasTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        atlasFile = File.createTempFile("atlas", ".png");
+        atlasFile.deleteOnExit();
+        indexFile = File.createTempFile("atlas", ".txt");
+        indexFile.deleteOnExit();
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of pack and read methods, of class ImageAtlas.
+     */
+    @Test
+    public void testPackRead() throws Exception {
+        System.out.println("packRead");
+        HashMap<String, BufferedImage> images =
+            new HashMap<String, BufferedImage>();
+        Random rand = new Random(7);
+
+        //Enough images of two sizes to need more than one shelf.
+        for (int i = 0; i < 20; i++)
+        {
+            int size = i % 2 == 0 ? 40 : 16;
+            BufferedImage image = new BufferedImage(size, size,
+                BufferedImage.TYPE_INT_RGB);
+            for (int x = 0; x < size; x++)
+            {
+                for (int y = 0; y < size; y++)
+                {
+                    image.setRGB(x, y, rand.nextInt());
+                }
+            }
+            images.put("Image" + i, image);
+        }
+
+        ImageAtlas.pack(images, atlasFile, indexFile);
+        HashMap<String, BufferedImage> read =
+            ImageAtlas.read(atlasFile, indexFile);
+
+        //Every image comes back with its own pixels.
+        assertEquals(images.keySet(), read.keySet());
+        for (String name : images.keySet())
+        {
+            BufferedImage image = images.get(name);
+            BufferedImage region = read.get(name);
+            assertEquals(image.getWidth(), region.getWidth());
+            assertEquals(image.getHeight(), region.getHeight());
+            for (int x = 0; x < image.getWidth(); x++)
+            {
+                for (int y = 0; y < image.getHeight(); y++)
+                {
+                    assertEquals(image.getRGB(x, y), region.getRGB(x, y));
+                }
+            }
+        }
+    }
+
+    /**
+     * Test that an index that does not fit its atlas is refused.
+     */
+    @Test
+    public void testBadIndex() throws Exception {
+        System.out.println("badIndex");
+        HashMap<String, BufferedImage> images =
+            new HashMap<String, BufferedImage>();
+        images.put("Plains", new BufferedImage(40, 40,
+            BufferedImage.TYPE_INT_RGB));
+        ImageAtlas.pack(images, atlasFile, indexFile);
+
+        FileWriter index = new FileWriter(indexFile);
+        index.write("Plains 20 20 40 40\n");
+        index.close();
+
+        try
+        {
+            ImageAtlas.read(atlasFile, indexFile);
+            fail("read a region outside the atlas");
+        }
+        catch (IOException e)
+        {
+        }
+    }
+}
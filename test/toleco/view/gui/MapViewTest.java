@@ -10,6 +10,8 @@ import java.awt.image.BufferedImage;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Observable;
+import java.util.Observer;
 import javax.imageio.ImageIO;
 import javax.swing.JFrame;
 import org.junit.After;
@@ -17,6 +19,7 @@ import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import toleco.logic.BoardChange;
 import toleco.logic.GameBoard;
 import toleco.terrain.DefaultTerrain;
 import static org.junit.Assert.*;
@@ -192,6 +195,89 @@ public class MapViewTest {
         view.drawMap(map);
     }
 
+    /**
+     * Test of drawChange method, of class MapView.
+     */
+    @Test
+    public void testDrawChange() throws Exception {
+        System.out.println("drawChange");
+        final GameBoard board = new GameBoard();
+        board.addObserver(new Observer()
+        {
+            public void update(Observable obs, Object obj)
+            {
+                view.drawChange(board, (BoardChange)obj);
+            }
+        });
+        board.loadMap("maps/TestMap.ocem");
+        board.beginChange();
+        board.selectTerrain(0, 0);
+        board.move(1, 0);
+        board.endChange();
+        sleep();
+        //Only the cells the unit moved from and to are repainted.
+    }
+
+    /**
+     * Test that overlayImages lays on every pixel but the transparent color,
+     * whatever kind of image it overlays onto.
+     */
+    @Test
+    public void testOverlayImagesTransparent() {
+        System.out.println("overlayImagesTransparent");
+        int size = MapView.kImageSize;
+        int[] types = {BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB,
+            BufferedImage.TYPE_3BYTE_BGR};
+
+        for (int type : types)
+        {
+            BufferedImage base = new BufferedImage(size, size, type);
+            BufferedImage layer = new BufferedImage(size, size,
+                BufferedImage.TYPE_INT_ARGB);
+            for (int x = 0; x < size; x++)
+            {
+                for (int y = 0; y < size; y++)
+                {
+                    base.setRGB(x, y, 0xFF102030);
+                    layer.setRGB(x, y, x < size / 2 ? MapView.kTransparentColor
+                        : 0xFF405060);
+                }
+            }
+
+            ArrayList<BufferedImage> layers = new ArrayList<BufferedImage>();
+            layers.add(layer);
+            BufferedImage result = view.overlayImages(base, layers);
+            assertSame(base, result);
+            assertEquals(0xFF102030, result.getRGB(0, 0));
+            assertEquals(0xFF102030, result.getRGB(size / 2 - 1, size - 1));
+            assertEquals(0xFF405060, result.getRGB(size / 2, 0));
+            assertEquals(0xFF405060, result.getRGB(size - 1, size - 1));
+        }
+
+        //A GIF is overlaid as it looks.
+        ArrayList<BufferedImage> layers = new ArrayList<BufferedImage>();
+        layers.add(terrainImage);
+        layers.add(unitImage);
+        BufferedImage result = view.overlayImages(new BufferedImage(size, size,
+            BufferedImage.TYPE_INT_RGB), layers);
+        for (int x = 0; x < size; x++)
+        {
+            for (int y = 0; y < size; y++)
+            {
+                int rgb = 0;
+                if (terrainImage.getRGB(x, y) != MapView.kTransparentColor)
+                {
+                    rgb = terrainImage.getRGB(x, y);
+                }
+                if (unitImage.getRGB(x, y) != MapView.kTransparentColor)
+                {
+                    rgb = unitImage.getRGB(x, y);
+                }
+                assertEquals(rgb | 0xFF000000, result.getRGB(x, y));
+            }
+        }
+    }
+
     /**
      * Test of overlayImages method, of class MapView.
      */
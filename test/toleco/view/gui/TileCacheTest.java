@@ -0,0 +1,106 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package toleco.view.gui;
+
+import java.awt.image.BufferedImage;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author eriq
+ */
+public class TileCacheTest {
+
+    private BufferedImage plains;
+    private BufferedImage woods;
+    private BufferedImage unit;
+
+    public TileCacheTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+        plains = new BufferedImage(40, 40, BufferedImage.TYPE_INT_RGB);
+        woods = new BufferedImage(40, 40, BufferedImage.TYPE_INT_RGB);
+        unit = new BufferedImage(40, 40, BufferedImage.TYPE_INT_RGB);
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of get and put methods, of class TileCache.
+     */
+    @Test
+    public void testGetPut() {
+        System.out.println("getPut");
+        TileCache cache = new TileCache(4);
+        BufferedImage tile = new BufferedImage(40, 40,
+            BufferedImage.TYPE_INT_RGB);
+
+        assertNull(cache.get(new TileCache.Key(plains, unit, null, null, 0)));
+        cache.put(new TileCache.Key(plains, unit, null, null, 0), tile);
+
+        //The same images find the tile, any difference does not.
+        assertSame(tile, cache.get(
+            new TileCache.Key(plains, unit, null, null, 0)));
+        assertNull(cache.get(new TileCache.Key(plains, unit, unit, null, 0)));
+        assertNull(cache.get(new TileCache.Key(woods, unit, null, null, 0)));
+        assertNull(cache.get(new TileCache.Key(plains, null, null, null, 0)));
+        assertNull(cache.get(new TileCache.Key(plains, unit, null, null, 1)));
+
+        assertEquals(1, cache.getHits());
+        assertEquals(5, cache.getMisses());
+        assertEquals(1.0 / 6, cache.getHitRate(), 1e-9);
+        assertEquals(1, cache.getSize());
+        assertEquals(40 * 40 * 4, cache.getMemory());
+    }
+
+    /**
+     * Test that the tile used least recently is dropped when the cache is
+     * full.
+     */
+    @Test
+    public void testEviction() {
+        System.out.println("eviction");
+        TileCache cache = new TileCache(2);
+        TileCache.Key first = new TileCache.Key(plains, null, null, null, 0);
+        TileCache.Key second = new TileCache.Key(woods, null, null, null, 0);
+        TileCache.Key third = new TileCache.Key(plains, unit, null, null, 0);
+
+        cache.put(first, new BufferedImage(40, 40, BufferedImage.TYPE_INT_RGB));
+        cache.put(second, new BufferedImage(40, 40, BufferedImage.TYPE_INT_RGB));
+
+        //Using the first makes the second the least recently used.
+        assertNotNull(cache.get(first));
+        cache.put(third, new BufferedImage(40, 40, BufferedImage.TYPE_INT_RGB));
+
+        assertEquals(2, cache.getSize());
+        assertEquals(2 * 40 * 40 * 4, cache.getMemory());
+        assertNotNull(cache.get(first));
+        assertNull(cache.get(second));
+        assertNotNull(cache.get(third));
+
+        cache.clear();
+        assertEquals(0, cache.getSize());
+        assertEquals(0, cache.getMemory());
+        assertEquals(0.0, cache.getHitRate(), 0.0);
+    }
+}